@@ -1005,18 +1005,36 @@ public class BayesPanel
         if (modeMenuChoice.isMarginalPosterior())
         {
             frame.queryOutput("Marginal of " + queriedVariable + "\n");
-            inferenceGraph.printMarginal(pstream,
-                                         queriedVariable,
-                                         frame.isComputingClusters(),
-                                         frame.isBucketTree());
+            if (frame.isBucketTree())
+            {
+                inferenceGraph.printMarginal(pstream,
+                                             queriedVariable,
+                                             frame.isComputingClusters(),
+                                             true);
+            }
+            else
+            {
+                inferenceGraph.getMarginal(queriedVariable,
+                                           frame.isComputingClusters()).
+                        print(pstream);
+            }
         }
         else if (modeMenuChoice.isExpectation())
         {
             frame.queryOutput("Expectation of " + queriedVariable + "\n");
-            inferenceGraph.printExpectation(pstream,
-                                            queriedVariable,
-                                            frame.isComputingClusters(),
-                                            frame.isBucketTree());
+            if (frame.isBucketTree())
+            {
+                inferenceGraph.printExpectation(pstream,
+                                                queriedVariable,
+                                                frame.isComputingClusters(),
+                                                true);
+            }
+            else
+            {
+                inferenceGraph.getExpectation(queriedVariable,
+                                              frame.isComputingClusters()).
+                        print(pstream);
+            }
         }
         else if (modeMenuChoice.usesMarkedVariablesOnly())
         {
@@ -1024,14 +1042,28 @@ public class BayesPanel
                               queriedVariable +
                               " with subset of observed nodes" +
                               "\n");
-            inferenceGraph.printExplanation(pstream, frame.isBucketTree());
+            if (frame.isBucketTree())
+            {
+                inferenceGraph.printExplanation(pstream, true);
+            }
+            else
+            {
+                inferenceGraph.getExplanation().print(pstream);
+            }
         }
         else if (modeMenuChoice.usesAllNotObservedVariables())
         {
             frame.queryOutput("Full explanation of " +
                               queriedVariable +
                               "\n");
-            inferenceGraph.printFullExplanation(pstream, frame.isBucketTree());
+            if (frame.isBucketTree())
+            {
+                inferenceGraph.printFullExplanation(pstream, true);
+            }
+            else
+            {
+                inferenceGraph.getFullExplanation().print(pstream);
+            }
         }
         else if (modeMenuChoice.isSensitivityAnalysis())
         {
@@ -21,12 +21,12 @@
  */
 package BayesianInferences;
 
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
 import BayesianNetworks.ProbabilityVariable;
 import java.util.HashSet;
 import java.util.LinkedList;
-import java.util.Objects;
 import java.util.Queue;
-import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 
@@ -68,60 +68,22 @@ public class BayesBall
     {
     }
 
+    /**
+     * A scheduled visit of a node, from one of its children or from one of
+     * its parents.
+     */
     static private class ScheduleItem
     {
 
-        @Override
-        public int hashCode()
-        {
-            int hash = 7;
-            hash = 13 * hash + Objects.hashCode(this.probVar);
-            return hash;
-        }
+        final int varIndex;
+        final boolean fromChild;
 
-        @Override
-        public boolean equals(Object obj)
+        ScheduleItem(int varIndex, boolean fromChild)
         {
-            if (obj == null)
-            {
-                return false;
-            }
-            if (getClass() != obj.getClass())
-            {
-                return false;
-            }
-            final ScheduleItem other = (ScheduleItem) obj;
-            return Objects.equals(this.probVar, other.probVar);
-        }
-
-        ScheduleItem(ProbabilityVariable probVar,
-                     boolean fromChild,
-                     boolean fromParent)
-        {
-            this.probVar = probVar;
+            this.varIndex = varIndex;
             this.fromChild = fromChild;
-            this.fromParent = fromParent;
-            this.visited = false;
-            this.top = false;
-            this.bottom = false;
         }
-
-        boolean fromChild()
-        {
-            return fromChild;
-        }
-
-        boolean fromParent()
-        {
-            return fromParent;
-        }
-        ProbabilityVariable probVar;
-        boolean fromParent = false;
-        boolean fromChild = false;
-        boolean visited = false;
-        boolean top = false;
-        boolean bottom = false;
-    };
+    }
 
     static public class ResultType
     {
@@ -221,164 +183,143 @@ public class BayesBall
     static public ResultType run(TreeSet<ProbabilityVariable> eventVars, // X_J
                                  TreeSet<ProbabilityVariable> condVars) // X_K
     {
+        ResultType reval = new ResultType();
+        if (eventVars.isEmpty())
+        {
+            return reval;
+        }
+        BayesNet bayesNet = eventVars.first().getBayesNet();
+        ProbabilityVariable probVars[] = bayesNet.getProbabilityVariables();
+        int n = probVars.length;
+        int parents[][] = new int[n][0];
+        int numberOfChildren[] = new int[n];
+        for (ProbabilityFunction probFunc : bayesNet.getProbabilityFunctions())
+        {
+            int child = probFunc.getIndex(0);
+            parents[child] = new int[probFunc.numberVariables() - 1];
+            for (int i = 1; i < probFunc.numberVariables(); i++)
+            {
+                parents[child][i - 1] = probFunc.getIndex(i);
+                numberOfChildren[probFunc.getIndex(i)]++;
+            }
+        }
+        int children[][] = new int[n][];
+        for (int i = 0; i < n; i++)
+        {
+            children[i] = new int[numberOfChildren[i]];
+            numberOfChildren[i] = 0;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            for (int parent : parents[i])
+            {
+                children[parent][numberOfChildren[parent]++] = i;
+            }
+        }
+        boolean inK[] = new boolean[n];
+        for (ProbabilityVariable condVar : condVars)
+        {
+            inK[condVar.getIndex()] = true;
+        }
 
-        TreeMap<String, ScheduleItem> itemMap = new TreeMap<>();
+        // 1. Initialise all nodes as neither visited, nor marked on the top,
+        //    nor marked on the bottom.
+        boolean visited[] = new boolean[n];
+        boolean top[] = new boolean[n];
+        boolean bottom[] = new boolean[n];
 
-        // 1. Initialise all nodes as neither visited, nor marked on the top, nor
-        //    marked on the bottom.
-        // 2. Create a schedule of nodes to be visited, initialised with each node
-        //    in J to be visited as if from one of its children. (all nodes in J)
-        Queue<ScheduleItem> theQueue = new LinkedList<>();
+        // 2. Create a schedule of nodes to be visited, initialised with each
+        //    node in J to be visited as if from one of its children.
+        Queue<ScheduleItem> schedule = new LinkedList<>();
         for (ProbabilityVariable evtVar : eventVars)
         {
-            ScheduleItem item = new ScheduleItem(evtVar, true, false);
-            itemMap.put(evtVar.getName(), item);
-            theQueue.add(item);
+            schedule.add(new ScheduleItem(evtVar.getIndex(), true));
         }
 
         // 3. While there are still nodes scheduled to be visited:
-        while (theQueue.size() > 0)
+        while (!schedule.isEmpty())
         {
-            // a. Pick any node j scheduled to be visited and remove it from the
-            //    schedule. Either j was scheduled for a visit from a parent, a
-            //    visit from a child, or both.
-            ScheduleItem j_item = theQueue.remove();
+            // a. Pick any node j scheduled to be visited and remove it from
+            //    the schedule.
+            ScheduleItem item = schedule.remove();
+            int j = item.varIndex;
 
             // b. Mark j as visited.
-            j_item.visited = true;
+            visited[j] = true;
 
-            // c. If j not in K  and the visit to j is from a child:
-            if (!condVars.contains(j_item.probVar) && j_item.fromChild)
+            // c. If j not in K and the visit to j is from a child:
+            if (!inK[j] && item.fromChild)
             {
                 // i. if the top of j is not marked, then mark its top and
                 //    schedule each of its parents to be visited
-                if (!j_item.top)
+                if (!top[j])
                 {
-                    j_item.top = true;
-                    TreeSet<ProbabilityVariable> parents = j_item.probVar.
-                                                 getParents();
-                    for (ProbabilityVariable parent : parents)
+                    top[j] = true;
+                    for (int parent : parents[j])
                     {
-                        if (!itemMap.containsKey(parent.getName()))
-                        {
-                            ScheduleItem parentItem = new ScheduleItem(parent,
-                                                                       true,
-                                                                       false);
-                            theQueue.add(parentItem);
-                            itemMap.put(parentItem.probVar.getName(),
-                                        parentItem);
-                        }
-                        else
-                        {
-                            itemMap.get(parent.getName()).fromChild = true;
-                        }
+                        schedule.add(new ScheduleItem(parent, true));
                     }
                 }
-                // ii. if j not in F and the bottom of j is not marked, then mark
-                //     its bottom and schedule each of its children to be visited.
-                //     (we do not have F here!)
-                if (!j_item.bottom)
+                // ii. if j not in F and the bottom of j is not marked, then
+                //     mark its bottom and schedule each of its children to be
+                //     visited (there are no functional nodes F here)
+                if (!bottom[j])
                 {
-                    j_item.bottom = true;
-                    TreeSet<ProbabilityVariable> children = j_item.probVar.
-                                                 getChildren();
-                    for (ProbabilityVariable child : children)
+                    bottom[j] = true;
+                    for (int child : children[j])
                     {
-                        if (!itemMap.containsKey(child.getName()))
-                        {
-                            ScheduleItem childItem = new ScheduleItem(child,
-                                                                      true,
-                                                                      false);
-                            theQueue.add(childItem);
-                            itemMap.put(childItem.probVar.getName(), childItem);
-                        }
-                        else
-                        {
-                            itemMap.get(child.getName()).fromParent = true;
-                        }
+                        schedule.add(new ScheduleItem(child, false));
                     }
                 }
             }
             // d. If the visit to j is from a parent:
-            if (j_item.fromParent)
+            if (!item.fromChild)
             {
-                // i. If j in K and the top of j is not marked, then mark its top
-                //    and schedule each of its parents to be visited;
-                if (condVars.contains(j_item.probVar) && !j_item.top)
+                // i. If j in K and the top of j is not marked, then mark its
+                //    top and schedule each of its parents to be visited;
+                if (inK[j] && !top[j])
                 {
-                    j_item.top = true;
-                    TreeSet<ProbabilityVariable> parents = j_item.probVar.
-                                                 getParents();
-                    for (ProbabilityVariable parent : parents)
+                    top[j] = true;
+                    for (int parent : parents[j])
                     {
-                        if (!itemMap.containsKey(parent.getName()))
-                        {
-                            ScheduleItem parentItem = new ScheduleItem(parent,
-                                                                       true,
-                                                                       false);
-                            theQueue.add(parentItem);
-                            itemMap.
-                                    put(parentItem.probVar.getName(), parentItem);
-                        }
-                        else
-                        {
-                            itemMap.get(parent.getName()).fromChild = true;
-                        }
+                        schedule.add(new ScheduleItem(parent, true));
                     }
                 }
-                // ii. if j not in K and the bottom of j is not marked, then mark
-                //     its bottom and schedule each of its children to be visited.
-                if (!condVars.contains(j_item.probVar) && !j_item.bottom)
+                // ii. if j not in K and the bottom of j is not marked, then
+                //     mark its bottom and schedule each of its children to be
+                //     visited.
+                if (!inK[j] && !bottom[j])
                 {
-                    j_item.bottom = true;
-                    j_item.bottom = true;
-                    TreeSet<ProbabilityVariable> children = j_item.probVar.
-                                                 getChildren();
-                    for (ProbabilityVariable child : children)
+                    bottom[j] = true;
+                    for (int child : children[j])
                     {
-                        if (!itemMap.containsKey(child.getName()))
-                        {
-                            ScheduleItem childItem = new ScheduleItem(child,
-                                                                      true,
-                                                                      false);
-                            theQueue.add(childItem);
-                            itemMap.put(childItem.probVar.getName(), childItem);
-                        }
-                        else
-                        {
-                            itemMap.get(child.getName()).fromParent = true;
-                        }
+                        schedule.add(new ScheduleItem(child, false));
                     }
                 }
             }
         }
 
-        ResultType reval = new ResultType();
-
-        for (ScheduleItem processedItem : itemMap.values())
+        for (int i = 0; i < n; i++)
         {
             // 4. The irrelevant nodes, Ni(J|K), are those nodes not marked on
             //    the bottom.
-            if (processedItem.bottom)
+            if (!bottom[i])
             {
-                reval.irrelevantNodes.add(processedItem.probVar);
+                reval.irrelevantNodes.add(probVars[i]);
             }
-
             // 5. The requisite probability nodes, Np(J|K), are those nodes
             //    marked on top.
-            else if (processedItem.top)
+            if (top[i])
             {
-                reval.requisiteProbability.add(processedItem.probVar);
+                reval.requisiteProbability.add(probVars[i]);
             }
-
             // 6. The requisite observation nodes, Ne(J|K), are those nodes in
             //    K marked as visited.
-            else if (processedItem.visited)
+            if (inK[i] && visited[i])
             {
-                reval.requisiteObservation.add(processedItem.probVar);
+                reval.requisiteObservation.add(probVars[i]);
             }
         }
-
         return reval;
     }
 
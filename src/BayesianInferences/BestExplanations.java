@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+/**
+ * Best-first search for the k most probable explanations in a reduced
+ * BucketTree.
+ *
+ * The explanation variables are assigned in reverse elimination order. The
+ * functions in the bucket of a variable only involve the variable and
+ * variables eliminated later, so they can be evaluated as soon as the
+ * variable is assigned. The separator a maximising bucket sends is the
+ * exact maximum of its functions over the bucket variable, hence the score
+ * of a partial assignment, the best score of any of its completions, is
+ * updated by the ratio of the bucket product for a value to the bucket
+ * product of the best value. Nodes are expanded best first, so complete
+ * assignments leave the queue in order of decreasing score and the search
+ * stops after k of them.
+ *
+ * With MARKED_VARIABLES_ONLY the summed variables are eliminated first, so
+ * the same search yields the k best MAP assignments of the marked
+ * variables.
+ *
+ * @author Dieter J Kybelksties
+ */
+class BestExplanations
+{
+
+    private static final Class CLAZZ = BestExplanations.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final BayesNet bayesNet;
+    private final ProbabilityVariable probVars[];
+    private final Bucket searchBuckets[];
+    private final int valueIndexes[];
+    private final double rootScore;
+    private long sequence;
+
+    /**
+     * Prepare the search in a BucketTree.
+     *
+     * @param bucketTree the reduced bucket tree of an explanation
+     * @param rootScore  the score of the best explanation, the maximal value
+     *                   of the unnormalized result of the bucket tree
+     */
+    BestExplanations(BucketTree bucketTree, double rootScore)
+    {
+        this.rootScore = rootScore;
+        bayesNet = bucketTree.bayesNet;
+        probVars = bayesNet.getProbabilityVariables();
+
+        // The searched buckets are the trailing explanation buckets of
+        // variables that are not observed, last bucket first
+        ArrayList<Bucket> buckets = new ArrayList<>();
+        for (int i = bucketTree.bucketTree.length - 1; i >= 0; i--)
+        {
+            Bucket bucket = bucketTree.bucketTree[i];
+            if (!bucket.isExplanation() || bucket.probVar.isObserved())
+            {
+                break;
+            }
+            buckets.add(bucket);
+        }
+        searchBuckets = buckets.toArray(new Bucket[buckets.size()]);
+
+        valueIndexes = new int[probVars.length];
+        for (int i = 0; i < probVars.length; i++)
+        {
+            valueIndexes[i] = probVars[i].isObserved() ?
+                              probVars[i].getObservedIndex() :
+                              BayesNet.INVALID_INDEX;
+        }
+    }
+
+    /**
+     * Find the k best explanations.
+     *
+     * @param k the number of explanations wanted
+     * @return at most k explanations in order of decreasing score; fewer if
+     *         there are fewer assignments
+     */
+    ArrayList<ExplanationResult> search(int k)
+    {
+        ArrayList<ExplanationResult> explanations = new ArrayList<>();
+        if (k < 1 || searchBuckets.length == 0)
+        {
+            return explanations;
+        }
+        PriorityQueue<Node> open = new PriorityQueue<>(
+                            Math.max(11, 2 * k),
+                            new Comparator<Node>()
+                            {
+                                @Override
+                                public int compare(Node n1, Node n2)
+                                {
+                                    int c = Double.compare(n2.score,
+                                                           n1.score);
+                                    return c != 0 ?
+                                           c :
+                                           Long.compare(n1.sequence,
+                                                        n2.sequence);
+                                }
+                            });
+        open.add(new Node(null, BayesNet.INVALID_INDEX, 0, rootScore));
+        while (!open.isEmpty() && explanations.size() < k)
+        {
+            Node node = open.poll();
+            if (node.depth == searchBuckets.length)
+            {
+                explanations.add(new ExplanationResult(bayesNet,
+                                                       assignmentOf(node),
+                                                       node.score));
+            }
+            else
+            {
+                expand(node, open);
+            }
+        }
+        return explanations;
+    }
+
+    /**
+     * Add the children of a node, one per value of the next variable.
+     */
+    private void expand(Node node, PriorityQueue<Node> open)
+    {
+        assign(node);
+        Bucket bucket = searchBuckets[node.depth];
+        int varIndex = bucket.probVar.getIndex();
+        double products[] = new double[bucket.probVar.numberValues()];
+        double maximum = 0.0;
+        for (int v = 0; v < products.length; v++)
+        {
+            valueIndexes[varIndex] = v;
+            double product = 1.0;
+            for (DiscreteFunction discrFunc : bucket.discreteFunctions)
+            {
+                product *= discrFunc.evaluate(probVars, valueIndexes);
+            }
+            products[v] = product;
+            maximum = Math.max(maximum, product);
+        }
+        for (int v = 0; v < products.length; v++)
+        {
+            double score = maximum > 0.0 ?
+                           node.score * (products[v] / maximum) :
+                           0.0;
+            open.add(new Node(node, v, node.depth + 1, score));
+        }
+    }
+
+    /**
+     * Write the assignment of a node into the value indexes.
+     */
+    private void assign(Node node)
+    {
+        for (Bucket bucket : searchBuckets)
+        {
+            valueIndexes[bucket.probVar.getIndex()] = BayesNet.INVALID_INDEX;
+        }
+        for (Node n = node; n.parent != null; n = n.parent)
+        {
+            int varIndex = searchBuckets[n.depth - 1].probVar.getIndex();
+            valueIndexes[varIndex] = n.value;
+        }
+    }
+
+    /**
+     * The assignment of a complete node, with INVALID_INDEX for variables
+     * that are not explained.
+     */
+    private int[] assignmentOf(Node node)
+    {
+        int assignment[] = new int[probVars.length];
+        for (int i = 0; i < assignment.length; i++)
+        {
+            assignment[i] = BayesNet.INVALID_INDEX;
+        }
+        for (Node n = node; n.parent != null; n = n.parent)
+        {
+            assignment[searchBuckets[n.depth - 1].probVar.getIndex()] =
+            n.value;
+        }
+        return assignment;
+    }
+
+    /**
+     * A partial assignment: the value of the variable of the bucket at depth
+     * - 1 and a link to the assignment of the buckets before.
+     */
+    private class Node
+    {
+
+        final Node parent;
+        final int value;
+        final int depth;
+        final double score;
+        final long sequence;
+
+        Node(Node parent, int value, int depth, double score)
+        {
+            this.parent = parent;
+            this.value = value;
+            this.depth = depth;
+            this.score = score;
+            this.sequence = BestExplanations.this.sequence++;
+        }
+    }
+}
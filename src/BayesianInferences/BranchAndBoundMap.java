@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Anytime branch and bound solver for MAP queries: the assignment of the
+ * marked explanation variables that are not observed with maximal joint
+ * probability with the evidence, all other variables summed out.
+ *
+ * The search assigns the MAP variables depth first, most connected first.
+ * The children of a node are bounded from above by mini-bucket elimination
+ * over the network restricted to the evidence and the partial assignment,
+ * visited best bound first and pruned if their bound does not exceed the
+ * best assignment found so far. Complete assignments are scored exactly by
+ * variable elimination without i-bound. Variables that are neither
+ * ancestors of the evidence nor of the MAP variables are barren and are
+ * left out.
+ *
+ * The first assignment is found after a single dive; every better one is
+ * kept in the list of improvements. When the time budget is exhausted the
+ * best assignment so far is returned.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class BranchAndBoundMap
+{
+
+    private static final Class CLAZZ = BranchAndBoundMap.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final BayesNet bayesNet;
+    private final MiniBucketElimination heuristic;
+    private final MiniBucketElimination exact;
+    private final int mapVariables[];
+    private final boolean isMaxVariable[];
+    private final int assignment[];
+
+    private int bestAssignment[];
+    private double bestScore;
+    private ArrayList<ExplanationResult> improvements;
+    private long deadline;
+    private boolean isOptimal;
+    private long numberOfNodes;
+
+    /**
+     * Constructor for a BranchAndBoundMap. The MAP variables and the
+     * evidence are taken from the network when the solver is created.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @param iBound   maximal number of variables in a mini-bucket of the
+     *                 heuristic
+     */
+    public BranchAndBoundMap(BayesNet bayesNet, int iBound)
+    {
+        this.bayesNet = bayesNet;
+        int n = bayesNet.numberVariables();
+        isMaxVariable = new boolean[n];
+        assignment = new int[n];
+        int degree[] = new int[n];
+        boolean isRelevant[] = new boolean[n];
+        for (int i = 0; i < n; i++)
+        {
+            ProbabilityVariable probVar = bayesNet.getProbabilityVariable(i);
+            if (probVar.isObserved())
+            {
+                assignment[i] = probVar.getObservedIndex();
+                isRelevant[i] = true;
+            }
+            else
+            {
+                assignment[i] = BayesNet.INVALID_INDEX;
+                isMaxVariable[i] = probVar.isExplanation();
+                isRelevant[i] = isMaxVariable[i];
+            }
+        }
+
+        // Keep the ancestors of the evidence and the MAP variables
+        DiscreteFunction functions[] =
+                         MiniBucketElimination.ancestralFunctions(bayesNet,
+                                                                  isRelevant);
+        for (DiscreteFunction discrFunc : functions)
+        {
+            for (int i = 0; i < discrFunc.numberVariables(); i++)
+            {
+                degree[discrFunc.getIndex(i)] +=
+                discrFunc.numberVariables() - 1;
+            }
+        }
+        heuristic = new MiniBucketElimination(bayesNet, functions, iBound);
+        exact = new MiniBucketElimination(bayesNet,
+                                          functions,
+                                          Integer.MAX_VALUE);
+
+        // Search the MAP variables with most neighbours first
+        ArrayList<Integer> mapVars = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+        {
+            if (isMaxVariable[i])
+            {
+                int p = mapVars.size();
+                while (p > 0 && degree[mapVars.get(p - 1)] < degree[i])
+                {
+                    p--;
+                }
+                mapVars.add(p, i);
+            }
+        }
+        mapVariables = new int[mapVars.size()];
+        for (int i = 0; i < mapVariables.length; i++)
+        {
+            mapVariables[i] = mapVars.get(i);
+        }
+    }
+
+    /**
+     * Search for the MAP assignment.
+     *
+     * @param timeBudgetMillis time budget in milliseconds; 0 or less for no
+     *                         limit
+     * @return the best assignment found, with its joint probability with
+     *         the evidence as score
+     */
+    public ExplanationResult solve(long timeBudgetMillis)
+    {
+        deadline = timeBudgetMillis > 0 ?
+                   System.nanoTime() + timeBudgetMillis * 1000000L :
+                   Long.MAX_VALUE;
+        bestAssignment = null;
+        bestScore = -1.0;
+        improvements = new ArrayList<>();
+        numberOfNodes = 0;
+        isOptimal = search(0);
+        return improvements.get(improvements.size() - 1);
+    }
+
+    /**
+     * Search the subtree below the assignment of the first depth MAP
+     * variables.
+     *
+     * @return true if the subtree was searched completely, false if the
+     *         time ran out
+     */
+    private boolean search(int depth)
+    {
+        numberOfNodes++;
+        if (depth == mapVariables.length)
+        {
+            double score = exact.bound(assignment, isMaxVariable, true);
+            if (bestAssignment == null || score > bestScore)
+            {
+                record(score);
+            }
+            return true;
+        }
+
+        int varIndex = mapVariables[depth];
+        int numberOfValues = bayesNet.getProbabilityVariable(varIndex).
+                numberValues();
+        double bounds[] = new double[numberOfValues];
+        int values[] = new int[numberOfValues];
+        for (int v = 0; v < numberOfValues; v++)
+        {
+            assignment[varIndex] = v;
+            bounds[v] = heuristic.bound(assignment, isMaxVariable, true);
+            // Insert v into the values sorted by decreasing bound
+            int p = v;
+            while (p > 0 && bounds[values[p - 1]] < bounds[v])
+            {
+                values[p] = values[p - 1];
+                p--;
+            }
+            values[p] = v;
+        }
+
+        boolean isComplete = true;
+        for (int v : values)
+        {
+            if (bestAssignment != null)
+            {
+                if (bounds[v] <= bestScore)
+                {
+                    break;
+                }
+                if (System.nanoTime() > deadline)
+                {
+                    isComplete = false;
+                    break;
+                }
+            }
+            assignment[varIndex] = v;
+            isComplete &= search(depth + 1);
+        }
+        assignment[varIndex] = BayesNet.INVALID_INDEX;
+        return isComplete;
+    }
+
+    private void record(double score)
+    {
+        bestScore = score;
+        bestAssignment = new int[assignment.length];
+        for (int i = 0; i < assignment.length; i++)
+        {
+            bestAssignment[i] = isMaxVariable[i] ?
+                                assignment[i] :
+                                BayesNet.INVALID_INDEX;
+        }
+        improvements.add(new ExplanationResult(bayesNet,
+                                               bestAssignment,
+                                               bestScore));
+    }
+
+    /**
+     * Check whether the last search finished within its time budget, so the
+     * assignment is a MAP assignment.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isOptimal()
+    {
+        return isOptimal;
+    }
+
+    /**
+     * Get the assignments of the last search in the order they were found,
+     * each better than the one before.
+     *
+     * @return the improvements
+     */
+    public ArrayList<ExplanationResult> getImprovements()
+    {
+        return improvements;
+    }
+
+    /**
+     * Get the number of search nodes visited by the last search.
+     *
+     * @return the number of nodes
+     */
+    public long getNumberOfNodes()
+    {
+        return numberOfNodes;
+    }
+}
@@ -223,6 +223,26 @@ class Bucket
         bucketStatus = Type.REDUCED;
         // Set the separatorFunc.
         separatorFunc = newDf;
+
+        // Each entry of the combined table costs one multiplication per
+        // function plus the summation or comparison.
+        long tableSize = (long) newDf.numberValues() * probVar.numberValues();
+        long allocatedValues = newDf.numberValues();
+        if (clusterFunc != null)
+        {
+            allocatedValues += clusterFunc.numberValues();
+        }
+        if (backwardPointers != null)
+        {
+            allocatedValues += backwardPointers.numberValues();
+        }
+        bucketTree.profile.recordBucket(probVar.getName(),
+                                        orderedDfs.length,
+                                        tableSize,
+                                        tableSize * (orderedDfs.length + 1),
+                                        allocatedValues *
+                                        InferenceProfile.BYTES_PER_VALUE,
+                                        isExplanation());
     }
 
     /**
@@ -321,6 +341,14 @@ class Bucket
             clusterFunc = newDf;
         }
 
+        bucketTree.profile.recordBucket(probVar.getName(),
+                                        orderedDfs.length,
+                                        newDf.numberValues(),
+                                        (long) newDf.numberValues() *
+                                        orderedDfs.length,
+                                        (long) newDf.numberValues() *
+                                        InferenceProfile.BYTES_PER_VALUE,
+                                        isExplanation());
         return newDf;
     }
 
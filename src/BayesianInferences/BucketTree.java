@@ -60,6 +60,9 @@ public class BucketTree
     ExplanationType explanationStatus;
     boolean isProducingClusters;
 
+    // Profile that records the phases and bucket statistics.
+    InferenceProfile profile;
+
     private int activeBucket;
 
     /**
@@ -82,6 +85,23 @@ public class BucketTree
      *                            otherwise
      */
     public BucketTree(Ordering ordering, boolean isProducingClusters)
+    {
+        this(ordering, isProducingClusters, InferenceProfile.DISABLED);
+    }
+
+    /**
+     * Constructor for BucketTree that records evidence absorption, bucket
+     * reduction, distribution and normalization in a profile.
+     *
+     * @param ordering            indicates which heuristic to use in the
+     *                            elimination
+     * @param isProducingClusters true, if clusters should be produced, false
+     *                            otherwise
+     * @param profile             the profile of the query
+     */
+    public BucketTree(Ordering ordering,
+                      boolean isProducingClusters,
+                      InferenceProfile profile)
     {
         int i, j, markers[];
         ProbabilityFunction probFunc;
@@ -92,6 +112,7 @@ public class BucketTree
 
         this.isProducingClusters = isProducingClusters;
         this.ordering = ordering;
+        this.profile = profile;
 
         // Collect information from the Ordering object.
         bayesNet = this.ordering.bayesNet;
@@ -132,6 +153,7 @@ public class BucketTree
                 markers[bayesNet.indexOfVariable(order[i])] = 1;
             }
             // Now insert functions that are marked and non-null.
+            profile.start(InferenceProfile.Phase.EVIDENCE);
             for (i = 0; i < bayesNet.numberProbabilityFunctions(); i++)
             {
                 if (markers[bayesNet.getProbabilityFunction(i).getIndex(0)] == 1)
@@ -145,6 +167,7 @@ public class BucketTree
                     }
                 }
             }
+            profile.stop(InferenceProfile.Phase.EVIDENCE);
             // Insert the utilityFunction.
             ut = bayesNet.getUtilityFunction();
             if (ut != null)
@@ -336,6 +359,7 @@ public class BucketTree
     public void reduce()
     {
         int i;
+        profile.start(InferenceProfile.Phase.REDUCTION);
         // Reduce all Bucket objects.
         for (i = 0; i < (bucketTree.length - 1); i++)
         {
@@ -349,6 +373,7 @@ public class BucketTree
         bucketTree[i].bucketStatus = Bucket.Type.DISTRIBUTED;
         // Generate the backwardPointers if necessary.
         backwardPointers = backwardMaximization();
+        profile.stop(InferenceProfile.Phase.REDUCTION);
     }
 
     /**
@@ -385,6 +410,7 @@ public class BucketTree
 
         // Go through the Bucket objects, from bottom to top,
         // to compute the new separatorFunc and clusterFunc for each bucket.
+        profile.start(InferenceProfile.Phase.DISTRIBUTION);
         for (i = (last - 1); i >= 0; i--)
         { // Start from (last-1); last does not have child.
             // Check whether the Bucket has any valid content.
@@ -448,6 +474,7 @@ public class BucketTree
             // Mark the Bucket as DISTRIBUTED.
             bucketTree[i].bucketStatus = Bucket.Type.DISTRIBUTED;
         }
+        profile.stop(InferenceProfile.Phase.DISTRIBUTION);
         // Indicate success.
         return true;
     }
@@ -633,9 +660,11 @@ public class BucketTree
      */
     public ProbabilityFunction getNormalizedResult()
     {
+        profile.start(InferenceProfile.Phase.NORMALIZATION);
         ProbabilityFunction auxProbFunc =
                             new ProbabilityFunction(unnormalizedResult, bayesNet);
         auxProbFunc.normalize();
+        profile.stop(InferenceProfile.Phase.NORMALIZATION);
         return auxProbFunc;
     }
 
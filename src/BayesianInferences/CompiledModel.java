@@ -0,0 +1,490 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import CredalSets.VertexSet;
+import QuasiBayesianNetworks.QuasiBayesNet;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.logging.Logger;
+
+/**
+ * The evidence independent part of the inferences on a network, computed
+ * once and saved to disk so that a service can start answering queries
+ * without recomputing it:
+ * <ol>
+ * <li> for every variable the heuristic elimination order used to compute
+ * its marginal without evidence;</li>
+ * <li> for every variable the marginal (or its bounds, for credal networks)
+ * without evidence.</li>
+ * </ol>
+ * An elimination order computed without evidence remains valid for evidence
+ * on the variables it contains, because evidence on ancestors of the queried
+ * variable does not make any other variable relevant. A compiled model is
+ * tied to its network by a fingerprint of the network, so that a snapshot
+ * of an older version of the network is rejected.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class CompiledModel
+{
+
+    private static final Class CLAZZ = CompiledModel.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * First four bytes of a saved compiled model: 0x89 followed by "JBC".
+     */
+    public static final int MAGIC = 0x894A4243;
+
+    /**
+     * Version of the saved format.
+     */
+    public static final int VERSION = 1;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long fingerprint;
+    private final String variableNames[];
+    private final HashMap<String, Integer> variableIndexes;
+    private final String orders[][];
+    private final double probabilities[][];
+    private final double lowerProbabilities[][];
+    private final double upperProbabilities[][];
+
+    private CompiledModel(long fingerprint,
+                          String variableNames[],
+                          String orders[][],
+                          double probabilities[][],
+                          double lowerProbabilities[][],
+                          double upperProbabilities[][])
+    {
+        this.fingerprint = fingerprint;
+        this.variableNames = variableNames;
+        this.orders = orders;
+        this.probabilities = probabilities;
+        this.lowerProbabilities = lowerProbabilities;
+        this.upperProbabilities = upperProbabilities;
+        variableIndexes = new HashMap<>();
+        for (int i = 0; i < variableNames.length; i++)
+        {
+            variableIndexes.put(variableNames[i], i);
+        }
+    }
+
+    /**
+     * Compile the network of an Inference. The marginals are computed by the
+     * given Inference, so a QBInference yields bounds for credal networks.
+     * The evidence of the network is removed during compilation and restored
+     * afterwards.
+     *
+     * @param inference the inference to use; it should produce clusters,
+     *                  so that all marginals come from one bucket tree
+     * @return the compiled model
+     */
+    public static CompiledModel compile(Inference inference)
+    {
+        BayesNet bayesNet = inference.getBayesNet();
+        int n = bayesNet.numberVariables();
+        int observed[] = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            observed[i] = bayesNet.getProbabilityVariable(i).getObservedIndex();
+            bayesNet.getProbabilityVariable(i).setInvalidObservedIndex();
+        }
+        try
+        {
+            String names[] = new String[n];
+            String orders[][] = new String[n][];
+            double probabilities[][] = new double[n][];
+            double lower[][] = new double[n][];
+            double upper[][] = new double[n][];
+            for (int i = 0; i < n; i++)
+            {
+                names[i] = bayesNet.getProbabilityVariable(i).getName();
+                orders[i] = new Ordering(bayesNet,
+                                         names[i],
+                                         ExplanationType.IGNORE,
+                                         Ordering.Type.MINIMUM_WEIGHT).order;
+                inference.inference(names[i]);
+                MarginalResult marginal = inference.getMarginalResult();
+                probabilities[i] = marginal.getProbabilities();
+                lower[i] = marginal.getLowerProbabilities();
+                upper[i] = marginal.getUpperProbabilities();
+            }
+            return new CompiledModel(fingerprint(bayesNet),
+                                     names,
+                                     orders,
+                                     probabilities,
+                                     lower,
+                                     upper);
+        }
+        finally
+        {
+            for (int i = 0; i < n; i++)
+            {
+                ProbabilityVariable probVar =
+                                    bayesNet.getProbabilityVariable(i);
+                if (observed[i] != BayesNet.INVALID_INDEX)
+                {
+                    probVar.setObservedValue(probVar.getValue(observed[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute a fingerprint of a network from its variables, the structure
+     * and values of its functions and, for Quasi-Bayesian networks, its
+     * global neighbourhood.
+     *
+     * @param bayesNet the network
+     * @return the fingerprint
+     */
+    public static long fingerprint(BayesNet bayesNet)
+    {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < bayesNet.numberVariables(); i++)
+        {
+            ProbabilityVariable probVar = bayesNet.getProbabilityVariable(i);
+            hash = hash(hash, probVar.getName());
+            for (int j = 0; j < probVar.numberValues(); j++)
+            {
+                hash = hash(hash, probVar.getValue(j));
+            }
+        }
+        for (int i = 0; i < bayesNet.numberProbabilityFunctions(); i++)
+        {
+            ProbabilityFunction probFunc = bayesNet.getFunction(i);
+            for (int j = 0; j < probFunc.numberVariables(); j++)
+            {
+                hash = hash(hash, probFunc.getIndex(j));
+            }
+            hash = hash(hash, probFunc.getValues());
+            if (probFunc instanceof VertexSet &&
+                ((VertexSet) probFunc).getExtremePoints() != null)
+            {
+                for (double extremePoint[] :
+                     ((VertexSet) probFunc).getExtremePoints())
+                {
+                    hash = hash(hash, extremePoint);
+                }
+            }
+        }
+        if (bayesNet instanceof QuasiBayesNet)
+        {
+            QuasiBayesNet qbn = (QuasiBayesNet) bayesNet;
+            hash = hash(hash, qbn.getGlobalNeighborhoodType().toString());
+            hash = hash(hash, Double.doubleToLongBits(
+                        qbn.getGlobalNeighborhoodParameter()));
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, long value)
+    {
+        for (int i = 0; i < 8; i++)
+        {
+            hash = (hash ^ (value & 0xFF)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String str)
+    {
+        for (int i = 0; i < str.length(); i++)
+        {
+            hash = (hash ^ str.charAt(i)) * FNV_PRIME;
+        }
+        // Terminate the string so that "ab","c" differs from "a","bc"
+        return (hash ^ 0xFFFF) * FNV_PRIME;
+    }
+
+    private static long hash(long hash, double values[])
+    {
+        for (double value : values)
+        {
+            hash = hash(hash, Double.doubleToLongBits(value));
+        }
+        return hash;
+    }
+
+    /**
+     * Check whether the model was compiled from a network equal to the given
+     * one.
+     *
+     * @param bayesNet the network
+     * @return true if so, false otherwise
+     */
+    public boolean matches(BayesNet bayesNet)
+    {
+        return fingerprint == fingerprint(bayesNet);
+    }
+
+    /**
+     * Get the fingerprint of the network the model was compiled from.
+     *
+     * @return the fingerprint
+     */
+    public long getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Get the compiled elimination order for a queried variable, if it can
+     * be used with the current evidence of a network: the queried variable
+     * must not be observed and all observed variables must be part of the
+     * order.
+     *
+     * @param bayesNet            a network equal to the compiled one
+     * @param queriedVariableName name of the variable to query
+     * @return the order, or null if the order has to be recomputed
+     */
+    public String[] getOrder(BayesNet bayesNet, String queriedVariableName)
+    {
+        Integer index = variableIndexes.get(queriedVariableName);
+        if (index == null ||
+            bayesNet.getProbabilityVariable(index).isObserved())
+        {
+            return null;
+        }
+        String order[] = orders[index];
+        for (int i = 0; i < bayesNet.numberVariables(); i++)
+        {
+            if (bayesNet.getProbabilityVariable(i).isObserved())
+            {
+                boolean isOrdered = false;
+                for (String name : order)
+                {
+                    if (name.equals(variableNames[i]))
+                    {
+                        isOrdered = true;
+                        break;
+                    }
+                }
+                if (!isOrdered)
+                {
+                    return null;
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Get the compiled marginal of a variable without evidence.
+     *
+     * @param bayesNet            a network equal to the compiled one
+     * @param queriedVariableName name of the variable to query
+     * @return the marginal, or null if the variable is unknown
+     */
+    public MarginalResult getMarginal(BayesNet bayesNet,
+                                      String queriedVariableName)
+    {
+        Integer index = variableIndexes.get(queriedVariableName);
+        if (index == null)
+        {
+            return null;
+        }
+        return new MarginalResult(bayesNet.getProbabilityVariable(index),
+                                  probabilities[index],
+                                  lowerProbabilities[index],
+                                  upperProbabilities[index]);
+    }
+
+    /**
+     * Save the compiled model to a file.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException
+    {
+        try (OutputStream out = new BufferedOutputStream(
+                            new FileOutputStream(file)))
+        {
+            save(out);
+        }
+    }
+
+    /**
+     * Save the compiled model to a stream.
+     *
+     * @param ostream the stream; it is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public void save(OutputStream ostream) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(ostream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(fingerprint);
+        out.writeInt(variableNames.length);
+        for (int i = 0; i < variableNames.length; i++)
+        {
+            out.writeUTF(variableNames[i]);
+            out.writeInt(orders[i].length);
+            for (String name : orders[i])
+            {
+                out.writeUTF(name);
+            }
+            boolean isCredal = lowerProbabilities[i] != probabilities[i] ||
+                               upperProbabilities[i] != probabilities[i];
+            out.writeBoolean(isCredal);
+            writeDoubles(out, probabilities[i]);
+            if (isCredal)
+            {
+                writeDoubles(out, lowerProbabilities[i]);
+                writeDoubles(out, upperProbabilities[i]);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Load a compiled model from a file and check it against a network.
+     *
+     * @param file     the file
+     * @param bayesNet the network the model is to be used with
+     * @return the compiled model
+     * @throws IOException if the file cannot be read, is not a compiled
+     *                     model or was compiled from a different network
+     */
+    public static CompiledModel load(File file, BayesNet bayesNet)
+            throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(
+                         new FileInputStream(file)))
+        {
+            return load(in, bayesNet);
+        }
+    }
+
+    /**
+     * Load a compiled model from a stream and check it against a network.
+     *
+     * @param istream  the stream; it is not closed
+     * @param bayesNet the network the model is to be used with
+     * @return the compiled model
+     * @throws IOException if the stream cannot be read, does not hold a
+     *                     compiled model or the model was compiled from a
+     *                     different network
+     */
+    public static CompiledModel load(InputStream istream, BayesNet bayesNet)
+            throws IOException
+    {
+        DataInputStream in = new DataInputStream(istream);
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("Not a compiled model");
+        }
+        int version = in.readInt();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported compiled model version " +
+                                  version);
+        }
+        long fingerprint = in.readLong();
+        if (fingerprint != fingerprint(bayesNet))
+        {
+            throw new IOException("Compiled model does not match network " +
+                                  bayesNet.getName());
+        }
+        int n = in.readInt();
+        if (n != bayesNet.numberVariables())
+        {
+            throw new IOException("Compiled model has " + n +
+                                  " variables instead of " +
+                                  bayesNet.numberVariables());
+        }
+        String names[] = new String[n];
+        String orders[][] = new String[n][];
+        double probabilities[][] = new double[n][];
+        double lower[][] = new double[n][];
+        double upper[][] = new double[n][];
+        for (int i = 0; i < n; i++)
+        {
+            names[i] = in.readUTF();
+            orders[i] = new String[in.readInt()];
+            for (int j = 0; j < orders[i].length; j++)
+            {
+                orders[i][j] = in.readUTF();
+            }
+            boolean isCredal = in.readBoolean();
+            probabilities[i] = readDoubles(in);
+            lower[i] = isCredal ? readDoubles(in) : probabilities[i];
+            upper[i] = isCredal ? readDoubles(in) : probabilities[i];
+        }
+        return new CompiledModel(fingerprint,
+                                 names,
+                                 orders,
+                                 probabilities,
+                                 lower,
+                                 upper);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double values[])
+            throws IOException
+    {
+        if (values == null)
+        {
+            out.writeInt(BayesNet.INVALID_INDEX);
+            return;
+        }
+        out.writeInt(values.length);
+        for (double value : values)
+        {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length == BayesNet.INVALID_INDEX)
+        {
+            return null;
+        }
+        double values[] = new double[length];
+        for (int i = 0; i < length; i++)
+        {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,707 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Bulk generation of synthetic data from a network.
+ *
+ * Records are drawn forward in topological order from the probability
+ * functions; the evidence of the network is ignored. Every row of every
+ * function has a precomputed alias table (Vose's method), so drawing a
+ * value takes one random number and a comparison, whatever the number of
+ * values. Values can be masked at random, and hidden variables are never
+ * written, to produce partially observed data.
+ *
+ * Records are generated in batches on several threads, each batch with its
+ * own random stream split from the seed and encoded by its thread; batches
+ * are written in order, so the output for a seed does not depend on the
+ * number of threads.
+ *
+ * Two formats are written. CSV has a header of variable names and one
+ * record per line, with value names and "?" for missing values. BINARY is
+ * a DataOutputStream: the int MAGIC, the number of variables and, per
+ * variable, its name, number of values and value names (UTF), then the
+ * records, one byte per variable (one short if a variable has more than
+ * 127 values) holding the value index or -1 for missing values, up to the
+ * end of the stream.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class DataGenerator
+{
+
+    private static final Class CLAZZ = DataGenerator.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Magic number at the start of the binary format ("JBD1").
+     */
+    public static final int MAGIC = 0x4a424431;
+
+    /**
+     * Cell of a missing value in CSV.
+     */
+    public static final String MISSING = "?";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int BATCH_SIZE = 8192;
+
+    /**
+     * Output formats.
+     */
+    public enum Format
+    {
+
+        /**
+         * Comma separated value names with a header.
+         */
+        CSV,
+        /**
+         * Value indexes after a header describing the variables.
+         */
+        BINARY
+    }
+
+    private final BayesNet bayesNet;
+    private final SplitMix64 random;
+    private final int numberOfVariables;
+    private final int cardinality[];
+    private final int order[];
+    private final int parents[][];
+    private final int numberOfRows[];
+
+    // Alias tables per row of each function: value fastest
+    private final double aliasProbability[][];
+    private final int alias[][];
+
+    private int numberOfThreads;
+    private double missingRate;
+    private final boolean isHidden[];
+
+    /**
+     * Constructor for a DataGenerator.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @param seed     seed of the random streams
+     */
+    public DataGenerator(BayesNet bayesNet, long seed)
+    {
+        this.bayesNet = bayesNet;
+        this.random = new SplitMix64(seed);
+        numberOfVariables = bayesNet.numberVariables();
+        cardinality = new int[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            cardinality[v] = bayesNet.getProbabilityVariable(v).numberValues();
+        }
+        parents = new int[numberOfVariables][];
+        numberOfRows = new int[numberOfVariables];
+        aliasProbability = new double[numberOfVariables][];
+        alias = new int[numberOfVariables][];
+        for (ProbabilityFunction probFunc : bayesNet.getProbabilityFunctions())
+        {
+            int v = probFunc.getIndex(0);
+            parents[v] = new int[probFunc.numberVariables() - 1];
+            for (int k = 0; k < parents[v].length; k++)
+            {
+                parents[v][k] = probFunc.getIndex(k + 1);
+            }
+            buildAliasTables(v, probFunc.getValues());
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (parents[v] == null)
+            {
+                throw new IllegalArgumentException(
+                        "No probability function for variable " +
+                        bayesNet.getProbabilityVariable(v).getName());
+            }
+        }
+        order = SamplingInference.topologicalOrder(parents);
+        isHidden = new boolean[numberOfVariables];
+        numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Build the alias tables of all rows of the function of a variable by
+     * Vose's method: every value gets a slot of equal width holding its own
+     * probability and the overflow of one larger value.
+     */
+    private void buildAliasTables(int v, double values[])
+    {
+        int n = cardinality[v];
+        int rows = values.length / n;
+        numberOfRows[v] = rows;
+        aliasProbability[v] = new double[values.length];
+        alias[v] = new int[values.length];
+        double scaled[] = new double[n];
+        int small[] = new int[n];
+        int large[] = new int[n];
+        for (int row = 0; row < rows; row++)
+        {
+            int base = row * n;
+            double sum = 0.0;
+            for (int x = 0; x < n; x++)
+            {
+                // The function has the variable itself slowest
+                sum += values[x * rows + row];
+            }
+            int numberSmall = 0;
+            int numberLarge = 0;
+            for (int x = 0; x < n; x++)
+            {
+                scaled[x] = sum > 0.0 ? values[x * rows + row] * n / sum : 1.0;
+                if (scaled[x] < 1.0)
+                {
+                    small[numberSmall++] = x;
+                }
+                else
+                {
+                    large[numberLarge++] = x;
+                }
+            }
+            while (numberSmall > 0 && numberLarge > 0)
+            {
+                int s = small[--numberSmall];
+                int l = large[--numberLarge];
+                aliasProbability[v][base + s] = scaled[s];
+                alias[v][base + s] = l;
+                scaled[l] -= 1.0 - scaled[s];
+                if (scaled[l] < 1.0)
+                {
+                    small[numberSmall++] = l;
+                }
+                else
+                {
+                    large[numberLarge++] = l;
+                }
+            }
+            // Left over slots are full up to rounding
+            while (numberLarge > 0)
+            {
+                int l = large[--numberLarge];
+                aliasProbability[v][base + l] = 1.0;
+                alias[v][base + l] = l;
+            }
+            while (numberSmall > 0)
+            {
+                int s = small[--numberSmall];
+                aliasProbability[v][base + s] = 1.0;
+                alias[v][base + s] = s;
+            }
+        }
+    }
+
+    /**
+     * Get the number of generating threads.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of generating threads.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Get the probability of a value to be masked as missing.
+     *
+     * @return the missing rate
+     */
+    public double getMissingRate()
+    {
+        return missingRate;
+    }
+
+    /**
+     * Set the probability of a value to be masked as missing, independently
+     * of all other values.
+     *
+     * @param missingRate the missing rate, in [0, 1]
+     */
+    public void setMissingRate(double missingRate)
+    {
+        if (!(missingRate >= 0.0 && missingRate <= 1.0))
+        {
+            throw new IllegalArgumentException(
+                    "Missing rate must be in [0, 1]: " + missingRate);
+        }
+        this.missingRate = missingRate;
+    }
+
+    /**
+     * Set the hidden variables, whose values are always missing.
+     *
+     * @param variableNames names of the hidden variables
+     */
+    public void setHiddenVariables(String... variableNames)
+    {
+        Arrays.fill(isHidden, false);
+        for (String name : variableNames)
+        {
+            int v = bayesNet.indexOfVariable(name);
+            if (v == BayesNet.INVALID_INDEX)
+            {
+                throw new IllegalArgumentException("Unknown variable " + name);
+            }
+            isHidden[v] = true;
+        }
+    }
+
+    /**
+     * Draw one complete record.
+     *
+     * @param stream the random stream
+     * @param values the value index of each variable, filled in
+     */
+    public void drawRecord(SplitMix64 stream, int values[])
+    {
+        for (int v : order)
+        {
+            int row = 0;
+            for (int p : parents[v])
+            {
+                row = row * cardinality[p] + values[p];
+            }
+            int n = cardinality[v];
+            double u = stream.nextDouble() * n;
+            int x = (int) u;
+            int slot = row * n + x;
+            values[v] = u - x < aliasProbability[v][slot] ?
+                        x :
+                        alias[v][slot];
+        }
+    }
+
+    /**
+     * Draw a record and mask its missing and hidden values with
+     * BayesNet.INVALID_INDEX.
+     */
+    private void drawMaskedRecord(SplitMix64 stream, int values[])
+    {
+        drawRecord(stream, values);
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (isHidden[v] ||
+                (missingRate > 0.0 && stream.nextDouble() < missingRate))
+            {
+                values[v] = BayesNet.INVALID_INDEX;
+            }
+        }
+    }
+
+    /**
+     * Generate records into a stream.
+     *
+     * @param count  the number of records
+     * @param out    the output stream; it is flushed but not closed
+     * @param format the output format
+     * @throws IOException if the output cannot be written
+     */
+    public void generate(long count, OutputStream out, final Format format)
+            throws IOException
+    {
+        final Encoder encoder = format == Format.CSV ?
+                                new CsvEncoder() :
+                                new BinaryEncoder();
+        encoder.writeHeader(out);
+
+        long numberOfBatches = (count + BATCH_SIZE - 1) / BATCH_SIZE;
+        ExecutorService executor = Executors.newFixedThreadPool(
+                        (int) Math.max(1, Math.min(numberOfThreads,
+                                                   numberOfBatches)));
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        int window = 4 * numberOfThreads;
+        try
+        {
+            for (long b = 0; b < numberOfBatches; b++)
+            {
+                final SplitMix64 stream = random.split();
+                final int size = (int) Math.min(BATCH_SIZE,
+                                                count - b * BATCH_SIZE);
+                pending.add(executor.submit(new Callable<byte[]>()
+                {
+                    @Override
+                    public byte[] call() throws IOException
+                    {
+                        return encodeBatch(encoder, stream, size);
+                    }
+                }));
+                while (pending.size() >= window)
+                {
+                    out.write(pending.poll().get());
+                }
+            }
+            while (!pending.isEmpty())
+            {
+                out.write(pending.poll().get());
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IOException(ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        out.flush();
+    }
+
+    /**
+     * Generate records into a file.
+     *
+     * @param count  the number of records
+     * @param file   the output file
+     * @param format the output format
+     * @throws IOException if the file cannot be written
+     */
+    public void generate(long count, File file, Format format)
+            throws IOException
+    {
+        try (OutputStream out = new BufferedOutputStream(
+                          new FileOutputStream(file)))
+        {
+            generate(count, out, format);
+        }
+    }
+
+    private byte[] encodeBatch(Encoder encoder, SplitMix64 stream, int size)
+            throws IOException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                              size * numberOfVariables * 4);
+        DataOutputStream data = new DataOutputStream(buffer);
+        int values[] = new int[numberOfVariables];
+        for (int r = 0; r < size; r++)
+        {
+            drawMaskedRecord(stream, values);
+            encoder.writeRecord(values, data);
+        }
+        data.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Encoding of the records in an output format.
+     */
+    private interface Encoder
+    {
+
+        void writeHeader(OutputStream out) throws IOException;
+
+        void writeRecord(int values[], DataOutputStream out)
+                throws IOException;
+    }
+
+    /**
+     * CSV with the cells of all values encoded beforehand.
+     */
+    private class CsvEncoder implements Encoder
+    {
+
+        private final byte cells[][][];
+        private final byte missing[] = MISSING.getBytes(UTF8);
+
+        CsvEncoder()
+        {
+            cells = new byte[numberOfVariables][][];
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                ProbabilityVariable probVar =
+                                    bayesNet.getProbabilityVariable(v);
+                cells[v] = new byte[cardinality[v]][];
+                for (int x = 0; x < cardinality[v]; x++)
+                {
+                    cells[v][x] = quote(probVar.getValue(x)).getBytes(UTF8);
+                }
+            }
+        }
+
+        @Override
+        public void writeHeader(OutputStream out) throws IOException
+        {
+            StringBuilder header = new StringBuilder();
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                if (v > 0)
+                {
+                    header.append(',');
+                }
+                header.append(quote(bayesNet.getProbabilityVariable(v).
+                        getName()));
+            }
+            header.append('\n');
+            out.write(header.toString().getBytes(UTF8));
+        }
+
+        @Override
+        public void writeRecord(int values[], DataOutputStream out)
+                throws IOException
+        {
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                if (v > 0)
+                {
+                    out.write(',');
+                }
+                out.write(values[v] == BayesNet.INVALID_INDEX ?
+                          missing :
+                          cells[v][values[v]]);
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Quote a CSV cell if needed.
+     */
+    private static String quote(String cell)
+    {
+        if (cell.isEmpty() || cell.equals(MISSING) ||
+            cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 ||
+            cell.indexOf('\n') >= 0 || !cell.trim().equals(cell))
+        {
+            return '"' + cell.replace("\"", "\"\"") + '"';
+        }
+        return cell;
+    }
+
+    /**
+     * Binary format with one byte or short per value.
+     */
+    private class BinaryEncoder implements Encoder
+    {
+
+        private final boolean isShort;
+
+        BinaryEncoder()
+        {
+            int largest = 0;
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                largest = Math.max(largest, cardinality[v]);
+            }
+            isShort = largest > Byte.MAX_VALUE;
+        }
+
+        @Override
+        public void writeHeader(OutputStream out) throws IOException
+        {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(numberOfVariables);
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                ProbabilityVariable probVar =
+                                    bayesNet.getProbabilityVariable(v);
+                data.writeUTF(probVar.getName());
+                data.writeInt(cardinality[v]);
+                for (int x = 0; x < cardinality[v]; x++)
+                {
+                    data.writeUTF(probVar.getValue(x));
+                }
+            }
+            data.flush();
+        }
+
+        @Override
+        public void writeRecord(int values[], DataOutputStream out)
+                throws IOException
+        {
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                if (isShort)
+                {
+                    out.writeShort(values[v]);
+                }
+                else
+                {
+                    out.writeByte(values[v]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method of the data generator.
+     *
+     * @param argv command line arguments, see usage()
+     */
+    public static void main(String argv[])
+    {
+        String networkFile = null;
+        String outputFile = null;
+        String format = null;
+        long records = 1000;
+        long seed = System.nanoTime();
+        int threads = 0;
+        double missingRate = 0.0;
+        String hidden[] = new String[0];
+        try
+        {
+            for (int i = 0; i < argv.length; i++)
+            {
+                switch (argv[i])
+                {
+                    case "--records":
+                        records = Long.parseLong(argv[++i]);
+                        break;
+                    case "--output":
+                        outputFile = argv[++i];
+                        break;
+                    case "--format":
+                        format = argv[++i];
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(argv[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(argv[++i]);
+                        break;
+                    case "--missing":
+                        missingRate = Double.parseDouble(argv[++i]);
+                        break;
+                    case "--hidden":
+                        hidden = argv[++i].split(",");
+                        break;
+                    default:
+                        if (argv[i].startsWith("--") || networkFile != null)
+                        {
+                            throw new IllegalArgumentException(
+                                    "Unknown argument " + argv[i]);
+                        }
+                        networkFile = argv[i];
+                }
+            }
+            if (networkFile == null)
+            {
+                throw new IllegalArgumentException("No network given");
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            System.err.println(ex.getMessage() == null ?
+                               "Missing argument" :
+                               ex.getMessage());
+            usage();
+            System.exit(1);
+            return;
+        }
+        boolean isBinary = format == null ?
+                           outputFile != null &&
+                           !outputFile.toLowerCase().endsWith(".csv") :
+                           format.equalsIgnoreCase("binary");
+        try
+        {
+            DataGenerator generator = new DataGenerator(
+                          new BayesNet(new File(networkFile)),
+                          seed);
+            if (threads > 0)
+            {
+                generator.setNumberOfThreads(threads);
+            }
+            generator.setMissingRate(missingRate);
+            generator.setHiddenVariables(hidden);
+            Format outputFormat = isBinary ? Format.BINARY : Format.CSV;
+            if (outputFile == null)
+            {
+                OutputStream out = new BufferedOutputStream(System.out);
+                generator.generate(records, out, outputFormat);
+            }
+            else
+            {
+                generator.generate(records,
+                                   new File(outputFile),
+                                   outputFormat);
+            }
+        }
+        catch (Exception ex)
+        {
+            System.err.println("Data generation failed: " + ex);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Print the command line usage.
+     */
+    static void usage()
+    {
+        System.err.println(
+                "Usage: JavaBayes --generate <network> [options]\n" +
+                "  --records <n>     number of records (default: 1000)\n" +
+                "  --output <file>   output file " +
+                "(default: standard output)\n" +
+                "  --format csv|binary\n" +
+                "                    output format (default: csv for " +
+                "standard output and\n" +
+                "                    .csv files, binary otherwise)\n" +
+                "  --seed <n>        random seed (default: from the clock)\n" +
+                "  --threads <n>     generating threads " +
+                "(default: available processors)\n" +
+                "  --missing <rate>  probability of a value to be missing " +
+                "(default: 0)\n" +
+                "  --hidden <names>  comma separated variables that are " +
+                "always missing");
+    }
+}
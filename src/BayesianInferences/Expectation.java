@@ -47,6 +47,7 @@ public class Expectation
     private double results[];
     private boolean isProducingClusters;
     private DiscreteFunction currentFunction;
+    private MomentType currentMoment;
 
     /**
      * Constructor for an Expectation.
@@ -186,6 +187,41 @@ public class Expectation
         inference = new Inference(bayesNet, isProducingClusters);
     }
 
+    /**
+     * Set whether expectations are profiled. The profile is recorded by the
+     * underlying Inference object.
+     *
+     * @param isProfiling true, if expectations should be profiled, false
+     *                    otherwise
+     */
+    public void setProfiling(boolean isProfiling)
+    {
+        inference.profileKind = InferenceProfile.Kind.EXPECTATION;
+        inference.setProfiling(isProfiling);
+    }
+
+    /**
+     * Get the profile of the last expectation.
+     *
+     * @return the profile; a disabled profile if profiling is off
+     */
+    public InferenceProfile getProfile()
+    {
+        return inference.getProfile();
+    }
+
+    /**
+     * Set the metrics registry that receives the profiles of all
+     * expectations. Setting a registry switches profiling on.
+     *
+     * @param metrics the metrics registry, or null for none
+     */
+    public void setMetrics(InferenceMetrics metrics)
+    {
+        inference.profileKind = InferenceProfile.Kind.EXPECTATION;
+        inference.setMetrics(metrics);
+    }
+
     /**
      * Calculation of Expectation. Expectations in all possible ways: 1)
      * Specifying or not the queried variable and the ordering 2) Specifying or
@@ -193,12 +229,7 @@ public class Expectation
      */
     public void expectation()
     {
-        // Construct the function with the values.
-        ProbabilityVariable probVar = bayesNet.getProbabilityVariable(0);
-        DiscreteFunction discrFunc = constructValues(probVar,
-                                                     MomentType.EXPECTED_VALUE);
-        // Calculate expectation.
-        expectation(discrFunc);
+        expectation(MomentType.EXPECTED_VALUE);
     }
 
     /**
@@ -208,18 +239,7 @@ public class Expectation
      */
     public void expectation(String queriedVariableName)
     {
-        // Construct the function with the values
-        int index = bayesNet.indexOfVariable(queriedVariableName);
-        if (index == BayesNet.INVALID_INDEX)
-        {
-            expectation();
-            return;
-        }
-        ProbabilityVariable probVar = bayesNet.getProbabilityVariable(index);
-        DiscreteFunction discrFunc = constructValues(probVar,
-                                                     MomentType.EXPECTED_VALUE);
-        // Calculate expectation.
-        expectation(discrFunc, queriedVariableName);
+        expectation(MomentType.EXPECTED_VALUE, queriedVariableName);
     }
 
     /**
@@ -229,18 +249,7 @@ public class Expectation
      */
     public void expectation(String order[])
     {
-        // Construct the function with the values
-        int index = bayesNet.indexOfVariable(order[order.length - 1]);
-        if (index == BayesNet.INVALID_INDEX)
-        {
-            expectation();
-            return;
-        }
-        ProbabilityVariable probVar = bayesNet.getProbabilityVariable(index);
-        DiscreteFunction discrFunc = constructValues(probVar,
-                                                     MomentType.EXPECTED_VALUE);
-        // Calculate expectation.
-        expectation(discrFunc, order);
+        expectation(MomentType.EXPECTED_VALUE, order);
     }
 
     /**
@@ -254,7 +263,8 @@ public class Expectation
         ProbabilityVariable probVar = bayesNet.getProbabilityVariable(0);
         DiscreteFunction discrFunc = constructValues(probVar, moment);
         // Calculate expectation.
-        expectation(discrFunc);
+        inference.inference();
+        finishExpectation(discrFunc, moment);
     }
 
     /**
@@ -269,13 +279,14 @@ public class Expectation
         int index = bayesNet.indexOfVariable(queriedVariableName);
         if (index == BayesNet.INVALID_INDEX)
         {
-            expectation();
+            expectation(moment);
             return;
         }
         ProbabilityVariable probVar = bayesNet.getProbabilityVariable(index);
         DiscreteFunction discrFunc = constructValues(probVar, moment);
         // Calculate expectation.
-        expectation(discrFunc, queriedVariableName);
+        inference.inference(queriedVariableName);
+        finishExpectation(discrFunc, moment);
     }
 
     /**
@@ -290,13 +301,14 @@ public class Expectation
         int index = bayesNet.indexOfVariable(order[order.length - 1]);
         if (index == BayesNet.INVALID_INDEX)
         {
-            expectation();
+            expectation(moment);
             return;
         }
         ProbabilityVariable probVar = bayesNet.getProbabilityVariable(index);
         DiscreteFunction discrFunc = constructValues(probVar, moment);
         // Calculate expectation.
-        expectation(discrFunc, order);
+        inference.inference(order);
+        finishExpectation(discrFunc, moment);
     }
 
     /**
@@ -308,7 +320,7 @@ public class Expectation
     public void expectation(DiscreteFunction discrFunc)
     {
         inference.inference();
-        doExpectationFromInference(discrFunc);
+        finishExpectation(discrFunc, null);
     }
 
     /**
@@ -322,7 +334,7 @@ public class Expectation
                             String queriedVariableName)
     {
         inference.inference(queriedVariableName);
-        doExpectationFromInference(discrFunc);
+        finishExpectation(discrFunc, null);
     }
 
     /**
@@ -335,7 +347,7 @@ public class Expectation
     public void expectation(DiscreteFunction discrFunc, String order[])
     {
         inference.inference(order);
-        doExpectationFromInference(discrFunc);
+        finishExpectation(discrFunc, null);
     }
 
     /**
@@ -361,6 +373,20 @@ public class Expectation
         return discrFunc;
     }
 
+    /**
+     * Compute the expectation from the result of the inference and record
+     * the moment it stands for.
+     *
+     * @param discrFunc discrete function of the queried variable
+     * @param moment    the moment, or null for an explicitly given function
+     */
+    private void finishExpectation(DiscreteFunction discrFunc,
+                                   MomentType moment)
+    {
+        currentMoment = moment;
+        doExpectationFromInference(discrFunc);
+    }
+
     /**
      * Do the expectations function's inference.
      *
@@ -435,6 +461,24 @@ public class Expectation
         return results;
     }
 
+    /**
+     * Get the result of the last Expectation as a typed result.
+     *
+     * @return the result, or null if no expectation has been computed; its
+     *         moment is null if the expectation was computed for an
+     *         explicitly given function
+     */
+    public ExpectationResult getExpectationResult()
+    {
+        if (currentFunction == null || results == null)
+        {
+            return null;
+        }
+        return new ExpectationResult(currentFunction.getVariable(0).getName(),
+                                     currentMoment,
+                                     results);
+    }
+
     /**
      * MomentType of expectation moment to calculate.
      */
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import java.io.PrintStream;
+import java.util.logging.Logger;
+
+/**
+ * Posterior expectation of a variable. Quasi-Bayesian networks produce lower
+ * and upper expectations; for precise results both bounds are equal.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ExpectationResult
+{
+
+    private static final Class CLAZZ = ExpectationResult.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final String variableName;
+    private final Expectation.MomentType moment;
+    private final double lowerExpectation;
+    private final double upperExpectation;
+
+    /**
+     * Constructor for an ExpectationResult.
+     *
+     * @param variableName     name of the queried variable
+     * @param moment           the moment that was computed, or null for the
+     *                         expectation of an explicitly given function
+     * @param lowerExpectation the lower expectation
+     * @param upperExpectation the upper expectation
+     */
+    public ExpectationResult(String variableName,
+                             Expectation.MomentType moment,
+                             double lowerExpectation,
+                             double upperExpectation)
+    {
+        this.variableName = variableName;
+        this.moment = moment;
+        this.lowerExpectation = lowerExpectation;
+        this.upperExpectation = upperExpectation;
+    }
+
+    /**
+     * Constructor for an ExpectationResult from the results of an
+     * Expectation, which hold either one value or the lower and upper value.
+     *
+     * @param variableName name of the queried variable
+     * @param moment       the moment that was computed
+     * @param results      the results of the Expectation
+     */
+    public ExpectationResult(String variableName,
+                             Expectation.MomentType moment,
+                             double results[])
+    {
+        this(variableName,
+             moment,
+             results[0],
+             results.length > 1 ? results[1] : results[0]);
+    }
+
+    /**
+     * Get the name of the queried variable.
+     *
+     * @return the name
+     */
+    public String getVariableName()
+    {
+        return variableName;
+    }
+
+    /**
+     * Get the moment that was computed.
+     *
+     * @return the moment, or null for the expectation of an explicitly given
+     *         function
+     */
+    public Expectation.MomentType getMoment()
+    {
+        return moment;
+    }
+
+    /**
+     * Check whether the expectation is a single value.
+     *
+     * @return true if lower and upper expectation coincide, false otherwise
+     */
+    public boolean isPrecise()
+    {
+        return lowerExpectation == upperExpectation;
+    }
+
+    /**
+     * Get the expectation.
+     *
+     * @return the expectation, or the midpoint of the bounds if imprecise
+     */
+    public double getExpectation()
+    {
+        return isPrecise() ?
+               lowerExpectation :
+               0.5 * (lowerExpectation + upperExpectation);
+    }
+
+    /**
+     * Get the lower expectation.
+     *
+     * @return the lower expectation
+     */
+    public double getLowerExpectation()
+    {
+        return lowerExpectation;
+    }
+
+    /**
+     * Get the upper expectation.
+     *
+     * @return the upper expectation
+     */
+    public double getUpperExpectation()
+    {
+        return upperExpectation;
+    }
+
+    /**
+     * Print the result.
+     *
+     * @param out output print stream
+     */
+    public void print(PrintStream out)
+    {
+        out.print("Posterior " +
+                  (moment == null ? "expectation" : moment.toString()) +
+                  " of " + variableName + ": ");
+        if (isPrecise())
+        {
+            out.println(lowerExpectation);
+        }
+        else
+        {
+            out.println("[" + lowerExpectation + ", " + upperExpectation + "]");
+        }
+    }
+}
@@ -26,9 +26,11 @@
 package BayesianInferences;
 
 import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
 import BayesianNetworks.ProbabilityFunction;
 import BayesianNetworks.ProbabilityVariable;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.logging.Logger;
 
 /**
@@ -54,6 +56,10 @@ public class Explanation
     BayesNet bayesNet;
     BucketTree bucketTree;
     ProbabilityFunction results[];
+    private double bestScore;
+    private boolean isProfiling;
+    private InferenceProfile profile = InferenceProfile.DISABLED;
+    private InferenceMetrics metrics;
 
     /**
      * Constructor for an Explanation.
@@ -88,11 +94,16 @@ public class Explanation
      */
     public void explanation(ExplanationType explanationStatus)
     {
-        bucketTree = new BucketTree(new Ordering(bayesNet,
-                                                 (String) null,
-                                                 explanationStatus,
-                                                 Ordering.Type.MINIMUM_WEIGHT));
+        beginProfile();
+        profile.start(InferenceProfile.Phase.ORDERING);
+        Ordering ordering = new Ordering(bayesNet,
+                                         (String) null,
+                                         explanationStatus,
+                                         Ordering.Type.MINIMUM_WEIGHT);
+        profile.stop(InferenceProfile.Phase.ORDERING);
+        bucketTree = new BucketTree(ordering, false, profile);
         doInferenceFromBucketTree();
+        finishProfile();
     }
 
     /**
@@ -124,9 +135,84 @@ public class Explanation
     public void explanation(String order[],
                             ExplanationType explanationStatus)
     {
-        bucketTree =
-        new BucketTree(new Ordering(bayesNet, order, explanationStatus));
+        beginProfile();
+        bucketTree = new BucketTree(new Ordering(bayesNet,
+                                                 order,
+                                                 explanationStatus),
+                                    false,
+                                    profile);
         doInferenceFromBucketTree();
+        finishProfile();
+    }
+
+    /**
+     * Start a new profile for an explanation if profiling is switched on.
+     */
+    private void beginProfile()
+    {
+        profile = isProfiling ?
+                  new InferenceProfile(InferenceProfile.Kind.EXPLANATION,
+                                       (String) null) :
+                  InferenceProfile.DISABLED;
+    }
+
+    /**
+     * Finish the profile of an explanation and hand it to the metrics
+     * registry.
+     */
+    private void finishProfile()
+    {
+        profile.finish();
+        if (metrics != null)
+        {
+            metrics.record(profile);
+        }
+    }
+
+    /**
+     * Check whether explanations are profiled.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isProfiling()
+    {
+        return isProfiling;
+    }
+
+    /**
+     * Set whether explanations are profiled.
+     *
+     * @param isProfiling true, if explanations should be profiled, false
+     *                    otherwise
+     */
+    public void setProfiling(boolean isProfiling)
+    {
+        this.isProfiling = isProfiling;
+    }
+
+    /**
+     * Get the profile of the last explanation.
+     *
+     * @return the profile; a disabled profile if profiling is off
+     */
+    public InferenceProfile getProfile()
+    {
+        return profile;
+    }
+
+    /**
+     * Set the metrics registry that receives the profiles of all
+     * explanations. Setting a registry switches profiling on.
+     *
+     * @param metrics the metrics registry, or null for none
+     */
+    public void setMetrics(InferenceMetrics metrics)
+    {
+        this.metrics = metrics;
+        if (metrics != null)
+        {
+            isProfiling = true;
+        }
     }
 
     /**
@@ -136,9 +222,219 @@ public class Explanation
     {
         results = new ProbabilityFunction[1];
         bucketTree.reduce();
+        // The best value is read before normalization, which rescales the
+        // values of the unnormalized result as well
+        bestScore = 0.0;
+        DiscreteFunction unnormalized = bucketTree.getUnnormalizedResult();
+        for (int i = 0; i < unnormalized.numberValues(); i++)
+        {
+            bestScore = Math.max(bestScore, unnormalized.getValue(i));
+        }
         results[0] = bucketTree.getNormalizedResult();
     }
 
+    /**
+     * Get the result of the last Explanation as a typed result; computes an
+     * Explanation if none has been computed yet.
+     *
+     * @return the explanation result
+     */
+    public ExplanationResult getExplanationResult()
+    {
+        if (results == null)
+        {
+            explanation();
+        }
+        if (bucketTree.backwardPointers == null)
+        {
+            return new ExplanationResult(bayesNet,
+                                         new MarginalResult(results[0]));
+        }
+        return new ExplanationResult(bayesNet,
+                                     bucketTree.backwardPointers,
+                                     bestScore,
+                                     bestScore);
+    }
+
+    /**
+     * Calculate the k most probable explanations of the marked variables.
+     *
+     * @param k the number of explanations wanted
+     * @return the explanations in order of decreasing score
+     */
+    public ArrayList<ExplanationResult> explanations(int k)
+    {
+        return explanations(k, ExplanationType.MARKED_VARIABLES_ONLY);
+    }
+
+    /**
+     * Calculate the k most probable explanations of all variables that are
+     * not observed.
+     *
+     * @param k the number of explanations wanted
+     * @return the explanations in order of decreasing score
+     */
+    public ArrayList<ExplanationResult> fullExplanations(int k)
+    {
+        return explanations(k, ExplanationType.ALL_NOT_OBSERVED_VARIABLES);
+    }
+
+    /**
+     * Calculate the k most probable explanations accordingly to the flag
+     * explanationStatus. A single elimination is done; the assignments are
+     * then enumerated by a best-first search over the reduced buckets, see
+     * BestExplanations. The first explanation has the score of
+     * getExplanationResult().
+     *
+     * @param k                 the number of explanations wanted
+     * @param explanationStatus what to use for explanation
+     * @return at most k explanations in order of decreasing score; if there
+     *         are no explanation variables, a single result holding the
+     *         posterior marginal
+     */
+    public ArrayList<ExplanationResult> explanations(
+            int k,
+            ExplanationType explanationStatus)
+    {
+        if (k < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of explanations must be positive: " + k);
+        }
+        explanation(explanationStatus);
+        if (bucketTree.backwardPointers == null)
+        {
+            ArrayList<ExplanationResult> posterior = new ArrayList<>();
+            posterior.add(getExplanationResult());
+            return posterior;
+        }
+        return new BestExplanations(bucketTree, bestScore).search(k);
+    }
+
+    /**
+     * Calculate the MAP assignment of the marked variables by an anytime
+     * branch and bound search with mini-bucket bounds, which avoids the large
+     * buckets of the constrained elimination order. See BranchAndBoundMap
+     * for the progressive results.
+     *
+     * @param iBound           maximal number of variables in a mini-bucket
+     * @param timeBudgetMillis time budget in milliseconds; 0 or less for no
+     *                         limit
+     * @return the best assignment found, scored by its joint probability
+     *         with the evidence
+     */
+    public ExplanationResult branchAndBoundExplanation(int iBound,
+                                                       long timeBudgetMillis)
+    {
+        return new BranchAndBoundMap(bayesNet, iBound).solve(timeBudgetMillis);
+    }
+
+    /**
+     * Calculate bounds on the MAP value of the marked variables by
+     * mini-bucket elimination.
+     *
+     * @param iBound maximal number of variables in a mini-bucket
+     * @return the assignment decoded from the bounds, see
+     *         miniBucketExplanation(int, ExplanationType)
+     */
+    public ExplanationResult miniBucketExplanation(int iBound)
+    {
+        return miniBucketExplanation(iBound,
+                                     ExplanationType.MARKED_VARIABLES_ONLY);
+    }
+
+    /**
+     * Calculate bounds on the MAP value accordingly to the flag
+     * explanationStatus by mini-bucket elimination, with no bucket joining
+     * more than iBound variables. The upper bound on the joint probability
+     * of the best assignment and the evidence is the mini-bucket bound. An
+     * assignment is then decoded greedily, each explanation variable taking
+     * the value with the best upper bound given the values chosen before;
+     * its score is a mini-bucket lower bound on its joint probability with
+     * the evidence, and so a lower bound on the MAP value.
+     *
+     * @param iBound            maximal number of variables in a mini-bucket
+     * @param explanationStatus what to use for explanation
+     * @return the decoded assignment, with the lower bound as score and the
+     *         upper bound as score bound; if there are no explanation
+     *         variables, a result holding the bounded posterior marginal
+     */
+    public ExplanationResult miniBucketExplanation(
+            int iBound,
+            ExplanationType explanationStatus)
+    {
+        int assignment[] = MiniBucketElimination.evidence(bayesNet);
+        boolean isMaxVariable[] = new boolean[assignment.length];
+        boolean isRelevant[] = new boolean[assignment.length];
+        boolean isFull = explanationStatus.usesAllNotObservedVariables();
+        boolean hasMaxVariables = false;
+        for (int i = 0; i < assignment.length; i++)
+        {
+            isRelevant[i] = assignment[i] != BayesNet.INVALID_INDEX;
+            isMaxVariable[i] = !isRelevant[i] &&
+                               (isFull ||
+                                bayesNet.getProbabilityVariable(i).
+                                isExplanation());
+            isRelevant[i] |= isMaxVariable[i];
+            hasMaxVariables |= isMaxVariable[i];
+        }
+        if (!hasMaxVariables)
+        {
+            Inference inference = new Inference(bayesNet, false);
+            inference.setMiniBucketBound(iBound);
+            inference.inference();
+            return new ExplanationResult(bayesNet,
+                                         inference.getMarginalResult());
+        }
+
+        beginProfile();
+        profile.start(InferenceProfile.Phase.REDUCTION);
+        MiniBucketElimination miniBuckets =
+                              new MiniBucketElimination(
+                                      bayesNet,
+                                      MiniBucketElimination.ancestralFunctions(
+                                              bayesNet,
+                                              isRelevant),
+                                      iBound);
+        double upper = miniBuckets.bound(assignment, isMaxVariable, true);
+        for (int i = 0; i < assignment.length; i++)
+        {
+            if (!isMaxVariable[i])
+            {
+                continue;
+            }
+            int best = 0;
+            double bestBound = -1.0;
+            for (int v = 0;
+                 v < bayesNet.getProbabilityVariable(i).numberValues();
+                 v++)
+            {
+                assignment[i] = v;
+                double bound = miniBuckets.bound(assignment,
+                                                 isMaxVariable,
+                                                 true);
+                if (bound > bestBound)
+                {
+                    best = v;
+                    bestBound = bound;
+                }
+            }
+            assignment[i] = best;
+        }
+        double lower = miniBuckets.bound(assignment, isMaxVariable, false);
+        profile.stop(InferenceProfile.Phase.REDUCTION);
+        finishProfile();
+
+        for (int i = 0; i < assignment.length; i++)
+        {
+            if (!isMaxVariable[i])
+            {
+                assignment[i] = BayesNet.INVALID_INDEX;
+            }
+        }
+        return new ExplanationResult(bayesNet, assignment, lower, upper);
+    }
+
     /**
      * Print Explanation.
      */
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.PrintStream;
+import java.util.logging.Logger;
+
+/**
+ * Maximum a posteriori assignment of the explanation variables together with
+ * its score. Every way of computing an explanation scores it by the joint
+ * probability of the assignment and the evidence, so scores of different
+ * methods can be compared directly.
+ *
+ * An approximate result may carry an upper bound on the best score, so the
+ * score and the bound bracket the value of the best assignment.
+ *
+ * If the network has no explanation variables, the result holds the posterior
+ * marginal of the last eliminated variable instead of an assignment.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ExplanationResult
+{
+
+    private static final Class CLAZZ = ExplanationResult.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final BayesNet bayesNet;
+    private final int valueIndexes[];
+    private final double score;
+    private final double scoreBound;
+    private final MarginalResult posterior;
+
+    /**
+     * Constructor for an ExplanationResult with an assignment.
+     *
+     * @param bayesNet     the underlying Bayesian network
+     * @param valueIndexes value index for each variable of the network, or
+     *                     BayesNet.INVALID_INDEX for variables that are not
+     *                     part of the explanation
+     * @param score        the score of the assignment
+     */
+    public ExplanationResult(BayesNet bayesNet,
+                             int valueIndexes[],
+                             double score)
+    {
+        this(bayesNet, valueIndexes, score, Double.NaN);
+    }
+
+    /**
+     * Constructor for an ExplanationResult with an assignment and an upper
+     * bound on the score of the best assignment.
+     *
+     * @param bayesNet     the underlying Bayesian network
+     * @param valueIndexes value index for each variable of the network, or
+     *                     BayesNet.INVALID_INDEX for variables that are not
+     *                     part of the explanation
+     * @param score        the score of the assignment
+     * @param scoreBound   upper bound on the score of the best assignment
+     */
+    public ExplanationResult(BayesNet bayesNet,
+                             int valueIndexes[],
+                             double score,
+                             double scoreBound)
+    {
+        this.bayesNet = bayesNet;
+        this.valueIndexes = valueIndexes;
+        this.score = score;
+        this.scoreBound = scoreBound;
+        this.posterior = null;
+    }
+
+    /**
+     * Constructor for an ExplanationResult without explanation variables.
+     *
+     * @param bayesNet  the underlying Bayesian network
+     * @param posterior the posterior marginal computed instead
+     */
+    public ExplanationResult(BayesNet bayesNet, MarginalResult posterior)
+    {
+        this.bayesNet = bayesNet;
+        this.valueIndexes = null;
+        this.score = Double.NaN;
+        this.scoreBound = Double.NaN;
+        this.posterior = posterior;
+    }
+
+    /**
+     * Check whether the result holds an assignment.
+     *
+     * @return true if there were explanation variables, false otherwise
+     */
+    public boolean hasAssignment()
+    {
+        return valueIndexes != null;
+    }
+
+    /**
+     * Get the value indexes of the assignment, one per variable of the
+     * network. The array is shared and must not be modified.
+     *
+     * @return the value indexes, BayesNet.INVALID_INDEX for variables that
+     *         are not part of the explanation, or null if there is no
+     *         assignment
+     */
+    public int[] getValueIndexes()
+    {
+        return valueIndexes;
+    }
+
+    /**
+     * Get the value index that the explanation assigns to a variable.
+     *
+     * @param varIndex index of the variable in the network
+     * @return the value index or BayesNet.INVALID_INDEX
+     */
+    public int getValueIndex(int varIndex)
+    {
+        return valueIndexes == null ?
+               BayesNet.INVALID_INDEX :
+               valueIndexes[varIndex];
+    }
+
+    /**
+     * Get the name of the value that the explanation assigns to a variable.
+     *
+     * @param variableName name of the variable
+     * @return the name of the value, or null if the variable is not part of
+     *         the explanation
+     */
+    public String getValueName(String variableName)
+    {
+        int varIndex = bayesNet.indexOfVariable(variableName);
+        if (varIndex == BayesNet.INVALID_INDEX ||
+            getValueIndex(varIndex) == BayesNet.INVALID_INDEX)
+        {
+            return null;
+        }
+        return bayesNet.getProbabilityVariable(varIndex).
+                getValue(valueIndexes[varIndex]);
+    }
+
+    /**
+     * Get the score of the assignment: the joint probability P(x, e) of the
+     * assignment x and the evidence e. Divide by the probability of the
+     * evidence to obtain the posterior probability of the assignment. For an
+     * approximate result the score is a lower bound on the joint
+     * probability of the best assignment.
+     *
+     * @return the score, or NaN if there is no assignment
+     */
+    public double getScore()
+    {
+        return score;
+    }
+
+    /**
+     * Get the upper bound on the score of the best assignment, on the same
+     * joint probability scale as the score.
+     *
+     * @return the bound, or NaN if no bound is known
+     */
+    public double getScoreBound()
+    {
+        return scoreBound;
+    }
+
+    /**
+     * Get the posterior marginal computed when there are no explanation
+     * variables.
+     *
+     * @return the posterior or null if there is an assignment
+     */
+    public MarginalResult getPosterior()
+    {
+        return posterior;
+    }
+
+    /**
+     * Print the result.
+     *
+     * @param out output print stream
+     */
+    public void print(PrintStream out)
+    {
+        if (!hasAssignment())
+        {
+            out.println("No explanatory variable; posterior distribution:");
+            posterior.print(out);
+            return;
+        }
+        out.println("Explanation (score " + score +
+                    (Double.isNaN(scoreBound) || scoreBound == score ?
+                     "" :
+                     ", upper bound " + scoreBound) + "):");
+        for (int i = 0; i < valueIndexes.length; i++)
+        {
+            if (valueIndexes[i] != BayesNet.INVALID_INDEX)
+            {
+                ProbabilityVariable probVar = bayesNet.getProbabilityVariable(i);
+                out.println("\tVariable " + probVar.getName() + ": " +
+                            probVar.getValue(valueIndexes[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,1133 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteVariable;
+import BayesianNetworks.ProbabilityFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Gibbs sampling of marginal posterior distributions, for networks with
+ * near-deterministic probability functions where likelihood weighting
+ * degenerates.
+ *
+ * Each variable is sampled in turn from its distribution given its Markov
+ * blanket. The moral graph is coloured so that no two neighbours share a
+ * colour; variables of the same colour are independent given the others,
+ * so a sweep updates one colour after the other and the variables of a
+ * colour in parallel. The conditional distributions of each variable are
+ * precomputed as cumulative tables indexed by the values of its
+ * unobserved Markov blanket, as long as the table stays small; otherwise
+ * they are computed from the probability functions at every update.
+ *
+ * Single-site updates cannot leave a state in which a deterministic child
+ * pins its parents: with an OR of two causes observed true through its
+ * children, neither the OR nor one cause can change alone, and nearly
+ * deterministic functions make such moves very unlikely. Every variable
+ * whose probability function has entries close to zero is therefore also
+ * sampled in a block with its unobserved parents, from their joint
+ * distribution given the rest, after the colours of each sweep.
+ *
+ * Several chains start from independent states drawn forward from the
+ * network. Their agreement is measured by the potential scale reduction
+ * factor (R-hat) of Gelman and Rubin over the indicators of all values;
+ * values close to 1, say below 1.1, indicate convergence.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class GibbsSampling
+{
+
+    private static final Class CLAZZ = GibbsSampling.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int MAX_TABLE_SIZE = 1 << 16;
+    private static final int BLOCK_SIZE = 256;
+    private static final int INITIAL_ATTEMPTS = 100;
+    private static final int MAX_BLOCK_STATES = 1 << 10;
+    private static final double SMALL_PROBABILITY = 0.05;
+
+    private final BayesNet bayesNet;
+    private final SplitMix64 random;
+    private final int numberOfVariables;
+    private final int cardinality[];
+    private final int valueOffset[];
+    private final int order[];
+
+    // Factors: variables, strides (last variable fastest) and values
+    private final int factorVariables[][];
+    private final int factorStrides[][];
+    private final double factorValues[][];
+    private final int ownFactor[];
+    // Factors of each variable and the stride of the variable in them
+    private final int variableFactors[][];
+    private final int variableStrides[][];
+    private final int neighbours[][];
+    private final int colour[];
+    private final int numberOfColours;
+
+    private int numberOfChains = 4;
+    private int numberOfThreads = 1;
+    private int burnIn = 500;
+    private int numberOfSweeps = 5000;
+
+    // State for the current evidence
+    private int evidence[];
+    private int colourClasses[][];
+    private int tableVariables[][];
+    private int tableRadix[][];
+    private double tables[][];
+    private int blocks[][];
+    private int blockFactors[][];
+    private int states[][];
+    private SplitMix64 streams[][];
+    private long counts[][];
+    private long numberOfCountedSweeps;
+    private ProbabilityFunction result;
+
+    /**
+     * Constructor for a GibbsSampling with a seed taken from the clock.
+     *
+     * @param bayesNet the underlying Bayesian network
+     */
+    public GibbsSampling(BayesNet bayesNet)
+    {
+        this(bayesNet, System.nanoTime());
+    }
+
+    /**
+     * Constructor for a GibbsSampling.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @param seed     seed of the random streams
+     */
+    public GibbsSampling(BayesNet bayesNet, long seed)
+    {
+        this.bayesNet = bayesNet;
+        this.random = new SplitMix64(seed);
+        numberOfVariables = bayesNet.numberVariables();
+        cardinality = new int[numberOfVariables];
+        valueOffset = new int[numberOfVariables + 1];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            cardinality[v] = bayesNet.getProbabilityVariable(v).numberValues();
+            valueOffset[v + 1] = valueOffset[v] + cardinality[v];
+        }
+
+        ProbabilityFunction probFuncs[] = bayesNet.getProbabilityFunctions();
+        factorVariables = new int[probFuncs.length][];
+        factorStrides = new int[probFuncs.length][];
+        factorValues = new double[probFuncs.length][];
+        ownFactor = new int[numberOfVariables];
+        Arrays.fill(ownFactor, BayesNet.INVALID_INDEX);
+        int degree[] = new int[numberOfVariables];
+        for (int a = 0; a < probFuncs.length; a++)
+        {
+            int k = probFuncs[a].numberVariables();
+            factorVariables[a] = new int[k];
+            factorStrides[a] = new int[k];
+            factorValues[a] = probFuncs[a].getValues();
+            int stride = 1;
+            for (int i = k - 1; i >= 0; i--)
+            {
+                factorVariables[a][i] = probFuncs[a].getIndex(i);
+                factorStrides[a][i] = stride;
+                stride *= cardinality[factorVariables[a][i]];
+                degree[factorVariables[a][i]]++;
+            }
+            ownFactor[factorVariables[a][0]] = a;
+        }
+        int parents[][] = new int[numberOfVariables][];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (ownFactor[v] == BayesNet.INVALID_INDEX)
+            {
+                throw new IllegalArgumentException(
+                        "No probability function for variable " +
+                        bayesNet.getProbabilityVariable(v).getName());
+            }
+            int own[] = factorVariables[ownFactor[v]];
+            parents[v] = Arrays.copyOfRange(own, 1, own.length);
+        }
+        order = SamplingInference.topologicalOrder(parents);
+
+        variableFactors = new int[numberOfVariables][];
+        variableStrides = new int[numberOfVariables][];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            variableFactors[v] = new int[degree[v]];
+            variableStrides[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        for (int a = 0; a < factorVariables.length; a++)
+        {
+            for (int i = 0; i < factorVariables[a].length; i++)
+            {
+                int v = factorVariables[a][i];
+                variableFactors[v][degree[v]] = a;
+                variableStrides[v][degree[v]++] = factorStrides[a][i];
+            }
+        }
+
+        neighbours = moralNeighbours();
+        colour = new int[numberOfVariables];
+        numberOfColours = colourGraph();
+    }
+
+    /**
+     * Neighbours of each variable in the moral graph: the variables sharing
+     * a probability function with it, which form its Markov blanket.
+     */
+    private int[][] moralNeighbours()
+    {
+        int result[][] = new int[numberOfVariables][];
+        boolean isNeighbour[] = new boolean[numberOfVariables];
+        int list[] = new int[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            int size = 0;
+            for (int a : variableFactors[v])
+            {
+                for (int u : factorVariables[a])
+                {
+                    if (u != v && !isNeighbour[u])
+                    {
+                        isNeighbour[u] = true;
+                        list[size++] = u;
+                    }
+                }
+            }
+            result[v] = Arrays.copyOf(list, size);
+            Arrays.sort(result[v]);
+            for (int u : result[v])
+            {
+                isNeighbour[u] = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Greedy colouring of the moral graph, variables with most neighbours
+     * first, each with the smallest colour none of its neighbours has.
+     *
+     * @return the number of colours
+     */
+    private int colourGraph()
+    {
+        Integer byDegree[] = new Integer[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            byDegree[v] = v;
+        }
+        Arrays.sort(byDegree, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer v, Integer u)
+            {
+                return neighbours[u].length - neighbours[v].length;
+            }
+        });
+        Arrays.fill(colour, -1);
+        boolean isUsed[] = new boolean[numberOfVariables + 1];
+        int colours = 0;
+        for (int v : byDegree)
+        {
+            for (int u : neighbours[v])
+            {
+                if (colour[u] >= 0)
+                {
+                    isUsed[colour[u]] = true;
+                }
+            }
+            int c = 0;
+            while (isUsed[c])
+            {
+                c++;
+            }
+            colour[v] = c;
+            colours = Math.max(colours, c + 1);
+            for (int u : neighbours[v])
+            {
+                if (colour[u] >= 0)
+                {
+                    isUsed[colour[u]] = false;
+                }
+            }
+        }
+        return colours;
+    }
+
+    /**
+     * Get the number of colours of the moral graph, the number of sequential
+     * steps of a sweep.
+     *
+     * @return the number of colours
+     */
+    public int getNumberOfColours()
+    {
+        return numberOfColours;
+    }
+
+    /**
+     * Get the number of chains.
+     *
+     * @return the number of chains
+     */
+    public int getNumberOfChains()
+    {
+        return numberOfChains;
+    }
+
+    /**
+     * Set the number of chains; at least two are needed for the R-hat
+     * diagnostic. Discards the samples drawn so far.
+     *
+     * @param numberOfChains the number of chains, at least 1
+     */
+    public void setNumberOfChains(int numberOfChains)
+    {
+        if (numberOfChains < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of chains must be positive");
+        }
+        this.numberOfChains = numberOfChains;
+        evidence = null;
+    }
+
+    /**
+     * Get the number of threads.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of threads that update the chains and the variables of
+     * a colour.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Get the number of sweeps discarded at the start of each chain.
+     *
+     * @return the number of burn-in sweeps
+     */
+    public int getBurnIn()
+    {
+        return burnIn;
+    }
+
+    /**
+     * Set the number of sweeps discarded at the start of each chain.
+     * Discards the samples drawn so far.
+     *
+     * @param burnIn the number of burn-in sweeps, at least 0
+     */
+    public void setBurnIn(int burnIn)
+    {
+        if (burnIn < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Number of burn-in sweeps must not be negative");
+        }
+        this.burnIn = burnIn;
+        evidence = null;
+    }
+
+    /**
+     * Get the number of counted sweeps per chain an inference needs at
+     * least.
+     *
+     * @return the number of sweeps
+     */
+    public int getNumberOfSweeps()
+    {
+        return numberOfSweeps;
+    }
+
+    /**
+     * Set the number of counted sweeps per chain an inference needs at
+     * least.
+     *
+     * @param numberOfSweeps the number of sweeps, at least 1
+     */
+    public void setNumberOfSweeps(int numberOfSweeps)
+    {
+        if (numberOfSweeps < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of sweeps must be positive");
+        }
+        this.numberOfSweeps = numberOfSweeps;
+    }
+
+    /**
+     * Start new chains for the current evidence of the network: build the
+     * conditional tables, draw the initial states and run the burn-in.
+     */
+    public void reset()
+    {
+        evidence = MiniBucketElimination.evidence(bayesNet);
+
+        // Colour classes of the unobserved variables
+        int classSize[] = new int[numberOfColours];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (evidence[v] == BayesNet.INVALID_INDEX)
+            {
+                classSize[colour[v]]++;
+            }
+        }
+        colourClasses = new int[numberOfColours][];
+        int maxClassSize = 0;
+        for (int c = 0; c < numberOfColours; c++)
+        {
+            colourClasses[c] = new int[classSize[c]];
+            maxClassSize = Math.max(maxClassSize, classSize[c]);
+            classSize[c] = 0;
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (evidence[v] == BayesNet.INVALID_INDEX)
+            {
+                colourClasses[colour[v]][classSize[colour[v]]++] = v;
+            }
+        }
+
+        tableVariables = new int[numberOfVariables][];
+        tableRadix = new int[numberOfVariables][];
+        tables = new double[numberOfVariables][];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (evidence[v] == BayesNet.INVALID_INDEX)
+            {
+                buildTable(v);
+            }
+        }
+        buildBlocks();
+
+        int blocks = Math.max(1, (maxClassSize + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        states = new int[numberOfChains][];
+        streams = new SplitMix64[numberOfChains][blocks];
+        counts = new long[numberOfChains][valueOffset[numberOfVariables]];
+        numberOfCountedSweeps = 0;
+        for (int k = 0; k < numberOfChains; k++)
+        {
+            for (int b = 0; b < blocks; b++)
+            {
+                streams[k][b] = random.split();
+            }
+            states[k] = initialState(streams[k][0]);
+        }
+        sweep(burnIn, false);
+    }
+
+    /**
+     * Build the cumulative conditional table of a variable, indexed by the
+     * values of its unobserved neighbours, the observed ones being fixed;
+     * no table is built if it would be too large.
+     */
+    private void buildTable(int v)
+    {
+        int size = cardinality[v];
+        int numberOfFree = 0;
+        for (int u : neighbours[v])
+        {
+            if (evidence[u] == BayesNet.INVALID_INDEX)
+            {
+                if (size > MAX_TABLE_SIZE / cardinality[u])
+                {
+                    return;
+                }
+                size *= cardinality[u];
+                numberOfFree++;
+            }
+        }
+        int free[] = new int[numberOfFree];
+        int radix[] = new int[numberOfFree];
+        int r = cardinality[v];
+        for (int i = neighbours[v].length - 1; i >= 0; i--)
+        {
+            int u = neighbours[v][i];
+            if (evidence[u] == BayesNet.INVALID_INDEX)
+            {
+                free[--numberOfFree] = u;
+                radix[numberOfFree] = r;
+                r *= cardinality[u];
+            }
+        }
+
+        // Enumerate the values of the free neighbours, last one fastest
+        double table[] = new double[size];
+        int values[] = evidence.clone();
+        for (int u : free)
+        {
+            values[u] = 0;
+        }
+        for (int base = 0; base < size; base += cardinality[v])
+        {
+            conditional(v, values, table, base);
+            for (int i = free.length - 1; i >= 0; i--)
+            {
+                if (++values[free[i]] < cardinality[free[i]])
+                {
+                    break;
+                }
+                values[free[i]] = 0;
+            }
+        }
+        tableVariables[v] = free;
+        tableRadix[v] = radix;
+        tables[v] = table;
+    }
+
+    /**
+     * Find the blocks for the current evidence: each unobserved variable
+     * whose probability function has an entry below SMALL_PROBABILITY,
+     * together with its unobserved parents, as long as the block has at
+     * most MAX_BLOCK_STATES joint values; and the probability functions
+     * that involve a variable of each block.
+     */
+    private void buildBlocks()
+    {
+        ArrayList<int[]> blockList = new ArrayList<>();
+        ArrayList<int[]> factorList = new ArrayList<>();
+        boolean isBlockFactor[] = new boolean[factorVariables.length];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (evidence[v] != BayesNet.INVALID_INDEX ||
+                !hasSmallProbability(factorValues[ownFactor[v]]))
+            {
+                continue;
+            }
+            int family[] = factorVariables[ownFactor[v]];
+            int members[] = new int[family.length];
+            int size = 0;
+            int numberOfStates = 1;
+            for (int u : family)
+            {
+                if (evidence[u] == BayesNet.INVALID_INDEX)
+                {
+                    members[size++] = u;
+                    numberOfStates *= cardinality[u];
+                    if (numberOfStates > MAX_BLOCK_STATES)
+                    {
+                        break;
+                    }
+                }
+            }
+            if (size < 2 || numberOfStates > MAX_BLOCK_STATES)
+            {
+                continue;
+            }
+            members = Arrays.copyOf(members, size);
+            int factors[] = new int[factorVariables.length];
+            int numberOfFactors = 0;
+            for (int u : members)
+            {
+                for (int a : variableFactors[u])
+                {
+                    if (!isBlockFactor[a])
+                    {
+                        isBlockFactor[a] = true;
+                        factors[numberOfFactors++] = a;
+                    }
+                }
+            }
+            factors = Arrays.copyOf(factors, numberOfFactors);
+            for (int a : factors)
+            {
+                isBlockFactor[a] = false;
+            }
+            blockList.add(members);
+            factorList.add(factors);
+        }
+        blocks = blockList.toArray(new int[blockList.size()][]);
+        blockFactors = factorList.toArray(new int[factorList.size()][]);
+    }
+
+    private static boolean hasSmallProbability(double values[])
+    {
+        for (double value : values)
+        {
+            if (value < SMALL_PROBABILITY)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute the cumulative distribution of a variable given the values of
+     * its Markov blanket from the probability functions.
+     *
+     * @param v      index of the variable
+     * @param values values of all variables
+     * @param target buffer for the cumulative distribution
+     * @param offset position of the distribution in the buffer
+     */
+    private void conditional(int v, int values[], double target[], int offset)
+    {
+        Arrays.fill(target, offset, offset + cardinality[v], 1.0);
+        for (int f = 0; f < variableFactors[v].length; f++)
+        {
+            int a = variableFactors[v][f];
+            int base = 0;
+            for (int i = 0; i < factorVariables[a].length; i++)
+            {
+                int u = factorVariables[a][i];
+                if (u != v)
+                {
+                    base += values[u] * factorStrides[a][i];
+                }
+            }
+            for (int x = 0; x < cardinality[v]; x++)
+            {
+                target[offset + x] *=
+                factorValues[a][base + x * variableStrides[v][f]];
+            }
+        }
+        for (int x = 1; x < cardinality[v]; x++)
+        {
+            target[offset + x] += target[offset + x - 1];
+        }
+    }
+
+    /**
+     * Draw an initial state forward through the network with the evidence
+     * clamped, retrying until the state has positive probability.
+     */
+    private int[] initialState(SplitMix64 stream)
+    {
+        int state[] = evidence.clone();
+        for (int attempt = 0; attempt < INITIAL_ATTEMPTS; attempt++)
+        {
+            boolean isPossible = true;
+            for (int v : order)
+            {
+                int a = ownFactor[v];
+                int base = 0;
+                for (int i = 1; i < factorVariables[a].length; i++)
+                {
+                    base += state[factorVariables[a][i]] * factorStrides[a][i];
+                }
+                int stride = factorStrides[a][0];
+                if (evidence[v] != BayesNet.INVALID_INDEX)
+                {
+                    isPossible &= factorValues[a][base + evidence[v] * stride] >
+                                  0.0;
+                    continue;
+                }
+                double u = stream.nextDouble();
+                int x = 0;
+                double cumulated = factorValues[a][base];
+                while (x < cardinality[v] - 1 && cumulated <= u)
+                {
+                    x++;
+                    cumulated += factorValues[a][base + x * stride];
+                }
+                state[v] = x;
+            }
+            if (isPossible)
+            {
+                return state;
+            }
+        }
+        LOGGER.warning("No initial state consistent with the evidence found");
+        return state;
+    }
+
+    /**
+     * Run more sweeps of all chains for the current evidence and count
+     * them; new chains are started if the evidence changed.
+     *
+     * @param sweeps the number of sweeps
+     */
+    public void sample(int sweeps)
+    {
+        if (evidence == null ||
+            !Arrays.equals(evidence, MiniBucketElimination.evidence(bayesNet)))
+        {
+            reset();
+        }
+        sweep(sweeps, true);
+    }
+
+    /**
+     * Run sweeps of all chains. Each sweep updates the colours in turn. If
+     * a colour has more than BLOCK_SIZE variables, its updates in all chains
+     * are split into tasks of at most BLOCK_SIZE variables, each with its
+     * own random stream, and all tasks finish before the next colour starts;
+     * otherwise every chain runs its sweeps as one task.
+     */
+    private void sweep(final int sweeps, final boolean isCounting)
+    {
+        boolean isBlocked = false;
+        for (int colourClass[] : colourClasses)
+        {
+            isBlocked |= colourClass.length > BLOCK_SIZE;
+        }
+        int threads = Math.min(numberOfThreads,
+                               isBlocked ? Integer.MAX_VALUE : numberOfChains);
+        ExecutorService executor = threads > 1 ?
+                                   Executors.newFixedThreadPool(threads) :
+                                   null;
+        try
+        {
+            ArrayList<Future<Boolean>> pending = new ArrayList<>();
+            if (!isBlocked)
+            {
+                for (int k = 0; k < numberOfChains; k++)
+                {
+                    final int chain = k;
+                    if (executor == null)
+                    {
+                        runChain(chain, sweeps, isCounting);
+                        continue;
+                    }
+                    pending.add(executor.submit(new Callable<Boolean>()
+                    {
+                        @Override
+                        public Boolean call()
+                        {
+                            runChain(chain, sweeps, isCounting);
+                            return true;
+                        }
+                    }));
+                }
+                for (Future<Boolean> task : pending)
+                {
+                    task.get();
+                }
+            }
+            for (int s = 0; isBlocked && s < sweeps; s++)
+            {
+                for (final int colourClass[] : colourClasses)
+                {
+                    for (int k = 0; k < numberOfChains; k++)
+                    {
+                        for (int from = 0;
+                             from < colourClass.length;
+                             from += BLOCK_SIZE)
+                        {
+                            final int chain = k;
+                            final int first = from;
+                            final int last = Math.min(from + BLOCK_SIZE,
+                                                      colourClass.length);
+                            if (executor == null)
+                            {
+                                update(chain, colourClass, first, last,
+                                       isCounting);
+                                continue;
+                            }
+                            pending.add(executor.submit(new Callable<Boolean>()
+                            {
+                                @Override
+                                public Boolean call()
+                                {
+                                    update(chain, colourClass, first, last,
+                                           isCounting);
+                                    return true;
+                                }
+                            }));
+                        }
+                    }
+                    // The next colour depends on the values of this one
+                    for (Future<Boolean> task : pending)
+                    {
+                        task.get();
+                    }
+                    pending.clear();
+                }
+                for (int k = 0; k < numberOfChains; k++)
+                {
+                    final int chain = k;
+                    if (executor == null)
+                    {
+                        updateBlocks(chain);
+                        continue;
+                    }
+                    pending.add(executor.submit(new Callable<Boolean>()
+                    {
+                        @Override
+                        public Boolean call()
+                        {
+                            updateBlocks(chain);
+                            return true;
+                        }
+                    }));
+                }
+                for (Future<Boolean> task : pending)
+                {
+                    task.get();
+                }
+                pending.clear();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IllegalStateException(ex.getCause());
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+        }
+        if (isCounting)
+        {
+            numberOfCountedSweeps += sweeps;
+        }
+    }
+
+    /**
+     * Run sweeps of one chain.
+     */
+    private void runChain(int chain, int sweeps, boolean isCounting)
+    {
+        for (int s = 0; s < sweeps; s++)
+        {
+            for (int colourClass[] : colourClasses)
+            {
+                update(chain, colourClass, 0, colourClass.length, isCounting);
+            }
+            updateBlocks(chain);
+        }
+    }
+
+    /**
+     * Sample each block of one chain from the joint distribution of its
+     * variables given the others.
+     */
+    private void updateBlocks(int chain)
+    {
+        if (blocks.length == 0)
+        {
+            return;
+        }
+        int state[] = states[chain];
+        SplitMix64 stream = streams[chain][0];
+        double cumulative[] = new double[MAX_BLOCK_STATES];
+        for (int b = 0; b < blocks.length; b++)
+        {
+            int members[] = blocks[b];
+            int current[] = new int[members.length];
+            for (int i = 0; i < members.length; i++)
+            {
+                current[i] = state[members[i]];
+                state[members[i]] = 0;
+            }
+
+            // Enumerate the values of the block, last member fastest
+            int numberOfStates = 0;
+            double total = 0.0;
+            do
+            {
+                double weight = 1.0;
+                for (int a : blockFactors[b])
+                {
+                    int position = 0;
+                    for (int i = 0; i < factorVariables[a].length; i++)
+                    {
+                        position += state[factorVariables[a][i]] *
+                                    factorStrides[a][i];
+                    }
+                    weight *= factorValues[a][position];
+                }
+                total += weight;
+                cumulative[numberOfStates++] = total;
+            }
+            while (nextValues(members, state));
+
+            if (total > 0.0)
+            {
+                double u = stream.nextDouble() * total;
+                int s = 0;
+                while (s < numberOfStates - 1 && cumulative[s] <= u)
+                {
+                    s++;
+                }
+                for (int i = members.length - 1; i >= 0; i--)
+                {
+                    state[members[i]] = s % cardinality[members[i]];
+                    s /= cardinality[members[i]];
+                }
+            }
+            else
+            {
+                for (int i = 0; i < members.length; i++)
+                {
+                    state[members[i]] = current[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Advance the values of some variables to the next combination, last
+     * variable fastest.
+     *
+     * @return false after the last combination, when all values are 0 again
+     */
+    private boolean nextValues(int variables[], int state[])
+    {
+        for (int i = variables.length - 1; i >= 0; i--)
+        {
+            if (++state[variables[i]] < cardinality[variables[i]])
+            {
+                return true;
+            }
+            state[variables[i]] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Update a block of variables of one colour in one chain.
+     */
+    private void update(int chain,
+                        int colourClass[],
+                        int first,
+                        int last,
+                        boolean isCounting)
+    {
+        int state[] = states[chain];
+        SplitMix64 stream = streams[chain][first / BLOCK_SIZE];
+        double buffer[] = null;
+        for (int i = first; i < last; i++)
+        {
+            int v = colourClass[i];
+            double table[] = tables[v];
+            int base = 0;
+            if (table != null)
+            {
+                int free[] = tableVariables[v];
+                for (int j = 0; j < free.length; j++)
+                {
+                    base += state[free[j]] * tableRadix[v][j];
+                }
+            }
+            else
+            {
+                if (buffer == null || buffer.length < cardinality[v])
+                {
+                    buffer = new double[cardinality[v]];
+                }
+                conditional(v, state, buffer, 0);
+                table = buffer;
+            }
+            double total = table[base + cardinality[v] - 1];
+            if (total > 0.0)
+            {
+                double u = stream.nextDouble() * total;
+                int x = 0;
+                while (x < cardinality[v] - 1 && table[base + x] <= u)
+                {
+                    x++;
+                }
+                state[v] = x;
+            }
+            if (isCounting)
+            {
+                counts[chain][valueOffset[v] + state[v]]++;
+            }
+        }
+    }
+
+    /**
+     * Calculation of the approximate marginal posterior distribution of the
+     * variable queried by the network.
+     */
+    public void inference()
+    {
+        inference((String) null);
+    }
+
+    /**
+     * Calculation of the approximate marginal posterior distribution of a
+     * variable from at least getNumberOfSweeps() counted sweeps per chain
+     * for the current evidence.
+     *
+     * @param queriedVariableName name of the variable to query; the first
+     *                            variable if null or invalid
+     */
+    public void inference(String queriedVariableName)
+    {
+        if (evidence == null ||
+            !Arrays.equals(evidence, MiniBucketElimination.evidence(bayesNet)))
+        {
+            reset();
+        }
+        if (numberOfCountedSweeps < numberOfSweeps)
+        {
+            sweep((int) (numberOfSweeps - numberOfCountedSweeps), true);
+        }
+        int indexQueried = bayesNet.indexOfVariable(queriedVariableName);
+        if (indexQueried == BayesNet.INVALID_INDEX)
+        {
+            indexQueried = 0;
+        }
+        double values[] = new double[cardinality[indexQueried]];
+        if (evidence[indexQueried] != BayesNet.INVALID_INDEX)
+        {
+            values[evidence[indexQueried]] = 1.0;
+        }
+        else
+        {
+            double total = (double) numberOfCountedSweeps * numberOfChains;
+            for (int k = 0; k < numberOfChains; k++)
+            {
+                for (int x = 0; x < values.length; x++)
+                {
+                    values[x] += counts[k][valueOffset[indexQueried] + x] /
+                                 total;
+                }
+            }
+        }
+        DiscreteVariable variables[] =
+        {
+            bayesNet.getProbabilityVariable(indexQueried)
+        };
+        result = new ProbabilityFunction(bayesNet,
+                                         variables,
+                                         values,
+                                         new ArrayList<String>());
+    }
+
+    /**
+     * Get the result of the last inference.
+     *
+     * @return the approximate posterior distribution
+     */
+    public ProbabilityFunction getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Get the result of the last inference as a typed result.
+     *
+     * @return the marginal result
+     */
+    public MarginalResult getMarginalResult()
+    {
+        return new MarginalResult(result);
+    }
+
+    /**
+     * Get the number of counted sweeps per chain for the current evidence.
+     *
+     * @return the number of sweeps
+     */
+    public long getNumberOfCountedSweeps()
+    {
+        return numberOfCountedSweeps;
+    }
+
+    /**
+     * Compute the largest potential scale reduction factor (R-hat) over the
+     * indicators of the values of the unobserved variables, comparing the
+     * variance between the chains with the variance within them.
+     *
+     * @return R-hat, 1 for perfect agreement; NaN with fewer than two chains
+     *         or two counted sweeps
+     */
+    public double getRHat()
+    {
+        long n = numberOfCountedSweeps;
+        int m = numberOfChains;
+        if (counts == null || m < 2 || n < 2)
+        {
+            return Double.NaN;
+        }
+        double largest = 1.0;
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (evidence[v] != BayesNet.INVALID_INDEX)
+            {
+                continue;
+            }
+            for (int x = 0; x < cardinality[v]; x++)
+            {
+                double mean = 0.0;
+                double within = 0.0;
+                double chainMean[] = new double[m];
+                for (int k = 0; k < m; k++)
+                {
+                    chainMean[k] = (double) counts[k][valueOffset[v] + x] / n;
+                    mean += chainMean[k] / m;
+                    within += chainMean[k] * (1.0 - chainMean[k]) * n /
+                              (n - 1) / m;
+                }
+                double between = 0.0;
+                for (int k = 0; k < m; k++)
+                {
+                    between += (chainMean[k] - mean) * (chainMean[k] - mean) *
+                               n / (m - 1);
+                }
+                if (within > 0.0)
+                {
+                    double pooled = (n - 1.0) / n * within + between / n;
+                    largest = Math.max(largest, Math.sqrt(pooled / within));
+                }
+                else if (between > 0.0)
+                {
+                    // The chains are stuck in different values
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+        return largest;
+    }
+}
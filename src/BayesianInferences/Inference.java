@@ -26,7 +26,10 @@
 package BayesianInferences;
 
 import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteVariable;
 import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import CredalSets.QBProbabilityFunction;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.logging.Logger;
@@ -47,6 +50,12 @@ public class Inference
     private ArrayList<BucketTree> bucketForest;
     private ProbabilityFunction result;
     private boolean isProducingClusters;
+    private boolean isProfiling;
+    private InferenceProfile profile = InferenceProfile.DISABLED;
+    private InferenceMetrics metrics;
+    private CompiledModel compiledModel;
+    private int miniBucketBound;
+    InferenceProfile.Kind profileKind = InferenceProfile.Kind.MARGINAL;
 
     /**
      * Constructor for an Inference.
@@ -119,7 +128,12 @@ public class Inference
      */
     protected void inference(String queriedVariableName)
     {
-        if (isProducingClusters)
+        beginProfile(queriedVariableName);
+        if (miniBucketBound > 0)
+        {
+            miniBucketInference(queriedVariableName);
+        }
+        else if (isProducingClusters)
         { // If clusters are generated:
             int indexQueried = bayesNet.indexOfVariable(queriedVariableName);
             if (indexQueried != BayesNet.INVALID_INDEX)
@@ -128,15 +142,13 @@ public class Inference
                 // If the probVar has no Bucket or a Bucket without valid clusterFunc:
                 if ((buck == null) || (buck.clusterFunc == null))
                 {
-                    inference(new Ordering(bayesNet,
-                                           queriedVariableName,
-                                           ExplanationType.IGNORE,
-                                           Ordering.Type.MINIMUM_WEIGHT));
+                    inference(heuristicOrdering(queriedVariableName));
                 }
                 else
                 { // If probVar already has a Bucket:
                     // Get the BucketTree.
                     bucketTree = buck.bucketTree;
+                    bucketTree.profile = profile;
                     // Note that the method bucketTree.distribute() below must return true:
                     //     - the bucketTree is constructed with IGNORE.
                     //     - this block only runs if isProducingClusters is true.
@@ -155,28 +167,47 @@ public class Inference
                         }
                     }
                     // Now process the clusterFunc in the Bucket.
-                    System.out.println("ARRIVED HERE!");
                     buck.reduceCluster();
                     // And then get the result
-                    System.out.println("AND HERE TOO!");
                     result = bucketTree.getNormalizedResult();
                 }
             }
             else
             { // If the queriedVariableName is invalid:
-                inference(new Ordering(bayesNet,
-                                       (String) null,
-                                       ExplanationType.IGNORE,
-                                       Ordering.Type.MINIMUM_WEIGHT));
+                inference(heuristicOrdering((String) null));
             }
         }
         else
         { // If no clusterFunc is generated:
-            inference(new Ordering(bayesNet,
-                                   queriedVariableName,
-                                   ExplanationType.IGNORE,
-                                   Ordering.Type.MINIMUM_WEIGHT));
+            inference(heuristicOrdering(queriedVariableName));
         }
+        finishProfile();
+    }
+
+    /**
+     * Create the heuristic Ordering for a queried variable, timing it in the
+     * profile.
+     *
+     * @param queriedVariableName name of the variable to query
+     * @return the ordering
+     */
+    private Ordering heuristicOrdering(String queriedVariableName)
+    {
+        profile.start(InferenceProfile.Phase.ORDERING);
+        String compiledOrder[] = compiledModel == null ?
+                                 null :
+                                 compiledModel.getOrder(bayesNet,
+                                                        queriedVariableName);
+        Ordering ordering = compiledOrder != null ?
+                            new Ordering(bayesNet,
+                                         compiledOrder,
+                                         ExplanationType.IGNORE) :
+                            new Ordering(bayesNet,
+                                         queriedVariableName,
+                                         ExplanationType.IGNORE,
+                                         Ordering.Type.MINIMUM_WEIGHT);
+        profile.stop(InferenceProfile.Phase.ORDERING);
+        return ordering;
     }
 
     /**
@@ -187,7 +218,15 @@ public class Inference
      */
     protected void inference(String order[])
     {
+        if (miniBucketBound > 0)
+        {
+            // Mini-buckets use their own ordering
+            inference(order[order.length - 1]);
+            return;
+        }
+        beginProfile(order[order.length - 1]);
         inference(new Ordering(bayesNet, order, ExplanationType.IGNORE));
+        finishProfile();
     }
 
     /**
@@ -198,7 +237,7 @@ public class Inference
     private void inference(Ordering ordering)
     {
         // Create the Ordering and the BucketTree.
-        bucketTree = new BucketTree(ordering, isProducingClusters);
+        bucketTree = new BucketTree(ordering, isProducingClusters, profile);
         // Add the new BucketTree to the bucketForest and update bucketForVariable.
         if (isProducingClusters)
         {
@@ -209,6 +248,232 @@ public class Inference
         result = bucketTree.getNormalizedResult();
     }
 
+    /**
+     * Calculation of bounds on the marginal posterior distribution by
+     * mini-bucket elimination. For each value x of the queried variable,
+     * bounds L(x) &lt;= P(x, e) &lt;= U(x) are computed; the posterior of x
+     * then lies between L(x) / (L(x) + sum of U(y)) and
+     * U(x) / (U(x) + sum of L(y)) over the other values y. The result is a
+     * QBProbabilityFunction holding these envelopes, with the normalized
+     * upper bounds as values.
+     *
+     * @param queriedVariableName name of the variable to query
+     */
+    private void miniBucketInference(String queriedVariableName)
+    {
+        int indexQueried = bayesNet.indexOfVariable(queriedVariableName);
+        if (indexQueried == BayesNet.INVALID_INDEX)
+        {
+            indexQueried = 0;
+        }
+        ProbabilityVariable queried =
+                            bayesNet.getProbabilityVariable(indexQueried);
+
+        profile.start(InferenceProfile.Phase.EVIDENCE);
+        int assignment[] = MiniBucketElimination.evidence(bayesNet);
+        boolean isRelevant[] = new boolean[assignment.length];
+        for (int i = 0; i < assignment.length; i++)
+        {
+            isRelevant[i] = assignment[i] != BayesNet.INVALID_INDEX;
+        }
+        isRelevant[indexQueried] = true;
+        MiniBucketElimination miniBuckets =
+                              new MiniBucketElimination(
+                                      bayesNet,
+                                      MiniBucketElimination.ancestralFunctions(
+                                              bayesNet,
+                                              isRelevant),
+                                      miniBucketBound);
+        profile.stop(InferenceProfile.Phase.EVIDENCE);
+
+        profile.start(InferenceProfile.Phase.REDUCTION);
+        int numberOfValues = queried.numberValues();
+        boolean isMaxVariable[] = new boolean[assignment.length];
+        double lowerJoint[] = new double[numberOfValues];
+        double upperJoint[] = new double[numberOfValues];
+        double lowerSum = 0.0;
+        double upperSum = 0.0;
+        for (int x = 0; x < numberOfValues; x++)
+        {
+            if (queried.isObserved() && x != queried.getObservedIndex())
+            {
+                continue;
+            }
+            assignment[indexQueried] = x;
+            lowerJoint[x] = miniBuckets.bound(assignment, isMaxVariable, false);
+            upperJoint[x] = miniBuckets.bound(assignment, isMaxVariable, true);
+            lowerSum += lowerJoint[x];
+            upperSum += upperJoint[x];
+        }
+        profile.stop(InferenceProfile.Phase.REDUCTION);
+
+        profile.start(InferenceProfile.Phase.NORMALIZATION);
+        double values[] = new double[numberOfValues];
+        double lower[] = new double[numberOfValues];
+        double upper[] = new double[numberOfValues];
+        for (int x = 0; x < numberOfValues; x++)
+        {
+            values[x] = ratio(upperJoint[x], upperSum);
+            lower[x] = ratio(lowerJoint[x],
+                             lowerJoint[x] + upperSum - upperJoint[x]);
+            upper[x] = ratio(upperJoint[x],
+                             upperJoint[x] + lowerSum - lowerJoint[x]);
+        }
+        DiscreteVariable variables[] =
+        {
+            queried
+        };
+        result = new QBProbabilityFunction(bayesNet,
+                                           variables,
+                                           values,
+                                           lower,
+                                           upper,
+                                           new ArrayList<String>());
+        profile.stop(InferenceProfile.Phase.NORMALIZATION);
+    }
+
+    /**
+     * Quotient of two bounds, zero if the denominator vanishes.
+     */
+    private static double ratio(double numerator, double denominator)
+    {
+        return denominator > 0.0 ? Math.min(1.0, numerator / denominator) :
+               0.0;
+    }
+
+    /**
+     * Get the i-bound of the mini-bucket mode.
+     *
+     * @return maximal number of variables in a mini-bucket, or 0 for exact
+     *         inference
+     */
+    public int getMiniBucketBound()
+    {
+        return miniBucketBound;
+    }
+
+    /**
+     * Set the mini-bucket mode. With a positive i-bound, queries are answered
+     * by mini-bucket elimination: no bucket joins more than iBound
+     * variables, and the result is a QBProbabilityFunction whose envelopes
+     * bound the posterior distribution; see getMarginalResult(). Clusters
+     * are not produced in this mode.
+     *
+     * @param iBound maximal number of variables in a mini-bucket, or 0 for
+     *               exact inference
+     */
+    public void setMiniBucketBound(int iBound)
+    {
+        if (iBound < 0)
+        {
+            throw new IllegalArgumentException("i-bound must not be " +
+                                               "negative: " + iBound);
+        }
+        this.miniBucketBound = iBound;
+    }
+
+    /**
+     * Start a new profile for a query if profiling is switched on.
+     *
+     * @param queriedVariableName name of the variable to query
+     */
+    private void beginProfile(String queriedVariableName)
+    {
+        profile = isProfiling ?
+                  new InferenceProfile(profileKind, queriedVariableName) :
+                  InferenceProfile.DISABLED;
+    }
+
+    /**
+     * Finish the profile of a query and hand it to the metrics registry.
+     */
+    private void finishProfile()
+    {
+        profile.finish();
+        if (metrics != null)
+        {
+            metrics.record(profile);
+        }
+    }
+
+    /**
+     * Get the compiled model whose elimination orders are used.
+     *
+     * @return the compiled model, or null for none
+     */
+    public CompiledModel getCompiledModel()
+    {
+        return compiledModel;
+    }
+
+    /**
+     * Set a compiled model whose elimination orders are used instead of
+     * computing the heuristic ordering, whenever they are valid for the
+     * evidence. The model must have been compiled from an equal network.
+     *
+     * @param compiledModel the compiled model, or null for none
+     */
+    public void setCompiledModel(CompiledModel compiledModel)
+    {
+        this.compiledModel = compiledModel;
+    }
+
+    /**
+     * Check whether queries are profiled.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isProfiling()
+    {
+        return isProfiling;
+    }
+
+    /**
+     * Set whether queries are profiled. When profiling, every query records
+     * an InferenceProfile that can be retrieved with getProfile().
+     *
+     * @param isProfiling true, if queries should be profiled, false otherwise
+     */
+    public void setProfiling(boolean isProfiling)
+    {
+        this.isProfiling = isProfiling;
+    }
+
+    /**
+     * Get the profile of the last query.
+     *
+     * @return the profile; a disabled profile if profiling is off
+     */
+    public InferenceProfile getProfile()
+    {
+        return profile;
+    }
+
+    /**
+     * Get the metrics registry that receives the profiles of all queries.
+     *
+     * @return the metrics registry or null
+     */
+    public InferenceMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Set the metrics registry that receives the profiles of all queries.
+     * Setting a registry switches profiling on.
+     *
+     * @param metrics the metrics registry, or null for none
+     */
+    public void setMetrics(InferenceMetrics metrics)
+    {
+        this.metrics = metrics;
+        if (metrics != null)
+        {
+            isProfiling = true;
+        }
+    }
+
     /**
      * Add a BucketTree to the bucketForest and update the bucketForVariable
      * array.
@@ -319,6 +584,16 @@ public class Inference
         return result;
     }
 
+    /**
+     * Get the current result of the Inference as a typed result.
+     *
+     * @return the marginal result
+     */
+    public MarginalResult getMarginalResult()
+    {
+        return new MarginalResult(result);
+    }
+
     /**
      * Normalize the result.
      */
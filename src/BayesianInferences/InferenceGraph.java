@@ -54,6 +54,7 @@ public final class InferenceGraph
     QBInference qbi;
     QBExpectation qbe;
     ArrayList<InferenceGraphNode> nodes = new ArrayList();
+    private InferenceMetrics metrics;
     private final String defaultBayesNetName = "InternalNetwork";
 
     /**
@@ -414,15 +415,69 @@ public final class InferenceGraph
                               String queriedVariable,
                               boolean isProducingComputeClusters,
                               boolean showBucketTree)
+    {
+        computeMarginal(queriedVariable, isProducingComputeClusters);
+        qbi.print(out, showBucketTree);
+    }
+
+    /**
+     * Compute a posterior marginal for the Bayesian network.
+     *
+     * @param queriedVariable            indicates the variable of interest.
+     * @param isProducingComputeClusters whether or not clusters should be
+     *                                   produced
+     * @return the posterior marginal of the queried variable
+     */
+    public MarginalResult getMarginal(String queriedVariable,
+                                      boolean isProducingComputeClusters)
+    {
+        computeMarginal(queriedVariable, isProducingComputeClusters);
+        return qbi.getMarginalResult();
+    }
+
+    /**
+     * Run the QBInference for a posterior marginal, reusing the clusters of
+     * the previous QBInference if possible.
+     *
+     * @param queriedVariable            indicates the variable of interest.
+     * @param isProducingComputeClusters whether or not clusters should be
+     *                                   produced
+     */
+    private void computeMarginal(String queriedVariable,
+                                 boolean isProducingComputeClusters)
     {
         if ((isProducingComputeClusters == false) ||
             (qbi == null) ||
             (qbi.areClustersProduced() == false))
         {
             qbi = new QBInference(getBayesNet(), isProducingComputeClusters);
+            qbi.setMetrics(metrics);
         }
         qbi.inference(queriedVariable);
-        qbi.print(out, showBucketTree);
+    }
+
+    /**
+     * Get the metrics registry that receives the profiles of all queries run
+     * through this InferenceGraph.
+     *
+     * @return the metrics registry or null
+     */
+    public InferenceMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Set the metrics registry that receives the profiles of all queries run
+     * through this InferenceGraph.
+     *
+     * @param metrics the metrics registry, or null for none
+     */
+    public void setMetrics(InferenceMetrics metrics)
+    {
+        this.metrics = metrics;
+        resetMarginal();
+        resetExpectation();
     }
 
     /**
@@ -448,15 +503,44 @@ public final class InferenceGraph
                                  String queriedVariable,
                                  boolean isProducingComputeClusters,
                                  boolean showBucketTree)
+    {
+        computeExpectation(queriedVariable, isProducingComputeClusters);
+        qbe.print(out, showBucketTree);
+    }
+
+    /**
+     * Compute a posterior expectation for the Bayesian network.
+     *
+     * @param queriedVariable            indicates the variable of interest.
+     * @param isProducingComputeClusters whether or not clusters should be
+     *                                   produced
+     * @return the posterior expectation of the queried variable
+     */
+    public ExpectationResult getExpectation(String queriedVariable,
+                                            boolean isProducingComputeClusters)
+    {
+        computeExpectation(queriedVariable, isProducingComputeClusters);
+        return qbe.getExpectationResult();
+    }
+
+    /**
+     * Run the QBExpectation for a posterior expectation.
+     *
+     * @param queriedVariable            indicates the variable of interest.
+     * @param isProducingComputeClusters whether or not clusters should be
+     *                                   produced
+     */
+    private void computeExpectation(String queriedVariable,
+                                    boolean isProducingComputeClusters)
     {
         if ((isProducingComputeClusters == false) ||
             (qbe == null) /*|| // *** Removed as it does not seem to make sense here
                  (qbi.areClustersProduced() == false)*/)
         {
             qbe = new QBExpectation(getBayesNet(), isProducingComputeClusters);
+            qbe.setMetrics(metrics);
         }
         qbe.expectation(queriedVariable);
-        qbe.print(out, showBucketTree);
     }
 
     /**
@@ -478,6 +562,7 @@ public final class InferenceGraph
     public void printExplanation(PrintStream out, boolean showBucketTree)
     {
         Explanation ex = new Explanation(getBayesNet());
+        ex.setMetrics(metrics);
         ex.explanation();
         ex.print(out, showBucketTree);
     }
@@ -494,10 +579,39 @@ public final class InferenceGraph
                                      boolean showBucketTree)
     {
         Explanation fex = new Explanation(getBayesNet());
+        fex.setMetrics(metrics);
         fex.fullExplanation();
         fex.print(out, showBucketTree);
     }
 
+    /**
+     * Compute an explanation for the Bayesian network, using only the
+     * variables marked as explanation variables.
+     *
+     * @return the explanation
+     */
+    public ExplanationResult getExplanation()
+    {
+        Explanation ex = new Explanation(getBayesNet());
+        ex.setMetrics(metrics);
+        ex.explanation();
+        return ex.getExplanationResult();
+    }
+
+    /**
+     * Compute a full explanation for the Bayesian network, using all variables
+     * that are not observed.
+     *
+     * @return the explanation
+     */
+    public ExplanationResult getFullExplanation()
+    {
+        Explanation fex = new Explanation(getBayesNet());
+        fex.setMetrics(metrics);
+        fex.fullExplanation();
+        return fex.getExplanationResult();
+    }
+
     /**
      * Print the metrics for sensitivity analysis of the Bayesian network into
      * the given PrintStream.
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Thread-safe registry of counters and histograms that aggregates the profiles
+ * of many queries. Counters and histograms are created on first use under a
+ * metric name; the registry can be written in the Prometheus text exposition
+ * format or exported as a map, so it can be bridged to any metrics system.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class InferenceMetrics
+{
+
+    private static final Class CLAZZ = InferenceMetrics.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Upper bounds in microseconds of the default latency histogram buckets.
+     */
+    public static final long LATENCY_BOUNDS_MICROS[] =
+    {
+        10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L,
+        25000L, 50000L, 100000L, 250000L, 500000L, 1000000L, 5000000L
+    };
+
+    /**
+     * Upper bounds of the default size histogram buckets.
+     */
+    public static final long SIZE_BOUNDS[] =
+    {
+        16L, 64L, 256L, 1024L, 4096L, 16384L, 65536L, 262144L, 1048576L,
+        4194304L, 16777216L, 67108864L
+    };
+
+    private final String prefix;
+    private final ConcurrentMap<String, AtomicLong> counters =
+                                                    new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms =
+                                                   new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for InferenceMetrics with the prefix "javabayes".
+     */
+    public InferenceMetrics()
+    {
+        this("javabayes");
+    }
+
+    /**
+     * Constructor for InferenceMetrics.
+     *
+     * @param prefix prefix prepended to all metric names on export
+     */
+    public InferenceMetrics(String prefix)
+    {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Aggregate a finished query profile: counts the query, adds its flops
+     * and bytes, and records its latency, phase times and largest table.
+     *
+     * @param profile the profile of the query
+     */
+    public void record(InferenceProfile profile)
+    {
+        if (!profile.isEnabled())
+        {
+            return;
+        }
+        String kind = profile.getKind().toString().toLowerCase();
+        counter("queries_total{kind=\"" + kind + "\"}").incrementAndGet();
+        counter("flops_total").addAndGet(profile.getTotalFlops());
+        counter("table_bytes_total").addAndGet(profile.getTotalTableBytes());
+        if (profile.getAllocatedBytes() >= 0L)
+        {
+            counter("allocated_bytes_total").addAndGet(
+                    profile.getAllocatedBytes());
+        }
+        histogram("query_latency_micros{kind=\"" + kind + "\"}",
+                  LATENCY_BOUNDS_MICROS).record(
+                          profile.getTotalNanos() / 1000L);
+        for (InferenceProfile.Phase phase : InferenceProfile.Phase.values())
+        {
+            long nanos = profile.getPhaseNanos(phase);
+            if (nanos > 0L)
+            {
+                histogram("phase_latency_micros{phase=\"" +
+                          phase.toString().toLowerCase() + "\"}",
+                          LATENCY_BOUNDS_MICROS).record(nanos / 1000L);
+            }
+        }
+        histogram("max_table_size", SIZE_BOUNDS).record(
+                profile.getMaxTableSize());
+    }
+
+    /**
+     * Get the counter registered under a name, creating it if necessary.
+     *
+     * @param name the metric name, optionally with labels in braces
+     * @return the counter
+     */
+    public AtomicLong counter(String name)
+    {
+        AtomicLong counter = counters.get(name);
+        if (counter == null)
+        {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent(name, newCounter);
+            if (counter == null)
+            {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Get the histogram registered under a name, creating it with the given
+     * bucket bounds if necessary.
+     *
+     * @param name   the metric name, optionally with labels in braces
+     * @param bounds ascending upper bounds of the buckets, used only if the
+     *               histogram is created
+     * @return the histogram
+     */
+    public Histogram histogram(String name, long bounds[])
+    {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null)
+        {
+            Histogram newHistogram = new Histogram(bounds);
+            histogram = histograms.putIfAbsent(name, newHistogram);
+            if (histogram == null)
+            {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Escape a label value for the Prometheus text exposition format, so
+     * that it can be placed between the quotes of a label.
+     *
+     * @param value the label value
+     * @return the value with backslashes, quotes and line feeds escaped
+     */
+    public static String escapeLabelValue(String value)
+    {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Export all counters and histogram summaries as a sorted map.
+     *
+     * @return map from metric names to values
+     */
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet())
+        {
+            map.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet())
+        {
+            Histogram histogram = entry.getValue();
+            map.put(entry.getKey() + ".count", histogram.getCount());
+            map.put(entry.getKey() + ".sum", histogram.getSum());
+            map.put(entry.getKey() + ".p50", histogram.quantile(0.5));
+            map.put(entry.getKey() + ".p99", histogram.quantile(0.99));
+        }
+        return map;
+    }
+
+    /**
+     * Write all metrics in the Prometheus text exposition format.
+     *
+     * @param out output print stream
+     */
+    public void writePrometheus(PrintStream out)
+    {
+        TreeMap<String, AtomicLong> sortedCounters = new TreeMap<>(counters);
+        for (Map.Entry<String, AtomicLong> entry : sortedCounters.entrySet())
+        {
+            out.println(prefix + "_" + entry.getKey() + " " +
+                        entry.getValue().get());
+        }
+        TreeMap<String, Histogram> sortedHistograms = new TreeMap<>(histograms);
+        for (Map.Entry<String, Histogram> entry : sortedHistograms.entrySet())
+        {
+            entry.getValue().writePrometheus(out,
+                                             prefix + "_" + entry.getKey());
+        }
+    }
+
+    /**
+     * Remove all counters and histograms.
+     */
+    public void clear()
+    {
+        counters.clear();
+        histograms.clear();
+    }
+
+    /**
+     * Lock-free histogram with fixed bucket bounds. Values above the largest
+     * bound go into an overflow bucket.
+     */
+    public static class Histogram
+    {
+
+        private final long bounds[];
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+
+        /**
+         * Constructor for a Histogram.
+         *
+         * @param bounds ascending upper bounds of the buckets
+         */
+        public Histogram(long bounds[])
+        {
+            this.bounds = bounds.clone();
+            this.counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        /**
+         * Record a value.
+         *
+         * @param value the value to record
+         */
+        public void record(long value)
+        {
+            int low = 0;
+            int high = bounds.length;
+            // Binary search for the first bound not below the value
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (bounds[mid] < value)
+                {
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid;
+                }
+            }
+            counts.incrementAndGet(low);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+        }
+
+        /**
+         * Get the number of recorded values.
+         *
+         * @return the count
+         */
+        public long getCount()
+        {
+            return count.get();
+        }
+
+        /**
+         * Get the sum of recorded values.
+         *
+         * @return the sum
+         */
+        public long getSum()
+        {
+            return sum.get();
+        }
+
+        /**
+         * Estimate a quantile as the upper bound of the bucket that contains
+         * it.
+         *
+         * @param q the quantile in [0, 1]
+         * @return the estimate, Long.MAX_VALUE if it falls into the overflow
+         *         bucket, or 0 if the histogram is empty
+         */
+        public long quantile(double q)
+        {
+            long total = count.get();
+            if (total == 0L)
+            {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(q * total);
+            long cumulative = 0L;
+            for (int i = 0; i < bounds.length; i++)
+            {
+                cumulative += counts.get(i);
+                if (cumulative >= rank)
+                {
+                    return bounds[i];
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Write the histogram in the Prometheus text exposition format.
+         *
+         * @param out  output print stream
+         * @param name full metric name, optionally with labels in braces
+         */
+        void writePrometheus(PrintStream out, String name)
+        {
+            String baseName = name;
+            String labels = "";
+            int brace = name.indexOf('{');
+            if (brace >= 0)
+            {
+                baseName = name.substring(0, brace);
+                labels = name.substring(brace + 1, name.length() - 1) + ",";
+            }
+            long cumulative = 0L;
+            for (int i = 0; i < bounds.length; i++)
+            {
+                cumulative += counts.get(i);
+                out.println(baseName + "_bucket{" + labels + "le=\"" +
+                            bounds[i] + "\"} " + cumulative);
+            }
+            cumulative += counts.get(bounds.length);
+            out.println(baseName + "_bucket{" + labels + "le=\"+Inf\"} " +
+                        cumulative);
+            String suffix = labels.isEmpty() ?
+                            "" :
+                            "{" + labels.substring(0, labels.length() - 1) +
+                            "}";
+            out.println(baseName + "_sum" + suffix + " " + sum.get());
+            out.println(baseName + "_count" + suffix + " " + count.get());
+        }
+    }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Record of where a single query spends its time and memory: wall time per
+ * phase (ordering, evidence absorption, bucket reduction, distribution and
+ * normalization), table size, flop count and bytes of every reduced bucket,
+ * and the bytes allocated by the querying thread where the JVM supports it.
+ *
+ * A profile is created per query by Inference, Explanation and Expectation
+ * when profiling is switched on. The DISABLED profile ignores all recordings,
+ * so instrumented code does not have to check whether profiling is on.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class InferenceProfile
+{
+
+    private static final Class CLAZZ = InferenceProfile.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Number of bytes taken by a value of a table.
+     */
+    static final int BYTES_PER_VALUE = Double.SIZE / Byte.SIZE;
+
+    /**
+     * Profile that records nothing.
+     */
+    static final InferenceProfile DISABLED = new InferenceProfile();
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN =
+                                                          allocationBean();
+
+    private final boolean isEnabled;
+    private final Kind kind;
+    private final String query;
+    private final long phaseNanos[] = new long[Phase.values().length];
+    private final long phaseStart[] = new long[Phase.values().length];
+    private final ArrayList<BucketStatistics> buckets = new ArrayList<>();
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private long totalNanos = -1L;
+    private long allocatedBytes = -1L;
+
+    /**
+     * Constructor for the disabled profile.
+     */
+    private InferenceProfile()
+    {
+        isEnabled = false;
+        kind = Kind.MARGINAL;
+        query = null;
+        startNanos = 0L;
+        startAllocatedBytes = -1L;
+    }
+
+    /**
+     * Constructor for an InferenceProfile. Starts the clock of the query.
+     *
+     * @param kind  kind of the query
+     * @param query name of the queried variable, or null if the query is not
+     *              about a single variable
+     */
+    public InferenceProfile(Kind kind, String query)
+    {
+        this.isEnabled = true;
+        this.kind = kind;
+        this.query = query;
+        this.startAllocatedBytes = currentAllocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Obtain the bean that measures per-thread allocation if the JVM provides
+     * one.
+     *
+     * @return the bean or null if allocation cannot be measured
+     */
+    private static com.sun.management.ThreadMXBean allocationBean()
+    {
+        try
+        {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean)
+            {
+                com.sun.management.ThreadMXBean sunBean =
+                (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported() &&
+                    sunBean.isThreadAllocatedMemoryEnabled())
+                {
+                    return sunBean;
+                }
+            }
+        }
+        catch (LinkageError | SecurityException e)
+        {
+            LOGGER.fine("Allocation measurement not available: " + e);
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of bytes allocated so far by the current thread.
+     *
+     * @return the number of bytes, or -1 if not measurable
+     */
+    private static long currentAllocatedBytes()
+    {
+        return ALLOCATION_BEAN == null ?
+               -1L :
+               ALLOCATION_BEAN.getThreadAllocatedBytes(
+                       Thread.currentThread().getId());
+    }
+
+    /**
+     * Check whether this profile records anything.
+     *
+     * @return true if so, false for the disabled profile
+     */
+    public boolean isEnabled()
+    {
+        return isEnabled;
+    }
+
+    /**
+     * Start timing a phase. Phases can be started repeatedly; the times
+     * accumulate.
+     *
+     * @param phase the phase to time
+     */
+    public void start(Phase phase)
+    {
+        if (isEnabled)
+        {
+            phaseStart[phase.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stop timing a phase and add the elapsed time to the phase total.
+     *
+     * @param phase the phase to stop
+     */
+    public void stop(Phase phase)
+    {
+        if (isEnabled)
+        {
+            phaseNanos[phase.ordinal()] +=
+            System.nanoTime() - phaseStart[phase.ordinal()];
+        }
+    }
+
+    /**
+     * Record the statistics of a reduced bucket.
+     *
+     * @param variableName      name of the bucket variable
+     * @param numberOfFunctions number of functions combined in the bucket
+     * @param tableSize         number of entries of the combined table
+     * @param flops             number of multiplications and additions
+     * @param bytes             bytes of the tables allocated by the bucket
+     * @param isMaximization    true if the bucket variable was maximized out,
+     *                          false if it was summed out
+     */
+    public void recordBucket(String variableName,
+                             int numberOfFunctions,
+                             long tableSize,
+                             long flops,
+                             long bytes,
+                             boolean isMaximization)
+    {
+        if (isEnabled)
+        {
+            buckets.add(new BucketStatistics(variableName,
+                                             numberOfFunctions,
+                                             tableSize,
+                                             flops,
+                                             bytes,
+                                             isMaximization));
+        }
+    }
+
+    /**
+     * Stop the clock of the query. Calling finish more than once has no
+     * further effect.
+     */
+    public void finish()
+    {
+        if (isEnabled && totalNanos < 0L)
+        {
+            totalNanos = System.nanoTime() - startNanos;
+            if (startAllocatedBytes >= 0L)
+            {
+                allocatedBytes = currentAllocatedBytes() - startAllocatedBytes;
+            }
+        }
+    }
+
+    /**
+     * Get the kind of query.
+     *
+     * @return the kind
+     */
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Get the name of the queried variable.
+     *
+     * @return the name or null
+     */
+    public String getQuery()
+    {
+        return query;
+    }
+
+    /**
+     * Get the accumulated wall time of a phase.
+     *
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase)
+    {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Get the wall time of the whole query.
+     *
+     * @return the time in nanoseconds, or the time elapsed so far if the query
+     *         has not finished yet
+     */
+    public long getTotalNanos()
+    {
+        if (!isEnabled)
+        {
+            return 0L;
+        }
+        return totalNanos >= 0L ? totalNanos : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Get the bytes allocated by the querying thread during the query.
+     *
+     * @return the bytes or -1 if the JVM cannot measure allocation
+     */
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    /**
+     * Get the statistics of all reduced buckets in order of reduction.
+     *
+     * @return the list of bucket statistics
+     */
+    public List<BucketStatistics> getBuckets()
+    {
+        return buckets;
+    }
+
+    /**
+     * Get the total number of flops over all buckets.
+     *
+     * @return the number of flops
+     */
+    public long getTotalFlops()
+    {
+        long flops = 0L;
+        for (BucketStatistics bucket : buckets)
+        {
+            flops += bucket.flops;
+        }
+        return flops;
+    }
+
+    /**
+     * Get the total bytes of the tables allocated by all buckets.
+     *
+     * @return the number of bytes
+     */
+    public long getTotalTableBytes()
+    {
+        long bytes = 0L;
+        for (BucketStatistics bucket : buckets)
+        {
+            bytes += bucket.bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the size of the largest table combined in any bucket.
+     *
+     * @return the number of entries
+     */
+    public long getMaxTableSize()
+    {
+        long maxSize = 0L;
+        for (BucketStatistics bucket : buckets)
+        {
+            maxSize = Math.max(maxSize, bucket.tableSize);
+        }
+        return maxSize;
+    }
+
+    /**
+     * Export the profile as structured data. Values are numbers, strings,
+     * nested maps and lists, so the map can be handed to any serializer.
+     *
+     * @return map from field names to values
+     */
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("kind", kind.toString());
+        map.put("query", query);
+        map.put("totalNanos", getTotalNanos());
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values())
+        {
+            phases.put(phase.toString(), getPhaseNanos(phase));
+        }
+        map.put("phaseNanos", phases);
+        map.put("allocatedBytes", allocatedBytes);
+        map.put("totalFlops", getTotalFlops());
+        map.put("totalTableBytes", getTotalTableBytes());
+        map.put("maxTableSize", getMaxTableSize());
+        ArrayList<Map<String, Object>> bucketList = new ArrayList<>();
+        for (BucketStatistics bucket : buckets)
+        {
+            bucketList.add(bucket.toMap());
+        }
+        map.put("buckets", bucketList);
+        return map;
+    }
+
+    /**
+     * Export the profile as a JSON object.
+     *
+     * @return the JSON text
+     */
+    public String toJson()
+    {
+        StringBuilder builder = new StringBuilder();
+        appendJson(builder, toMap());
+        return builder.toString();
+    }
+
+    /**
+     * Append a value of the structured export as JSON.
+     *
+     * @param builder the builder to append to
+     * @param value   a map, list, number, string or null
+     */
+    @SuppressWarnings("unchecked")
+    private static void appendJson(StringBuilder builder, Object value)
+    {
+        if (value == null)
+        {
+            builder.append("null");
+        }
+        else if (value instanceof Map)
+        {
+            builder.append('{');
+            boolean isFirst = true;
+            for (Map.Entry<String, Object> entry
+                         : ((Map<String, Object>) value).entrySet())
+            {
+                if (!isFirst)
+                {
+                    builder.append(',');
+                }
+                isFirst = false;
+                appendJson(builder, entry.getKey());
+                builder.append(':');
+                appendJson(builder, entry.getValue());
+            }
+            builder.append('}');
+        }
+        else if (value instanceof List)
+        {
+            builder.append('[');
+            boolean isFirst = true;
+            for (Object element : (List<Object>) value)
+            {
+                if (!isFirst)
+                {
+                    builder.append(',');
+                }
+                isFirst = false;
+                appendJson(builder, element);
+            }
+            builder.append(']');
+        }
+        else if (value instanceof String)
+        {
+            builder.append('"');
+            String s = (String) value;
+            for (int i = 0; i < s.length(); i++)
+            {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\')
+                {
+                    builder.append('\\').append(c);
+                }
+                else if (c < ' ')
+                {
+                    builder.append(String.format("\\u%04x", (int) c));
+                }
+                else
+                {
+                    builder.append(c);
+                }
+            }
+            builder.append('"');
+        }
+        else
+        {
+            builder.append(value);
+        }
+    }
+
+    /**
+     * Print the profile in readable form.
+     *
+     * @param out output print stream
+     */
+    public void print(PrintStream out)
+    {
+        out.println("Profile of " + kind +
+                    (query == null ? "" : " query for " + query) + ": " +
+                    getTotalNanos() / 1000L + " us");
+        for (Phase phase : Phase.values())
+        {
+            out.println("\t" + phase + ": " + getPhaseNanos(phase) / 1000L +
+                        " us");
+        }
+        out.println("\tflops: " + getTotalFlops() +
+                    ", table bytes: " + getTotalTableBytes() +
+                    ", largest table: " + getMaxTableSize() +
+                    ", allocated bytes: " + allocatedBytes);
+        for (BucketStatistics bucket : buckets)
+        {
+            out.println("\t\t" + bucket);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toJson();
+    }
+
+    /**
+     * Statistics of a single reduced bucket.
+     */
+    public static class BucketStatistics
+    {
+
+        private final String variableName;
+        private final int numberOfFunctions;
+        private final long tableSize;
+        private final long flops;
+        private final long bytes;
+        private final boolean isMaximization;
+
+        BucketStatistics(String variableName,
+                         int numberOfFunctions,
+                         long tableSize,
+                         long flops,
+                         long bytes,
+                         boolean isMaximization)
+        {
+            this.variableName = variableName;
+            this.numberOfFunctions = numberOfFunctions;
+            this.tableSize = tableSize;
+            this.flops = flops;
+            this.bytes = bytes;
+            this.isMaximization = isMaximization;
+        }
+
+        /**
+         * Get the name of the bucket variable.
+         *
+         * @return the name
+         */
+        public String getVariableName()
+        {
+            return variableName;
+        }
+
+        /**
+         * Get the number of functions combined in the bucket.
+         *
+         * @return the number of functions
+         */
+        public int getNumberOfFunctions()
+        {
+            return numberOfFunctions;
+        }
+
+        /**
+         * Get the number of entries of the combined table.
+         *
+         * @return the table size
+         */
+        public long getTableSize()
+        {
+            return tableSize;
+        }
+
+        /**
+         * Get the number of multiplications and additions.
+         *
+         * @return the flops
+         */
+        public long getFlops()
+        {
+            return flops;
+        }
+
+        /**
+         * Get the bytes of the tables allocated by the bucket.
+         *
+         * @return the bytes
+         */
+        public long getBytes()
+        {
+            return bytes;
+        }
+
+        /**
+         * Check whether the bucket variable was maximized out.
+         *
+         * @return true if maximized, false if summed out
+         */
+        public boolean isMaximization()
+        {
+            return isMaximization;
+        }
+
+        Map<String, Object> toMap()
+        {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("variable", variableName);
+            map.put("functions", numberOfFunctions);
+            map.put("tableSize", tableSize);
+            map.put("flops", flops);
+            map.put("bytes", bytes);
+            map.put("maximization", isMaximization);
+            return map;
+        }
+
+        @Override
+        public String toString()
+        {
+            return (isMaximization ? "max " : "sum ") + variableName +
+                   ": " + numberOfFunctions + " function(s), " +
+                   tableSize + " entries, " + flops + " flops, " +
+                   bytes + " bytes";
+        }
+    }
+
+    /**
+     * Enumeration of the timed phases of a query.
+     */
+    public enum Phase
+    {
+
+        /**
+         * Computation of the elimination ordering.
+         */
+        ORDERING,
+        /**
+         * Absorption of evidence into the probability functions.
+         */
+        EVIDENCE,
+        /**
+         * Reduction of the buckets (variable elimination).
+         */
+        REDUCTION,
+        /**
+         * Distribution of the buckets into clusters.
+         */
+        DISTRIBUTION,
+        /**
+         * Normalization of the result.
+         */
+        NORMALIZATION
+    }
+
+    /**
+     * Enumeration of the kinds of profiled queries.
+     */
+    public enum Kind
+    {
+
+        /**
+         * Marginal posterior distribution.
+         */
+        MARGINAL,
+        /**
+         * Most probable explanation.
+         */
+        EXPLANATION,
+        /**
+         * Posterior expectation.
+         */
+        EXPECTATION
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Joint posterior of several variables, P(A, B, ... | e).
+ *
+ * Inference computes the posterior of a single variable. Here all queried
+ * variables are kept to the end of a variable elimination: every other free
+ * variable is summed out first and the functions left in the buckets of the
+ * queried variables are multiplied into their joint function, which is then
+ * normalized. Only the probability functions of the requisite probability
+ * nodes given by BayesBall for the query and the evidence take part; the
+ * others do not change the posterior.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class JointInference
+{
+
+    private static final Class CLAZZ = JointInference.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final BayesNet bayesNet;
+    private ProbabilityFunction result;
+    private int numberOfRelevantFunctions;
+
+    /**
+     * Constructor for a JointInference.
+     *
+     * @param bayesNet the underlying Bayesian network
+     */
+    public JointInference(BayesNet bayesNet)
+    {
+        this.bayesNet = bayesNet;
+    }
+
+    /**
+     * Compute the joint posterior of some variables given the observed
+     * variables of the network.
+     *
+     * @param queriedVariableNames the names of the queried variables
+     * @return the joint posterior, see inference(ProbabilityVariable[],
+     *         int[])
+     */
+    public ProbabilityFunction inference(String queriedVariableNames[])
+    {
+        int numberQueried = queriedVariableNames.length;
+        ProbabilityVariable queried[] = new ProbabilityVariable[numberQueried];
+        for (int i = 0; i < queried.length; i++)
+        {
+            int index = bayesNet.indexOfVariable(queriedVariableNames[i]);
+            if (index == BayesNet.INVALID_INDEX)
+            {
+                throw new IllegalArgumentException(
+                        "Unknown variable " + queriedVariableNames[i]);
+            }
+            queried[i] = bayesNet.getProbabilityVariable(index);
+        }
+        return inference(queried, MiniBucketElimination.evidence(bayesNet));
+    }
+
+    /**
+     * Compute the joint posterior of some variables given evidence. Evidence
+     * on a queried variable gives probability zero to its other values.
+     *
+     * @param queried  the queried variables
+     * @param evidence value index of each variable of the network, or
+     *                 BayesNet.INVALID_INDEX for the variables that are not
+     *                 observed
+     * @return the joint posterior as a function of the queried variables, in
+     *         the given order, the last one running fastest
+     * @throws IllegalArgumentException if a variable is queried twice or if
+     *                                  the evidence has probability zero
+     */
+    public ProbabilityFunction inference(ProbabilityVariable queried[],
+                                         int evidence[])
+    {
+        int n = bayesNet.numberVariables();
+        int assignment[] = evidence.clone();
+        boolean isQueried[] = new boolean[n];
+        TreeSet<ProbabilityVariable> eventVars =
+                                     new TreeSet<>(
+                                             ProbabilityVariable.INDEX_ORDER);
+        for (ProbabilityVariable probVar : queried)
+        {
+            if (isQueried[probVar.getIndex()])
+            {
+                throw new IllegalArgumentException(
+                        "Variable " + probVar.getName() + " queried twice");
+            }
+            isQueried[probVar.getIndex()] = true;
+            assignment[probVar.getIndex()] = BayesNet.INVALID_INDEX;
+            eventVars.add(probVar);
+        }
+        TreeSet<ProbabilityVariable> condVars =
+                                     new TreeSet<>(
+                                             ProbabilityVariable.INDEX_ORDER);
+        for (int i = 0; i < n; i++)
+        {
+            if (assignment[i] != BayesNet.INVALID_INDEX)
+            {
+                condVars.add(bayesNet.getProbabilityVariable(i));
+            }
+        }
+
+        // Keep the functions of the requisite probability nodes
+        BayesBall.ResultType relevance = BayesBall.run(eventVars, condVars);
+        ArrayList<DiscreteFunction> relevant = new ArrayList<>();
+        for (ProbabilityFunction probFunc : bayesNet.getProbabilityFunctions())
+        {
+            if (relevance.isRequisiteProbability(
+                    bayesNet.getProbabilityVariable(probFunc.getIndex(0))))
+            {
+                relevant.add(probFunc);
+            }
+        }
+        numberOfRelevantFunctions = relevant.size();
+        DiscreteFunction functions[] = new DiscreteFunction[relevant.size()];
+        MiniBucketElimination elimination = new MiniBucketElimination(
+                              bayesNet,
+                              relevant.toArray(functions),
+                              Integer.MAX_VALUE);
+        DiscreteFunction joint = elimination.joint(assignment, isQueried);
+
+        // Rearrange the joint function in the order of the query
+        int strides[] = new int[n];
+        int stride = 1;
+        for (int i = joint.numberVariables() - 1; i >= 0; i--)
+        {
+            strides[joint.getIndex(i)] = stride;
+            stride *= joint.getVariable(i).numberValues();
+        }
+        int size = 1;
+        for (ProbabilityVariable probVar : queried)
+        {
+            size *= probVar.numberValues();
+        }
+        double values[] = new double[size];
+        int counter[] = new int[queried.length];
+        int offset = 0;
+        double total = 0.0;
+        for (int r = 0; r < size; r++)
+        {
+            boolean isConsistent = true;
+            for (int k = 0; k < queried.length && isConsistent; k++)
+            {
+                int observed = evidence[queried[k].getIndex()];
+                isConsistent = observed == BayesNet.INVALID_INDEX ||
+                               observed == counter[k];
+            }
+            values[r] = isConsistent ? joint.getValue(offset) : 0.0;
+            total += values[r];
+            for (int k = queried.length - 1; k >= 0; k--)
+            {
+                int index = queried[k].getIndex();
+                counter[k]++;
+                offset += strides[index];
+                if (counter[k] < queried[k].numberValues())
+                {
+                    break;
+                }
+                offset -= strides[index] * queried[k].numberValues();
+                counter[k] = 0;
+            }
+        }
+        if (!(total > 0.0))
+        {
+            throw new IllegalArgumentException(
+                    "The evidence has probability zero");
+        }
+        for (int r = 0; r < size; r++)
+        {
+            values[r] /= total;
+        }
+        result = new ProbabilityFunction(bayesNet,
+                                         queried.clone(),
+                                         values,
+                                         new ArrayList<String>());
+        return result;
+    }
+
+    /**
+     * Get the result of the last inference.
+     *
+     * @return the joint posterior, null before the first inference
+     */
+    public ProbabilityFunction getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Get the number of probability functions used by the last inference,
+     * after pruning with BayesBall.
+     *
+     * @return the number of relevant functions
+     */
+    public int getNumberOfRelevantFunctions()
+    {
+        return numberOfRelevantFunctions;
+    }
+}
@@ -0,0 +1,805 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
+import BayesianNetworks.DiscreteVariable;
+import BayesianNetworks.ProbabilityFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Loopy belief propagation: approximate marginal posterior distributions for
+ * networks that are too large for exact elimination.
+ *
+ * Messages are passed on the factor graph of the network, with one factor
+ * per probability function; the evidence enters as indicator on the
+ * observed variables. All messages of the graph live in two primitive
+ * buffers, one for each direction, indexed by the edges of the graph. A new
+ * factor message is damped by mixing it with the old one; its residual is
+ * the largest change of a value. The propagation has converged when no
+ * residual exceeds the tolerance.
+ *
+ * Two schedules are available: SYNCHRONOUS sweeps update all messages from
+ * the messages of the last sweep and can be spread over several threads;
+ * RESIDUAL always updates the message with the largest residual first, which
+ * usually converges in fewer updates. On networks without loops the
+ * propagation is exact.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class LoopyBeliefPropagation
+{
+
+    private static final Class CLAZZ = LoopyBeliefPropagation.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Order in which the messages are updated.
+     */
+    public enum Schedule
+    {
+
+        /**
+         * All messages per sweep, from the messages of the last sweep.
+         */
+        SYNCHRONOUS,
+        /**
+         * The message with the largest residual first.
+         */
+        RESIDUAL
+    }
+
+    private final BayesNet bayesNet;
+    private final int numberOfVariables;
+    private final int cardinality[];
+
+    // Factors: values and the range of their edges
+    private final double factorValues[][];
+    private final int factorFirstEdge[];
+
+    // Edges: factor, variable, position in the message buffers
+    private final int edgeFactor[];
+    private final int edgeVariable[];
+    private final int edgeOffset[];
+
+    // Edges of each variable
+    private final int variableFirstEdge[];
+    private final int variableEdges[];
+
+    // Message buffers
+    private double factorToVariable[];
+    private double nextFactorToVariable[];
+    private final double variableToFactor[];
+    private final double residual[];
+
+    private double damping = 0.0;
+    private double tolerance = 1e-8;
+    private int maxIterations = 100;
+    private Schedule schedule = Schedule.RESIDUAL;
+    private int numberOfThreads = 1;
+
+    private int evidence[];
+    private boolean isConverged;
+    private long numberOfUpdates;
+    private double maxResidual;
+    private ProbabilityFunction result;
+
+    /**
+     * Constructor for a LoopyBeliefPropagation. The factor graph is built
+     * from the probability functions of the network; the evidence is read
+     * whenever the messages are propagated.
+     *
+     * @param bayesNet the underlying Bayesian network
+     */
+    public LoopyBeliefPropagation(BayesNet bayesNet)
+    {
+        this.bayesNet = bayesNet;
+        numberOfVariables = bayesNet.numberVariables();
+        cardinality = new int[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            cardinality[v] = bayesNet.getProbabilityVariable(v).numberValues();
+        }
+
+        ProbabilityFunction probFuncs[] = bayesNet.getProbabilityFunctions();
+        factorValues = new double[probFuncs.length][];
+        factorFirstEdge = new int[probFuncs.length + 1];
+        int numberOfEdges = 0;
+        for (int a = 0; a < probFuncs.length; a++)
+        {
+            factorFirstEdge[a] = numberOfEdges;
+            numberOfEdges += probFuncs[a].numberVariables();
+        }
+        factorFirstEdge[probFuncs.length] = numberOfEdges;
+
+        edgeFactor = new int[numberOfEdges];
+        edgeVariable = new int[numberOfEdges];
+        edgeOffset = new int[numberOfEdges];
+        int degree[] = new int[numberOfVariables];
+        int bufferSize = 0;
+        for (int a = 0; a < probFuncs.length; a++)
+        {
+            DiscreteFunction discrFunc = probFuncs[a];
+            factorValues[a] = discrFunc.getValues();
+            for (int k = 0; k < discrFunc.numberVariables(); k++)
+            {
+                int e = factorFirstEdge[a] + k;
+                edgeFactor[e] = a;
+                edgeVariable[e] = discrFunc.getIndex(k);
+                degree[edgeVariable[e]]++;
+            }
+        }
+        for (int e = 0; e < numberOfEdges; e++)
+        {
+            edgeOffset[e] = bufferSize;
+            bufferSize += cardinality[edgeVariable[e]];
+        }
+
+        variableFirstEdge = new int[numberOfVariables + 1];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            variableFirstEdge[v + 1] = variableFirstEdge[v] + degree[v];
+        }
+        variableEdges = new int[numberOfEdges];
+        int filled[] = new int[numberOfVariables];
+        for (int e = 0; e < numberOfEdges; e++)
+        {
+            int v = edgeVariable[e];
+            variableEdges[variableFirstEdge[v] + filled[v]++] = e;
+        }
+
+        factorToVariable = new double[bufferSize];
+        nextFactorToVariable = new double[bufferSize];
+        variableToFactor = new double[bufferSize];
+        residual = new double[numberOfEdges];
+    }
+
+    /**
+     * Get the damping factor.
+     *
+     * @return the weight of the old message in an update
+     */
+    public double getDamping()
+    {
+        return damping;
+    }
+
+    /**
+     * Set the damping factor. An updated message is the damping weight times
+     * the old message plus the remaining weight times the new one; damping
+     * helps on networks with strong loops where the plain updates oscillate.
+     *
+     * @param damping the weight of the old message, at least 0 and less
+     *                than 1
+     */
+    public void setDamping(double damping)
+    {
+        if (!(damping >= 0.0 && damping < 1.0))
+        {
+            throw new IllegalArgumentException(
+                    "Damping must be in [0, 1): " + damping);
+        }
+        this.damping = damping;
+        evidence = null;
+    }
+
+    /**
+     * Get the convergence tolerance.
+     *
+     * @return the largest residual of a converged propagation
+     */
+    public double getTolerance()
+    {
+        return tolerance;
+    }
+
+    /**
+     * Set the convergence tolerance.
+     *
+     * @param tolerance the largest residual of a converged propagation
+     */
+    public void setTolerance(double tolerance)
+    {
+        if (!(tolerance > 0.0))
+        {
+            throw new IllegalArgumentException(
+                    "Tolerance must be positive: " + tolerance);
+        }
+        this.tolerance = tolerance;
+        evidence = null;
+    }
+
+    /**
+     * Get the maximal number of iterations.
+     *
+     * @return the maximal number of iterations
+     */
+    public int getMaxIterations()
+    {
+        return maxIterations;
+    }
+
+    /**
+     * Set the maximal number of iterations. An iteration is a sweep for the
+     * SYNCHRONOUS schedule, and as many updates as the graph has edges for
+     * the RESIDUAL schedule.
+     *
+     * @param maxIterations the maximal number of iterations, at least 1
+     */
+    public void setMaxIterations(int maxIterations)
+    {
+        if (maxIterations < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of iterations must be positive");
+        }
+        this.maxIterations = maxIterations;
+        evidence = null;
+    }
+
+    /**
+     * Get the schedule of the updates.
+     *
+     * @return the schedule
+     */
+    public Schedule getSchedule()
+    {
+        return schedule;
+    }
+
+    /**
+     * Set the schedule of the updates.
+     *
+     * @param schedule the schedule
+     */
+    public void setSchedule(Schedule schedule)
+    {
+        this.schedule = schedule;
+        evidence = null;
+    }
+
+    /**
+     * Get the number of threads of the synchronous sweeps.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of threads of the synchronous sweeps; the residual
+     * schedule is sequential.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Propagate the messages for the current evidence of the network, from
+     * uniform messages, until convergence or until the maximal number of
+     * iterations is reached.
+     *
+     * @return true if the propagation converged, false otherwise
+     */
+    public boolean propagate()
+    {
+        evidence = MiniBucketElimination.evidence(bayesNet);
+        Arrays.fill(factorToVariable, 1.0);
+        for (int e = 0; e < edgeFactor.length; e++)
+        {
+            normalize(factorToVariable,
+                      edgeOffset[e],
+                      cardinality[edgeVariable[e]]);
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            variableMessages(v);
+        }
+        numberOfUpdates = 0;
+        if (schedule == Schedule.SYNCHRONOUS)
+        {
+            propagateSynchronously();
+        }
+        else
+        {
+            propagateByResidual();
+        }
+        isConverged = maxResidual < tolerance;
+        LOGGER.fine("Loopy belief propagation " +
+                    (isConverged ? "converged" : "stopped") + " after " +
+                    numberOfUpdates + " updates, residual " + maxResidual);
+        return isConverged;
+    }
+
+    /**
+     * Check whether the last propagation converged.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isConverged()
+    {
+        return isConverged;
+    }
+
+    /**
+     * Get the number of message updates of the last propagation.
+     *
+     * @return the number of factor messages updated
+     */
+    public long getNumberOfUpdates()
+    {
+        return numberOfUpdates;
+    }
+
+    /**
+     * Get the largest residual left by the last propagation.
+     *
+     * @return the residual
+     */
+    public double getMaxResidual()
+    {
+        return maxResidual;
+    }
+
+    /**
+     * Calculation of the approximate marginal posterior distribution of the
+     * variable queried by the network.
+     */
+    public void inference()
+    {
+        inference((String) null);
+    }
+
+    /**
+     * Calculation of the approximate marginal posterior distribution of a
+     * variable. The messages are propagated again only if the evidence or
+     * the settings changed since the last propagation.
+     *
+     * @param queriedVariableName name of the variable to query; the first
+     *                            variable if null or invalid
+     */
+    public void inference(String queriedVariableName)
+    {
+        if (evidence == null ||
+            !Arrays.equals(evidence, MiniBucketElimination.evidence(bayesNet)))
+        {
+            propagate();
+        }
+        int indexQueried = bayesNet.indexOfVariable(queriedVariableName);
+        if (indexQueried == BayesNet.INVALID_INDEX)
+        {
+            indexQueried = 0;
+        }
+        DiscreteVariable variables[] =
+        {
+            bayesNet.getProbabilityVariable(indexQueried)
+        };
+        result = new ProbabilityFunction(bayesNet,
+                                         variables,
+                                         belief(indexQueried),
+                                         new ArrayList<String>());
+    }
+
+    /**
+     * Get the result of the last inference.
+     *
+     * @return the approximate posterior distribution
+     */
+    public ProbabilityFunction getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Get the result of the last inference as a typed result.
+     *
+     * @return the marginal result
+     */
+    public MarginalResult getMarginalResult()
+    {
+        return new MarginalResult(result);
+    }
+
+    /**
+     * Compute the support of the evidence below a variable: the product of
+     * the messages of the factors in which the variable is a parent. Used
+     * to build importance sampling proposals.
+     *
+     * @param v index of the variable
+     * @return the normalized support for each value of the variable
+     */
+    double[] childSupport(int v)
+    {
+        double values[] = new double[cardinality[v]];
+        Arrays.fill(values, 1.0);
+        for (int i = variableFirstEdge[v]; i < variableFirstEdge[v + 1]; i++)
+        {
+            int e = variableEdges[i];
+            if (e == factorFirstEdge[edgeFactor[e]])
+            {
+                // The own probability function of the variable
+                continue;
+            }
+            for (int x = 0; x < values.length; x++)
+            {
+                values[x] *= factorToVariable[edgeOffset[e] + x];
+            }
+        }
+        normalize(values, 0, values.length);
+        return values;
+    }
+
+    /**
+     * Synchronous sweeps: all factor messages are computed into the next
+     * buffer from the variable messages of the last sweep, then all
+     * variable messages are computed from the new factor messages.
+     */
+    private void propagateSynchronously()
+    {
+        final int numberOfFactors = factorValues.length;
+        int threads = Math.max(1, Math.min(numberOfThreads, numberOfFactors));
+        ExecutorService executor = threads > 1 ?
+                                   Executors.newFixedThreadPool(threads) :
+                                   null;
+        try
+        {
+            maxResidual = Double.POSITIVE_INFINITY;
+            for (int iteration = 0;
+                 iteration < maxIterations && maxResidual >= tolerance;
+                 iteration++)
+            {
+                maxResidual = 0.0;
+                if (executor == null)
+                {
+                    maxResidual = factorSweep(0, numberOfFactors);
+                }
+                else
+                {
+                    ArrayList<Future<Double>> parts = new ArrayList<>();
+                    for (int t = 0; t < threads; t++)
+                    {
+                        final int from = numberOfFactors * t / threads;
+                        final int to = numberOfFactors * (t + 1) / threads;
+                        parts.add(executor.submit(new Callable<Double>()
+                        {
+                            @Override
+                            public Double call()
+                            {
+                                return factorSweep(from, to);
+                            }
+                        }));
+                    }
+                    for (Future<Double> part : parts)
+                    {
+                        maxResidual = Math.max(maxResidual, part.get());
+                    }
+                }
+                double swap[] = factorToVariable;
+                factorToVariable = nextFactorToVariable;
+                nextFactorToVariable = swap;
+                numberOfUpdates += edgeFactor.length;
+                for (int v = 0; v < numberOfVariables; v++)
+                {
+                    variableMessages(v);
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IllegalStateException(ex.getCause());
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Compute the next messages of a range of factors.
+     *
+     * @return the largest residual
+     */
+    private double factorSweep(int fromFactor, int toFactor)
+    {
+        double largest = 0.0;
+        for (int e = factorFirstEdge[fromFactor];
+             e < factorFirstEdge[toFactor];
+             e++)
+        {
+            largest = Math.max(largest,
+                               factorMessage(e, nextFactorToVariable));
+        }
+        return largest;
+    }
+
+    /**
+     * Residual schedule: the pending messages of all edges are kept in the
+     * next buffer, and the one with the largest residual is committed until
+     * all residuals are below the tolerance. Committing a message changes
+     * the variable messages of its variable, and so the pending messages of
+     * the neighbouring factors.
+     */
+    private void propagateByResidual()
+    {
+        int numberOfEdges = edgeFactor.length;
+        int heap[] = new int[numberOfEdges];
+        int heapPosition[] = new int[numberOfEdges];
+        for (int e = 0; e < numberOfEdges; e++)
+        {
+            residual[e] = factorMessage(e, nextFactorToVariable);
+            heap[e] = e;
+            heapPosition[e] = e;
+        }
+        for (int p = numberOfEdges / 2 - 1; p >= 0; p--)
+        {
+            siftDown(heap, heapPosition, p);
+        }
+
+        long maxUpdates = (long) maxIterations * numberOfEdges;
+        while (numberOfEdges > 0 &&
+               residual[heap[0]] >= tolerance &&
+               numberOfUpdates < maxUpdates)
+        {
+            int e = heap[0];
+            System.arraycopy(nextFactorToVariable,
+                             edgeOffset[e],
+                             factorToVariable,
+                             edgeOffset[e],
+                             cardinality[edgeVariable[e]]);
+            // With damping the committed message has not yet reached the
+            // value its inputs ask for
+            residual[e] = factorMessage(e, nextFactorToVariable);
+            siftDown(heap, heapPosition, 0);
+            numberOfUpdates++;
+
+            int v = edgeVariable[e];
+            for (int i = variableFirstEdge[v];
+                 i < variableFirstEdge[v + 1];
+                 i++)
+            {
+                int other = variableEdges[i];
+                if (other == e)
+                {
+                    continue;
+                }
+                variableMessage(other);
+                int b = edgeFactor[other];
+                for (int f = factorFirstEdge[b];
+                     f < factorFirstEdge[b + 1];
+                     f++)
+                {
+                    if (f == other)
+                    {
+                        continue;
+                    }
+                    double old = residual[f];
+                    residual[f] = factorMessage(f, nextFactorToVariable);
+                    if (residual[f] > old)
+                    {
+                        siftUp(heap, heapPosition, heapPosition[f]);
+                    }
+                    else
+                    {
+                        siftDown(heap, heapPosition, heapPosition[f]);
+                    }
+                }
+            }
+        }
+        maxResidual = numberOfEdges > 0 ? residual[heap[0]] : 0.0;
+    }
+
+    private void siftUp(int heap[], int heapPosition[], int p)
+    {
+        int e = heap[p];
+        while (p > 0 && residual[heap[(p - 1) / 2]] < residual[e])
+        {
+            heap[p] = heap[(p - 1) / 2];
+            heapPosition[heap[p]] = p;
+            p = (p - 1) / 2;
+        }
+        heap[p] = e;
+        heapPosition[e] = p;
+    }
+
+    private void siftDown(int heap[], int heapPosition[], int p)
+    {
+        int e = heap[p];
+        int n = heap.length;
+        while (2 * p + 1 < n)
+        {
+            int c = 2 * p + 1;
+            if (c + 1 < n && residual[heap[c + 1]] > residual[heap[c]])
+            {
+                c++;
+            }
+            if (residual[heap[c]] <= residual[e])
+            {
+                break;
+            }
+            heap[p] = heap[c];
+            heapPosition[heap[p]] = p;
+            p = c;
+        }
+        heap[p] = e;
+        heapPosition[e] = p;
+    }
+
+    /**
+     * Compute the message of a factor to the variable of an edge from the
+     * other variable messages of the factor, damped with the current
+     * message.
+     *
+     * @param edge   the edge
+     * @param target the buffer to write the message to
+     * @return the residual of the message
+     */
+    private double factorMessage(int edge, double target[])
+    {
+        int a = edgeFactor[edge];
+        int first = factorFirstEdge[a];
+        int numberOfVars = factorFirstEdge[a + 1] - first;
+        int position = edge - first;
+        int offset = edgeOffset[edge];
+        int numberOfValues = cardinality[edgeVariable[edge]];
+        double table[] = factorValues[a];
+
+        Arrays.fill(target, offset, offset + numberOfValues, 0.0);
+        int digits[] = new int[numberOfVars];
+        for (int t = 0; t < table.length; t++)
+        {
+            double p = table[t];
+            for (int k = 0; k < numberOfVars && p != 0.0; k++)
+            {
+                if (k != position)
+                {
+                    p *= variableToFactor[edgeOffset[first + k] + digits[k]];
+                }
+            }
+            target[offset + digits[position]] += p;
+            // Next index of the table, last variable fastest
+            for (int k = numberOfVars - 1; k >= 0; k--)
+            {
+                if (++digits[k] < cardinality[edgeVariable[first + k]])
+                {
+                    break;
+                }
+                digits[k] = 0;
+            }
+        }
+        normalize(target, offset, numberOfValues);
+
+        double largest = 0.0;
+        for (int x = offset; x < offset + numberOfValues; x++)
+        {
+            target[x] = (1.0 - damping) * target[x] +
+                        damping * factorToVariable[x];
+            largest = Math.max(largest,
+                               Math.abs(target[x] - factorToVariable[x]));
+        }
+        return largest;
+    }
+
+    /**
+     * Compute the messages of a variable to all its factors.
+     */
+    private void variableMessages(int v)
+    {
+        for (int i = variableFirstEdge[v]; i < variableFirstEdge[v + 1]; i++)
+        {
+            variableMessage(variableEdges[i]);
+        }
+    }
+
+    /**
+     * Compute the message of the variable of an edge to its factor from the
+     * evidence and the other factor messages of the variable.
+     */
+    private void variableMessage(int edge)
+    {
+        int v = edgeVariable[edge];
+        int offset = edgeOffset[edge];
+        for (int x = 0; x < cardinality[v]; x++)
+        {
+            double p = evidence[v] == BayesNet.INVALID_INDEX ||
+                       evidence[v] == x ? 1.0 : 0.0;
+            for (int i = variableFirstEdge[v];
+                 i < variableFirstEdge[v + 1] && p != 0.0;
+                 i++)
+            {
+                int other = variableEdges[i];
+                if (other != edge)
+                {
+                    p *= factorToVariable[edgeOffset[other] + x];
+                }
+            }
+            variableToFactor[offset + x] = p;
+        }
+        normalize(variableToFactor, offset, cardinality[v]);
+    }
+
+    /**
+     * Compute the belief of a variable from the evidence and all its factor
+     * messages.
+     */
+    private double[] belief(int v)
+    {
+        double values[] = new double[cardinality[v]];
+        for (int x = 0; x < values.length; x++)
+        {
+            double p = evidence[v] == BayesNet.INVALID_INDEX ||
+                       evidence[v] == x ? 1.0 : 0.0;
+            for (int i = variableFirstEdge[v];
+                 i < variableFirstEdge[v + 1];
+                 i++)
+            {
+                p *= factorToVariable[edgeOffset[variableEdges[i]] + x];
+            }
+            values[x] = p;
+        }
+        normalize(values, 0, values.length);
+        return values;
+    }
+
+    /**
+     * Normalize a part of a buffer; a part without mass, which only arises
+     * from contradicting evidence, becomes uniform.
+     */
+    private static void normalize(double buffer[], int offset, int length)
+    {
+        double sum = 0.0;
+        for (int x = offset; x < offset + length; x++)
+        {
+            sum += buffer[x];
+        }
+        for (int x = offset; x < offset + length; x++)
+        {
+            buffer[x] = sum > 0.0 ? buffer[x] / sum : 1.0 / length;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteVariable;
+import BayesianNetworks.ProbabilityFunction;
+import CredalSets.QBProbabilityFunction;
+import java.io.PrintStream;
+import java.util.logging.Logger;
+
+/**
+ * Posterior marginal distribution of a single variable. For Quasi-Bayesian
+ * networks the result also carries lower and upper probabilities; for precise
+ * results the bounds are the probabilities themselves.
+ *
+ * The arrays are shared with the inference result and are not copied, so they
+ * must not be modified.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class MarginalResult
+{
+
+    private static final Class CLAZZ = MarginalResult.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final DiscreteVariable variable;
+    private final double probabilities[];
+    private final double lowerProbabilities[];
+    private final double upperProbabilities[];
+
+    /**
+     * Constructor for a precise MarginalResult.
+     *
+     * @param variable      the queried variable
+     * @param probabilities posterior probabilities, one per value of the
+     *                      variable
+     */
+    public MarginalResult(DiscreteVariable variable, double probabilities[])
+    {
+        this(variable, probabilities, probabilities, probabilities);
+    }
+
+    /**
+     * Constructor for a MarginalResult with bounds.
+     *
+     * @param variable           the queried variable
+     * @param probabilities      posterior probabilities, one per value of the
+     *                           variable, or null if only bounds are known
+     * @param lowerProbabilities lower posterior probabilities
+     * @param upperProbabilities upper posterior probabilities
+     */
+    public MarginalResult(DiscreteVariable variable,
+                          double probabilities[],
+                          double lowerProbabilities[],
+                          double upperProbabilities[])
+    {
+        this.variable = variable;
+        this.probabilities = probabilities;
+        this.lowerProbabilities = lowerProbabilities;
+        this.upperProbabilities = upperProbabilities;
+    }
+
+    /**
+     * Constructor for a MarginalResult from the result of an Inference. The
+     * distribution is taken over the first variable of the result; envelopes
+     * of a QBProbabilityFunction become the bounds.
+     *
+     * @param result the posterior distribution
+     */
+    public MarginalResult(ProbabilityFunction result)
+    {
+        this.variable = result.getVariable(0);
+        double values[] = result.getValues();
+        if (values != null &&
+            values.length != variable.numberValues())
+        {
+            // Only the first variable is of interest
+            values = null;
+        }
+        double lower[] = null;
+        double upper[] = null;
+        if (result instanceof QBProbabilityFunction)
+        {
+            lower = ((QBProbabilityFunction) result).getLowerEnvelope();
+            upper = ((QBProbabilityFunction) result).getUpperEnvelope();
+        }
+        this.probabilities = values;
+        this.lowerProbabilities = lower == null ? values : lower;
+        this.upperProbabilities = upper == null ? values : upper;
+    }
+
+    /**
+     * Get the queried variable.
+     *
+     * @return the variable
+     */
+    public DiscreteVariable getVariable()
+    {
+        return variable;
+    }
+
+    /**
+     * Get the name of the queried variable.
+     *
+     * @return the name
+     */
+    public String getVariableName()
+    {
+        return variable.getName();
+    }
+
+    /**
+     * Get the number of values of the queried variable.
+     *
+     * @return the number of values
+     */
+    public int numberValues()
+    {
+        return variable.numberValues();
+    }
+
+    /**
+     * Get the name of a value of the queried variable.
+     *
+     * @param index index of the value
+     * @return the name of the value
+     */
+    public String getValueName(int index)
+    {
+        return variable.getValue(index);
+    }
+
+    /**
+     * Check whether the result carries bounds rather than a single
+     * distribution.
+     *
+     * @return true if lower and upper probabilities differ, false otherwise
+     */
+    public boolean isCredal()
+    {
+        return lowerProbabilities != upperProbabilities;
+    }
+
+    /**
+     * Get the posterior probabilities.
+     *
+     * @return the probabilities, or null if only bounds are known
+     */
+    public double[] getProbabilities()
+    {
+        return probabilities;
+    }
+
+    /**
+     * Get the lower posterior probabilities.
+     *
+     * @return the lower probabilities
+     */
+    public double[] getLowerProbabilities()
+    {
+        return lowerProbabilities;
+    }
+
+    /**
+     * Get the upper posterior probabilities.
+     *
+     * @return the upper probabilities
+     */
+    public double[] getUpperProbabilities()
+    {
+        return upperProbabilities;
+    }
+
+    /**
+     * Get the posterior probability of a value.
+     *
+     * @param index index of the value
+     * @return the probability, or the midpoint of the bounds if only bounds
+     *         are known
+     */
+    public double getProbability(int index)
+    {
+        if (probabilities != null)
+        {
+            return probabilities[index];
+        }
+        return 0.5 * (lowerProbabilities[index] + upperProbabilities[index]);
+    }
+
+    /**
+     * Get the posterior probability of a value.
+     *
+     * @param valueName name of the value
+     * @return the probability
+     * @throws IllegalArgumentException if the variable has no such value
+     */
+    public double getProbability(String valueName)
+    {
+        int index = variable.indexOfValue(valueName);
+        if (index == BayesNet.INVALID_INDEX)
+        {
+            throw new IllegalArgumentException("Variable " +
+                                               variable.getName() +
+                                               " has no value " + valueName);
+        }
+        return getProbability(index);
+    }
+
+    /**
+     * Get the index of the most probable value.
+     *
+     * @return the index of the value with the largest probability
+     */
+    public int getMostProbableIndex()
+    {
+        int best = 0;
+        for (int i = 1; i < numberValues(); i++)
+        {
+            if (getProbability(i) > getProbability(best))
+            {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Print the result.
+     *
+     * @param out output print stream
+     */
+    public void print(PrintStream out)
+    {
+        out.println("Posterior distribution of " + variable.getName() + ":");
+        for (int i = 0; i < numberValues(); i++)
+        {
+            out.print("\t" + variable.getValue(i) + ": ");
+            if (isCredal())
+            {
+                out.println("[" + lowerProbabilities[i] + ", " +
+                            upperProbabilities[i] + "]");
+            }
+            else
+            {
+                out.println(probabilities[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,658 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
+import BayesianNetworks.DiscreteVariable;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Mini-bucket elimination: bounds on the value of max-sum problems
+ *
+ * <pre>
+ * max_{max variables} sum_{sum variables} product of functions
+ * </pre>
+ *
+ * given an assignment of some variables, with memory bounded by an i-bound.
+ * The sum variables are eliminated first, then the max variables, each in
+ * greedy minimum degree order. The functions of a bucket whose joined scope
+ * would hold more than iBound variables are split into mini-buckets. The
+ * first mini-bucket is eliminated with the operator of the bucket variable,
+ * the others by maximisation for an upper bound or by minimisation for a
+ * lower bound. With an i-bound of Integer.MAX_VALUE no bucket is split and
+ * the value is exact.
+ *
+ * Assigned variables are restricted out of the functions before the
+ * elimination; functions without free variables, and the scalars produced
+ * by the elimination, are kept as a constant factor, so values for
+ * different assignments can be compared.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class MiniBucketElimination
+{
+
+    private static final Class CLAZZ = MiniBucketElimination.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Operators to eliminate a variable.
+     */
+    private enum Operation
+    {
+
+        SUM,
+        MAX,
+        MIN
+    }
+
+    private final BayesNet bayesNet;
+    private final ProbabilityVariable probVars[];
+    private final DiscreteFunction functions[];
+    private final int iBound;
+
+    // Elimination order of all variables, cached for the last max markers
+    private int order[];
+    private boolean orderMaxMarkers[];
+
+    /**
+     * Constructor for a MiniBucketElimination over all probability functions
+     * of a network.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @param iBound   maximal number of variables in a mini-bucket
+     */
+    public MiniBucketElimination(BayesNet bayesNet, int iBound)
+    {
+        this(bayesNet, bayesNet.getProbabilityFunctions(), iBound);
+    }
+
+    /**
+     * Constructor for a MiniBucketElimination over some functions of a
+     * network, for instance without the functions of barren variables.
+     *
+     * @param bayesNet  the underlying Bayesian network
+     * @param functions the functions to eliminate
+     * @param iBound    maximal number of variables in a mini-bucket
+     */
+    public MiniBucketElimination(BayesNet bayesNet,
+                                 DiscreteFunction functions[],
+                                 int iBound)
+    {
+        if (iBound < 1)
+        {
+            throw new IllegalArgumentException("i-bound must be positive: " +
+                                               iBound);
+        }
+        this.bayesNet = bayesNet;
+        this.probVars = bayesNet.getProbabilityVariables();
+        this.functions = functions;
+        this.iBound = iBound;
+    }
+
+    /**
+     * Get the i-bound.
+     *
+     * @return maximal number of variables in a mini-bucket
+     */
+    public int getIBound()
+    {
+        return iBound;
+    }
+
+    /**
+     * Collect the probability functions of the relevant variables of a
+     * network and of all their ancestors; the functions of the other
+     * variables sum to one and do not change the value of a query.
+     *
+     * @param bayesNet   the underlying Bayesian network
+     * @param isRelevant marks the variables of the query; the ancestors are
+     *                   marked in place
+     * @return the functions of the marked variables
+     */
+    static DiscreteFunction[] ancestralFunctions(BayesNet bayesNet,
+                                                 boolean isRelevant[])
+    {
+        ProbabilityFunction probFuncs[] = bayesNet.getProbabilityFunctions();
+        boolean isChanged = true;
+        while (isChanged)
+        {
+            isChanged = false;
+            for (ProbabilityFunction probFunc : probFuncs)
+            {
+                if (!isRelevant[probFunc.getIndex(0)])
+                {
+                    continue;
+                }
+                for (int i = 1; i < probFunc.numberVariables(); i++)
+                {
+                    if (!isRelevant[probFunc.getIndex(i)])
+                    {
+                        isRelevant[probFunc.getIndex(i)] = true;
+                        isChanged = true;
+                    }
+                }
+            }
+        }
+        ArrayList<DiscreteFunction> relevant = new ArrayList<>();
+        for (ProbabilityFunction probFunc : probFuncs)
+        {
+            if (isRelevant[probFunc.getIndex(0)])
+            {
+                relevant.add(probFunc);
+            }
+        }
+        DiscreteFunction functions[] = new DiscreteFunction[relevant.size()];
+        return relevant.toArray(functions);
+    }
+
+    /**
+     * Value index of each observed variable of a network.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @return the observed value indexes, BayesNet.INVALID_INDEX for the
+     *         variables that are not observed
+     */
+    static int[] evidence(BayesNet bayesNet)
+    {
+        int assignment[] = new int[bayesNet.numberVariables()];
+        for (int i = 0; i < assignment.length; i++)
+        {
+            ProbabilityVariable probVar = bayesNet.getProbabilityVariable(i);
+            assignment[i] = probVar.isObserved() ?
+                            probVar.getObservedIndex() :
+                            BayesNet.INVALID_INDEX;
+        }
+        return assignment;
+    }
+
+    /**
+     * Compute a bound on the max-sum value of the functions.
+     *
+     * @param assignment    value index of each variable of the network, or
+     *                      BayesNet.INVALID_INDEX for free variables
+     * @param isMaxVariable marks the free variables to maximise; the other
+     *                      free variables are summed
+     * @param isUpper       true for an upper bound, false for a lower bound
+     * @return the bound
+     */
+    public double bound(int assignment[],
+                        boolean isMaxVariable[],
+                        boolean isUpper)
+    {
+        double constant = 1.0;
+        int position[] = positionsInOrder(isMaxVariable);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayList<DiscreteFunction> buckets[] = new ArrayList[order.length];
+        for (int i = 0; i < buckets.length; i++)
+        {
+            buckets[i] = new ArrayList<>();
+        }
+
+        // Restrict the functions to the free variables
+        ArrayList<DiscreteFunction> single = new ArrayList<>(1);
+        for (DiscreteFunction discrFunc : functions)
+        {
+            single.clear();
+            single.add(discrFunc);
+            DiscreteFunction restricted = combine(single,
+                                                  assignment,
+                                                  BayesNet.INVALID_INDEX,
+                                                  Operation.SUM);
+            constant *= place(restricted, buckets, position);
+        }
+
+        // Eliminate the free variables
+        ArrayList<ArrayList<DiscreteFunction>> miniBuckets = new ArrayList<>();
+        for (int p = 0; p < order.length && constant > 0.0; p++)
+        {
+            int varIndex = order[p];
+            if (buckets[p].isEmpty() ||
+                assignment[varIndex] != BayesNet.INVALID_INDEX)
+            {
+                continue;
+            }
+            partition(buckets[p], miniBuckets);
+            for (int q = 0; q < miniBuckets.size(); q++)
+            {
+                Operation operation =
+                          q == 0 ?
+                          (isMaxVariable[varIndex] ?
+                           Operation.MAX :
+                           Operation.SUM) :
+                          (isUpper ? Operation.MAX : Operation.MIN);
+                DiscreteFunction message = combine(miniBuckets.get(q),
+                                                   assignment,
+                                                   varIndex,
+                                                   operation);
+                constant *= place(message, buckets, position);
+            }
+            buckets[p] = null;
+        }
+        return constant;
+    }
+
+    /**
+     * Compute exactly the joint function of some free variables: the product
+     * of the functions restricted to an assignment, with the other free
+     * variables summed out. The kept variables are ordered last and their
+     * buckets are multiplied into the result instead of being eliminated;
+     * the i-bound is not used.
+     *
+     * @param assignment value index of each variable of the network, or
+     *                   BayesNet.INVALID_INDEX for free variables
+     * @param isKept     marks the free variables of the result
+     * @return the function of the kept variables that occur in the
+     *         functions, in the order of the network
+     */
+    public DiscreteFunction joint(int assignment[], boolean isKept[])
+    {
+        double constant = 1.0;
+        int position[] = positionsInOrder(isKept);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayList<DiscreteFunction> buckets[] = new ArrayList[order.length];
+        for (int i = 0; i < buckets.length; i++)
+        {
+            buckets[i] = new ArrayList<>();
+        }
+
+        ArrayList<DiscreteFunction> single = new ArrayList<>(1);
+        for (DiscreteFunction discrFunc : functions)
+        {
+            single.clear();
+            single.add(discrFunc);
+            DiscreteFunction restricted = combine(single,
+                                                  assignment,
+                                                  BayesNet.INVALID_INDEX,
+                                                  Operation.SUM);
+            constant *= place(restricted, buckets, position);
+        }
+
+        // Sum out the other free variables; the kept ones come last and
+        // collect the remaining functions
+        ArrayList<DiscreteFunction> kept = new ArrayList<>();
+        for (int p = 0; p < order.length; p++)
+        {
+            int varIndex = order[p];
+            if (buckets[p].isEmpty() ||
+                assignment[varIndex] != BayesNet.INVALID_INDEX)
+            {
+                continue;
+            }
+            if (isKept[varIndex])
+            {
+                kept.addAll(buckets[p]);
+            }
+            else
+            {
+                DiscreteFunction message = combine(buckets[p],
+                                                   assignment,
+                                                   varIndex,
+                                                   Operation.SUM);
+                constant *= place(message, buckets, position);
+            }
+            buckets[p] = null;
+        }
+        DiscreteFunction result = combine(kept,
+                                          assignment,
+                                          BayesNet.INVALID_INDEX,
+                                          Operation.SUM);
+        for (int i = 0; i < result.numberValues(); i++)
+        {
+            result.setValue(i, result.getValue(i) * constant);
+        }
+        return result;
+    }
+
+    /**
+     * Put a function into the bucket of its first variable in the
+     * elimination order.
+     *
+     * @return the value of the function if it has no variables, 1.0
+     *         otherwise
+     */
+    private double place(DiscreteFunction discrFunc,
+                         ArrayList<DiscreteFunction> buckets[],
+                         int position[])
+    {
+        if (discrFunc.numberVariables() == 0)
+        {
+            return discrFunc.getValue(0);
+        }
+        int first = Integer.MAX_VALUE;
+        for (int i = 0; i < discrFunc.numberVariables(); i++)
+        {
+            first = Math.min(first, position[discrFunc.getIndex(i)]);
+        }
+        buckets[first].add(discrFunc);
+        return 1.0;
+    }
+
+    /**
+     * Split the functions of a bucket into mini-buckets of at most iBound
+     * variables, largest functions first. A function with more variables
+     * than iBound forms a mini-bucket of its own.
+     */
+    private void partition(ArrayList<DiscreteFunction> bucket,
+                           ArrayList<ArrayList<DiscreteFunction>> miniBuckets)
+    {
+        miniBuckets.clear();
+        DiscreteFunction sorted[] =
+                         bucket.toArray(new DiscreteFunction[bucket.size()]);
+        // Insertion sort by decreasing number of variables keeps the order
+        // of equal sizes
+        for (int i = 1; i < sorted.length; i++)
+        {
+            DiscreteFunction current = sorted[i];
+            int j = i - 1;
+            while (j >= 0 &&
+                   sorted[j].numberVariables() < current.numberVariables())
+            {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = current;
+        }
+
+        ArrayList<boolean[]> scopes = new ArrayList<>();
+        ArrayList<Integer> scopeSizes = new ArrayList<>();
+        for (DiscreteFunction discrFunc : sorted)
+        {
+            int q;
+            for (q = 0; q < miniBuckets.size(); q++)
+            {
+                boolean scope[] = scopes.get(q);
+                int size = scopeSizes.get(q);
+                for (int i = 0; i < discrFunc.numberVariables(); i++)
+                {
+                    if (!scope[discrFunc.getIndex(i)])
+                    {
+                        size++;
+                    }
+                }
+                if (size <= iBound)
+                {
+                    break;
+                }
+            }
+            if (q == miniBuckets.size())
+            {
+                miniBuckets.add(new ArrayList<DiscreteFunction>());
+                scopes.add(new boolean[probVars.length]);
+                scopeSizes.add(0);
+            }
+            boolean scope[] = scopes.get(q);
+            int size = scopeSizes.get(q);
+            for (int i = 0; i < discrFunc.numberVariables(); i++)
+            {
+                if (!scope[discrFunc.getIndex(i)])
+                {
+                    scope[discrFunc.getIndex(i)] = true;
+                    size++;
+                }
+            }
+            scopeSizes.set(q, size);
+            miniBuckets.get(q).add(discrFunc);
+        }
+    }
+
+    /**
+     * Multiply functions, restricted to an assignment, and eliminate a
+     * variable. The variables of the result are the free variables of the
+     * functions other than the eliminated one, in the order of the network;
+     * the last variable runs fastest, as in DiscreteFunction.
+     *
+     * @param discrFuncs the functions
+     * @param assignment value indexes of the assigned variables
+     * @param varIndex   the variable to eliminate, or INVALID_INDEX to only
+     *                   multiply
+     * @param operation  the operator of the elimination
+     * @return the result, without variables if it is a scalar
+     */
+    private DiscreteFunction combine(ArrayList<DiscreteFunction> discrFuncs,
+                                     int assignment[],
+                                     int varIndex,
+                                     Operation operation)
+    {
+        // Collect the free variables of the result
+        boolean inScope[] = new boolean[probVars.length];
+        for (DiscreteFunction discrFunc : discrFuncs)
+        {
+            for (int i = 0; i < discrFunc.numberVariables(); i++)
+            {
+                int index = discrFunc.getIndex(i);
+                if (index != varIndex &&
+                    assignment[index] == BayesNet.INVALID_INDEX)
+                {
+                    inScope[index] = true;
+                }
+            }
+        }
+        int resultPosition[] = new int[probVars.length];
+        Arrays.fill(resultPosition, BayesNet.INVALID_INDEX);
+        int numberOfResultVars = 0;
+        for (int i = 0; i < inScope.length; i++)
+        {
+            if (inScope[i])
+            {
+                resultPosition[i] = numberOfResultVars++;
+            }
+        }
+        DiscreteVariable resultVars[] =
+                         new DiscreteVariable[numberOfResultVars];
+        int sizes[] = new int[numberOfResultVars];
+        int resultSize = 1;
+        for (int i = 0; i < inScope.length; i++)
+        {
+            if (inScope[i])
+            {
+                resultVars[resultPosition[i]] = probVars[i];
+                sizes[resultPosition[i]] = probVars[i].numberValues();
+                resultSize *= probVars[i].numberValues();
+            }
+        }
+
+        // Strides of the result variables and of the eliminated variable in
+        // each function, and the offset of the assigned variables
+        int m = discrFuncs.size();
+        double tables[][] = new double[m][];
+        int strides[][] = new int[m][numberOfResultVars];
+        int varStrides[] = new int[m];
+        int offsets[] = new int[m];
+        for (int f = 0; f < m; f++)
+        {
+            DiscreteFunction discrFunc = discrFuncs.get(f);
+            tables[f] = discrFunc.getValues();
+            int stride = 1;
+            for (int i = discrFunc.numberVariables() - 1; i >= 0; i--)
+            {
+                int index = discrFunc.getIndex(i);
+                if (index == varIndex)
+                {
+                    varStrides[f] = stride;
+                }
+                else if (resultPosition[index] != BayesNet.INVALID_INDEX)
+                {
+                    strides[f][resultPosition[index]] = stride;
+                }
+                else
+                {
+                    offsets[f] += assignment[index] * stride;
+                }
+                stride *= discrFunc.getVariable(i).numberValues();
+            }
+        }
+
+        int numberOfValues = varIndex == BayesNet.INVALID_INDEX ?
+                             1 :
+                             probVars[varIndex].numberValues();
+        double result[] = new double[resultSize];
+        int counter[] = new int[numberOfResultVars];
+        for (int r = 0; r < resultSize; r++)
+        {
+            double accumulated = operation == Operation.SUM ? 0.0 :
+                                 operation == Operation.MAX ?
+                                 Double.NEGATIVE_INFINITY :
+                                 Double.POSITIVE_INFINITY;
+            for (int v = 0; v < numberOfValues; v++)
+            {
+                double product = 1.0;
+                for (int f = 0; f < m; f++)
+                {
+                    product *= tables[f][offsets[f] + v * varStrides[f]];
+                }
+                switch (operation)
+                {
+                    case SUM:
+                        accumulated += product;
+                        break;
+                    case MAX:
+                        accumulated = Math.max(accumulated, product);
+                        break;
+                    default:
+                        accumulated = Math.min(accumulated, product);
+                        break;
+                }
+            }
+            result[r] = accumulated;
+
+            // Increment the result variables, the last one fastest
+            for (int j = numberOfResultVars - 1; j >= 0; j--)
+            {
+                counter[j]++;
+                for (int f = 0; f < m; f++)
+                {
+                    offsets[f] += strides[f][j];
+                }
+                if (counter[j] < sizes[j])
+                {
+                    break;
+                }
+                for (int f = 0; f < m; f++)
+                {
+                    offsets[f] -= strides[f][j] * sizes[j];
+                }
+                counter[j] = 0;
+            }
+        }
+        return new DiscreteFunction(resultVars, result);
+    }
+
+    /**
+     * Position of each variable in the elimination order: the sum variables
+     * first, then the max variables, each in greedy minimum degree order of
+     * the interaction graph of the functions. The order is computed for all
+     * variables and reused while the max markers do not change; assigned
+     * variables are skipped during the elimination.
+     */
+    private int[] positionsInOrder(boolean isMaxVariable[])
+    {
+        if (order == null || !Arrays.equals(orderMaxMarkers, isMaxVariable))
+        {
+            order = eliminationOrder(isMaxVariable);
+            orderMaxMarkers = isMaxVariable.clone();
+        }
+        int position[] = new int[probVars.length];
+        for (int p = 0; p < order.length; p++)
+        {
+            position[order[p]] = p;
+        }
+        return position;
+    }
+
+    private int[] eliminationOrder(boolean isMaxVariable[])
+    {
+        int n = probVars.length;
+        boolean adjacent[][] = new boolean[n][n];
+        for (DiscreteFunction discrFunc : functions)
+        {
+            for (int i = 0; i < discrFunc.numberVariables(); i++)
+            {
+                for (int j = 0; j < discrFunc.numberVariables(); j++)
+                {
+                    adjacent[discrFunc.getIndex(i)][discrFunc.getIndex(j)] =
+                    true;
+                }
+            }
+        }
+        int degree[] = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            adjacent[i][i] = false;
+            for (int j = 0; j < n; j++)
+            {
+                if (adjacent[i][j])
+                {
+                    degree[i]++;
+                }
+            }
+        }
+
+        int eliminationOrder[] = new int[n];
+        boolean isEliminated[] = new boolean[n];
+        for (int p = 0; p < n; p++)
+        {
+            // Sum variables have precedence; among them the smallest degree
+            int best = BayesNet.INVALID_INDEX;
+            for (int i = 0; i < n; i++)
+            {
+                if (!isEliminated[i] &&
+                    (best == BayesNet.INVALID_INDEX ||
+                     (isMaxVariable[best] && !isMaxVariable[i]) ||
+                     (isMaxVariable[best] == isMaxVariable[i] &&
+                      degree[i] < degree[best])))
+                {
+                    best = i;
+                }
+            }
+            eliminationOrder[p] = best;
+            isEliminated[best] = true;
+            // Connect the neighbours of the eliminated variable
+            for (int i = 0; i < n; i++)
+            {
+                if (!adjacent[best][i] || isEliminated[i])
+                {
+                    continue;
+                }
+                degree[i]--;
+                for (int j = i + 1; j < n; j++)
+                {
+                    if (adjacent[best][j] && !isEliminated[j] &&
+                        !adjacent[i][j])
+                    {
+                        adjacent[i][j] = true;
+                        adjacent[j][i] = true;
+                        degree[i]++;
+                        degree[j]++;
+                    }
+                }
+            }
+        }
+        return eliminationOrder;
+    }
+}
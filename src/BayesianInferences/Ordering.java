@@ -151,7 +151,10 @@ public class Ordering
             objectiveIndex = 0;
         }
 
-        if (bayesNet.getProbabilityVariable(objectiveIndex).isObserved())
+        // An observed objective is its own result, unless an explanation
+        // is needed for the other variables
+        if (explanationStatus.isIgnore() &&
+            bayesNet.getProbabilityVariable(objectiveIndex).isObserved())
         {
             String oneOrder[] =
             {
@@ -0,0 +1,640 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteVariable;
+import BayesianNetworks.ProbabilityFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Approximate marginal posterior distributions by sampling, for networks
+ * where exact inference is infeasible.
+ *
+ * The variables are sampled in topological order, each from the row of its
+ * probability function selected by the values of its parents; the
+ * cumulative distribution of every row is precomputed. Three methods are
+ * available:
+ * <ul>
+ * <li>FORWARD: all variables are sampled and samples that contradict the
+ * evidence are rejected.</li>
+ * <li>LIKELIHOOD_WEIGHTING: observed variables keep their value and weight
+ * the sample by its probability given the parents.</li>
+ * <li>IMPORTANCE: as likelihood weighting, but the variables are sampled
+ * from a proposal that also looks at the evidence below them, estimated by
+ * loopy belief propagation and mixed with the probability function so every
+ * possible value keeps a chance; the sample is weighted by the ratio of the
+ * probabilities.</li>
+ * </ul>
+ *
+ * Samples are drawn in batches, in parallel if there are several threads;
+ * each batch has its own random stream split from the seed, so results do
+ * not depend on the number of threads. The estimates are anytime: every
+ * call of sample() refines them, until the evidence changes.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class SamplingInference
+{
+
+    private static final Class CLAZZ = SamplingInference.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int BATCH_SIZE = 4096;
+    private static final double PRIOR_WEIGHT = 0.1;
+
+    /**
+     * Sampling methods.
+     */
+    public enum Method
+    {
+
+        /**
+         * Forward sampling with rejection of the samples that contradict the
+         * evidence.
+         */
+        FORWARD,
+        /**
+         * Likelihood weighting.
+         */
+        LIKELIHOOD_WEIGHTING,
+        /**
+         * Importance sampling with a proposal informed by the evidence.
+         */
+        IMPORTANCE
+    }
+
+    private final BayesNet bayesNet;
+    private final Method method;
+    private final SplitMix64 random;
+    private final int numberOfVariables;
+    private final int cardinality[];
+    private final int order[];
+    private final int parents[][];
+    private final double probabilities[][];
+    private final int numberOfRows[];
+    private final int valueOffset[];
+
+    // Proposal of each variable per row of its function: value fastest
+    private final double proposal[][];
+    private final double cumulative[][];
+
+    private int numberOfThreads = 1;
+    private long sampleSize = 10000;
+
+    private int evidence[];
+    private double valueWeights[];
+    private double totalWeight;
+    private double totalSquaredWeight;
+    private long numberOfSamples;
+    private ProbabilityFunction result;
+
+    /**
+     * Constructor for a SamplingInference with a seed taken from the clock.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @param method   the sampling method
+     */
+    public SamplingInference(BayesNet bayesNet, Method method)
+    {
+        this(bayesNet, method, System.nanoTime());
+    }
+
+    /**
+     * Constructor for a SamplingInference.
+     *
+     * @param bayesNet the underlying Bayesian network
+     * @param method   the sampling method
+     * @param seed     seed of the random streams
+     */
+    public SamplingInference(BayesNet bayesNet, Method method, long seed)
+    {
+        this.bayesNet = bayesNet;
+        this.method = method;
+        this.random = new SplitMix64(seed);
+        numberOfVariables = bayesNet.numberVariables();
+        cardinality = new int[numberOfVariables];
+        valueOffset = new int[numberOfVariables + 1];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            cardinality[v] = bayesNet.getProbabilityVariable(v).numberValues();
+            valueOffset[v + 1] = valueOffset[v] + cardinality[v];
+        }
+
+        parents = new int[numberOfVariables][];
+        probabilities = new double[numberOfVariables][];
+        numberOfRows = new int[numberOfVariables];
+        for (ProbabilityFunction probFunc : bayesNet.getProbabilityFunctions())
+        {
+            int v = probFunc.getIndex(0);
+            parents[v] = new int[probFunc.numberVariables() - 1];
+            for (int k = 0; k < parents[v].length; k++)
+            {
+                parents[v][k] = probFunc.getIndex(k + 1);
+            }
+            probabilities[v] = probFunc.getValues();
+            numberOfRows[v] = probabilities[v].length / cardinality[v];
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (parents[v] == null)
+            {
+                throw new IllegalArgumentException(
+                        "No probability function for variable " +
+                        bayesNet.getProbabilityVariable(v).getName());
+            }
+        }
+        order = topologicalOrder(parents);
+        proposal = new double[numberOfVariables][];
+        cumulative = new double[numberOfVariables][];
+    }
+
+    /**
+     * Order the variables so that every variable follows its parents.
+     *
+     * @param parents indexes of the parents of each variable
+     * @return the variable indexes in topological order
+     */
+    static int[] topologicalOrder(int parents[][])
+    {
+        int numberOfVariables = parents.length;
+        int missingParents[] = new int[numberOfVariables];
+        ArrayList<ArrayList<Integer>> children = new ArrayList<>();
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            children.add(new ArrayList<Integer>());
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            missingParents[v] = parents[v].length;
+            for (int p : parents[v])
+            {
+                children.get(p).add(v);
+            }
+        }
+        int sorted[] = new int[numberOfVariables];
+        int numberSorted = 0;
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            if (missingParents[v] == 0)
+            {
+                sorted[numberSorted++] = v;
+            }
+        }
+        for (int i = 0; i < numberSorted; i++)
+        {
+            for (int child : children.get(sorted[i]))
+            {
+                if (--missingParents[child] == 0)
+                {
+                    sorted[numberSorted++] = child;
+                }
+            }
+        }
+        if (numberSorted < numberOfVariables)
+        {
+            throw new IllegalArgumentException("The network has a cycle");
+        }
+        return sorted;
+    }
+
+    /**
+     * Get the sampling method.
+     *
+     * @return the method
+     */
+    public Method getMethod()
+    {
+        return method;
+    }
+
+    /**
+     * Get the number of sampling threads.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of sampling threads.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Get the number of samples an inference draws at least.
+     *
+     * @return the number of samples
+     */
+    public long getSampleSize()
+    {
+        return sampleSize;
+    }
+
+    /**
+     * Set the number of samples an inference draws at least.
+     *
+     * @param sampleSize the number of samples, at least 1
+     */
+    public void setSampleSize(long sampleSize)
+    {
+        if (sampleSize < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of samples must be positive");
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Discard the samples drawn so far and read the evidence of the network
+     * anew.
+     */
+    public void reset()
+    {
+        evidence = MiniBucketElimination.evidence(bayesNet);
+        valueWeights = new double[valueOffset[numberOfVariables]];
+        totalWeight = 0.0;
+        totalSquaredWeight = 0.0;
+        numberOfSamples = 0;
+        LoopyBeliefPropagation propagation = null;
+        if (method == Method.IMPORTANCE)
+        {
+            propagation = new LoopyBeliefPropagation(bayesNet);
+            propagation.propagate();
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            buildProposal(v, propagation);
+        }
+    }
+
+    /**
+     * Precompute the proposal and its cumulative distribution for each row
+     * of the probability function of a variable.
+     */
+    private void buildProposal(int v, LoopyBeliefPropagation propagation)
+    {
+        int numberOfValues = cardinality[v];
+        double support[] = propagation == null ?
+                           null :
+                           propagation.childSupport(v);
+        proposal[v] = new double[probabilities[v].length];
+        cumulative[v] = new double[probabilities[v].length];
+        for (int row = 0; row < numberOfRows[v]; row++)
+        {
+            int base = row * numberOfValues;
+            double sum = 0.0;
+            double informed = 0.0;
+            for (int x = 0; x < numberOfValues; x++)
+            {
+                // The function has the variable itself slowest
+                double p = probabilities[v][x * numberOfRows[v] + row];
+                proposal[v][base + x] = p;
+                sum += p;
+                if (support != null)
+                {
+                    informed += p * support[x];
+                }
+            }
+            for (int x = 0; x < numberOfValues; x++)
+            {
+                double p = sum > 0.0 ? proposal[v][base + x] / sum : 0.0;
+                if (informed > 0.0)
+                {
+                    double q = proposal[v][base + x] * support[x] / informed;
+                    p = (1.0 - PRIOR_WEIGHT) * q + PRIOR_WEIGHT * p;
+                }
+                proposal[v][base + x] = p;
+                cumulative[v][base + x] = p +
+                                          (x == 0 ?
+                                           0.0 :
+                                           cumulative[v][base + x - 1]);
+            }
+        }
+    }
+
+    /**
+     * Draw more samples for the current evidence; samples drawn before for
+     * other evidence are discarded.
+     *
+     * @param count the number of samples to draw
+     */
+    public void sample(long count)
+    {
+        if (evidence == null ||
+            !Arrays.equals(evidence, MiniBucketElimination.evidence(bayesNet)))
+        {
+            reset();
+        }
+        int numberOfBatches = (int) ((count + BATCH_SIZE - 1) / BATCH_SIZE);
+        final SplitMix64 streams[] = new SplitMix64[numberOfBatches];
+        final int sizes[] = new int[numberOfBatches];
+        for (int b = 0; b < numberOfBatches; b++)
+        {
+            streams[b] = random.split();
+            sizes[b] = (int) Math.min(BATCH_SIZE,
+                                      count - (long) b * BATCH_SIZE);
+        }
+
+        int threads = Math.max(1, Math.min(numberOfThreads, numberOfBatches));
+        if (threads == 1)
+        {
+            for (int b = 0; b < numberOfBatches; b++)
+            {
+                add(drawBatch(streams[b], sizes[b]));
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            ArrayList<Future<Tally>> pending = new ArrayList<>();
+            for (int b = 0; b < numberOfBatches; b++)
+            {
+                final int batch = b;
+                pending.add(executor.submit(new Callable<Tally>()
+                {
+                    @Override
+                    public Tally call()
+                    {
+                        return drawBatch(streams[batch], sizes[batch]);
+                    }
+                }));
+            }
+            // Add in batch order so the sums do not depend on the threads
+            for (Future<Tally> tally : pending)
+            {
+                add(tally.get());
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IllegalStateException(ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void add(Tally tally)
+    {
+        for (int i = 0; i < valueWeights.length; i++)
+        {
+            valueWeights[i] += tally.valueWeights[i];
+        }
+        totalWeight += tally.totalWeight;
+        totalSquaredWeight += tally.totalSquaredWeight;
+        numberOfSamples += tally.numberOfSamples;
+    }
+
+    /**
+     * Draw a batch of weighted samples.
+     */
+    private Tally drawBatch(SplitMix64 stream, int count)
+    {
+        Tally tally = new Tally(valueWeights.length);
+        int values[] = new int[numberOfVariables];
+        for (int s = 0; s < count; s++)
+        {
+            double weight = drawSample(stream, values);
+            tally.numberOfSamples++;
+            if (weight == 0.0)
+            {
+                continue;
+            }
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                tally.valueWeights[valueOffset[v] + values[v]] += weight;
+            }
+            tally.totalWeight += weight;
+            tally.totalSquaredWeight += weight * weight;
+        }
+        return tally;
+    }
+
+    /**
+     * Draw the values of all variables in topological order.
+     *
+     * @return the weight of the sample, 0 if it is rejected
+     */
+    private double drawSample(SplitMix64 stream, int values[])
+    {
+        double weight = 1.0;
+        for (int v : order)
+        {
+            int numberOfValues = cardinality[v];
+            int row = 0;
+            for (int p : parents[v])
+            {
+                row = row * cardinality[p] + values[p];
+            }
+            int observed = evidence[v];
+            if (observed != BayesNet.INVALID_INDEX &&
+                method != Method.FORWARD)
+            {
+                values[v] = observed;
+                weight *= probabilities[v][observed * numberOfRows[v] + row];
+                if (weight == 0.0)
+                {
+                    return 0.0;
+                }
+                continue;
+            }
+
+            int base = row * numberOfValues;
+            int last = base + numberOfValues - 1;
+            double u = stream.nextDouble() * cumulative[v][last];
+            int x = 0;
+            while (x < numberOfValues - 1 && cumulative[v][base + x] <= u)
+            {
+                x++;
+            }
+            values[v] = x;
+            if (observed != BayesNet.INVALID_INDEX && x != observed)
+            {
+                return 0.0;
+            }
+            if (method == Method.IMPORTANCE)
+            {
+                weight *= probabilities[v][x * numberOfRows[v] + row] /
+                          proposal[v][base + x];
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Calculation of the approximate marginal posterior distribution of the
+     * variable queried by the network.
+     */
+    public void inference()
+    {
+        inference((String) null);
+    }
+
+    /**
+     * Calculation of the approximate marginal posterior distribution of a
+     * variable from at least getSampleSize() samples for the current
+     * evidence.
+     *
+     * @param queriedVariableName name of the variable to query; the first
+     *                            variable if null or invalid
+     */
+    public void inference(String queriedVariableName)
+    {
+        if (evidence == null ||
+            !Arrays.equals(evidence, MiniBucketElimination.evidence(bayesNet)))
+        {
+            reset();
+        }
+        if (numberOfSamples < sampleSize)
+        {
+            sample(sampleSize - numberOfSamples);
+        }
+        int indexQueried = bayesNet.indexOfVariable(queriedVariableName);
+        if (indexQueried == BayesNet.INVALID_INDEX)
+        {
+            indexQueried = 0;
+        }
+        double values[] = new double[cardinality[indexQueried]];
+        if (totalWeight > 0.0)
+        {
+            for (int x = 0; x < values.length; x++)
+            {
+                values[x] = valueWeights[valueOffset[indexQueried] + x] /
+                            totalWeight;
+            }
+        }
+        else
+        {
+            LOGGER.warning("No sample is consistent with the evidence");
+        }
+        DiscreteVariable variables[] =
+        {
+            bayesNet.getProbabilityVariable(indexQueried)
+        };
+        result = new ProbabilityFunction(bayesNet,
+                                         variables,
+                                         values,
+                                         new ArrayList<String>());
+    }
+
+    /**
+     * Get the result of the last inference.
+     *
+     * @return the approximate posterior distribution
+     */
+    public ProbabilityFunction getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Get the result of the last inference as a typed result.
+     *
+     * @return the marginal result
+     */
+    public MarginalResult getMarginalResult()
+    {
+        return new MarginalResult(result);
+    }
+
+    /**
+     * Get the number of samples drawn for the current evidence, including
+     * rejected ones.
+     *
+     * @return the number of samples
+     */
+    public long getNumberOfSamples()
+    {
+        return numberOfSamples;
+    }
+
+    /**
+     * Get the effective sample size of the weighted samples, (sum of the
+     * weights)^2 / sum of the squared weights; it drops when a few samples
+     * carry most of the weight.
+     *
+     * @return the effective sample size
+     */
+    public double getEffectiveSampleSize()
+    {
+        return totalSquaredWeight > 0.0 ?
+               totalWeight * totalWeight / totalSquaredWeight :
+               0.0;
+    }
+
+    /**
+     * Get the estimate of the probability of the evidence: the mean weight
+     * of the samples.
+     *
+     * @return the estimate
+     */
+    public double getEvidenceProbability()
+    {
+        return numberOfSamples > 0 ? totalWeight / numberOfSamples : 0.0;
+    }
+
+    /**
+     * Sums over the samples of a batch.
+     */
+    private static class Tally
+    {
+
+        final double valueWeights[];
+        double totalWeight;
+        double totalSquaredWeight;
+        long numberOfSamples;
+
+        Tally(int numberOfValues)
+        {
+            valueWeights = new double[numberOfValues];
+        }
+    }
+}
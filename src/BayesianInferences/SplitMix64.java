@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import java.util.logging.Logger;
+
+/**
+ * Small, fast and splittable pseudo random number generator (SplitMix64 of
+ * Steele, Lea and Flood). A generator can be split into an independent
+ * stream, so every thread or batch of a parallel sampler can draw its own
+ * numbers, and the results for a seed do not depend on the scheduling of
+ * the threads. Not thread safe; not for cryptographic use.
+ *
+ * @author Dieter J Kybelksties
+ */
+public final class SplitMix64
+{
+
+    private static final Class CLAZZ = SplitMix64.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long seed;
+    private final long gamma;
+
+    /**
+     * Constructor for a SplitMix64.
+     *
+     * @param seed the initial seed
+     */
+    public SplitMix64(long seed)
+    {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SplitMix64(long seed, long gamma)
+    {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Split off a new generator whose stream is independent of the rest of
+     * the stream of this generator.
+     *
+     * @return the new generator
+     */
+    public SplitMix64 split()
+    {
+        return new SplitMix64(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Draw a uniformly distributed long.
+     *
+     * @return the next long
+     */
+    public long nextLong()
+    {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Draw a uniformly distributed double in [0, 1).
+     *
+     * @return the next double
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Draw a uniformly distributed int in [0, bound).
+     *
+     * @param bound the upper bound, exclusive
+     * @return the next int
+     */
+    public int nextInt(int bound)
+    {
+        if (bound <= 0)
+        {
+            throw new IllegalArgumentException("Bound must be positive: " +
+                                               bound);
+        }
+        // Reject the top of the range that would favour small values
+        long limit = Long.MAX_VALUE - Long.MAX_VALUE % bound;
+        long r = nextLong() >>> 1;
+        while (r >= limit)
+        {
+            r = nextLong() >>> 1;
+        }
+        return (int) (r % bound);
+    }
+
+    private long nextSeed()
+    {
+        seed += gamma;
+        return seed;
+    }
+
+    private static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derive an odd gamma with enough bit transitions for a split stream.
+     */
+    private static long mixGamma(long z)
+    {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
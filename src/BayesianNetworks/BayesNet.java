@@ -25,16 +25,22 @@
  */
 package BayesianNetworks;
 
-import BayesianInferences.BayesBall;
+import BayesianInferences.JointInference;
 import InterchangeFormat.InterchangeFormat;
+import InterchangeFormat.InterchangeFormat.Format;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.TreeSet;
+import java.util.Arrays;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 /**
  * @author Fabio G. Cozman
@@ -130,10 +136,7 @@ public class BayesNet
         ByteArrayInputStream istream = new ByteArrayInputStream(
                              networkDescription.getBytes());
         // Read the BayesNet from the stream
-        InterchangeFormat interchangeFmt = new InterchangeFormat(istream);
-        interchangeFmt.CompilationUnit();
-        // Transfer information from the parser
-        doTranslate(interchangeFmt);
+        load(istream);
     }
 
     private void doTranslate(InterchangeFormat interchangeFmt)
@@ -141,6 +144,97 @@ public class BayesNet
         translate(interchangeFmt);
     }
 
+    /**
+     * Construct a BayesNet from a file. Binary networks are memory mapped,
+     * all other formats are read as from a stream.
+     *
+     * @param file the file describing the network
+     * @throws Exception if the file cannot be successfully read or parsed
+     */
+    public BayesNet(File file) throws Exception
+    {
+        this();
+        if (BinaryNetworkFormat.isBinary(file))
+        {
+            BinaryNetworkFormat.load(this, file);
+            internSymbols(new SymbolTable());
+        }
+        else
+        {
+            try (InputStream istream = new FileInputStream(file))
+            {
+                load(istream);
+            }
+        }
+    }
+
+    /**
+     * Read the BayesNet from a stream. Binary networks are recognised by
+     * their magic number. BIF 0.15 and XMLBIF 0.3 are read by
+     * the StreamingNetworkLoader in a single pass; the other formats go
+     * through the parsers of the InterchangeFormat and are translated. The
+     * names are interned in a symbol table of this load only, so equal value
+     * lists of the network share one array.
+     *
+     * @param istream input stream
+     * @throws Exception if the stream cannot be successfully parsed
+     */
+    private void load(InputStream istream) throws Exception
+    {
+        BufferedInputStream bistream = new BufferedInputStream(istream);
+        if (isGzip(bistream))
+        {
+            bistream = new BufferedInputStream(new GZIPInputStream(bistream));
+        }
+        if (BinaryNetworkFormat.isBinary(bistream))
+        {
+            BinaryNetworkFormat.load(this, bistream);
+            internSymbols(new SymbolTable());
+            return;
+        }
+        Format format = InterchangeFormat.detectFormat(bistream);
+        if (StreamingNetworkLoader.isSupported(format))
+        {
+            createStreamingLoader().load(this, bistream, format);
+        }
+        else
+        {
+            InterchangeFormat interchangeFmt = new InterchangeFormat(bistream);
+            interchangeFmt.CompilationUnit();
+            // Now transfer information from the parser
+            doTranslate(interchangeFmt);
+        }
+        internSymbols(new SymbolTable());
+    }
+
+    /**
+     * Check whether a stream starts with the gzip magic number, and reset the
+     * stream.
+     *
+     * @param istream a stream that supports mark and reset
+     * @return true if so, false otherwise
+     * @throws IOException if the stream cannot be read
+     */
+    private static boolean isGzip(InputStream istream) throws IOException
+    {
+        istream.mark(2);
+        int first = istream.read();
+        int second = istream.read();
+        istream.reset();
+        return first == 0x1F && second == 0x8B;
+    }
+
+    /**
+     * Create the loader used for the formats that are read in a single pass
+     * (works by overriding method in BayesNet).
+     *
+     * @return the loader
+     */
+    protected StreamingNetworkLoader createStreamingLoader()
+    {
+        return new StreamingNetworkLoader();
+    }
+
     /**
      * Construct a BayesNet from a textual description in a stream.
      *
@@ -152,11 +246,7 @@ public class BayesNet
         this();
 
         // Read the BayesNet from the stream
-        InterchangeFormat interchangeFmt = new InterchangeFormat(istream);
-        interchangeFmt.CompilationUnit();
-
-        // Now transfer information from the parser
-        doTranslate(interchangeFmt);
+        load(istream);
     }
 
     /**
@@ -174,10 +264,7 @@ public class BayesNet
         try (InputStream istream = url.openStream())
         {
             // Read the BayesNet from the stream
-            InterchangeFormat interchangeFmt = new InterchangeFormat(istream);
-            interchangeFmt.CompilationUnit();
-            // Now transfer information from the parser
-            doTranslate(interchangeFmt);
+            load(istream);
         }
     }
 
@@ -194,10 +281,7 @@ public class BayesNet
         try (InputStream istream = url.openStream())
         {
             // Read the BayesNet from the stream
-            InterchangeFormat interchangeFmt = new InterchangeFormat(istream);
-            interchangeFmt.CompilationUnit();
-            // Now transfer information from the parser
-            doTranslate(interchangeFmt);
+            load(istream);
         }
     }
 
@@ -226,8 +310,15 @@ public class BayesNet
         setProbabilityVariables(cbn.getProbabilityVariables(this));
         setProbabilityFunctions(cbn.getProbabilityFunctions(this));
 
-        cbn.getFunctionsAsTables(this);
+        processAllProperties();
+    }
 
+    /**
+     * Process the properties of the network, its variables and its functions
+     * once they have been read.
+     */
+    void processAllProperties()
+    {
         // Process BayesNet properties
         processProperties();
 
@@ -330,54 +421,21 @@ public class BayesNet
      */
     public void saveBif(PrintStream out)
     {
-        int i;
-
-        out.println("// Bayesian network ");
-        if (name != null)
-        {
-            out.print("network \"" + name + "\" {");
-        }
-        if (probabilityVariables != null)
-        {
-            out.print(" //" + probabilityVariables.length + " variables");
-        }
-        if (probabilityFunctions != null)
-        {
-            out.print(" and " + probabilityFunctions.length +
-                      " probability distributions");
-        }
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeBif(this);
+        writer.flush();
+    }
 
-        out.println();
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\tproperty \"" + property + "\" ;");
-            }
-        }
-        out.println("}");
-        if (probabilityVariables != null)
-        {
-            for (i = 0; i < probabilityVariables.length;
-                 i++)
-            {
-                if (probabilityVariables[i] != null)
-                {
-                    probabilityVariables[i].print(out);
-                }
-            }
-        }
-        if (probabilityFunctions != null)
-        {
-            for (i = 0; i < probabilityFunctions.length;
-                 i++)
-            {
-                if (probabilityFunctions[i] != null)
-                {
-                    probabilityFunctions[i].print(out);
-                }
-            }
-        }
+    /**
+     * Save a BayesNet object in a stream, in the binary format of
+     * BinaryNetworkFormat.
+     *
+     * @param out output stream
+     * @throws IOException if the stream cannot be written
+     */
+    public void saveBinary(OutputStream out) throws IOException
+    {
+        BinaryNetworkFormat.save(this, out);
     }
 
     /**
@@ -477,83 +535,9 @@ public class BayesNet
      */
     public void saveXml(PrintStream out)
     {
-        // Heading for the file
-        out.println("<?xml version=\"1.0\" encoding=\"US-ASCII\"?>\n\n");
-        out.println("<!--");
-        out.println(
-                "\tBayesian network in XMLBIF v0.3 (BayesNet Interchange Format)");
-        out.println(
-                "\tProduced by JavaBayes (http://www.cs.cmu.edu/~javabayes/");
-        out.println("\tOutput created " + (new Date()));
-        out.println("-->\n\n\n");
-
-        out.println("<!-- DTD for the XMLBIF 0.3 format -->");
-        out.println("<!DOCTYPE BIF [\n" +
-                    "\t<!ELEMENT BIF ( NETWORK )*>\n" +
-                    "\t      <!ATTLIST BIF VERSION CDATA #REQUIRED>\n" +
-                    "\t<!ELEMENT NETWORK ( NAME, ( PROPERTY | VARIABLE | DEFINITION )* )>\n" +
-                    "\t<!ELEMENT NAME (#PCDATA)>\n" +
-                    "\t<!ELEMENT VARIABLE ( NAME, ( OUTCOME |  PROPERTY )* ) >\n" +
-                    "\t      <!ATTLIST VARIABLE TYPE (nature|decision|utility) \"nature\">\n" +
-                    "\t<!ELEMENT OUTCOME (#PCDATA)>\n" +
-                    "\t<!ELEMENT DEFINITION ( FOR | GIVEN | TABLE | PROPERTY )* >\n" +
-                    "\t<!ELEMENT FOR (#PCDATA)>\n" +
-                    "\t<!ELEMENT GIVEN (#PCDATA)>\n" +
-                    "\t<!ELEMENT TABLE (#PCDATA)>\n" +
-                    "\t<!ELEMENT PROPERTY (#PCDATA)>\n" +
-                    "]>\n\n");
-
-        // Start of Bayes net
-        out.println("<BIF VERSION=\"0.3\">");
-
-        // Bayes net description
-        out.println("<NETWORK>");
-        if (name != null)
-        {
-            out.println("<NAME>" + name + "</NAME>");
-        }
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\t<PROPERTY>" + property + "</PROPERTY>");
-            }
-        }
-        out.println();
-
-        // Variables
-        out.println("<!-- Variables -->");
-        if (probabilityVariables != null)
-        {
-            for (ProbabilityVariable probabilityVariable : probabilityVariables)
-            {
-                if (probabilityVariable != null)
-                {
-                    probabilityVariable.saveXml_0_3(out);
-                }
-            }
-        }
-        out.println();
-
-        // Probability distributions.
-        out.println("<!-- Probability distributions -->");
-        if (probabilityFunctions != null)
-        {
-            for (ProbabilityFunction probabilityFunction : probabilityFunctions)
-            {
-                if (probabilityFunction != null)
-                {
-                    probabilityFunction.saveXml_0_3(out);
-                }
-            }
-        }
-        out.println();
-
-        // End of Bayes net description.
-        out.println("</NETWORK>");
-
-        // End of Bayes net.
-        out.println("</BIF>");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeXml(this);
+        writer.flush();
     }
 
     /**
@@ -563,86 +547,9 @@ public class BayesNet
      */
     public void saveXml_0_2(PrintStream out)
     {
-        // Heading for the file
-        out.println("<?XML VERSION=\"1.0\"?>\n\n");
-        out.println("<!--");
-        out.println(
-                "\tBayesian network in BIF (BayesNet Interchange Format)");
-        out.println(
-                "\tProduced by JavaBayes (http://www.cs.cmu.edu/~javabayes/");
-        out.println("\tOutput created " + (new Date()));
-        out.println("-->\n\n\n");
-
-        out.println("<!-- DTD for the BIF format -->");
-        out.println("<!DOCTYPE BIF [\n" +
-                    "\t<!ELEMENT BIF ( NETWORK )*>\n" +
-                    "\t<!ELEMENT PROPERTY (#PCDATA)>\n" +
-                    "\t<!ELEMENT TYPE (#PCDATA)>\n" +
-                    "\t<!ELEMENT VALUE (#PCDATA)>\n" +
-                    "\t<!ELEMENT NAME (#PCDATA)>\n" +
-                    "\t<!ELEMENT NETWORK\n" +
-                    "\t    ( NAME, ( PROPERTY | VARIABLE | PROBABILITY )* )>\n" +
-                    "\t<!ELEMENT VARIABLE ( NAME, TYPE, ( VALUE |  PROPERTY )* ) >\n" +
-                    "\t<!ELEMENT PROBABILITY\n" +
-                    "\t    ( FOR | GIVEN | TABLE | ENTRY | DEFAULT | PROPERTY )* >\n" +
-                    "\t<!ELEMENT FOR (#PCDATA)>\n" +
-                    "\t<!ELEMENT GIVEN (#PCDATA)>\n" +
-                    "\t<!ELEMENT TABLE (#PCDATA)>\n" +
-                    "\t<!ELEMENT DEFAULT (TABLE)>\n" +
-                    "\t<!ELEMENT ENTRY ( VALUE* , TABLE )>\n" +
-                    "]>\n\n");
-
-        // Start of Bayes net
-        out.println("<BIF>");
-
-        // Bayes net description
-        out.println("<NETWORK>");
-        if (name != null)
-        {
-            out.println("<NAME>" + name + "</NAME>");
-        }
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\t<PROPERTY>" + property + "</PROPERTY>");
-            }
-        }
-        out.println();
-
-        // Variables
-        out.println("<!-- Variables -->");
-        if (probabilityVariables != null)
-        {
-            for (ProbabilityVariable probabilityVariable : probabilityVariables)
-            {
-                if (probabilityVariable != null)
-                {
-                    probabilityVariable.saveXml(out);
-                }
-            }
-        }
-        out.println();
-
-        // Probability distributions.
-        out.println("<!-- Probability distributions -->");
-        if (probabilityFunctions != null)
-        {
-            for (ProbabilityFunction probabilityFunction : probabilityFunctions)
-            {
-                if (probabilityFunction != null)
-                {
-                    probabilityFunction.saveXml(out);
-                }
-            }
-        }
-        out.println();
-
-        // End of Bayes net description.
-        out.println("</NETWORK>");
-
-        // End of Bayes net.
-        out.println("</BIF>");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeXml_0_2(this);
+        writer.flush();
     }
 
     /**
@@ -701,6 +608,13 @@ public class BayesNet
      */
     public int indexOfVariable(String searchName)
     {
+        for (int i = 0; i < probabilityVariables.length; i++)
+        {
+            if (probabilityVariables[i].name == searchName)
+            {
+                return i;
+            }
+        }
         for (int i = 0; i < probabilityVariables.length; i++)
         {
             if (probabilityVariables[i].name.equals(searchName))
@@ -806,6 +720,29 @@ public class BayesNet
         properties.remove(propIndex);
     }
 
+    /**
+     * Replace the names of the network, its variables and their values by
+     * the canonical instances of a symbol table.
+     *
+     * @param symbols the symbol table
+     */
+    public void internSymbols(SymbolTable symbols)
+    {
+        name = symbols.intern(name);
+        if (probabilityVariables == null)
+        {
+            return;
+        }
+        for (ProbabilityVariable probVar : probabilityVariables)
+        {
+            if (probVar != null)
+            {
+                probVar.name = symbols.intern(probVar.name);
+                probVar.values = symbols.internValues(probVar.values);
+            }
+        }
+    }
+
     /**
      * Get the number of variables in the network.
      *
@@ -1123,9 +1060,15 @@ public class BayesNet
      * P(B | A,C) == P(B | A) [B independent of C]
      * </code><br>
      *
-     * @param event
-     * @param condition
-     * @return
+     * The value of every variable of the event and of the condition is its
+     * observed value; the evidence on the other variables of the network is
+     * ignored. The conditional probability is computed by JointInference.
+     *
+     * @param event     the variables of the event A
+     * @param condition the variables of the condition B
+     * @return the probability P(A|B)
+     * @throws IllegalArgumentException if a variable has no observed value or
+     *                                  if the condition has probability zero
      * @see
      * <a href="https://en.wikipedia.org/wiki/Conditional_probability">
      * Conditional probability</a>
@@ -1143,15 +1086,52 @@ public class BayesNet
     public double P(ArrayList<ProbabilityVariable> event,
                     ArrayList<ProbabilityVariable> condition)
     {
-        double reval = 0.0;
-        TreeSet<ProbabilityVariable> eventSet = new TreeSet<>();
-        event.addAll(event);
-
-        TreeSet<ProbabilityVariable> conditionSet = new TreeSet<>();
-        conditionSet.addAll(condition);
-
-        BayesBall.ResultType result = BayesBall.run(eventSet, conditionSet);
+        int evidence[] = new int[numberVariables()];
+        Arrays.fill(evidence, INVALID_INDEX);
+        for (ProbabilityVariable probVar : condition)
+        {
+            evidence[probVar.getIndex()] = observedIndexOf(probVar);
+        }
+        int values[] = new int[numberVariables()];
+        ArrayList<ProbabilityVariable> queried = new ArrayList<>();
+        for (ProbabilityVariable probVar : event)
+        {
+            int value = observedIndexOf(probVar);
+            int observed = evidence[probVar.getIndex()];
+            if (observed != INVALID_INDEX)
+            {
+                // The condition decides about this part of the event
+                if (observed != value)
+                {
+                    return 0.0;
+                }
+            }
+            else if (!queried.contains(probVar))
+            {
+                queried.add(probVar);
+                values[probVar.getIndex()] = value;
+            }
+        }
+        if (queried.isEmpty())
+        {
+            return 1.0;
+        }
+        ProbabilityVariable queriedVars[] =
+                            new ProbabilityVariable[queried.size()];
+        ProbabilityFunction joint =
+                            new JointInference(this).inference(
+                                    queried.toArray(queriedVars),
+                                    evidence);
+        return joint.evaluate(probabilityVariables, values);
+    }
 
-        return reval;
+    private static int observedIndexOf(ProbabilityVariable probVar)
+    {
+        if (!probVar.isObserved())
+        {
+            throw new IllegalArgumentException(
+                    "Variable " + probVar.getName() + " has no value");
+        }
+        return probVar.getObservedIndex();
     }
 }
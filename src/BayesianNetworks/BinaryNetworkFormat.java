@@ -0,0 +1,588 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import CredalSets.VertexSet;
+import InterchangeFormat.IFException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Versioned binary format for Bayesian networks. A file consists of
+ * <ol>
+ * <li> a header: magic number, format version, offset and length of the
+ * table block;</li>
+ * <li> the network name and properties;</li>
+ * <li> the variable table: name, values, observed and explanation value and
+ * properties of each variable;</li>
+ * <li> the topology: for each probability function the indexes of its
+ * variables, its properties, the number of tables and the position of its
+ * first table in the table block;</li>
+ * <li> the table block: all probability tables, and the extreme points of
+ * credal sets, as one contiguous 8-byte aligned array of doubles.</li>
+ * </ol>
+ * All numbers are big endian. Strings are written as length and UTF-8
+ * bytes. Files are loaded through a memory mapped FileChannel. The table of
+ * a function is copied out of a DoubleBuffer view of the mapping in bulk
+ * when the function is first accessed, so only the functions used pay for
+ * their memory; credal sets are copied while loading.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class BinaryNetworkFormat
+{
+
+    private static final Class CLAZZ = BinaryNetworkFormat.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * First four bytes of every binary network: 0x89 followed by "JBN". The
+     * high first byte keeps the file from being taken for text.
+     */
+    public static final int MAGIC = 0x894A424E;
+
+    /**
+     * Version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 20;
+    private static final int NO_VALUE = -1;
+
+    private BinaryNetworkFormat()
+    {
+    }
+
+    /**
+     * Check whether the first bytes of a description are those of a binary
+     * network.
+     *
+     * @param head   the first bytes of the description
+     * @param length the number of valid bytes in head
+     * @return true if so, false otherwise
+     */
+    public static boolean isBinary(byte head[], int length)
+    {
+        return length >= 4 &&
+               ((head[0] & 0xFF) << 24 | (head[1] & 0xFF) << 16 |
+                (head[2] & 0xFF) << 8 | (head[3] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Check whether a stream holds a binary network, and reset the stream.
+     *
+     * @param istream a stream that supports mark and reset
+     * @return true if so, false otherwise
+     * @throws IOException if the stream cannot be read
+     */
+    public static boolean isBinary(InputStream istream) throws IOException
+    {
+        byte head[] = new byte[4];
+        int length = 0;
+        istream.mark(head.length);
+        int n;
+        while (length < head.length &&
+               (n = istream.read(head, length, head.length - length)) > 0)
+        {
+            length += n;
+        }
+        istream.reset();
+        return isBinary(head, length);
+    }
+
+    /**
+     * Check whether a file holds a binary network.
+     *
+     * @param file the file
+     * @return true if so, false otherwise
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinary(File file) throws IOException
+    {
+        try (InputStream istream = new BufferedInputStream(
+                         new FileInputStream(file), 4))
+        {
+            return isBinary(istream);
+        }
+    }
+
+    /**
+     * Save a network in the binary format.
+     *
+     * @param bayesNet the network
+     * @param file     the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(BayesNet bayesNet, File file) throws IOException
+    {
+        try (OutputStream out = new BufferedOutputStream(
+                            new FileOutputStream(file), 1 << 16))
+        {
+            save(bayesNet, out);
+        }
+    }
+
+    /**
+     * Save a network in the binary format.
+     *
+     * @param bayesNet the network
+     * @param ostream  the stream to write to; it is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void save(BayesNet bayesNet, OutputStream ostream)
+            throws IOException
+    {
+        ProbabilityVariable probVars[] = bayesNet.getProbabilityVariables();
+        ProbabilityFunction probFuncs[] = bayesNet.getProbabilityFunctions();
+        if (probVars == null)
+        {
+            probVars = new ProbabilityVariable[0];
+        }
+        if (probFuncs == null)
+        {
+            probFuncs = new ProbabilityFunction[0];
+        }
+
+        ByteArrayOutputStream metaBytes = new ByteArrayOutputStream();
+        DataOutputStream meta = new DataOutputStream(metaBytes);
+        writeString(meta, bayesNet.getName());
+        writeStrings(meta, bayesNet.getProperties());
+
+        meta.writeInt(probVars.length);
+        for (ProbabilityVariable probVar : probVars)
+        {
+            writeString(meta, probVar.getName());
+            meta.writeInt(probVar.numberValues());
+            for (int i = 0; i < probVar.numberValues(); i++)
+            {
+                writeString(meta, probVar.getValue(i));
+            }
+            meta.writeInt(probVar.isObserved() ?
+                          probVar.getObservedIndex() :
+                          NO_VALUE);
+            meta.writeInt(probVar.isExplanation() ?
+                          probVar.getExplanationIndex() :
+                          NO_VALUE);
+            writeStrings(meta, probVar.getProperties());
+        }
+
+        long numberOfDoubles = 0;
+        meta.writeInt(probFuncs.length);
+        for (ProbabilityFunction probFunc : probFuncs)
+        {
+            meta.writeInt(probFunc.numberVariables());
+            for (int i = 0; i < probFunc.numberVariables(); i++)
+            {
+                meta.writeInt(probFunc.getIndex(i));
+            }
+            writeStrings(meta, probFunc.getProperties());
+            double tables[][] = tablesOf(probFunc);
+            meta.writeInt(tables.length);
+            meta.writeLong(numberOfDoubles);
+            for (double table[] : tables)
+            {
+                numberOfDoubles += table.length;
+            }
+        }
+        meta.flush();
+        if (numberOfDoubles > Integer.MAX_VALUE / 8)
+        {
+            throw new IOException("Tables too large for a binary network");
+        }
+
+        // The table block starts at the next multiple of 8 after the meta
+        // data, so that the mapped DoubleBuffer view is aligned
+        long tableOffset = HEADER_SIZE + metaBytes.size();
+        int padding = (int) ((8 - tableOffset % 8) % 8);
+        tableOffset += padding;
+
+        DataOutputStream out = new DataOutputStream(ostream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(tableOffset);
+        out.writeInt((int) numberOfDoubles);
+        metaBytes.writeTo(out);
+        out.write(new byte[padding]);
+
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        DoubleBuffer doubles = chunk.asDoubleBuffer();
+        for (ProbabilityFunction probFunc : probFuncs)
+        {
+            for (double table[] : tablesOf(probFunc))
+            {
+                int offset = 0;
+                while (offset < table.length)
+                {
+                    int n = Math.min(doubles.remaining(),
+                                     table.length - offset);
+                    doubles.put(table, offset, n);
+                    offset += n;
+                    if (!doubles.hasRemaining())
+                    {
+                        out.write(chunk.array(), 0, 8 * doubles.position());
+                        doubles.clear();
+                    }
+                }
+            }
+        }
+        out.write(chunk.array(), 0, 8 * doubles.position());
+        out.flush();
+    }
+
+    /**
+     * Load a network from a binary file by mapping it into memory.
+     *
+     * @param bayesNet the network to fill
+     * @param file     the file to read
+     * @throws Exception if the file cannot be read or is not a valid binary
+     *                   network
+     */
+    public static void load(BayesNet bayesNet, File file) throws Exception
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel())
+        {
+            load(bayesNet,
+                 channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Load a network from a stream holding a binary network. The stream is
+     * read to its end.
+     *
+     * @param bayesNet the network to fill
+     * @param istream  the stream
+     * @throws Exception if the stream cannot be read or does not hold a
+     *                   valid binary network
+     */
+    public static void load(BayesNet bayesNet, InputStream istream)
+            throws Exception
+    {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte buffer[] = new byte[1 << 16];
+        int n;
+        while ((n = istream.read(buffer)) > 0)
+        {
+            content.write(buffer, 0, n);
+        }
+        load(bayesNet, ByteBuffer.wrap(content.toByteArray()));
+    }
+
+    /**
+     * Load a network from a buffer holding a binary network. The name,
+     * properties, variables and functions of the network are replaced and
+     * the properties are processed as after reading a text format.
+     *
+     * @param bayesNet the network to fill
+     * @param buffer   the buffer, positioned at the start of the network
+     * @throws Exception if the buffer does not hold a valid binary network
+     */
+    public static void load(BayesNet bayesNet, ByteBuffer buffer)
+            throws Exception
+    {
+        ByteBuffer in = buffer.slice();
+        try
+        {
+            if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC)
+            {
+                throw new IFException("Not a binary network");
+            }
+            int version = in.getInt();
+            if (version != VERSION)
+            {
+                throw new IFException("Unsupported binary network version " +
+                                      version);
+            }
+            long tableOffset = in.getLong();
+            int numberOfDoubles = in.getInt();
+            if (numberOfDoubles < 0 || tableOffset < HEADER_SIZE ||
+                tableOffset + 8L * numberOfDoubles > in.limit())
+            {
+                throw new IFException("Truncated binary network");
+            }
+            in.mark();
+            in.position((int) tableOffset);
+            DoubleBuffer tables = in.slice().asDoubleBuffer();
+            in.reset();
+
+            String name = readString(in);
+            ArrayList<String> properties = readStrings(in);
+
+            ProbabilityVariable probVars[] =
+                                new ProbabilityVariable[readCount(in)];
+            int observed[] = new int[probVars.length];
+            int explanation[] = new int[probVars.length];
+            for (int i = 0; i < probVars.length; i++)
+            {
+                String varName = readString(in);
+                String values[] = new String[readCount(in)];
+                for (int j = 0; j < values.length; j++)
+                {
+                    values[j] = readString(in);
+                }
+                observed[i] = in.getInt();
+                explanation[i] = in.getInt();
+                probVars[i] = new ProbabilityVariable(bayesNet,
+                                                      varName,
+                                                      i,
+                                                      values,
+                                                      readStrings(in));
+            }
+
+            StreamingNetworkLoader factory = bayesNet.createStreamingLoader();
+            ProbabilityFunction probFuncs[] =
+                                new ProbabilityFunction[readCount(in)];
+            for (int i = 0; i < probFuncs.length; i++)
+            {
+                ProbabilityVariable funcVars[] =
+                                    new ProbabilityVariable[readCount(in)];
+                long tableSize = 1;
+                for (int j = 0; j < funcVars.length; j++)
+                {
+                    funcVars[j] = probVars[in.getInt()];
+                    tableSize *= funcVars[j].numberValues();
+                    if (tableSize > tables.limit())
+                    {
+                        throw new IFException("Truncated binary network");
+                    }
+                }
+                int size = (int) tableSize;
+                ArrayList<String> funcProperties = readStrings(in);
+                int numberOfTables = in.getInt();
+                long tablePosition = in.getLong();
+                if (numberOfTables < 0 || tablePosition < 0 ||
+                    tablePosition + (long) Math.max(numberOfTables, 1) *
+                                    size > tables.limit())
+                {
+                    throw new IFException("Truncated binary network");
+                }
+                if (numberOfTables == 1)
+                {
+                    ValueSource source = new TableSource(tables,
+                                                         (int) tablePosition,
+                                                         size);
+                    probFuncs[i] = factory.createFunction(bayesNet,
+                                                          funcVars,
+                                                          source,
+                                                          funcProperties);
+                    continue;
+                }
+                tables.position((int) tablePosition);
+                double values[] = new double[size];
+                tables.get(values);
+                double extremePoints[][] = null;
+                if (numberOfTables > 1)
+                {
+                    extremePoints = new double[numberOfTables - 1][size];
+                    for (double extremePoint[] : extremePoints)
+                    {
+                        tables.get(extremePoint);
+                    }
+                }
+                probFuncs[i] = factory.createFunction(bayesNet,
+                                                      funcVars,
+                                                      values,
+                                                      extremePoints,
+                                                      funcProperties);
+            }
+
+            bayesNet.setName(name);
+            bayesNet.setProperties(properties);
+            bayesNet.setProbabilityVariables(probVars);
+            bayesNet.setProbabilityFunctions(probFuncs);
+            bayesNet.processAllProperties();
+            for (int i = 0; i < probVars.length; i++)
+            {
+                if (observed[i] != NO_VALUE)
+                {
+                    probVars[i].setObservedValue(
+                            probVars[i].getValue(observed[i]));
+                }
+                if (explanation[i] != NO_VALUE)
+                {
+                    probVars[i].setExplanationValue(explanation[i]);
+                }
+            }
+        }
+        catch (BufferUnderflowException |
+               IndexOutOfBoundsException |
+               IllegalArgumentException e)
+        {
+            throw new IFException("Corrupt binary network: " + e);
+        }
+    }
+
+    /**
+     * A table in the table block, copied out when its function is first
+     * accessed.
+     */
+    private static class TableSource implements ValueSource
+    {
+
+        private final DoubleBuffer tables;
+        private final int position;
+        private final int size;
+
+        TableSource(DoubleBuffer tables, int position, int size)
+        {
+            this.tables = tables;
+            this.position = position;
+            this.size = size;
+        }
+
+        @Override
+        public int numberValues()
+        {
+            return size;
+        }
+
+        @Override
+        public double[] getValues()
+        {
+            DoubleBuffer table = tables.duplicate();
+            table.position(position);
+            double values[] = new double[size];
+            table.get(values);
+            return values;
+        }
+    }
+
+    /**
+     * The tables stored for a function: its values, followed by the extreme
+     * points if it is a credal set.
+     */
+    private static double[][] tablesOf(ProbabilityFunction probFunc)
+    {
+        if (probFunc instanceof VertexSet &&
+            ((VertexSet) probFunc).getExtremePoints() != null)
+        {
+            double extremePoints[][] =
+                   ((VertexSet) probFunc).getExtremePoints();
+            double tables[][] = new double[extremePoints.length + 1][];
+            tables[0] = probFunc.getValues();
+            System.arraycopy(extremePoints, 0, tables, 1,
+                             extremePoints.length);
+            return tables;
+        }
+        return new double[][]
+        {
+            probFunc.getValues()
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String str)
+            throws IOException
+    {
+        if (str == null)
+        {
+            out.writeInt(NO_VALUE);
+            return;
+        }
+        byte bytes[] = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out,
+                                     ArrayList<String> strs)
+            throws IOException
+    {
+        if (strs == null)
+        {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(strs.size());
+        for (String str : strs)
+        {
+            writeString(out, str);
+        }
+    }
+
+    private static String readString(ByteBuffer in)
+    {
+        int length = in.getInt();
+        if (length == NO_VALUE)
+        {
+            return null;
+        }
+        if (length < 0 || length > in.remaining())
+        {
+            throw new BufferUnderflowException();
+        }
+        String str;
+        if (in.hasArray())
+        {
+            str = new String(in.array(),
+                             in.arrayOffset() + in.position(),
+                             length,
+                             StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        else
+        {
+            byte bytes[] = new byte[length];
+            in.get(bytes);
+            str = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return str;
+    }
+
+    private static int readCount(ByteBuffer in)
+    {
+        int n = in.getInt();
+        if (n < 0 || n > in.remaining())
+        {
+            throw new BufferUnderflowException();
+        }
+        return n;
+    }
+
+    private static ArrayList<String> readStrings(ByteBuffer in)
+    {
+        int n = readCount(in);
+        ArrayList<String> strs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+        {
+            strs.add(readString(in));
+        }
+        return strs;
+    }
+}
@@ -31,8 +31,6 @@ import InterchangeFormat.IFProbabilityFunction;
 import InterchangeFormat.IFProbabilityVariable;
 import InterchangeFormat.InterchangeFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.TreeMap;
 import java.util.logging.Logger;
 
 /**
@@ -161,165 +159,146 @@ public class ConvertInterchangeFormat
         return probabilityFunctions;
     }
 
-    private ArrayList<Integer> incrementValueIndex(
-            ArrayList<Integer> currentValueIndex,
-            ArrayList<String[]> valueList)
+    /**
+     * Method that does all the work involved in creating a ProbabilityFunction
+     * object out of the definition found by the parser and the information
+     * contained in the BayesNet object; the ProbabilityFunction object may in
+     * fact be a Quasi-Bayesian model. The definition is checked here, but the
+     * values are only computed when the function is first accessed.
+     *
+     * @param bayesNet   the underlying Bayesian network
+     * @param ifProbFunc interchange format probability function
+     *
+     * @return the generated probability function
+     * @throws IllegalArgumentException if a default or an entry does not fit
+     *                                  the variables of the function
+     */
+    protected ProbabilityFunction getProbabilityFunction(BayesNet bayesNet,
+                                                         IFProbabilityFunction ifProbFunc)
     {
-        int index = currentValueIndex.size() - 1;
-        boolean hasOverflow = true; // first one treated as having overflow
-        while (index > -1 && hasOverflow)
-        {
-            int module = valueList.get(index).length;
-            currentValueIndex.set(index,
-                                  (currentValueIndex.get(index) + 1) % module);
-            hasOverflow = currentValueIndex.get(index) == 0;
-            index--;
+        // Check and insert the probability variable indexes
+        ProbabilityVariable variables[] = createVariables(bayesNet, ifProbFunc);
 
-        }
-        return currentValueIndex;
+        // Return the ProbabilityFunction
+        return new ProbabilityFunction(bayesNet,
+                                       variables,
+                                       new ParsedValueSource(ifProbFunc,
+                                                             variables),
+                                       ifProbFunc.getProperties());
     }
 
     /**
-     * Retrieve the functions as a map of a variable name mapped to a table
-     * describing the functions.
-     *
-     * @param bayesNet the underlying Bayes net
-     * @return the map of names vs functions
+     * Values of a function computed from the parsed definition on first
+     * access. Only the first table, the defaults and the entries of the
+     * definition are kept; the entries are located in the table when the
+     * source is created, so that an entry naming an unknown value fails the
+     * load. A table of the wrong size is ignored, as by the
+     * StreamingNetworkLoader.
      */
-    public TreeMap<String, ArrayList<ArrayList<Object>>> getFunctionsAsTables(
-            BayesNet bayesNet)
+    private static class ParsedValueSource implements ValueSource
     {
-        TreeMap<String, ArrayList<ArrayList<Object>>> reval = new TreeMap<>();
-        IFBayesNet ifbn = interchangeFmt.getBayesNetFromInterchangeFmt();
-        if (ifbn == null)
-        {
-            return null;
-        }
 
-        // now all combinations for all functions need to be added
-        ArrayList<IFProbabilityFunction> ifProbFuncs =
-                                         ifbn.getProbabilityFunctions();
+        private final double table[];
+        private final ArrayList<double[]> defaults;
+        private final int entryPositions[];
+        private final double entryValues[][];
+        private final int jump;
+        private final int numberOfValues;
 
-        // this is the header done
-        for (IFProbabilityFunction ifProbFunc : ifProbFuncs)
+        ParsedValueSource(IFProbabilityFunction ifProbFunc,
+                          ProbabilityVariable variables[])
         {
-            ArrayList<ArrayList<Object>> funcTable = new ArrayList<>();
-            ProbabilityFunction pf =
-                                getProbabilityFunction(bayesNet, ifProbFunc);
-            ArrayList<String[]> valueList = new ArrayList<>();
-            ArrayList<Object> record = new ArrayList<>();
-            ArrayList<Integer> currentValueIndex = new ArrayList<>();
-
-            int numRows = 1;
-            for (DiscreteVariable var : pf.getVariables())
+            // Calculate the jump, i.e., the number of numeric values
+            // in the conditional distribution table for each value
+            // of the first variable (this is used for default/entries)
+            int size = 1;
+            for (int i = 1; i < variables.length; i++)
             {
-                String varName = var.getName();
-                record.add(varName);
-                valueList.add(var.getValues());
-                currentValueIndex.add(0);
-                numRows *= var.getValues().length;
+                size *= variables[i].numberValues();
             }
-            record.add("#PROBABILITY#");
-            funcTable.add(record);
+            jump = size;
+            numberOfValues = jump * variables[0].numberValues();
 
-            // now make the records
-            ArrayList<ArrayList<Object>> valuesTable = new ArrayList<>();
-            int row;
-            for (row = 0; row < numRows; row++)
+            ArrayList<double[]> tables = ifProbFunc.getTables();
+            if (tables.size() > 0 && tables.get(0).length != numberOfValues)
+            {
+                LOGGER.warning("Table of " + variables[0].getName() +
+                               " has " + tables.get(0).length +
+                               " values instead of " + numberOfValues +
+                               "; ignored");
+                table = null;
+            }
+            else
+            {
+                table = tables.size() > 0 ? tables.get(0) : null;
+            }
+            defaults = ifProbFunc.getDefaults();
+            if (defaults.size() > 0 &&
+                defaults.get(0).length != variables[0].numberValues())
             {
-                valuesTable.add(new ArrayList<>());
-                Object o[] = new Object[valueList.size() + 1];
-                valuesTable.get(row).addAll(Arrays.asList(o));
+                throw new IllegalArgumentException(
+                        "Default of probability function for " +
+                        variables[0].getName() + " has " +
+                        defaults.get(0).length + " values instead of " +
+                        variables[0].numberValues());
             }
 
-            double probs[] = pf.getValues();
-            for (row = 0; row < numRows; row++)
+            ArrayList<IFProbabilityEntry> entries = ifProbFunc.getEntries();
+            int numberOfEntries = entries == null ? 0 : entries.size();
+            entryPositions = new int[numberOfEntries];
+            entryValues = new double[numberOfEntries][];
+            for (int i = 0; i < numberOfEntries; i++)
             {
-                for (int col = 0; col < valueList.size(); col++)
+                IFProbabilityEntry entry = entries.get(i);
+                entryPositions[i] = locateEntry(entry, variables);
+                entryValues[i] = entry.getEntries();
+                if (entryValues[i].length != variables[0].numberValues())
                 {
-                    Object value =
-                           valueList.get(col)[currentValueIndex.get(col)];
-                    valuesTable.get(row).set(col, value);
+                    throw new IllegalArgumentException(
+                            "Entry of probability function for " +
+                            variables[0].getName() + " has " +
+                            entryValues[i].length + " values instead of " +
+                            variables[0].numberValues());
                 }
-                valuesTable.get(row).set(valuesTable.get(row).size() - 1,
-                                         probs[row]);
-                currentValueIndex = incrementValueIndex(currentValueIndex,
-                                                        valueList);
             }
-            funcTable.addAll(valuesTable);
-//
-//            for (int y = 0; y < funcTable.size(); y++)
-//            {
-//                for (int x = 0; x < funcTable.get(0).size(); x++)
-//                {
-//                    System.out.print(funcTable.get(y).get(x) + " , ");
-//                }
-//                System.out.println("");
-//            }
-            reval.put(ifProbFunc.getVariables()[0], funcTable);
         }
 
-        return reval;
-    }
-
-    /**
-     * Method that does all the work involved in creating a ProbabilityFunction
-     * object out of the definition found by the parser and the information
-     * contained in the BayesNet object; the ProbabilityFunction object may in
-     * fact be a Quasi-Bayesian model.
-     *
-     * @param bayesNet   the underlying Bayesian network
-     * @param ifProbFunc interchange format probability function
-     *
-     * @return the generated probability function
-     */
-    protected ProbabilityFunction getProbabilityFunction(BayesNet bayesNet,
-                                                         IFProbabilityFunction ifProbFunc)
-    {
-        int i, jump, numberOfValues;
-        double values[];
-        ProbabilityVariable probVar, variables[];
-
-        // Check and insert the probability variable indexes
-        variables = createVariables(bayesNet, ifProbFunc);
-
-        // Calculate the jump, i.e., the number of numeric values
-        // in the conditional distribution table for each value
-        // of the first variable (this is used for default/entries)
-        jump = 1;
-        for (i = 1; i < variables.length; i++)
+        @Override
+        public int numberValues()
         {
-            probVar = variables[i];
-            jump *= probVar.numberValues();
+            return numberOfValues;
         }
 
-        // Calculate the number of values in the distribution
-        numberOfValues = jump * variables[0].numberValues();
-
-        // Allocate values and initialize
-        values = new double[numberOfValues];
-        for (i = 0; i < values.length; i++)
+        @Override
+        public double[] getValues()
         {
-            values[i] = ConvertInterchangeFormat.INVALID_VALUE;
-        }
+            // Allocate values and initialize
+            double values[] = new double[numberOfValues];
+            for (int i = 0; i < values.length; i++)
+            {
+                values[i] = ConvertInterchangeFormat.INVALID_VALUE;
+            }
 
-        // Process tables
-        processTables(ifProbFunc, values);
+            // Process tables
+            if (table != null)
+            {
+                copyTableToValues(table, values);
+            }
 
-        // Process defaults
-        processDefaults(ifProbFunc, values, jump);
+            // Process defaults
+            if (defaults.size() > 0)
+            {
+                processDefaults(defaults.get(0), values, jump);
+            }
 
-        // Process entries
-        processEntries(bayesNet, ifProbFunc, variables, values, jump);
+            // Process entries
+            processEntries(entryPositions, entryValues, values, jump);
 
-        // Finish calculating the values
-        finishValues(values);
+            // Finish calculating the values
+            finishValues(values);
 
-        // Return the ProbabilityFunction
-        return new ProbabilityFunction(bayesNet,
-                                       variables,
-                                       values,
-                                       ifProbFunc.getProperties());
+            return values;
+        }
     }
 
     /**
@@ -350,26 +329,6 @@ public class ConvertInterchangeFormat
         return variables;
     }
 
-    /**
-     * Fill the values with the contents of the first table in the tables
-     * contained in the ifProbFunc object.
-     *
-     * @param ifProbFunc probability function in interchange format
-     * @param probValues the probability values of the function as array of
-     *                   doubles
-     */
-    protected void processTables(IFProbabilityFunction ifProbFunc,
-                                 double probValues[])
-    {
-        // Put the table values
-        ArrayList<double[]> ttables = ifProbFunc.getTables();
-        if (ttables.size() > 0)
-        {
-            double ttable[] = (double[]) (ttables.get(0));
-            copyTableToValues(ttable, probValues);
-        }
-    }
-
     /**
      * Copy content from a table to another.
      *
@@ -377,7 +336,8 @@ public class ConvertInterchangeFormat
      * @param probValues the probability values of the function as array of
      *                   doubles
      */
-    protected void copyTableToValues(double table[], double probValues[])
+    protected static void copyTableToValues(double table[],
+                                            double probValues[])
     {
         if (table == null)
         {
@@ -392,88 +352,92 @@ public class ConvertInterchangeFormat
     }
 
     /**
-     * Insert default values from the contents of the first specification of
-     * defaults in the IFProbabilityFunction.
+     * Insert default values for every value of the first variable that was
+     * not given by a table.
      *
-     * @param ifProbFunc probability function in interchange format
+     * @param ddefaults  the default for each value of the first variable
      * @param probValues the probability values of the function as array of
      *                   doubles
      * @param jump       offset to the desired index
      */
-    void processDefaults(IFProbabilityFunction ifProbFunc,
-                         double probValues[],
-                         int jump)
+    static void processDefaults(double ddefaults[],
+                                double probValues[],
+                                int jump)
     {
-        // Process the default values
-        ArrayList<double[]> ddefaultss = ifProbFunc.getDefaults();
-        if (ddefaultss.size() > 0)
+        for (int i = 0; i < ddefaults.length; i++)
         {
-            double ddefaults[] = ddefaultss.get(0);
-            for (int i = 0; i < probValues.length; i++)
+            for (int j = 0; j < jump; j++)
             {
-                for (int j = 0; j < jump; j++)
+                int k = i * jump + j;
+                if (probValues[k] == ConvertInterchangeFormat.INVALID_VALUE)
                 {
-                    int k = i * jump + j;
-                    if (probValues[k] == ConvertInterchangeFormat.INVALID_VALUE)
-                    {
-                        probValues[k] = ddefaults[i];
-                    }
+                    probValues[k] = ddefaults[i];
                 }
             }
         }
     }
 
     /**
-     * Insert entries specified in the IFProbabilityFunction.
+     * Find the position of an entry among the values of the parents of a
+     * function, the last parent running fastest.
      *
-     * @param bayesNet   the underlying Bayesian network
-     * @param ifProbFunc probability function in interchange format
-     * @param probVars   probability variables as array
-     * @param probValues the probability values of the function as array of
-     *                   doubles
-     * @param jump
+     * @param entry    entry of a probability function in interchange format
+     * @param probVars probability variables as array
+     * @return the position of the entry within the values for one value of
+     *         the first variable
+     * @throws IllegalArgumentException if the entry does not name a value of
+     *                                  each parent
      */
-    void processEntries(BayesNet bayesNet,
-                        IFProbabilityFunction ifProbFunc,
-                        ProbabilityVariable probVars[],
-                        double probValues[],
-                        int jump)
+    static int locateEntry(IFProbabilityEntry entry,
+                           ProbabilityVariable probVars[])
     {
-        int i, j, k, pos, step;
-        int entryValueIndexes[];
-        double eentryEntries[];
-        String eentryValues[];
-        ProbabilityVariable probVar;
-
-        // Process the entries
-        ArrayList<IFProbabilityEntry> eentries = ifProbFunc.getEntries();
-        if ((eentries != null) && (eentries.size() > 0))
+        String eentryValues[] = entry.getValues();
+        if (eentryValues.length != probVars.length - 1)
+        {
+            throw new IllegalArgumentException(
+                    "Entry of probability function for " +
+                    probVars[0].getName() + " has " + eentryValues.length +
+                    " values instead of " + (probVars.length - 1));
+        }
+        int pos = 0;
+        int step = 1;
+        for (int k = eentryValues.length; k > 0; k--)
         {
-            for (IFProbabilityEntry entry : eentries)
+            int index = probVars[k].indexOfValue(eentryValues[k - 1]);
+            if (index == BayesNet.INVALID_INDEX)
             {
-                eentryValues = entry.getValues();
-                eentryEntries = entry.getEntries();
-                entryValueIndexes = new int[eentryValues.length];
-                for (i = 0; i < entryValueIndexes.length; i++)
-                {
-                    probVar = probVars[i + 1];
-                    entryValueIndexes[i] =
-                    probVar.indexOfValue(eentryValues[i]);
-                }
-                pos = 0;
-                step = 1;
-                for (k = (entryValueIndexes.length); k > 0; k--)
-                {
-                    pos += entryValueIndexes[k - 1] * step;
-                    step *=
-                    probVars[k].numberValues();
-                }
-                probVar = probVars[0];
-                for (i = 0; i < probVar.numberValues(); i++)
-                {
-                    k = i * jump + pos;
-                    probValues[k] = eentryEntries[i];
-                }
+                throw new IllegalArgumentException(
+                        "Entry of probability function for " +
+                        probVars[0].getName() + " has unknown value " +
+                        eentryValues[k - 1] + " of variable " +
+                        probVars[k].getName());
+            }
+            pos += index * step;
+            step *= probVars[k].numberValues();
+        }
+        return pos;
+    }
+
+    /**
+     * Insert the entries of a function at the positions found for them.
+     *
+     * @param entryPositions position of each entry, as found by locateEntry
+     * @param entryValues    the values of each entry, one for each value of
+     *                       the first variable
+     * @param probValues     the probability values of the function as array
+     *                       of doubles
+     * @param jump           offset to the desired index
+     */
+    static void processEntries(int entryPositions[],
+                               double entryValues[][],
+                               double probValues[],
+                               int jump)
+    {
+        for (int i = 0; i < entryPositions.length; i++)
+        {
+            for (int j = 0; j < entryValues[i].length; j++)
+            {
+                probValues[j * jump + entryPositions[i]] = entryValues[i][j];
             }
         }
     }
@@ -484,7 +448,7 @@ public class ConvertInterchangeFormat
      * @param probValues the probability values of the function as array of
      *                   doubles
      */
-    void finishValues(double probValues[])
+    static void finishValues(double probValues[])
     {
         // Put zeroes in the values that were not defined
         for (int i = 0; i < probValues.length; i++)
@@ -42,7 +42,8 @@ public class DiscreteFunction
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
 
     private DiscreteVariable variables[];
-    private double values[];
+    private volatile double values[];
+    private ValueSource valueSource;
 
     /**
      * Default constructor for a DiscreteFunction.
@@ -92,6 +93,20 @@ public class DiscreteFunction
         this.values = funcValues;
     }
 
+    /**
+     * Constructor for a DiscreteFunction whose values are decoded from a
+     * source on first access.
+     *
+     * @param variables   an array of discrete variable objects
+     * @param valueSource the source of the values of the function
+     */
+    public DiscreteFunction(DiscreteVariable variables[],
+                            ValueSource valueSource)
+    {
+        this.variables = variables;
+        this.valueSource = valueSource;
+    }
+
     /**
      * Check whether a variable identified by index is a parameter of the
      * function.
@@ -152,7 +167,7 @@ public class DiscreteFunction
     public double evaluate(DiscreteVariable variables[], int valueIndexes[])
     {
         int valuePos = findPositionOfProbabilityValue(variables, valueIndexes);
-        return values[valuePos];
+        return values()[valuePos];
     }
 
     /**
@@ -229,7 +244,7 @@ public class DiscreteFunction
         // If there is no variable to sum out, then return copy.
         if (numberOfVariablesToSumOut == 0)
         {
-            return new DiscreteFunction(variables, values);
+            return new DiscreteFunction(variables, values());
         }
 
         // Initialize a vector with the indexes of variables to sum out.
@@ -418,16 +433,17 @@ public class DiscreteFunction
     {
         int i;
         double total = 0.0;
+        double funcValues[] = values();
 
-        for (i = 0; i < numberValues(); i++)
+        for (i = 0; i < funcValues.length; i++)
         {
-            total += values[i];
+            total += funcValues[i];
         }
         if (total > 0.0)
         {
-            for (i = 0; i < numberValues(); i++)
+            for (i = 0; i < funcValues.length; i++)
             {
-                values[i] /= total;
+                funcValues[i] /= total;
             }
         }
     }
@@ -441,6 +457,7 @@ public class DiscreteFunction
         int i, j;
         int jump = 1;
         double n;
+        double funcValues[] = values();
 
         for (i = 1; i < numberVariables(); i++)
         {
@@ -452,13 +469,13 @@ public class DiscreteFunction
             n = 0.0;
             for (j = 0; j < variables[0].numberValues(); j++)
             {
-                n += values[i + j * jump];
+                n += funcValues[i + j * jump];
             }
             if (n > 0.0)
             {
                 for (j = 0; j < variables[0].numberValues(); j++)
                 {
-                    values[i + j * jump] /= n;
+                    funcValues[i + j * jump] /= n;
                 }
             }
         }
@@ -490,9 +507,10 @@ public class DiscreteFunction
             out.println(" //" + variables.length +
                         " variable(s) and " + numberValues() + " values");
             out.print("\ttable ");
-            for (int valInd = 0; valInd < numberValues(); valInd++)
+            double funcValues[] = values();
+            for (int valInd = 0; valInd < funcValues.length; valInd++)
             {
-                out.print(values[valInd] + " ");
+                out.print(funcValues[valInd] + " ");
             }
             out.print(";");
         }
@@ -518,9 +536,57 @@ public class DiscreteFunction
      */
     public final int numberValues()
     {
+        double funcValues[] = values;
+        if (funcValues == null)
+        {
+            return lazyNumberValues();
+        }
+        return funcValues.length;
+    }
+
+    private synchronized int lazyNumberValues()
+    {
+        if (values == null && valueSource != null)
+        {
+            return valueSource.numberValues();
+        }
         return values.length;
     }
 
+    /**
+     * Check whether the values of the current DiscreteFunction are held in
+     * memory, or are still to be decoded from their source.
+     *
+     * @return true if the values are held in memory, false otherwise
+     */
+    public final boolean isMaterialized()
+    {
+        return values != null;
+    }
+
+    /**
+     * The values, decoded from the source on first access.
+     */
+    private double[] values()
+    {
+        double funcValues[] = values;
+        if (funcValues == null)
+        {
+            return materialize();
+        }
+        return funcValues;
+    }
+
+    private synchronized double[] materialize()
+    {
+        if (values == null && valueSource != null)
+        {
+            values = valueSource.getValues();
+            valueSource = null;
+        }
+        return values;
+    }
+
     /**
      * Get the variables in the current DiscreteFunction.
      *
@@ -596,7 +662,7 @@ public class DiscreteFunction
      */
     public final double[] getValues()
     {
-        return values;
+        return values();
     }
 
     /**
@@ -608,7 +674,7 @@ public class DiscreteFunction
      */
     public final double getValue(int valIndex)
     {
-        return values[valIndex];
+        return values()[valIndex];
     }
 
     /**
@@ -620,7 +686,7 @@ public class DiscreteFunction
      */
     public final void setValue(int valIndex, double value)
     {
-        values[valIndex] = value;
+        values()[valIndex] = value;
     }
 
     /**
@@ -628,9 +694,10 @@ public class DiscreteFunction
      *
      * @param funcValues the values of the function as array of doubles
      */
-    public final void setValues(double funcValues[])
+    public final synchronized void setValues(double funcValues[])
     {
         this.values = funcValues;
+        valueSource = null;
     }
 
     /**
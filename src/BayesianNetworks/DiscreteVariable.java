@@ -118,7 +118,14 @@ public class DiscreteVariable
         {
             return BayesNet.INVALID_INDEX;
         }
-        for (int i = 0; i < numberValues(); i++)
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] == value)
+            {
+                return i;
+            }
+        }
+        for (int i = 0; i < values.length; i++)
         {
             if (values[i].equals(value))
             {
@@ -243,7 +250,8 @@ public class DiscreteVariable
     /**
      * Get the values of the current DiscreteVariable.
      *
-     * @return the value-names as array of stings
+     * @return the value-names as array of stings, possibly shared with
+     *         other variables and therefore not to be modified
      */
     public String[] getValues()
     {
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import java.util.logging.Logger;
+
+/**
+ * Tabular view of a DiscreteFunction: one row per value of the function, a
+ * column for each variable holding the name of its value in that row, and a
+ * last column holding the value of the function. Rows are grouped by the
+ * values of the conditioning variables, with the first variable of the
+ * function running fastest, so each conditional distribution forms a block
+ * of consecutive rows. Cells are computed from the row number on request;
+ * nothing but a few index arrays is stored.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class FunctionTable
+{
+
+    private static final Class CLAZZ = FunctionTable.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Name of the last column, holding the values of the function.
+     */
+    public static final String PROBABILITY_COLUMN = "Probability";
+
+    private final DiscreteFunction function;
+    private final DiscreteVariable variables[];
+    private final int valueOrder[][];
+    private final int strides[];
+    private final int rowStrides[];
+    private final int numberOfRows;
+
+    /**
+     * Create a view of a function.
+     *
+     * @param function        the function, with at least one variable
+     * @param isSortingValues if true the values of each variable are listed
+     *                        in the order of their names, otherwise in the
+     *                        order of the variable
+     */
+    public FunctionTable(DiscreteFunction function, boolean isSortingValues)
+    {
+        this.function = function;
+        variables = function.getVariables();
+        int n = variables.length;
+        valueOrder = new int[n][];
+        strides = new int[n];
+        rowStrides = new int[n];
+
+        int stride = 1;
+        for (int i = n - 1; i >= 0; i--)
+        {
+            strides[i] = stride;
+            stride *= variables[i].numberValues();
+            valueOrder[i] = orderOf(variables[i].getValues(), isSortingValues);
+        }
+        numberOfRows = stride;
+
+        // The first variable runs fastest, then the last one down to the
+        // second one
+        int rowStride = 1;
+        rowStrides[0] = rowStride;
+        rowStride *= variables[0].numberValues();
+        for (int i = n - 1; i > 0; i--)
+        {
+            rowStrides[i] = rowStride;
+            rowStride *= variables[i].numberValues();
+        }
+    }
+
+    /**
+     * Positions of the values of a variable, in the order they are listed.
+     */
+    private static int[] orderOf(String values[], boolean isSortingValues)
+    {
+        int order[] = new int[values.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        if (isSortingValues)
+        {
+            // Insertion sort: variables have few values
+            for (int i = 1; i < order.length; i++)
+            {
+                int current = order[i];
+                int j = i - 1;
+                while (j >= 0 && compare(values[order[j]],
+                                         values[current]) > 0)
+                {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = current;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Compare names of values, placing missing names first.
+     */
+    private static int compare(String value, String other)
+    {
+        if (value == null || other == null)
+        {
+            return value == null ? (other == null ? 0 : -1) : 1;
+        }
+        return value.compareTo(other);
+    }
+
+    /**
+     * Get the function viewed.
+     *
+     * @return the function
+     */
+    public DiscreteFunction getFunction()
+    {
+        return function;
+    }
+
+    /**
+     * Get the number of rows, which is the number of values of the function.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount()
+    {
+        return numberOfRows;
+    }
+
+    /**
+     * Get the number of columns: one per variable and the probability.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount()
+    {
+        return variables.length + 1;
+    }
+
+    /**
+     * Get the index of the column holding the values of the function.
+     *
+     * @return the index of the last column
+     */
+    public int getProbabilityColumn()
+    {
+        return variables.length;
+    }
+
+    /**
+     * Get the name of a column.
+     *
+     * @param column index of the column
+     * @return the name of the variable, or PROBABILITY_COLUMN for the last
+     *         column
+     */
+    public String getColumnName(int column)
+    {
+        return column == variables.length ?
+               PROBABILITY_COLUMN :
+               variables[column].getName();
+    }
+
+    /**
+     * Get the index of the value a variable takes in a row.
+     *
+     * @param row    index of the row
+     * @param column index of the variable in the function
+     * @return the index of the value of the variable
+     */
+    public int getValueIndex(int row, int column)
+    {
+        int digit = (row / rowStrides[column]) %
+                    variables[column].numberValues();
+        return valueOrder[column][digit];
+    }
+
+    /**
+     * Get the name of the value a variable takes in a row.
+     *
+     * @param row    index of the row
+     * @param column index of the variable in the function
+     * @return the name of the value
+     */
+    public String getLabel(int row, int column)
+    {
+        return variables[column].getValue(getValueIndex(row, column));
+    }
+
+    /**
+     * Get the position in the values of the function shown in a row.
+     *
+     * @param row index of the row
+     * @return the position in the values of the function
+     */
+    public int getPosition(int row)
+    {
+        int position = 0;
+        for (int i = 0; i < variables.length; i++)
+        {
+            position += getValueIndex(row, i) * strides[i];
+        }
+        return position;
+    }
+
+    /**
+     * Get the value of the function in a row.
+     *
+     * @param row index of the row
+     * @return the probability
+     */
+    public double getProbability(int row)
+    {
+        return function.getValue(getPosition(row));
+    }
+
+    /**
+     * Set the value of the function in a row.
+     *
+     * @param row         index of the row
+     * @param probability the new probability
+     */
+    public void setProbability(int row, double probability)
+    {
+        function.setValue(getPosition(row), probability);
+    }
+}
@@ -0,0 +1,902 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import CredalSets.VertexSet;
+import InterchangeFormat.InterchangeFormat.Format;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffered writer for networks in the BIF v0.15, XMLBIF v0.3 and XMLBIF v0.2
+ * formats. Text is collected in a fixed character buffer that is handed to
+ * the target only when full, and numbers are formatted directly into the
+ * buffer, so that writing a large table builds no intermediate strings.
+ * Doubles are written exactly as Double.toString would write them.
+ *
+ * As with a PrintStream, the write methods do not throw: the first
+ * IOException of the target is kept and rethrown by close().
+ *
+ * @author Dieter J Kybelksties
+ */
+public class NetworkWriter implements Closeable
+{
+
+    private static final Class CLAZZ = NetworkWriter.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Suffix of the names of gzip compressed files.
+     */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int CACHE_SIZE = 1024;
+    private static final int CACHE_SHIFT = 54;
+    private static final double MAX_SHORT_DECIMAL = 1.0e15;
+    private static final String NEW_LINE = System.lineSeparator();
+
+    private static final double POWERS_OF_TEN[] =
+    {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+        1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    private static final long LONG_POWERS_OF_TEN[] =
+    {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L,
+        1000000000000000000L
+    };
+
+    private final Appendable target;
+    private final Writer writer;
+    private final GZIPOutputStream gzipStream;
+    private final char buffer[] = new char[BUFFER_SIZE];
+    private final CharBuffer bufferView = CharBuffer.wrap(buffer);
+    private final char digits[] = new char[20];
+    private int position;
+    private IOException error;
+
+    // Doubles that are not short decimals: a direct mapped cache of their
+    // text, as the tables of a network repeat the same values many times.
+    private final long cachedBits[] = new long[CACHE_SIZE];
+    private final String cachedText[] = new String[CACHE_SIZE];
+
+    /**
+     * Constructor for a NetworkWriter that appends to a PrintStream, a Writer
+     * or any other Appendable. The target is not closed.
+     *
+     * @param target where the text goes
+     */
+    public NetworkWriter(Appendable target)
+    {
+        this.target = target;
+        this.writer = target instanceof Writer ? (Writer) target : null;
+        this.gzipStream = null;
+    }
+
+    /**
+     * Constructor for a NetworkWriter that encodes the text in the default
+     * character set, like a PrintStream. The stream is not closed by
+     * close().
+     *
+     * @param ostream the output stream
+     * @param gzip    whether to compress the output with gzip
+     * @throws IOException if the gzip header cannot be written
+     */
+    public NetworkWriter(OutputStream ostream, boolean gzip)
+            throws IOException
+    {
+        gzipStream = gzip ? new GZIPOutputStream(ostream, BUFFER_SIZE) : null;
+        writer = new OutputStreamWriter(gzip ? gzipStream : ostream,
+                                        Charset.defaultCharset());
+        target = writer;
+    }
+
+    /**
+     * Save a network into a file.
+     *
+     * @param bayesNet the network
+     * @param file     the file
+     * @param format   BIF_015, XMLBIF_03 or XMLBIF_02
+     * @param gzip     whether to compress the file with gzip
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(BayesNet bayesNet,
+                            File file,
+                            Format format,
+                            boolean gzip) throws IOException
+    {
+        try (FileOutputStream ostream = new FileOutputStream(file);
+             NetworkWriter writer = new NetworkWriter(ostream, gzip))
+        {
+            writer.write(bayesNet, format);
+        }
+    }
+
+    /**
+     * Write a network in a given format.
+     *
+     * @param bayesNet the network
+     * @param format   BIF_015, XMLBIF_03 or XMLBIF_02
+     */
+    public void write(BayesNet bayesNet, Format format)
+    {
+        switch (format)
+        {
+            case BIF_015:
+                writeBif(bayesNet);
+                break;
+            case XMLBIF_03:
+                writeXml(bayesNet);
+                break;
+            case XMLBIF_02:
+                writeXml_0_2(bayesNet);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Cannot write networks in format " + format);
+        }
+    }
+
+    /**
+     * Write a network in the BIF format.
+     *
+     * @param bayesNet the network
+     */
+    public void writeBif(BayesNet bayesNet)
+    {
+        int numberVariables = bayesNet.numberVariables();
+        int numberFunctions = bayesNet.numberProbabilityFunctions();
+
+        append("// Bayesian network ").newLine();
+        if (bayesNet.getName() != null)
+        {
+            append("network \"").append(bayesNet.getName()).append("\" {");
+        }
+        if (numberVariables != BayesNet.INVALID_INDEX)
+        {
+            append(" //").append(numberVariables).append(" variables");
+        }
+        if (numberFunctions != BayesNet.INVALID_INDEX)
+        {
+            append(" and ").append(numberFunctions)
+                    .append(" probability distributions");
+        }
+        newLine();
+        writeProperties(bayesNet.getProperties(), "\tproperty \"", "\" ;");
+        append("}").newLine();
+
+        for (int i = 0; i < numberVariables; i++)
+        {
+            if (bayesNet.getVariable(i) != null)
+            {
+                writeBif(bayesNet.getVariable(i));
+            }
+        }
+        for (int i = 0; i < numberFunctions; i++)
+        {
+            if (bayesNet.getFunction(i) != null)
+            {
+                writeBif(bayesNet.getFunction(i));
+            }
+        }
+    }
+
+    /**
+     * Write a network in the XMLBIF v0.3 format.
+     *
+     * @param bayesNet the network
+     */
+    public void writeXml(BayesNet bayesNet)
+    {
+        // Heading for the file
+        append("<?xml version=\"1.0\" encoding=\"US-ASCII\"?>\n\n").newLine();
+        append("<!--").newLine();
+        append("\tBayesian network in XMLBIF v0.3 " +
+               "(BayesNet Interchange Format)").newLine();
+        append("\tProduced by JavaBayes " +
+               "(http://www.cs.cmu.edu/~javabayes/").newLine();
+        append("\tOutput created ").append(new Date().toString()).newLine();
+        append("-->\n\n\n").newLine();
+
+        append("<!-- DTD for the XMLBIF 0.3 format -->").newLine();
+        append("<!DOCTYPE BIF [\n" +
+               "\t<!ELEMENT BIF ( NETWORK )*>\n" +
+               "\t      <!ATTLIST BIF VERSION CDATA #REQUIRED>\n" +
+               "\t<!ELEMENT NETWORK ( NAME, ( PROPERTY | VARIABLE | " +
+               "DEFINITION )* )>\n" +
+               "\t<!ELEMENT NAME (#PCDATA)>\n" +
+               "\t<!ELEMENT VARIABLE ( NAME, ( OUTCOME |  PROPERTY )* ) >\n" +
+               "\t      <!ATTLIST VARIABLE TYPE (nature|decision|utility) " +
+               "\"nature\">\n" +
+               "\t<!ELEMENT OUTCOME (#PCDATA)>\n" +
+               "\t<!ELEMENT DEFINITION ( FOR | GIVEN | TABLE | " +
+               "PROPERTY )* >\n" +
+               "\t<!ELEMENT FOR (#PCDATA)>\n" +
+               "\t<!ELEMENT GIVEN (#PCDATA)>\n" +
+               "\t<!ELEMENT TABLE (#PCDATA)>\n" +
+               "\t<!ELEMENT PROPERTY (#PCDATA)>\n" +
+               "]>\n\n").newLine();
+
+        append("<BIF VERSION=\"0.3\">").newLine();
+        writeXmlNetwork(bayesNet, true);
+        append("</BIF>").newLine();
+    }
+
+    /**
+     * Write a network in the XMLBIF v0.2 format.
+     *
+     * @param bayesNet the network
+     */
+    public void writeXml_0_2(BayesNet bayesNet)
+    {
+        // Heading for the file
+        append("<?XML VERSION=\"1.0\"?>\n\n").newLine();
+        append("<!--").newLine();
+        append("\tBayesian network in BIF " +
+               "(BayesNet Interchange Format)").newLine();
+        append("\tProduced by JavaBayes " +
+               "(http://www.cs.cmu.edu/~javabayes/").newLine();
+        append("\tOutput created ").append(new Date().toString()).newLine();
+        append("-->\n\n\n").newLine();
+
+        append("<!-- DTD for the BIF format -->").newLine();
+        append("<!DOCTYPE BIF [\n" +
+               "\t<!ELEMENT BIF ( NETWORK )*>\n" +
+               "\t<!ELEMENT PROPERTY (#PCDATA)>\n" +
+               "\t<!ELEMENT TYPE (#PCDATA)>\n" +
+               "\t<!ELEMENT VALUE (#PCDATA)>\n" +
+               "\t<!ELEMENT NAME (#PCDATA)>\n" +
+               "\t<!ELEMENT NETWORK\n" +
+               "\t    ( NAME, ( PROPERTY | VARIABLE | PROBABILITY )* )>\n" +
+               "\t<!ELEMENT VARIABLE ( NAME, TYPE, ( VALUE |  PROPERTY )* ) " +
+               ">\n" +
+               "\t<!ELEMENT PROBABILITY\n" +
+               "\t    ( FOR | GIVEN | TABLE | ENTRY | DEFAULT | PROPERTY )* " +
+               ">\n" +
+               "\t<!ELEMENT FOR (#PCDATA)>\n" +
+               "\t<!ELEMENT GIVEN (#PCDATA)>\n" +
+               "\t<!ELEMENT TABLE (#PCDATA)>\n" +
+               "\t<!ELEMENT DEFAULT (TABLE)>\n" +
+               "\t<!ELEMENT ENTRY ( VALUE* , TABLE )>\n" +
+               "]>\n\n").newLine();
+
+        append("<BIF>").newLine();
+        writeXmlNetwork(bayesNet, false);
+        append("</BIF>").newLine();
+    }
+
+    /**
+     * Write the NETWORK element of an XMLBIF description.
+     *
+     * @param bayesNet   the network
+     * @param version0_3 true for XMLBIF v0.3, false for XMLBIF v0.2
+     */
+    private void writeXmlNetwork(BayesNet bayesNet, boolean version0_3)
+    {
+        append("<NETWORK>").newLine();
+        if (bayesNet.getName() != null)
+        {
+            append("<NAME>").append(bayesNet.getName()).append("</NAME>")
+                    .newLine();
+        }
+        writeProperties(bayesNet.getProperties(),
+                        "\t<PROPERTY>",
+                        "</PROPERTY>");
+        newLine();
+
+        append("<!-- Variables -->").newLine();
+        for (int i = 0; i < bayesNet.numberVariables(); i++)
+        {
+            ProbabilityVariable probVar = bayesNet.getVariable(i);
+            if (probVar != null && version0_3)
+            {
+                writeXml_0_3(probVar);
+            }
+            else if (probVar != null)
+            {
+                writeXml(probVar);
+            }
+        }
+        newLine();
+
+        append("<!-- Probability distributions -->").newLine();
+        for (int i = 0; i < bayesNet.numberProbabilityFunctions(); i++)
+        {
+            ProbabilityFunction probFunc = bayesNet.getFunction(i);
+            if (probFunc != null && version0_3)
+            {
+                writeXml_0_3(probFunc);
+            }
+            else if (probFunc != null)
+            {
+                writeXml(probFunc);
+            }
+        }
+        newLine();
+
+        append("</NETWORK>").newLine();
+    }
+
+    /**
+     * Write a variable in the BIF format.
+     *
+     * @param probVar the variable
+     */
+    public void writeBif(ProbabilityVariable probVar)
+    {
+        append("variable ");
+        if (probVar.name != null)
+        {
+            append(" \"").append(probVar.name).append("\" ");
+        }
+        append("{");
+        if (probVar.values != null)
+        {
+            append(" //").append(probVar.values.length).append(" values")
+                    .newLine();
+            append("\ttype discrete[").append(probVar.values.length)
+                    .append("] { ");
+            for (String value : probVar.values)
+            {
+                append(" \"").append(value).append("\" ");
+            }
+            append("};").newLine();
+        }
+        writeVariableProperties(probVar, "\tproperty \"", "\" ;");
+        append("}").newLine();
+    }
+
+    /**
+     * Write a variable in the XMLBIF v0.3 format.
+     *
+     * @param probVar the variable
+     */
+    public void writeXml_0_3(ProbabilityVariable probVar)
+    {
+        append("<VARIABLE TYPE=\"nature\">").newLine();
+        if (probVar.name != null)
+        {
+            append("\t<NAME>").append(probVar.name).append("</NAME>")
+                    .newLine();
+        }
+        if (probVar.values != null)
+        {
+            for (String value : probVar.values)
+            {
+                append("\t<OUTCOME>").append(value).append("</OUTCOME>")
+                        .newLine();
+            }
+        }
+        writeVariableProperties(probVar, "\t<PROPERTY>", "</PROPERTY>");
+        append("</VARIABLE>\n").newLine();
+    }
+
+    /**
+     * Write a variable in the XMLBIF v0.2 format.
+     *
+     * @param probVar the variable
+     */
+    public void writeXml(ProbabilityVariable probVar)
+    {
+        append("<VARIABLE>").newLine();
+        if (probVar.name != null)
+        {
+            append("\t<NAME>").append(probVar.name).append("</NAME>")
+                    .newLine();
+        }
+        if (probVar.values != null)
+        {
+            append("\t<TYPE>discrete</TYPE>").newLine();
+            for (String value : probVar.values)
+            {
+                append("\t<VALUE>").append(value).append("</VALUE>")
+                        .newLine();
+            }
+        }
+        writeVariableProperties(probVar, "\t<PROPERTY>", "</PROPERTY>");
+        append("</VARIABLE>\n").newLine();
+    }
+
+    /**
+     * Write a probability function in the BIF format. The extreme points of
+     * a credal set are written as additional tables.
+     *
+     * @param probFunc the probability function
+     */
+    public void writeBif(ProbabilityFunction probFunc)
+    {
+        int numberValues = probFunc.numberValues();
+        double values[] = probFunc.getValues();
+        double extremePoints[][] = probFunc instanceof VertexSet ?
+                                   ((VertexSet) probFunc).getExtremePoints() :
+                                   null;
+
+        if (probFunc.numberVariables() != BayesNet.INVALID_INDEX)
+        {
+            append("probability ( ");
+            for (int j = 0; j < probFunc.numberVariables(); j++)
+            {
+                append(" \"").append(probFunc.getVariable(j).name)
+                        .append("\" ");
+            }
+            append(") {");
+            append(" //").append(probFunc.numberVariables())
+                    .append(" variable(s) and ").append(numberValues)
+                    .append(" values").newLine();
+            if (probFunc instanceof VertexSet)
+            {
+                writeVertexSetTables(extremePoints, values);
+            }
+            else
+            {
+                writeBifTable(probFunc, values);
+            }
+            append(";");
+        }
+        newLine();
+        writeProperties(probFunc.properties, "\tproperty \"", "\" ;");
+        append("}").newLine();
+    }
+
+    /**
+     * Write the table of a probability function in the BIF format, with one
+     * commented line per value for functions of a single variable.
+     *
+     * @param probFunc the probability function
+     * @param values   its values
+     */
+    private void writeBifTable(ProbabilityFunction probFunc, double values[])
+    {
+        append("\ttable ").newLine();
+        if (probFunc.numberVariables() == 1)
+        {
+            String names[] = probFunc.getVariable(0).values;
+            for (int j = 0; j < values.length; j++)
+            {
+                append("\t\t").append(values[j]);
+                if (j == values.length - 1)
+                {
+                    append("; ");
+                }
+                append("\t// p(").append(names[j]).append(" | evidence )");
+                if (j != values.length - 1)
+                {
+                    newLine();
+                }
+            }
+        }
+        else
+        {
+            append("\t\t");
+            for (double value : values)
+            {
+                append(' ').append(value);
+            }
+        }
+    }
+
+    /**
+     * Write the tables of a credal set in the BIF format: one table per
+     * extreme point, then the values of the function behind a comment.
+     *
+     * @param extremePoints the extreme points, or null
+     * @param values        the values of the function
+     */
+    private void writeVertexSetTables(double extremePoints[][],
+                                      double values[])
+    {
+        if (extremePoints != null)
+        {
+            for (double extremePoint[] : extremePoints)
+            {
+                append("\ttable ");
+                for (double value : extremePoint)
+                {
+                    append(value).append(' ');
+                }
+                append(";").newLine();
+            }
+            append(" // Values: ");
+        }
+        append("\ttable ");
+        for (double value : values)
+        {
+            append(value).append(' ');
+        }
+    }
+
+    /**
+     * Write a probability function in the XMLBIF v0.3 format, where the
+     * table lists the values of the first variable fastest.
+     *
+     * @param probFunc the probability function
+     */
+    public void writeXml_0_3(ProbabilityFunction probFunc)
+    {
+        append("<DEFINITION>").newLine();
+        if (probFunc.numberVariables() != BayesNet.INVALID_INDEX)
+        {
+            writeXmlForGiven(probFunc);
+            append("\t<TABLE>");
+            double values[] = probFunc.getValues();
+            if (probFunc.numberVariables() > 1)
+            { // Necessary to invert variables.
+                int sizeOfFirst = probFunc.getVariable(0).numberValues();
+                int sizeOfOthers = values.length / sizeOfFirst;
+                for (int i = 0; i < sizeOfOthers; i++)
+                {
+                    for (int j = 0; j < sizeOfFirst; j++)
+                    {
+                        append(values[j * sizeOfOthers + i]).append(' ');
+                    }
+                }
+            }
+            else
+            {
+                for (double value : values)
+                {
+                    append(value).append(' ');
+                }
+            }
+            append("</TABLE>").newLine();
+        }
+        writeProperties(probFunc.properties, "\t<PROPERTY>", "</PROPERTY>");
+        append("</DEFINITION>\n").newLine();
+    }
+
+    /**
+     * Write a probability function in the XMLBIF v0.2 format.
+     *
+     * @param probFunc the probability function
+     */
+    public void writeXml(ProbabilityFunction probFunc)
+    {
+        append("<PROBABILITY>").newLine();
+        if (probFunc.numberVariables() != BayesNet.INVALID_INDEX)
+        {
+            writeXmlForGiven(probFunc);
+            append("\t<TABLE>");
+            for (double value : probFunc.getValues())
+            {
+                append(value).append(' ');
+            }
+            append("</TABLE>").newLine();
+        }
+        writeProperties(probFunc.properties, "\t<PROPERTY>", "</PROPERTY>");
+        append("</PROBABILITY>\n").newLine();
+    }
+
+    /**
+     * Write the FOR and GIVEN elements of a probability function.
+     *
+     * @param probFunc the probability function
+     */
+    private void writeXmlForGiven(ProbabilityFunction probFunc)
+    {
+        append("\t<FOR>").append(probFunc.getVariable(0).name)
+                .append("</FOR>").newLine();
+        for (int j = 1; j < probFunc.numberVariables(); j++)
+        {
+            append("\t<GIVEN>").append(probFunc.getVariable(j).name)
+                    .append("</GIVEN>").newLine();
+        }
+    }
+
+    /**
+     * Write the explanation and observed properties of a variable followed
+     * by its other properties, one per line.
+     *
+     * @param probVar the variable
+     * @param prefix  text before each property
+     * @param suffix  text after each property
+     */
+    private void writeVariableProperties(ProbabilityVariable probVar,
+                                         String prefix,
+                                         String suffix)
+    {
+        if (probVar.isExplanation())
+        {
+            append(prefix).append(ProbabilityVariable.explanationPropertyName)
+                    .append(' ')
+                    .append(probVar.values[probVar.getExplanationIndex()])
+                    .append(suffix).newLine();
+        }
+        if (probVar.isObserved())
+        {
+            append(prefix).append(ProbabilityVariable.observedPropertyName)
+                    .append(' ')
+                    .append(probVar.values[probVar.getObservedIndex()])
+                    .append(suffix).newLine();
+        }
+        writeProperties(probVar.getProperties(), prefix, suffix);
+    }
+
+    /**
+     * Write properties one per line.
+     *
+     * @param properties the properties, or null
+     * @param prefix     text before each property
+     * @param suffix     text after each property
+     */
+    private void writeProperties(ArrayList<String> properties,
+                                 String prefix,
+                                 String suffix)
+    {
+        if (properties != null)
+        {
+            for (String property : properties)
+            {
+                append(prefix).append(property).append(suffix).newLine();
+            }
+        }
+    }
+
+    /**
+     * Append a string.
+     *
+     * @param text the string
+     * @return this writer
+     */
+    public NetworkWriter append(String text)
+    {
+        String str = String.valueOf(text);
+        int length = str.length();
+        int start = 0;
+        while (start < length)
+        {
+            if (position == BUFFER_SIZE)
+            {
+                drain();
+            }
+            int end = Math.min(length, start + BUFFER_SIZE - position);
+            str.getChars(start, end, buffer, position);
+            position += end - start;
+            start = end;
+        }
+        return this;
+    }
+
+    /**
+     * Append a character.
+     *
+     * @param character the character
+     * @return this writer
+     */
+    public NetworkWriter append(char character)
+    {
+        if (position == BUFFER_SIZE)
+        {
+            drain();
+        }
+        buffer[position++] = character;
+        return this;
+    }
+
+    /**
+     * Append an integer in decimal notation.
+     *
+     * @param number the integer
+     * @return this writer
+     */
+    public NetworkWriter append(int number)
+    {
+        if (number < 0)
+        {
+            append('-');
+        }
+        appendDigits(Math.abs((long) number), 1);
+        return this;
+    }
+
+    /**
+     * Append a double as Double.toString would. Values with at most fifteen
+     * significant digits in plain notation are formatted without creating a
+     * string; other values go through Double.toString and a small cache.
+     *
+     * @param value the double
+     * @return this writer
+     */
+    public NetworkWriter append(double value)
+    {
+        if (!appendShortDecimal(value))
+        {
+            long bits = Double.doubleToRawLongBits(value);
+            int slot = (int) ((bits * 0x9E3779B97F4A7C15L) >>> CACHE_SHIFT);
+            if (cachedText[slot] == null || cachedBits[slot] != bits)
+            {
+                cachedBits[slot] = bits;
+                cachedText[slot] = Double.toString(value);
+            }
+            append(cachedText[slot]);
+        }
+        return this;
+    }
+
+    /**
+     * Append a line separator.
+     *
+     * @return this writer
+     */
+    public NetworkWriter newLine()
+    {
+        return append(NEW_LINE);
+    }
+
+    /**
+     * Append a double that Double.toString writes in plain notation, as the
+     * shortest decimal that reads back as the same double. A decimal m/10^k
+     * with m below 10^15 is exact enough that the division m / 10^k in
+     * doubles is correctly rounded, and a second decimal of the same length
+     * cannot be within half a unit of the same double.
+     *
+     * @param value the double
+     * @return true if the value has been appended, false otherwise
+     */
+    private boolean appendShortDecimal(double value)
+    {
+        double magnitude = Math.abs(value);
+        if (magnitude == 0.0)
+        {
+            append(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+            return true;
+        }
+        if (!(magnitude >= 1.0e-3 && magnitude < 1.0e7))
+        {
+            return false;
+        }
+        for (int k = 1; k < POWERS_OF_TEN.length; k++)
+        {
+            double scaled = magnitude * POWERS_OF_TEN[k];
+            if (scaled >= MAX_SHORT_DECIMAL)
+            {
+                return false;
+            }
+            long mantissa = (long) (scaled + 0.5);
+            if (mantissa / POWERS_OF_TEN[k] == magnitude)
+            {
+                if (value < 0.0)
+                {
+                    append('-');
+                }
+                appendDigits(mantissa / LONG_POWERS_OF_TEN[k], 1);
+                append('.');
+                appendDigits(mantissa % LONG_POWERS_OF_TEN[k], k);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append a non-negative number, padded with leading zeros.
+     *
+     * @param number    the number
+     * @param minDigits the minimal number of digits
+     */
+    private void appendDigits(long number, int minDigits)
+    {
+        int start = digits.length;
+        do
+        {
+            digits[--start] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        while (number > 0 || digits.length - start < minDigits);
+        for (int i = start; i < digits.length; i++)
+        {
+            append(digits[i]);
+        }
+    }
+
+    /**
+     * Hand the buffered text to the target.
+     */
+    private void drain()
+    {
+        try
+        {
+            if (writer != null)
+            {
+                writer.write(buffer, 0, position);
+            }
+            else
+            {
+                target.append(bufferView, 0, position);
+            }
+        }
+        catch (IOException e)
+        {
+            if (error == null)
+            {
+                error = e;
+            }
+        }
+        position = 0;
+    }
+
+    /**
+     * Hand the buffered text to the target, and flush the target if it is a
+     * Writer.
+     */
+    public void flush()
+    {
+        drain();
+        if (writer != null)
+        {
+            try
+            {
+                writer.flush();
+            }
+            catch (IOException e)
+            {
+                if (error == null)
+                {
+                    error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush the text and finish the gzip compression. The target is not
+     * closed.
+     *
+     * @throws IOException the first error of the target
+     */
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+        if (error == null && gzipStream != null)
+        {
+            try
+            {
+                gzipStream.finish();
+            }
+            catch (IOException e)
+            {
+                error = e;
+            }
+        }
+        if (error != null)
+        {
+            throw error;
+        }
+    }
+
+}
@@ -93,6 +93,25 @@ public class ProbabilityFunction extends DiscreteFunction
         this.bayesNet = bayesNet;
     }
 
+    /**
+     * Constructor for a ProbabilityFunction whose values are decoded from a
+     * source on first access.
+     *
+     * @param bayesNet    the underlying Bayesian network
+     * @param variables   an array of discrete variable objects
+     * @param valueSource the source of the probability values
+     * @param properties  list of properties
+     */
+    public ProbabilityFunction(BayesNet bayesNet,
+                               DiscreteVariable variables[],
+                               ValueSource valueSource,
+                               ArrayList<String> properties)
+    {
+        super(variables, valueSource);
+        this.properties = properties;
+        this.bayesNet = bayesNet;
+    }
+
     /**
      * Constructor for ProbabilityFunction.
      *
@@ -282,55 +301,9 @@ public class ProbabilityFunction extends DiscreteFunction
      */
     public void saveXml_0_3(PrintStream out)
     {
-        int i, j, sizeOfFirst = 0, sizeOfOthers = 1;
-
-        out.println("<DEFINITION>");
-
-        if (numberVariables() != BayesNet.INVALID_INDEX)
-        {
-            out.println("\t<FOR>" + getVariable(0).name + "</FOR>");
-            for (j = 1; j < numberVariables(); j++)
-            {
-                out.println("\t<GIVEN>" + getVariable(j).name + "</GIVEN>");
-            }
-
-            out.print("\t<TABLE>");
-
-            if (numberVariables() > 1)
-            { // Necessary to invert variables.
-                sizeOfFirst = getVariable(0).numberValues();
-                for (j = 1; j < numberVariables(); j++)
-                {
-                    sizeOfOthers *= getVariable(j).numberValues();
-                }
-                for (i = 0; i < sizeOfOthers; i++)
-                {
-                    for (j = 0; j < sizeOfFirst;
-                         j++)
-                    {
-                        out.print(getValue(j * sizeOfOthers + i) + " ");
-                    }
-                }
-            }
-            else
-            { // Not necessary to invert variables.
-                for (j = 0; j < numberValues(); j++)
-                {
-                    out.print(getValue(j) + " ");
-                }
-            }
-
-            out.println("</TABLE>");
-        }
-
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\t<PROPERTY>" + property + "</PROPERTY>");
-            }
-        }
-        out.println("</DEFINITION>\n");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeXml_0_3(this);
+        writer.flush();
     }
 
     /**
@@ -340,89 +313,17 @@ public class ProbabilityFunction extends DiscreteFunction
      */
     public void saveXml(PrintStream out)
     {
-        int j;
-
-        out.println("<PROBABILITY>");
-
-        if (numberVariables() != BayesNet.INVALID_INDEX)
-        {
-            out.println("\t<FOR>" + getVariable(0).name + "</FOR>");
-            for (j = 1; j < numberVariables(); j++)
-            {
-                out.println("\t<GIVEN>" + getVariable(j).name + "</GIVEN>");
-            }
-
-            out.print("\t<TABLE>");
-            for (j = 0; j < numberValues(); j++)
-            {
-                out.print(getValue(j) + " ");
-            }
-            out.println("</TABLE>");
-        }
-
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\t<PROPERTY>" + property + "</PROPERTY>");
-            }
-        }
-        out.println("</PROBABILITY>\n");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeXml(this);
+        writer.flush();
     }
 
     @Override
     public void print(PrintStream out)
     {
-        int j;
-
-        if (numberVariables() != BayesNet.INVALID_INDEX)
-        {
-            out.print("probability ( ");
-            for (j = 0; j < numberVariables(); j++)
-            {
-                out.print(" \"" + getVariable(j).name + "\" ");
-            }
-            out.print(") {");
-            out.println(" //" + numberVariables() +
-                        " variable(s) and " + numberValues() + " values");
-
-            out.println("\ttable ");
-            if (numberVariables() == 1)
-            {
-                for (j = 0; j < numberValues(); j++)
-                {
-                    out.print("\t\t" + getValue(j));
-                    if (j == (numberValues() - 1))
-                    {
-                        out.print("; ");
-                    }
-                    out.print("\t// p(" + getVariable(0).values[j] +
-                              " | evidence )");
-                    if (j != (numberValues() - 1))
-                    {
-                        out.println();
-                    }
-                }
-            }
-            else
-            {
-                out.print("\t\t");
-                for (j = 0; j < numberValues(); j++)
-                {
-                    out.print(" " + getValue(j));
-                }
-            }
-            out.print(";");
-        }
-        out.println();
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\tproperty \"" + property + "\" ;");
-            }
-        }
-        out.println("}");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeBif(this);
+        writer.flush();
     }
 
     /**
@@ -27,6 +27,7 @@ package BayesianNetworks;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 
@@ -40,6 +41,20 @@ public class ProbabilityVariable extends DiscreteVariable
     private static final String CLASS_NAME = CLAZZ.getName();
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
 
+    /**
+     * Order of variables by their index in the network, for sorted sets of
+     * variables of one network.
+     */
+    public static final Comparator<ProbabilityVariable> INDEX_ORDER =
+            new Comparator<ProbabilityVariable>()
+    {
+        @Override
+        public int compare(ProbabilityVariable a, ProbabilityVariable b)
+        {
+            return Integer.compare(a.getIndex(), b.getIndex());
+        }
+    };
+
     static final String observedPropertyName = "observed";
     static final String explanationPropertyName = "explanation";
 
@@ -181,45 +196,9 @@ public class ProbabilityVariable extends DiscreteVariable
      */
     public void saveXml_0_3(PrintStream out)
     {
-
-        if (this == null)
-        {
-            return;
-        }
-        out.println("<VARIABLE TYPE=\"nature\">");
-        if (name != null)
-        {
-            out.println("\t<NAME>" + name + "</NAME>");
-        }
-
-        if (values != null)
-        {
-            for (String value : values)
-            {
-                out.println("\t<OUTCOME>" + value + "</OUTCOME>");
-            }
-        }
-
-        if (isExplanation())
-        {
-            out.println("\t<PROPERTY>" + explanationPropertyName + " " +
-                        values[explanationIndex] + "</PROPERTY>");
-        }
-
-        if (isObserved())
-        {
-            out.println("\t<PROPERTY>" + observedPropertyName + " " +
-                        values[observedIndex] + "</PROPERTY>");
-        }
-
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\t<PROPERTY>" + property + "</PROPERTY>");
-            }
-        }
-        out.println("</VARIABLE>\n");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeXml_0_3(this);
+        writer.flush();
     }
 
     /**
@@ -229,91 +208,17 @@ public class ProbabilityVariable extends DiscreteVariable
      */
     public void saveXml(PrintStream out)
     {
-        if (this == null)
-        {
-            return;
-        }
-        out.println("<VARIABLE>");
-        if (name != null)
-        {
-            out.println("\t<NAME>" + name + "</NAME>");
-        }
-
-        if (values != null)
-        {
-            out.println("\t<TYPE>discrete</TYPE>");
-            for (String value : values)
-            {
-                out.println("\t<VALUE>" + value + "</VALUE>");
-            }
-        }
-
-        if (isExplanation())
-        {
-            out.println("\t<PROPERTY>" + explanationPropertyName + " " +
-                        values[explanationIndex] + "</PROPERTY>");
-        }
-
-        if (isObserved())
-        {
-            out.println("\t<PROPERTY>" + observedPropertyName + " " +
-                        values[observedIndex] + "</PROPERTY>");
-        }
-
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\t<PROPERTY>" + property + "</PROPERTY>");
-            }
-        }
-        out.println("</VARIABLE>\n");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeXml(this);
+        writer.flush();
     }
 
     @Override
     public void print(PrintStream out)
     {
-        if (this == null)
-        {
-            return;
-        }
-        out.print("variable ");
-        if (name != null)
-        {
-            out.print(" \"" + name + "\" ");
-        }
-        out.print("{");
-        if (values != null)
-        {
-            out.println(" //" + numberValues() + " values");
-            out.print("\ttype discrete[" + numberValues() + "] { ");
-            for (String value : values)
-            {
-                out.print(" \"" + value + "\" ");
-            }
-            out.println("};");
-        }
-
-        if (isExplanation())
-        {
-            out.println("\tproperty \"" + explanationPropertyName + " " +
-                        values[explanationIndex] + "\" ;");
-        }
-
-        if (isObserved())
-        {
-            out.println("\tproperty \"" + observedPropertyName + " " +
-                        values[observedIndex] + "\" ;");
-        }
-
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\tproperty \"" + property + "\" ;");
-            }
-        }
-        out.println("}");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeBif(this);
+        writer.flush();
     }
 
     /**
@@ -503,6 +408,16 @@ public class ProbabilityVariable extends DiscreteVariable
         this.type = type;
     }
 
+    /**
+     * Get the Bayes net of the variable.
+     *
+     * @return the Bayes net
+     */
+    public BayesNet getBayesNet()
+    {
+        return bayesNet;
+    }
+
     /**
      * Set a new Bayes net.
      *
@@ -514,29 +429,47 @@ public class ProbabilityVariable extends DiscreteVariable
     }
 
     /**
-     * Retrieve the set of parents of a variable.
+     * Retrieve the set of parents of a variable: the conditioning variables
+     * of its probability function.
      *
-     * @return the set of parents as TreeSet
+     * @return the set of parents as TreeSet ordered by index
      */
     public TreeSet<ProbabilityVariable> getParents()
     {
-        TreeSet<ProbabilityVariable> reval;
-        throw new UnsupportedOperationException(
-                "ProbabilityVariable.getParents(): Not supported yet.");
-        //return reval;
+        TreeSet<ProbabilityVariable> reval = new TreeSet<>(INDEX_ORDER);
+        ProbabilityFunction probFunc = bayesNet.getFunction(this);
+        if (probFunc != null)
+        {
+            for (int i = 1; i < probFunc.numberVariables(); i++)
+            {
+                reval.add(bayesNet.getProbabilityVariable(
+                        probFunc.getIndex(i)));
+            }
+        }
+        return reval;
     }
 
     /**
-     * Retrieve the set of children of a variable.
+     * Retrieve the set of children of a variable: the variables whose
+     * probability function is conditioned on it.
      *
-     * @return the set of children as TreeSet
+     * @return the set of children as TreeSet ordered by index
      */
     public TreeSet<ProbabilityVariable> getChildren()
     {
-        TreeSet<ProbabilityVariable> reval;
-        throw new UnsupportedOperationException(
-                "ProbabilityVariable.getChildren(): Not supported yet.");
-        //return reval;
+        TreeSet<ProbabilityVariable> reval = new TreeSet<>(INDEX_ORDER);
+        for (ProbabilityFunction probFunc : bayesNet.getProbabilityFunctions())
+        {
+            for (int i = 1; i < probFunc.numberVariables(); i++)
+            {
+                if (probFunc.getIndex(i) == index)
+                {
+                    reval.add(bayesNet.getProbabilityVariable(
+                            probFunc.getIndex(0)));
+                }
+            }
+        }
+        return reval;
     }
 
     /**
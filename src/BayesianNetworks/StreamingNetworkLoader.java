@@ -0,0 +1,1787 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import InterchangeFormat.IFException;
+import InterchangeFormat.InterchangeFormat.Format;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Single pass loader for BIF 0.15, XMLBIF 0.3 and Netica DNET descriptions
+ * that builds a BayesNet directly from the tokens of the stream. Probability
+ * tables are read straight into primitive arrays, sized in advance whenever
+ * the variables are already declared, so the IFBayesNet model, the table
+ * inversion copy and the boxing of every number by the JavaCC parsers are
+ * avoided. The resulting network is the same as the one produced by
+ * ConvertInterchangeFormat; DNET, which has no JavaCC parser, is read by
+ * this loader only.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class StreamingNetworkLoader
+{
+
+    private static final Class CLAZZ = StreamingNetworkLoader.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int BUFFER_SIZE = 1 << 14;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final double POWERS_OF_TEN[] =
+    {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private String networkName;
+    private ArrayList<String> networkProperties;
+    private ArrayList<VariableDeclaration> variables;
+    private HashMap<String, Integer> variableIndexes;
+    private ArrayList<FunctionDeclaration> functions;
+
+    /**
+     * Check whether a format can be read by the streaming loader.
+     *
+     * @param format the format of the description
+     * @return true if the format is BIF 0.15, XMLBIF 0.3 or DNET, false
+     *         otherwise
+     */
+    public static boolean isSupported(Format format)
+    {
+        return format == Format.BIF_015 ||
+               format == Format.XMLBIF_03 ||
+               format == Format.DNET;
+    }
+
+    /**
+     * Read a network description and fill the given network with it. The
+     * name, properties, variables and functions of the network are replaced
+     * and the properties are processed as after a translation from the
+     * interchange format.
+     *
+     * @param bayesNet the network to fill
+     * @param istream  the stream holding the description
+     * @param format   the format of the description
+     * @throws Exception if the format is not supported or the description
+     *                   cannot be read or parsed
+     */
+    public void load(BayesNet bayesNet, InputStream istream, Format format)
+            throws Exception
+    {
+        networkName = null;
+        networkProperties = new ArrayList<>();
+        variables = new ArrayList<>();
+        variableIndexes = new HashMap<>();
+        functions = new ArrayList<>();
+
+        if (format == Format.BIF_015)
+        {
+            // Same character decoding as the JavaCC generated parsers
+            new BifReader(new InputStreamReader(istream)).readNetwork();
+        }
+        else if (format == Format.XMLBIF_03)
+        {
+            readXmlNetwork(istream);
+        }
+        else if (format == Format.DNET)
+        {
+            new DnetReader(new InputStreamReader(istream)).readNetwork();
+        }
+        else
+        {
+            throw new IFException("Format " + format +
+                                  " is not supported by the streaming loader");
+        }
+        if (networkName == null)
+        {
+            throw new IFException("No network declaration found");
+        }
+
+        ProbabilityVariable probVars[] =
+                            new ProbabilityVariable[variables.size()];
+        for (int i = 0; i < probVars.length; i++)
+        {
+            VariableDeclaration decl = variables.get(i);
+            if (decl.values == null)
+            {
+                throw new IFException("Variable " + decl.name +
+                                      " has no values");
+            }
+            probVars[i] = new ProbabilityVariable(bayesNet,
+                                                  decl.name,
+                                                  i,
+                                                  decl.values,
+                                                  decl.properties);
+        }
+        ProbabilityFunction probFuncs[] =
+                            new ProbabilityFunction[functions.size()];
+        for (int i = 0; i < probFuncs.length; i++)
+        {
+            probFuncs[i] = buildFunction(bayesNet,
+                                         probVars,
+                                         functions.get(i),
+                                         format != Format.BIF_015);
+        }
+
+        bayesNet.setName(networkName);
+        bayesNet.setProperties(networkProperties);
+        bayesNet.setProbabilityVariables(probVars);
+        bayesNet.setProbabilityFunctions(probFuncs);
+        bayesNet.processAllProperties();
+
+        // Do not keep the declarations alive with the loader
+        variables = null;
+        variableIndexes = null;
+        functions = null;
+    }
+
+    /**
+     * Create the probability function once its values are complete. Override
+     * to create specialised functions from the extreme points.
+     *
+     * @param bayesNet      the underlying Bayesian network
+     * @param probVars      the variables of the function, the first being the
+     *                      conditioned variable
+     * @param values        the values built from the first table, the
+     *                      defaults and the entries
+     * @param extremePoints the values of every table if there are several,
+     *                      null otherwise
+     * @param properties    the properties of the function
+     * @return the probability function
+     */
+    protected ProbabilityFunction createFunction(
+            BayesNet bayesNet,
+            ProbabilityVariable probVars[],
+            double values[],
+            double extremePoints[][],
+            ArrayList<String> properties)
+    {
+        return new ProbabilityFunction(bayesNet, probVars, values, properties);
+    }
+
+    /**
+     * Create a probability function that decodes its values on first access.
+     * Used by the BinaryNetworkFormat for functions with a single table.
+     *
+     * @param bayesNet    the underlying Bayesian network
+     * @param probVars    the variables of the function, the first being the
+     *                    conditioned variable
+     * @param valueSource the source of the values
+     * @param properties  the properties of the function
+     * @return the probability function
+     */
+    protected ProbabilityFunction createFunction(
+            BayesNet bayesNet,
+            ProbabilityVariable probVars[],
+            ValueSource valueSource,
+            ArrayList<String> properties)
+    {
+        return new ProbabilityFunction(bayesNet,
+                                       probVars,
+                                       valueSource,
+                                       properties);
+    }
+
+    private ProbabilityFunction buildFunction(BayesNet bayesNet,
+                                              ProbabilityVariable allVars[],
+                                              FunctionDeclaration decl,
+                                              boolean isInverted)
+            throws IFException
+    {
+        ProbabilityVariable probVars[] =
+                            new ProbabilityVariable[decl.names.size()];
+        if (probVars.length == 0)
+        {
+            throw new IFException("Probability declaration without variables");
+        }
+        for (int i = 0; i < probVars.length; i++)
+        {
+            Integer index = variableIndexes.get(decl.names.get(i));
+            if (index == null)
+            {
+                throw new IFException("Unknown variable " +
+                                      decl.names.get(i) +
+                                      " in probability declaration");
+            }
+            probVars[i] = allVars[index];
+        }
+
+        // Number of values for each value of the first variable
+        int jump = 1;
+        for (int i = 1; i < probVars.length; i++)
+        {
+            jump *= probVars[i].numberValues();
+        }
+        int sizeOfFirst = probVars[0].numberValues();
+        int numberOfValues = jump * sizeOfFirst;
+
+        // Tables of the wrong size are ignored, as in the conversion from
+        // the interchange format
+        double tables[][] = new double[decl.tables.size()][];
+        for (int t = 0; t < tables.length; t++)
+        {
+            double table[] = decl.tables.get(t);
+            if (table.length != numberOfValues)
+            {
+                LOGGER.warning("Table of " + decl.names.get(0) + " has " +
+                               table.length + " values instead of " +
+                               numberOfValues + "; ignored");
+            }
+            else
+            {
+                tables[t] = isInverted && jump > 1 ?
+                            invert(table, sizeOfFirst, jump) :
+                            table;
+            }
+        }
+
+        double values[];
+        if (tables.length > 0 && tables[0] != null)
+        {
+            values = tables.length > 1 ? tables[0].clone() : tables[0];
+        }
+        else
+        {
+            values = new double[numberOfValues];
+            Arrays.fill(values, ConvertInterchangeFormat.INVALID_VALUE);
+        }
+
+        // Defaults fill the values not given by the table
+        if (decl.defaults != null)
+        {
+            if (decl.defaults.length != sizeOfFirst)
+            {
+                throw new IFException("Default of " + decl.names.get(0) +
+                                      " has " + decl.defaults.length +
+                                      " values instead of " + sizeOfFirst);
+            }
+            for (int i = 0; i < sizeOfFirst; i++)
+            {
+                for (int j = 0; j < jump; j++)
+                {
+                    int k = i * jump + j;
+                    if (values[k] == ConvertInterchangeFormat.INVALID_VALUE)
+                    {
+                        values[k] = decl.defaults[i];
+                    }
+                }
+            }
+        }
+
+        // Entries override values for a configuration of the parents
+        for (int e = 0; e < decl.entryValues.size(); e++)
+        {
+            String entryValues[] = decl.entryValues.get(e);
+            double entryProbs[] = decl.entryProbabilities.get(e);
+            if (entryValues.length != probVars.length - 1)
+            {
+                throw new IFException("Entry of " + decl.names.get(0) +
+                                      " has " + entryValues.length +
+                                      " values for " +
+                                      (probVars.length - 1) + " parents");
+            }
+            if (entryProbs.length != sizeOfFirst)
+            {
+                throw new IFException("Entry of " + decl.names.get(0) +
+                                      " has " + entryProbs.length +
+                                      " probabilities instead of " +
+                                      sizeOfFirst);
+            }
+            int pos = 0;
+            int step = 1;
+            for (int k = entryValues.length; k > 0; k--)
+            {
+                int index = probVars[k].indexOfValue(entryValues[k - 1]);
+                if (index == BayesNet.INVALID_INDEX)
+                {
+                    throw new IFException("Unknown value " +
+                                          entryValues[k - 1] + " of " +
+                                          probVars[k].getName());
+                }
+                pos += index * step;
+                step *= probVars[k].numberValues();
+            }
+            for (int i = 0; i < sizeOfFirst; i++)
+            {
+                values[i * jump + pos] = entryProbs[i];
+            }
+        }
+
+        // Whatever is left unspecified is zero
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] == ConvertInterchangeFormat.INVALID_VALUE)
+            {
+                values[i] = 0.0;
+            }
+        }
+
+        double extremePoints[][] = null;
+        if (tables.length > 1)
+        {
+            extremePoints = new double[tables.length][];
+            for (int t = 0; t < tables.length; t++)
+            {
+                extremePoints[t] = tables[t] != null ?
+                                   tables[t] :
+                                   new double[numberOfValues];
+            }
+        }
+        return createFunction(bayesNet,
+                              probVars,
+                              values,
+                              extremePoints,
+                              decl.properties);
+    }
+
+    /**
+     * XMLBIF and DNET list the first variable as fastest running index; swap
+     * it to the slowest running index used by ProbabilityFunction.
+     */
+    private static double[] invert(double table[], int sizeOfFirst, int jump)
+    {
+        double inverted[] = new double[table.length];
+        for (int i = 0; i < sizeOfFirst; i++)
+        {
+            for (int j = 0; j < jump; j++)
+            {
+                inverted[i * jump + j] = table[j * sizeOfFirst + i];
+            }
+        }
+        return inverted;
+    }
+
+    private void addVariable(VariableDeclaration decl)
+    {
+        // Like indexOfVariable, the first declaration of a name wins
+        if (!variableIndexes.containsKey(decl.name))
+        {
+            variableIndexes.put(decl.name, variables.size());
+        }
+        variables.add(decl);
+    }
+
+    /**
+     * Number of values expected in a table, or 0 if a variable of the
+     * function has not been declared yet.
+     */
+    private int expectedTableSize(FunctionDeclaration decl)
+    {
+        int size = 1;
+        for (String name : decl.names)
+        {
+            size *= numberOfValues(name);
+        }
+        for (String name : decl.givenNames)
+        {
+            size *= numberOfValues(name);
+        }
+        return size;
+    }
+
+    private int numberOfValues(String name)
+    {
+        Integer index = variableIndexes.get(name);
+        if (index == null || variables.get(index).values == null)
+        {
+            return 0;
+        }
+        return variables.get(index).values.length;
+    }
+
+    private void readXmlNetwork(InputStream istream) throws Exception
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                            Boolean.FALSE);
+        XMLStreamReader reader = factory.createXMLStreamReader(istream);
+        try
+        {
+            VariableDeclaration variable = null;
+            FunctionDeclaration function = null;
+            while (reader.hasNext())
+            {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    String tag = reader.getLocalName().toUpperCase();
+                    if (tag.equals("VARIABLE") && variable != null)
+                    {
+                        if (!variable.outcomes.isEmpty())
+                        {
+                            variable.values = variable.outcomes.toArray(
+                            new String[variable.outcomes.size()]);
+                        }
+                        addVariable(variable);
+                        variable = null;
+                    }
+                    else if (tag.equals("DEFINITION") && function != null)
+                    {
+                        // FOR variables come before the GIVEN variables
+                        function.names.addAll(function.givenNames);
+                        functions.add(function);
+                        function = null;
+                    }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT)
+                {
+                    continue;
+                }
+                switch (reader.getLocalName().toUpperCase())
+                {
+                    case "VARIABLE":
+                        variable = new VariableDeclaration();
+                        break;
+                    case "DEFINITION":
+                        function = new FunctionDeclaration();
+                        break;
+                    case "NAME":
+                        String name = reader.getElementText().trim();
+                        if (variable != null)
+                        {
+                            variable.name = name;
+                        }
+                        else if (function == null && networkName == null)
+                        {
+                            networkName = name;
+                        }
+                        break;
+                    case "OUTCOME":
+                        if (variable != null)
+                        {
+                            variable.outcomes.add(
+                                    reader.getElementText().trim());
+                        }
+                        break;
+                    case "PROPERTY":
+                        String property = reader.getElementText().trim();
+                        if (variable != null)
+                        {
+                            variable.properties.add(property);
+                        }
+                        else if (function != null)
+                        {
+                            function.properties.add(property);
+                        }
+                        else
+                        {
+                            networkProperties.add(property);
+                        }
+                        break;
+                    case "FOR":
+                        if (function != null)
+                        {
+                            function.names.add(reader.getElementText().trim());
+                        }
+                        break;
+                    case "GIVEN":
+                        if (function != null)
+                        {
+                            function.givenNames.add(
+                                    reader.getElementText().trim());
+                        }
+                        break;
+                    case "TABLE":
+                        if (function != null)
+                        {
+                            function.tables.add(readXmlTable(
+                                    reader, expectedTableSize(function)));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new IFException(e.getMessage());
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read the numbers of a TABLE element directly from the character
+     * chunks of the reader, without building the element text.
+     */
+    private static double[] readXmlTable(XMLStreamReader reader, int expected)
+            throws XMLStreamException, IFException
+    {
+        NumberList numbers = new NumberList(expected);
+        char token[] = new char[64];
+        int tokenLength = 0;
+        while (true)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS ||
+                event == XMLStreamConstants.CDATA ||
+                event == XMLStreamConstants.SPACE)
+            {
+                char chars[] = reader.getTextCharacters();
+                int end = reader.getTextStart() + reader.getTextLength();
+                for (int i = reader.getTextStart(); i < end; i++)
+                {
+                    char c = chars[i];
+                    if (Character.isWhitespace(c) || c == ',')
+                    {
+                        if (tokenLength > 0)
+                        {
+                            numbers.add(parseNumber(token, tokenLength));
+                            tokenLength = 0;
+                        }
+                    }
+                    else
+                    {
+                        if (tokenLength == token.length)
+                        {
+                            token = Arrays.copyOf(token, 2 * token.length);
+                        }
+                        token[tokenLength++] = c;
+                    }
+                }
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                break;
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT ||
+                     event == XMLStreamConstants.END_DOCUMENT)
+            {
+                throw new IFException("Unterminated TABLE element");
+            }
+        }
+        if (tokenLength > 0)
+        {
+            numbers.add(parseNumber(token, tokenLength));
+        }
+        return numbers.toArray();
+    }
+
+    /**
+     * Parse a non-negative decimal number as written in BIF and XMLBIF.
+     * Numbers with at most 18 significant digits whose mantissa is exactly
+     * representable and whose decimal exponent is at most 22 are converted
+     * with a single correctly rounded multiplication or division; all other
+     * numbers are handed to Double.parseDouble, so the result is always the
+     * same as that of Double.valueOf.
+     *
+     * @param chars  the characters of the number
+     * @param length the number of characters
+     * @return the value
+     * @throws IFException if the characters are not a non-negative number
+     */
+    static double parseNumber(char chars[], int length) throws IFException
+    {
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        int significant = 0;
+        boolean isTruncated = false;
+        int i = 0;
+        for (; i < length && chars[i] >= '0' && chars[i] <= '9'; i++)
+        {
+            digits++;
+            if (significant < MAX_MANTISSA_DIGITS)
+            {
+                mantissa = 10 * mantissa + (chars[i] - '0');
+                if (mantissa != 0)
+                {
+                    significant++;
+                }
+            }
+            else
+            {
+                exponent++;
+                isTruncated = true;
+            }
+        }
+        if (i < length && chars[i] == '.')
+        {
+            for (i++; i < length && chars[i] >= '0' && chars[i] <= '9'; i++)
+            {
+                digits++;
+                if (significant < MAX_MANTISSA_DIGITS)
+                {
+                    mantissa = 10 * mantissa + (chars[i] - '0');
+                    exponent--;
+                    if (mantissa != 0)
+                    {
+                        significant++;
+                    }
+                }
+                else
+                {
+                    isTruncated = true;
+                }
+            }
+        }
+        if (digits > 0 && i < length && (chars[i] == 'e' || chars[i] == 'E'))
+        {
+            i++;
+            boolean isNegative = false;
+            if (i < length && (chars[i] == '+' || chars[i] == '-'))
+            {
+                isNegative = chars[i] == '-';
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < length && chars[i] >= '0' && chars[i] <= '9'; i++)
+            {
+                if (value < 100000)
+                {
+                    value = 10 * value + (chars[i] - '0');
+                }
+            }
+            if (i == start)
+            {
+                digits = 0;
+            }
+            exponent += isNegative ? -value : value;
+        }
+        if (digits == 0 || i != length)
+        {
+            throw new IFException("Invalid number " +
+                                  new String(chars, 0, length));
+        }
+        if (!isTruncated && mantissa < MAX_EXACT_MANTISSA &&
+            exponent >= -22 && exponent <= 22)
+        {
+            return exponent < 0 ?
+                   mantissa / POWERS_OF_TEN[-exponent] :
+                   mantissa * POWERS_OF_TEN[exponent];
+        }
+        return Double.parseDouble(new String(chars, 0, length));
+    }
+
+    /**
+     * Growable list of primitive doubles.
+     */
+    private static class NumberList
+    {
+
+        private double values[];
+        private int size;
+
+        NumberList(int expected)
+        {
+            values = new double[expected > 0 ? expected : 16];
+        }
+
+        void add(double value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, 2 * values.length);
+            }
+            values[size++] = value;
+        }
+
+        double[] toArray()
+        {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A declared variable, kept until all declarations are read.
+     */
+    private static class VariableDeclaration
+    {
+
+        String name;
+        String values[];
+        ArrayList<String> outcomes = new ArrayList<>();
+        ArrayList<String> properties = new ArrayList<>();
+    }
+
+    /**
+     * A declared probability function, kept until all declarations are read.
+     * Only the first default list is used.
+     */
+    private static class FunctionDeclaration
+    {
+
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<String> givenNames = new ArrayList<>();
+        ArrayList<double[]> tables = new ArrayList<>();
+        double defaults[];
+        ArrayList<String[]> entryValues = new ArrayList<>();
+        ArrayList<double[]> entryProbabilities = new ArrayList<>();
+        ArrayList<String> properties = new ArrayList<>();
+    }
+
+    /**
+     * Tokenizer shared by the text readers: white space and commas separate
+     * tokens, C and C++ style comments are skipped, and strings are enclosed
+     * in double quotes. Numbers, words and symbols are recognised by the
+     * readers, which know the characters their format allows.
+     */
+    private abstract static class Tokenizer
+    {
+
+        static final int EOF = 0;
+        static final int STRING = 1;
+        static final int NUMBER = 2;
+        static final int WORD = 3;
+        static final int SYMBOL = 4;
+
+        private final Reader reader;
+        private final boolean isMultiLineString;
+        private final char buffer[] = new char[BUFFER_SIZE];
+        int position;
+        private int limit;
+        int line = 1;
+
+        int kind;
+        String text;
+        char symbol;
+        double number;
+        private char numberChars[] = new char[64];
+        final StringBuilder stringChars = new StringBuilder();
+
+        /**
+         * Constructor for a Tokenizer.
+         *
+         * @param reader            the text to read
+         * @param isMultiLineString true if strings may span lines
+         */
+        Tokenizer(Reader reader, boolean isMultiLineString)
+        {
+            this.reader = reader;
+            this.isMultiLineString = isMultiLineString;
+        }
+
+        /**
+         * Read a number, a word or a symbol starting with a character that
+         * is neither white space nor the start of a comment or string.
+         *
+         * @param c the first character of the token
+         */
+        abstract void readToken(int c) throws IOException, IFException;
+
+        boolean isWord(String word)
+        {
+            return kind == WORD && text.equals(word);
+        }
+
+        boolean isSymbol(char c)
+        {
+            return kind == SYMBOL && symbol == c;
+        }
+
+        void expectSymbol(char c) throws IOException, IFException
+        {
+            if (!isSymbol(c))
+            {
+                throw error("'" + c + "'");
+            }
+            next();
+        }
+
+        double expectNumber() throws IOException, IFException
+        {
+            if (kind != NUMBER)
+            {
+                throw error("number");
+            }
+            double value = number;
+            next();
+            return value;
+        }
+
+        IFException error(String expected)
+        {
+            String found;
+            switch (kind)
+            {
+                case EOF:
+                    found = "end of file";
+                    break;
+                case STRING:
+                    found = "\"" + text + "\"";
+                    break;
+                case NUMBER:
+                    found = "number " + number;
+                    break;
+                case SYMBOL:
+                    found = "'" + symbol + "'";
+                    break;
+                default:
+                    found = text;
+            }
+            return new IFException("Line " + line + ": expected " +
+                                   expected + " but found " + found);
+        }
+
+        int peek() throws IOException
+        {
+            if (position == limit)
+            {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0)
+                {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        void next() throws IOException, IFException
+        {
+            while (true)
+            {
+                int c = peek();
+                if (c < 0)
+                {
+                    kind = EOF;
+                    return;
+                }
+                switch (c)
+                {
+                    case '\n':
+                        line++;
+                        position++;
+                        continue;
+                    case ' ':
+                    case '\t':
+                    case '\r':
+                    case '\f':
+                    case ',':
+                        position++;
+                        continue;
+                    case '/':
+                        position++;
+                        skipComment();
+                        continue;
+                    case '"':
+                        position++;
+                        readString();
+                        return;
+                    default:
+                        readToken(c);
+                        return;
+                }
+            }
+        }
+
+        private void skipComment() throws IOException, IFException
+        {
+            int c = peek();
+            if (c == '/')
+            {
+                while ((c = peek()) >= 0 && c != '\n' && c != '\r')
+                {
+                    position++;
+                }
+                return;
+            }
+            if (c != '*')
+            {
+                throw new IFException("Line " + line +
+                                      ": unexpected character '/'");
+            }
+            position++;
+            boolean isStar = false;
+            while ((c = peek()) >= 0)
+            {
+                position++;
+                if (isStar && c == '/')
+                {
+                    return;
+                }
+                if (c == '\n')
+                {
+                    line++;
+                }
+                isStar = c == '*';
+            }
+            throw new IFException("Line " + line + ": unterminated comment");
+        }
+
+        private void readString() throws IOException, IFException
+        {
+            // Like the JavaCC parser, escapes are kept as written
+            stringChars.setLength(0);
+            int c;
+            while ((c = peek()) >= 0 && c != '"')
+            {
+                if (!isMultiLineString && (c == '\n' || c == '\r'))
+                {
+                    break;
+                }
+                position++;
+                stringChars.append((char) c);
+                if (c == '\\' && (c = peek()) >= 0)
+                {
+                    position++;
+                    stringChars.append((char) c);
+                }
+                if (c == '\n')
+                {
+                    line++;
+                }
+            }
+            if (c != '"')
+            {
+                throw new IFException("Line " + line +
+                                      ": unterminated string");
+            }
+            position++;
+            kind = STRING;
+            text = stringChars.toString();
+        }
+
+        /**
+         * Read an unsigned number.
+         */
+        void readNumber() throws IOException, IFException
+        {
+            int length = 0;
+            int c;
+            while ((c = peek()) >= 0 &&
+                   ((c >= '0' && c <= '9') || c == '.' ||
+                    c == 'e' || c == 'E' ||
+                    ((c == '+' || c == '-') && length > 0 &&
+                     (numberChars[length - 1] == 'e' ||
+                      numberChars[length - 1] == 'E'))))
+            {
+                if (length == numberChars.length)
+                {
+                    numberChars = Arrays.copyOf(numberChars, 2 * length);
+                }
+                numberChars[length++] = (char) c;
+                position++;
+            }
+            kind = NUMBER;
+            try
+            {
+                number = parseNumber(numberChars, length);
+            }
+            catch (IFException e)
+            {
+                throw new IFException("Line " + line + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser for BIF 0.15, following the grammar of the
+     * JavaCC parser. Any text between declarations that does not start with
+     * a keyword is ignored.
+     */
+    private class BifReader extends Tokenizer
+    {
+
+        BifReader(Reader reader)
+        {
+            super(reader, false);
+        }
+
+        void readNetwork() throws IOException, IFException
+        {
+            next();
+            skipUndefinedText();
+            expectKeyword("network");
+            networkName = expectString();
+            expectSymbol('{');
+            while (isWord("property"))
+            {
+                networkProperties.add(readProperty());
+            }
+            expectSymbol('}');
+            skipUndefinedText();
+            while (kind != EOF)
+            {
+                if (isWord("variable"))
+                {
+                    readVariable();
+                }
+                else if (isWord("probability"))
+                {
+                    readProbability();
+                }
+                else
+                {
+                    throw error("variable or probability declaration");
+                }
+                skipUndefinedText();
+            }
+        }
+
+        private void readVariable() throws IOException, IFException
+        {
+            next();
+            VariableDeclaration decl = new VariableDeclaration();
+            decl.name = expectString();
+            expectSymbol('{');
+            while (!isSymbol('}'))
+            {
+                if (isWord("property"))
+                {
+                    decl.properties.add(readProperty());
+                }
+                else if (isWord("type"))
+                {
+                    next();
+                    expectKeyword("discrete");
+                    expectSymbol('[');
+                    expectNumber();
+                    expectSymbol(']');
+                    expectSymbol('{');
+                    ArrayList<String> values = new ArrayList<>();
+                    values.add(expectString());
+                    while (kind == STRING)
+                    {
+                        values.add(expectString());
+                    }
+                    expectSymbol('}');
+                    expectSymbol(';');
+                    decl.values = values.toArray(new String[values.size()]);
+                }
+                else
+                {
+                    throw error("property, type or '}'");
+                }
+            }
+            next();
+            addVariable(decl);
+        }
+
+        private void readProbability() throws IOException, IFException
+        {
+            next();
+            FunctionDeclaration decl = new FunctionDeclaration();
+            expectSymbol('(');
+            decl.names.add(expectString());
+            while (!isSymbol(')'))
+            {
+                if (isSymbol('|'))
+                {
+                    next();
+                }
+                else
+                {
+                    decl.names.add(expectString());
+                }
+            }
+            next();
+            int expected = expectedTableSize(decl);
+            expectSymbol('{');
+            while (!isSymbol('}'))
+            {
+                if (isWord("property"))
+                {
+                    decl.properties.add(readProperty());
+                }
+                else if (isWord("table"))
+                {
+                    next();
+                    decl.tables.add(readNumbers(expected));
+                    expectSymbol(';');
+                }
+                else if (isWord("default"))
+                {
+                    next();
+                    double defaults[] = readNumbers(0);
+                    if (decl.defaults == null)
+                    {
+                        decl.defaults = defaults;
+                    }
+                    expectSymbol(';');
+                }
+                else if (isSymbol('('))
+                {
+                    next();
+                    ArrayList<String> values = new ArrayList<>();
+                    values.add(expectString());
+                    while (kind == STRING)
+                    {
+                        values.add(expectString());
+                    }
+                    expectSymbol(')');
+                    decl.entryValues.add(
+                            values.toArray(new String[values.size()]));
+                    decl.entryProbabilities.add(readNumbers(0));
+                    expectSymbol(';');
+                }
+                else
+                {
+                    throw error("property, table, default, entry or '}'");
+                }
+            }
+            next();
+            functions.add(decl);
+        }
+
+        private String readProperty() throws IOException, IFException
+        {
+            next();
+            String property = expectString();
+            expectSymbol(';');
+            return property;
+        }
+
+        private double[] readNumbers(int expected)
+                throws IOException, IFException
+        {
+            if (kind != NUMBER)
+            {
+                throw error("number");
+            }
+            NumberList numbers = new NumberList(expected);
+            while (kind == NUMBER)
+            {
+                numbers.add(number);
+                next();
+            }
+            return numbers.toArray();
+        }
+
+        private void skipUndefinedText() throws IOException, IFException
+        {
+            while (kind != EOF &&
+                   !isWord("network") &&
+                   !isWord("variable") &&
+                   !isWord("probability"))
+            {
+                next();
+            }
+        }
+
+        private void expectKeyword(String keyword)
+                throws IOException, IFException
+        {
+            if (!isWord(keyword))
+            {
+                throw error(keyword);
+            }
+            next();
+        }
+
+        private String expectString() throws IOException, IFException
+        {
+            if (kind != STRING)
+            {
+                throw error("string");
+            }
+            String str = text;
+            next();
+            return str;
+        }
+
+        @Override
+        void readToken(int c) throws IOException, IFException
+        {
+            switch (c)
+            {
+                case '{':
+                case '}':
+                case '[':
+                case ']':
+                case '(':
+                case ')':
+                case ';':
+                case '|':
+                    position++;
+                    kind = SYMBOL;
+                    symbol = (char) c;
+                    return;
+                default:
+                    break;
+            }
+            if ((c >= '0' && c <= '9') || c == '.')
+            {
+                readNumber();
+            }
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))
+            {
+                readKeyword();
+            }
+            else
+            {
+                throw new IFException("Line " + line +
+                                      ": unexpected character '" +
+                                      (char) c + "'");
+            }
+        }
+
+        private void readKeyword() throws IOException, IFException
+        {
+            stringChars.setLength(0);
+            int c;
+            while ((c = peek()) >= 0 &&
+                   ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')))
+            {
+                stringChars.append((char) c);
+                position++;
+            }
+            text = stringChars.toString();
+            switch (text)
+            {
+                case "network":
+                case "variable":
+                case "probability":
+                case "property":
+                case "type":
+                case "discrete":
+                case "default":
+                case "table":
+                    kind = WORD;
+                    return;
+                default:
+                    throw new IFException("Line " + line +
+                                          ": unexpected word " + text);
+            }
+        }
+    }
+
+    /**
+     * A node of a DNET description, kept until all nodes are read.
+     */
+    private static class NodeDeclaration
+    {
+
+        String name;
+        String kind;
+        boolean isDiscrete = true;
+        String states[];
+        int numberOfStates;
+        String parents[] = new String[0];
+        double probabilities[];
+        ArrayList<String> functionTable;
+        ArrayList<String> properties = new ArrayList<>();
+    }
+
+    /**
+     * Tokenizer and recursive descent parser for the Netica DNET format. Only
+     * the parts of a description that define the network are interpreted:
+     * the name of the bnet, the kind, states, parents and probability or
+     * function tables of the nodes, and the node positions, which become
+     * position properties. All other attributes and blocks are skipped.
+     * Probability tables list the states of a node as the fastest running
+     * index, like XMLBIF; a table that leaves out the last state of every
+     * distribution is completed so that each distribution sums up to one.
+     */
+    private class DnetReader extends Tokenizer
+    {
+
+        private final ArrayList<NodeDeclaration> nodes = new ArrayList<>();
+
+        DnetReader(Reader reader)
+        {
+            super(reader, true);
+        }
+
+        void readNetwork() throws IOException, IFException
+        {
+            next();
+            if (!isWord("bnet"))
+            {
+                throw error("bnet");
+            }
+            next();
+            networkName = expectWord();
+            expectSymbol('{');
+            while (!isSymbol('}'))
+            {
+                if (isWord("node"))
+                {
+                    next();
+                    readNode();
+                }
+                else
+                {
+                    expectWord();
+                    skipStatement();
+                }
+            }
+            // Whatever follows the network is ignored
+            for (NodeDeclaration node : nodes)
+            {
+                functions.add(createFunctionDeclaration(node));
+            }
+        }
+
+        private void readNode() throws IOException, IFException
+        {
+            NodeDeclaration node = new NodeDeclaration();
+            node.name = expectWord();
+            expectSymbol('{');
+            while (!isSymbol('}'))
+            {
+                String attribute = expectWord();
+                if (attribute.equals("visual"))
+                {
+                    readVisual(node);
+                    continue;
+                }
+                if (!isSymbol('='))
+                {
+                    skipStatement();
+                    continue;
+                }
+                next();
+                switch (attribute)
+                {
+                    case "kind":
+                        node.kind = expectWord();
+                        break;
+                    case "discrete":
+                        node.isDiscrete = expectWord().equals("TRUE");
+                        break;
+                    case "states":
+                        node.states = readWords();
+                        break;
+                    case "numstates":
+                        node.numberOfStates = (int) expectNumber();
+                        break;
+                    case "parents":
+                        node.parents = readWords();
+                        break;
+                    case "probs":
+                        node.probabilities = readTable();
+                        break;
+                    case "functable":
+                        node.functionTable = readFunctionTable();
+                        break;
+                    default:
+                        skipValue();
+                        continue;
+                }
+                // Netica puts the semicolon after a table into a comment
+                if (isSymbol(';'))
+                {
+                    next();
+                }
+            }
+            next();
+            if (isSymbol(';'))
+            {
+                next();
+            }
+            addVariable(createVariableDeclaration(node));
+            nodes.add(node);
+        }
+
+        /**
+         * Read a visual block of a node, of which only the center is used.
+         */
+        private void readVisual(NodeDeclaration node)
+                throws IOException, IFException
+        {
+            while (kind == WORD)
+            {
+                next();
+            }
+            expectSymbol('{');
+            while (!isSymbol('}'))
+            {
+                String attribute = expectWord();
+                if (attribute.equals("center") && isSymbol('='))
+                {
+                    next();
+                    expectSymbol('(');
+                    int x = (int) expectNumber();
+                    int y = (int) expectNumber();
+                    expectSymbol(')');
+                    expectSymbol(';');
+                    node.properties.add("position = (" + x + ", " + y + ")");
+                }
+                else
+                {
+                    skipStatement();
+                }
+            }
+            next();
+            if (isSymbol(';'))
+            {
+                next();
+            }
+        }
+
+        private VariableDeclaration createVariableDeclaration(
+                NodeDeclaration node) throws IFException
+        {
+            if (node.kind != null &&
+                !node.kind.equals("NATURE") &&
+                !node.kind.equals("CONSTANT"))
+            {
+                throw new IFException("Node " + node.name + " of kind " +
+                                      node.kind + " is not supported");
+            }
+            VariableDeclaration decl = new VariableDeclaration();
+            decl.name = node.name;
+            decl.properties = node.properties;
+            if (node.states != null)
+            {
+                decl.values = node.states;
+            }
+            else if (node.numberOfStates > 0)
+            {
+                decl.values = new String[node.numberOfStates];
+                for (int i = 0; i < decl.values.length; i++)
+                {
+                    decl.values[i] = "state" + i;
+                }
+            }
+            else if (!node.isDiscrete)
+            {
+                throw new IFException("Continuous node " + node.name +
+                                      " is not supported");
+            }
+            return decl;
+        }
+
+        private FunctionDeclaration createFunctionDeclaration(
+                NodeDeclaration node) throws IFException
+        {
+            FunctionDeclaration decl = new FunctionDeclaration();
+            decl.names.add(node.name);
+            decl.names.addAll(Arrays.asList(node.parents));
+            int numberOfStates = numberOfValues(node.name);
+            int numberOfConfigurations = 1;
+            for (String parent : node.parents)
+            {
+                numberOfConfigurations *= numberOfValues(parent);
+            }
+            if (node.probabilities != null)
+            {
+                decl.tables.add(completeTable(node.probabilities,
+                                              numberOfStates,
+                                              numberOfConfigurations));
+            }
+            else if (node.functionTable != null)
+            {
+                decl.tables.add(expandFunctionTable(node,
+                                                    numberOfStates,
+                                                    numberOfConfigurations));
+            }
+            return decl;
+        }
+
+        /**
+         * Add the missing last state to every distribution of a table that
+         * leaves it out.
+         */
+        private double[] completeTable(double table[],
+                                       int numberOfStates,
+                                       int numberOfConfigurations)
+        {
+            if (numberOfStates < 2 ||
+                table.length != numberOfConfigurations * (numberOfStates - 1))
+            {
+                return table;
+            }
+            double completed[] = new double[numberOfConfigurations *
+                                            numberOfStates];
+            int k = 0;
+            for (int c = 0; c < numberOfConfigurations; c++)
+            {
+                double sum = 0.0;
+                for (int i = 0; i < numberOfStates - 1; i++)
+                {
+                    sum += table[k];
+                    completed[c * numberOfStates + i] = table[k++];
+                }
+                completed[(c + 1) * numberOfStates - 1] = 1.0 - sum;
+            }
+            return completed;
+        }
+
+        /**
+         * Turn the function table of a deterministic node, which gives a
+         * state for every configuration of the parents, into a probability
+         * table.
+         */
+        private double[] expandFunctionTable(NodeDeclaration node,
+                                             int numberOfStates,
+                                             int numberOfConfigurations)
+                throws IFException
+        {
+            if (numberOfStates == 0 ||
+                node.functionTable.size() != numberOfConfigurations)
+            {
+                // Left to the size check of the probability tables
+                return new double[0];
+            }
+            int variableIndex = variableIndexes.get(node.name);
+            List<String> states =
+                         Arrays.asList(variables.get(variableIndex).values);
+            double table[] = new double[numberOfConfigurations *
+                                        numberOfStates];
+            for (int c = 0; c < numberOfConfigurations; c++)
+            {
+                String state = node.functionTable.get(c);
+                int index = states.indexOf(state);
+                if (index < 0 && state.matches("[0-9]+"))
+                {
+                    index = Integer.parseInt(state);
+                }
+                if (index < 0 || index >= numberOfStates)
+                {
+                    throw new IFException("Unknown state " + state +
+                                          " in function table of " +
+                                          node.name);
+                }
+                table[c * numberOfStates + index] = 1.0;
+            }
+            return table;
+        }
+
+        private String[] readWords() throws IOException, IFException
+        {
+            expectSymbol('(');
+            ArrayList<String> words = new ArrayList<>();
+            while (!isSymbol(')'))
+            {
+                words.add(expectWord());
+            }
+            next();
+            return words.toArray(new String[words.size()]);
+        }
+
+        /**
+         * Read a nested tuple of numbers in the order written; an asterisk
+         * marks an unspecified number.
+         */
+        private double[] readTable() throws IOException, IFException
+        {
+            NumberList numbers = new NumberList(0);
+            int depth = 0;
+            do
+            {
+                if (isSymbol('('))
+                {
+                    depth++;
+                }
+                else if (isSymbol(')'))
+                {
+                    depth--;
+                }
+                else if (isSymbol('*'))
+                {
+                    numbers.add(ConvertInterchangeFormat.INVALID_VALUE);
+                }
+                else if (kind == NUMBER)
+                {
+                    numbers.add(number);
+                }
+                else
+                {
+                    throw error("number");
+                }
+                next();
+            }
+            while (depth > 0);
+            return numbers.toArray();
+        }
+
+        private ArrayList<String> readFunctionTable()
+                throws IOException, IFException
+        {
+            ArrayList<String> states = new ArrayList<>();
+            int depth = 0;
+            do
+            {
+                if (isSymbol('('))
+                {
+                    depth++;
+                }
+                else if (isSymbol(')'))
+                {
+                    depth--;
+                }
+                else if (kind == WORD)
+                {
+                    states.add(text);
+                }
+                else if (kind == NUMBER)
+                {
+                    states.add(Integer.toString((int) number));
+                }
+                else
+                {
+                    throw error("state");
+                }
+                next();
+            }
+            while (depth > 0);
+            return states;
+        }
+
+        /**
+         * Skip the rest of a statement after its first word: either an
+         * assignment or a named block.
+         */
+        private void skipStatement() throws IOException, IFException
+        {
+            if (isSymbol('='))
+            {
+                next();
+                skipValue();
+                return;
+            }
+            while (kind == WORD || kind == NUMBER || kind == STRING)
+            {
+                next();
+            }
+            if (isSymbol('{'))
+            {
+                skipGroup();
+            }
+            if (isSymbol(';'))
+            {
+                next();
+            }
+        }
+
+        /**
+         * Skip a value up to its semicolon. A value ending with a tuple may
+         * have its semicolon in a comment.
+         */
+        private void skipValue() throws IOException, IFException
+        {
+            while (!isSymbol(';') && !isSymbol('}'))
+            {
+                if (kind == EOF)
+                {
+                    throw error("';'");
+                }
+                if (isSymbol('('))
+                {
+                    skipGroup();
+                    break;
+                }
+                if (isSymbol('{'))
+                {
+                    skipGroup();
+                }
+                else
+                {
+                    next();
+                }
+            }
+            if (isSymbol(';'))
+            {
+                next();
+            }
+        }
+
+        private void skipGroup() throws IOException, IFException
+        {
+            int depth = 0;
+            do
+            {
+                if (isSymbol('(') || isSymbol('{'))
+                {
+                    depth++;
+                }
+                else if (isSymbol(')') || isSymbol('}'))
+                {
+                    depth--;
+                }
+                else if (kind == EOF)
+                {
+                    throw error("')' or '}'");
+                }
+                next();
+            }
+            while (depth > 0);
+        }
+
+        private String expectWord() throws IOException, IFException
+        {
+            if (kind != WORD)
+            {
+                throw error("name");
+            }
+            String word = text;
+            next();
+            return word;
+        }
+
+        @Override
+        void readToken(int c) throws IOException, IFException
+        {
+            if (c == '-' || c == '+')
+            {
+                position++;
+                readNumber();
+                if (c == '-')
+                {
+                    number = -number;
+                }
+            }
+            else if ((c >= '0' && c <= '9') || c == '.')
+            {
+                readNumber();
+            }
+            else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+                     c == '_' || c == '@')
+            {
+                readWord();
+            }
+            else
+            {
+                position++;
+                kind = SYMBOL;
+                symbol = (char) c;
+            }
+        }
+
+        private void readWord() throws IOException
+        {
+            stringChars.setLength(0);
+            int c;
+            while ((c = peek()) >= 0 &&
+                   ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+                    (c >= '0' && c <= '9') || c == '_' || c == '@'))
+            {
+                stringChars.append((char) c);
+                position++;
+            }
+            kind = WORD;
+            text = stringChars.toString();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Thread safe table of canonical strings for the names of networks,
+ * variables and values. Networks loaded with a shared table hold a single
+ * instance of every name, however many networks or variables use it, and
+ * equal value lists (like "true", "false") share a single array. A table
+ * lives as long as the load that uses it: BayesNet interns every network
+ * it reads in a table of its own, and NetworkCollectionLoader shares one
+ * table between the networks of a collection.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class SymbolTable
+{
+
+    private static final Class CLAZZ = SymbolTable.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final ConcurrentHashMap<String, String> symbols =
+                                                    new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<List<String>, String[]> valueLists =
+                                                    new ConcurrentHashMap<>();
+
+    /**
+     * Get the canonical instance of a string, adding the string to the table
+     * if it is not there yet.
+     *
+     * @param symbol the string, or null
+     * @return the canonical instance, or null if the string is null
+     */
+    public String intern(String symbol)
+    {
+        if (symbol == null)
+        {
+            return null;
+        }
+        String canonical = symbols.get(symbol);
+        if (canonical == null)
+        {
+            canonical = symbols.putIfAbsent(symbol, symbol);
+            if (canonical == null)
+            {
+                canonical = symbol;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Replace the strings of an array by their canonical instances.
+     *
+     * @param symbols the strings, or null
+     * @return the same array
+     */
+    public String[] intern(String symbols[])
+    {
+        if (symbols != null)
+        {
+            for (int i = 0; i < symbols.length; i++)
+            {
+                symbols[i] = intern(symbols[i]);
+            }
+        }
+        return symbols;
+    }
+
+    /**
+     * Get the canonical array for a list of values. The strings are interned
+     * and equal lists share one array, which therefore must not be modified.
+     * The canonical array and the key of the table are copies, so the array
+     * of the caller stays its own.
+     *
+     * @param values the values, or null
+     * @return the canonical array, or null if the values are null
+     */
+    public String[] internValues(String values[])
+    {
+        if (values == null)
+        {
+            return null;
+        }
+        String canonical[] = valueLists.get(Arrays.asList(values));
+        if (canonical == null)
+        {
+            String copy[] = intern(values.clone());
+            List<String> key = Arrays.asList(copy.clone());
+            canonical = valueLists.putIfAbsent(key, copy);
+            if (canonical == null)
+            {
+                canonical = copy;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Get the number of distinct strings in the table.
+     *
+     * @return the number of strings
+     */
+    public int size()
+    {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+/**
+ * Source of the values of a DiscreteFunction that are decoded on first
+ * access, for instance from a memory mapped binary network or from the
+ * tables kept by a parser. Until then the function only holds the source.
+ *
+ * @author Dieter J Kybelksties
+ */
+public interface ValueSource
+{
+
+    /**
+     * Get the number of values without decoding them.
+     *
+     * @return the number of values
+     */
+    public int numberValues();
+
+    /**
+     * Decode the values. Called at most once per function.
+     *
+     * @return a new array holding the values
+     */
+    public double[] getValues();
+}
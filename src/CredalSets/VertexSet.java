@@ -27,6 +27,7 @@ package CredalSets;
 
 import BayesianNetworks.BayesNet;
 import BayesianNetworks.DiscreteVariable;
+import BayesianNetworks.NetworkWriter;
 import BayesianNetworks.ProbabilityFunction;
 import BayesianNetworks.ProbabilityVariable;
 import java.io.PrintStream;
@@ -319,45 +320,9 @@ public final class VertexSet
     @Override
     public void print(PrintStream out)
     {
-        if (numberVariables() != BayesNet.INVALID_INDEX)
-        {
-            out.print("probability ( ");
-            for (int j = 0; j < numberVariables(); j++)
-            {
-                out.print(" \"" + getVariable(j).getName() + "\" ");
-            }
-            out.print(") {");
-            out.println(" //" + numberVariables() +
-                        " variable(s) and " + numberValues() + " values");
-            if (extremePoints != null)
-            {
-                for (double[] extremePoint : extremePoints)
-                {
-                    out.print("\ttable ");
-                    for (int j = 0; j < extremePoint.length; j++)
-                    {
-                        out.print(extremePoint[j] + " ");
-                    }
-                    out.println(";");
-                }
-                out.print(" // Values: ");
-            }
-            out.print("\ttable ");
-            for (int j = 0; j < numberValues(); j++)
-            {
-                out.print(getValue(j) + " ");
-            }
-            out.print(";");
-        }
-        out.println();
-        if ((properties != null) && (properties.size() > 0))
-        {
-            for (String property : properties)
-            {
-                out.println("\tproperty \"" + property + "\" ;");
-            }
-        }
-        out.println("}");
+        NetworkWriter writer = new NetworkWriter(out);
+        writer.writeBif(this);
+        writer.flush();
     }
 
     /**
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package InferenceServer;
+
+import BayesianInferences.CompiledModel;
+import BayesianInferences.InferenceMetrics;
+import JavaBayesInterface.BatchQueryRunner;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+
+/**
+ * An immutable snapshot of a network hosted by the InferenceServer: the
+ * parsed network together with the file it was loaded from and the
+ * modification time of that file. A reload creates a new snapshot, so
+ * requests that are already running keep working on the old one.
+ *
+ * If a compiled model of the network exists next to the file, with the
+ * file name followed by ".compiled", it is used for the queries as long as
+ * it matches the network.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class HostedNetwork
+{
+
+    private static final Class CLAZZ = HostedNetwork.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Suffix of the file name of a compiled model next to the network file.
+     */
+    public static final String COMPILED_SUFFIX = ".compiled";
+
+    private final String name;
+    private final File file;
+    private final long lastModified;
+    private final long loadedMillis;
+    private final int version;
+    private final BatchQueryRunner runner;
+
+    /**
+     * Load a network from a file.
+     *
+     * @param name    name under which the network is hosted
+     * @param file    file describing the network
+     * @param version version number of the snapshot
+     * @param metrics metrics registry for the queries, or null for none
+     * @throws Exception if the file cannot be read or parsed
+     */
+    public HostedNetwork(String name,
+                         File file,
+                         int version,
+                         InferenceMetrics metrics) throws Exception
+    {
+        this.name = name;
+        this.file = file;
+        // Take the time stamp first, so a write during loading is not missed
+        this.lastModified = file.lastModified();
+        this.runner = new BatchQueryRunner(Files.readAllBytes(file.toPath()));
+        this.runner.setMetrics(metrics);
+        File compiledFile = new File(file.getPath() + COMPILED_SUFFIX);
+        if (compiledFile.exists())
+        {
+            try
+            {
+                runner.setCompiledModel(
+                        CompiledModel.load(compiledFile, runner.getNetwork()));
+            }
+            catch (IOException ex)
+            {
+                LOGGER.warning(compiledFile + " not used: " + ex.getMessage());
+            }
+        }
+        this.loadedMillis = System.currentTimeMillis();
+        this.version = version;
+    }
+
+    /**
+     * Get the name under which the network is hosted.
+     *
+     * @return the name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Get the file the network was loaded from.
+     *
+     * @return the file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Get the modification time of the file when it was loaded.
+     *
+     * @return the modification time in milliseconds
+     */
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * Get the time when the network was loaded.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getLoadedMillis()
+    {
+        return loadedMillis;
+    }
+
+    /**
+     * Get the version of the snapshot, counting reloads from 1.
+     *
+     * @return the version
+     */
+    public int getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Check whether the file has been modified since it was loaded.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isStale()
+    {
+        return file.lastModified() != lastModified;
+    }
+
+    /**
+     * Get the runner that answers queries against the network.
+     *
+     * @return the runner
+     */
+    public BatchQueryRunner getRunner()
+    {
+        return runner;
+    }
+}
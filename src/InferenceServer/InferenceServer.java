@@ -0,0 +1,714 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package InferenceServer;
+
+import BayesianInferences.InferenceMetrics;
+import JavaBayesInterface.BatchQueryRunner;
+import JavaBayesInterface.Json;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight HTTP inference server that hosts several networks.
+ *
+ * Endpoints:
+ * <ul>
+ * <li>POST /networks/{name}/query: the body holds one query case per line in
+ * the JSON format of the BatchQueryRunner; the response holds one JSON result
+ * per line in the same order.</li>
+ * <li>GET /networks: the hosted networks with file, version and load
+ * time.</li>
+ * <li>GET /metrics: inference and request metrics in the Prometheus text
+ * format.</li>
+ * <li>GET /health: liveness check.</li>
+ * </ul>
+ * The server listens on the loopback interface unless another bind address
+ * is set, as it does not authenticate its clients, and it refuses request
+ * bodies larger than the configured limit with status 413.
+ *
+ * Requests are served concurrently by a thread pool. The network files are
+ * polled for modifications and a changed network is parsed in the background
+ * and then swapped in atomically; requests already running finish on the old
+ * snapshot, and a file that fails to parse leaves the old snapshot in place.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class InferenceServer
+{
+
+    private static final Class CLAZZ = InferenceServer.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Default interval for polling the network files in milliseconds.
+     */
+    public static final long DEFAULT_RELOAD_MILLIS = 2000L;
+
+    /**
+     * Default limit of the size of a request body in bytes.
+     */
+    public static final int DEFAULT_MAX_BODY_BYTES = 1 << 20;
+
+    private final ConcurrentMap<String, HostedNetwork> networks =
+            new ConcurrentHashMap<>();
+    // Modification times of files that failed to load, to retry only when
+    // they change again
+    private final ConcurrentMap<String, Long> failedModifications =
+                                              new ConcurrentHashMap<>();
+    private final InferenceMetrics metrics = new InferenceMetrics();
+    private final int port;
+    private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+    private int numberOfThreads;
+    private long reloadMillis = DEFAULT_RELOAD_MILLIS;
+    private int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+    private ScheduledExecutorService reloader;
+
+    /**
+     * Constructor for an InferenceServer.
+     *
+     * @param port the port to listen on, 0 for any free port
+     */
+    public InferenceServer(int port)
+    {
+        this.port = port;
+        this.numberOfThreads = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get the address the server listens on.
+     *
+     * @return the bind address
+     */
+    public InetAddress getBindAddress()
+    {
+        return bindAddress;
+    }
+
+    /**
+     * Set the address to listen on; must be called before start(). The
+     * default is the loopback address. The server does not authenticate its
+     * clients, so it should only be bound to other interfaces behind a
+     * proxy that does.
+     *
+     * @param bindAddress the address, or the wildcard address for all
+     *                    interfaces
+     */
+    public void setBindAddress(InetAddress bindAddress)
+    {
+        if (bindAddress == null)
+        {
+            throw new IllegalArgumentException("Bind address must be given");
+        }
+        this.bindAddress = bindAddress;
+    }
+
+    /**
+     * Set the limit of the size of a request body; larger requests are
+     * refused with status 413.
+     *
+     * @param maxBodyBytes the limit in bytes, at least 1
+     */
+    public void setMaxBodyBytes(int maxBodyBytes)
+    {
+        if (maxBodyBytes < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Body size limit must be positive");
+        }
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Set the number of threads that serve requests; must be called before
+     * start().
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Set the interval for polling the network files; must be called before
+     * start().
+     *
+     * @param reloadMillis the interval in milliseconds, 0 to switch hot reload
+     *                     off
+     */
+    public void setReloadMillis(long reloadMillis)
+    {
+        if (reloadMillis < 0L)
+        {
+            throw new IllegalArgumentException(
+                    "Reload interval must not be negative");
+        }
+        this.reloadMillis = reloadMillis;
+    }
+
+    /**
+     * Get the metrics registry of the server.
+     *
+     * @return the metrics registry
+     */
+    public InferenceMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Load a network and host it under a name, replacing any network hosted
+     * under that name.
+     *
+     * @param name name under which the network is hosted
+     * @param file file describing the network
+     * @throws Exception if the file cannot be read or parsed
+     */
+    public void addNetwork(String name, File file) throws Exception
+    {
+        HostedNetwork previous = networks.get(name);
+        int version = previous == null ? 1 : previous.getVersion() + 1;
+        networks.put(name, new HostedNetwork(name, file, version, metrics));
+    }
+
+    /**
+     * Stop hosting a network.
+     *
+     * @param name name under which the network is hosted
+     * @return true if the network was hosted, false otherwise
+     */
+    public boolean removeNetwork(String name)
+    {
+        return networks.remove(name) != null;
+    }
+
+    /**
+     * Get the current snapshot of a hosted network.
+     *
+     * @param name name under which the network is hosted
+     * @return the snapshot or null
+     */
+    public HostedNetwork getNetwork(String name)
+    {
+        return networks.get(name);
+    }
+
+    /**
+     * Reload all networks whose files have been modified. A snapshot is only
+     * replaced if it has not been replaced concurrently.
+     *
+     * @return the number of networks reloaded
+     */
+    public int reloadModified()
+    {
+        int reloaded = 0;
+        for (HostedNetwork current : networks.values())
+        {
+            long modified = current.getFile().lastModified();
+            Long failed = failedModifications.get(current.getName());
+            if (!current.isStale() ||
+                (failed != null && failed == modified))
+            {
+                continue;
+            }
+            try
+            {
+                HostedNetwork next = new HostedNetwork(current.getName(),
+                                                       current.getFile(),
+                                                       current.getVersion() +
+                                                       1,
+                                                       metrics);
+                if (networks.replace(current.getName(), current, next))
+                {
+                    failedModifications.remove(current.getName());
+                    reloaded++;
+                    metrics.counter("network_reloads_total").incrementAndGet();
+                    LOGGER.log(Level.INFO,
+                               "Reloaded network {0} version {1}",
+                               new Object[]
+                               {
+                                   next.getName(), next.getVersion()
+                    });
+                }
+            }
+            catch (Exception ex)
+            {
+                failedModifications.put(current.getName(), modified);
+                metrics.counter("network_reload_failures_total").
+                        incrementAndGet();
+                LOGGER.log(Level.WARNING,
+                           "Keeping network {0}: reload failed: {1}",
+                           new Object[]
+                           {
+                               current.getName(), ex.getMessage()
+                });
+            }
+        }
+        return reloaded;
+    }
+
+    /**
+     * Start listening for requests.
+     *
+     * @throws IOException if the server socket cannot be opened
+     */
+    public void start() throws IOException
+    {
+        httpServer = HttpServer.create(new InetSocketAddress(bindAddress, port),
+                                       0);
+        executor = Executors.newFixedThreadPool(numberOfThreads);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/networks", new NetworksHandler());
+        httpServer.createContext("/metrics", new MetricsHandler());
+        httpServer.createContext("/health", new HealthHandler());
+        httpServer.start();
+        if (reloadMillis > 0L)
+        {
+            reloader = Executors.newSingleThreadScheduledExecutor();
+            reloader.scheduleWithFixedDelay(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    reloadModified();
+                }
+            }, reloadMillis, reloadMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return the port, or the configured port if the server is not started
+     */
+    public int getPort()
+    {
+        return httpServer == null ?
+               port :
+               httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stop the server, waiting at most the given time for running requests.
+     *
+     * @param delaySeconds the maximum time to wait in seconds
+     */
+    public void stop(int delaySeconds)
+    {
+        if (reloader != null)
+        {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+        if (httpServer != null)
+        {
+            httpServer.stop(delaySeconds);
+            httpServer = null;
+        }
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Answer all query cases in a request body.
+     *
+     * @param network the network snapshot
+     * @param body    the request body, one JSON case per line
+     * @return the response body, one JSON result per line
+     */
+    String answer(HostedNetwork network, String body)
+    {
+        StringBuilder response = new StringBuilder();
+        BatchQueryRunner runner = network.getRunner();
+        for (String line : body.split("\n"))
+        {
+            if (line.trim().isEmpty())
+            {
+                continue;
+            }
+            response.append(runner.answer(
+                    BatchQueryRunner.QueryCase.fromJson(line))).append('\n');
+        }
+        return response.toString();
+    }
+
+    private static void send(HttpExchange exchange,
+                             int status,
+                             String contentType,
+                             String body) throws IOException
+    {
+        byte bytes[] = body.getBytes(UTF8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange,
+                                  int status,
+                                  String message) throws IOException
+    {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", message);
+        send(exchange,
+             status,
+             "application/json",
+             Json.toString(error) + "\n");
+    }
+
+    /**
+     * Read the body of a request up to the size limit.
+     *
+     * @return the body, or null if it is larger than the limit
+     */
+    private String readBody(HttpExchange exchange) throws IOException
+    {
+        String length = exchange.getRequestHeaders().
+                getFirst("Content-Length");
+        try
+        {
+            if (length != null && Long.parseLong(length.trim()) > maxBodyBytes)
+            {
+                return null;
+            }
+        }
+        catch (NumberFormatException ex)
+        {
+            // The length of the stream is checked while reading
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte buffer[] = new byte[8192];
+        try (InputStream in = exchange.getRequestBody())
+        {
+            int n;
+            while ((n = in.read(buffer)) > 0)
+            {
+                if (bytes.size() + n > maxBodyBytes)
+                {
+                    return null;
+                }
+                bytes.write(buffer, 0, n);
+            }
+        }
+        return new String(bytes.toByteArray(), UTF8);
+    }
+
+    /**
+     * Handler for /networks and /networks/{name}/query.
+     */
+    private class NetworksHandler implements HttpHandler
+    {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            long start = System.nanoTime();
+            String path = exchange.getRequestURI().getPath();
+            String parts[] = path.substring(1).split("/");
+            String networkName = parts.length > 1 ? parts[1] : "";
+            int status = 200;
+            try
+            {
+                if (parts.length <= 1)
+                {
+                    if (!exchange.getRequestMethod().equals("GET"))
+                    {
+                        status = 405;
+                        sendError(exchange, status, "GET expected");
+                        return;
+                    }
+                    send(exchange,
+                         status,
+                         "application/json",
+                         Json.toString(listNetworks()) + "\n");
+                    return;
+                }
+                HostedNetwork network = networks.get(networkName);
+                if (network == null)
+                {
+                    status = 404;
+                    sendError(exchange,
+                              status,
+                              "Unknown network " + networkName);
+                    return;
+                }
+                if (parts.length != 3 || !parts[2].equals("query"))
+                {
+                    status = 404;
+                    sendError(exchange, status, "Unknown resource " + path);
+                    return;
+                }
+                if (!exchange.getRequestMethod().equals("POST"))
+                {
+                    status = 405;
+                    sendError(exchange, status, "POST expected");
+                    return;
+                }
+                String body = readBody(exchange);
+                if (body == null)
+                {
+                    status = 413;
+                    sendError(exchange,
+                              status,
+                              "Request body larger than " + maxBodyBytes +
+                              " bytes");
+                    return;
+                }
+                send(exchange,
+                     status,
+                     "application/x-ndjson",
+                     answer(network, body));
+            }
+            finally
+            {
+                exchange.close();
+                if (parts.length > 2)
+                {
+                    // Requests for names that are not hosted share one
+                    // label, so that clients cannot add series at will
+                    String label = networks.containsKey(networkName) ?
+                                   InferenceMetrics.escapeLabelValue(
+                                           networkName) :
+                                   "unknown";
+                    metrics.counter("http_requests_total{network=\"" +
+                                    label + "\",status=\"" + status +
+                                    "\"}").incrementAndGet();
+                    metrics.histogram("http_request_latency_micros{network=\"" +
+                                      label + "\"}",
+                                      InferenceMetrics.LATENCY_BOUNDS_MICROS).
+                            record((System.nanoTime() - start) / 1000L);
+                }
+            }
+        }
+
+        private List<Object> listNetworks()
+        {
+            List<Object> list = new ArrayList<>();
+            for (HostedNetwork network :
+                 new TreeMap<>(networks).values())
+            {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("name", network.getName());
+                entry.put("file", network.getFile().getPath());
+                entry.put("version", network.getVersion());
+                entry.put("loaded", network.getLoadedMillis());
+                entry.put("variables",
+                          network.getRunner().getNetwork().numberVariables());
+                list.add(entry);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Handler for /metrics.
+     */
+    private class MetricsHandler implements HttpHandler
+    {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (PrintStream out = new PrintStream(bytes, false, "UTF-8"))
+            {
+                metrics.writePrometheus(out);
+            }
+            send(exchange,
+                 200,
+                 "text/plain; version=0.0.4",
+                 new String(bytes.toByteArray(), UTF8));
+        }
+    }
+
+    /**
+     * Handler for /health.
+     */
+    private class HealthHandler implements HttpHandler
+    {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            send(exchange, 200, "text/plain", "ok\n");
+        }
+    }
+
+    /**
+     * Resolve the bind address given on the command line.
+     *
+     * @param host host name or address
+     * @return the address
+     */
+    private static InetAddress bindAddress(String host)
+    {
+        try
+        {
+            return InetAddress.getByName(host);
+        }
+        catch (UnknownHostException ex)
+        {
+            throw new IllegalArgumentException("Unknown bind address " + host);
+        }
+    }
+
+    /**
+     * Main method of the inference server.
+     *
+     * @param argv [--bind address] [--port n] [--threads n]
+     *             [--reload-millis n] [--max-body-bytes n] followed by
+     *             networks given as name=file or file
+     */
+    public static void main(String argv[])
+    {
+        InferenceServer server;
+        try
+        {
+            InetAddress bind = InetAddress.getLoopbackAddress();
+            int port = 8080;
+            int threads = 0;
+            long reload = DEFAULT_RELOAD_MILLIS;
+            int maxBody = DEFAULT_MAX_BODY_BYTES;
+            List<String> networkArgs = new ArrayList<>();
+            for (int i = 0; i < argv.length; i++)
+            {
+                switch (argv[i])
+                {
+                    case "--bind":
+                        bind = bindAddress(argv[++i]);
+                        break;
+                    case "--port":
+                        port = Integer.parseInt(argv[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(argv[++i]);
+                        break;
+                    case "--reload-millis":
+                        reload = Long.parseLong(argv[++i]);
+                        break;
+                    case "--max-body-bytes":
+                        maxBody = Integer.parseInt(argv[++i]);
+                        break;
+                    default:
+                        if (argv[i].startsWith("--"))
+                        {
+                            throw new IllegalArgumentException(
+                                    "Unknown argument " + argv[i]);
+                        }
+                        networkArgs.add(argv[i]);
+                }
+            }
+            if (networkArgs.isEmpty())
+            {
+                throw new IllegalArgumentException("No network given");
+            }
+            server = new InferenceServer(port);
+            server.setBindAddress(bind);
+            server.setMaxBodyBytes(maxBody);
+            if (threads > 0)
+            {
+                server.setNumberOfThreads(threads);
+            }
+            server.setReloadMillis(reload);
+            for (String arg : networkArgs)
+            {
+                int eq = arg.indexOf('=');
+                File file = new File(eq < 0 ? arg : arg.substring(eq + 1));
+                String name = eq < 0 ? file.getName() : arg.substring(0, eq);
+                if (eq < 0 && name.lastIndexOf('.') > 0)
+                {
+                    name = name.substring(0, name.lastIndexOf('.'));
+                }
+                server.addNetwork(name, file);
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            System.err.println(ex.getMessage() == null ?
+                               "Missing argument" :
+                               ex.getMessage());
+            System.err.println(
+                    "Usage: JavaBayes --server [--bind address] [--port n] " +
+                    "[--threads n] [--reload-millis n] " +
+                    "[--max-body-bytes n] [name=]file ...");
+            System.exit(1);
+            return;
+        }
+        catch (Exception ex)
+        {
+            System.err.println("Cannot load network: " + ex);
+            System.exit(1);
+            return;
+        }
+        try
+        {
+            server.start();
+            System.err.println("Inference server listening on " +
+                               server.getBindAddress().getHostAddress() +
+                               " port " + server.getPort());
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Cannot start server: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+}
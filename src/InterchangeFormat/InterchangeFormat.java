@@ -26,8 +26,14 @@
 package InterchangeFormat;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 /**
  * @author Fabio G. Cozman
@@ -39,9 +45,16 @@ public class InterchangeFormat
     private static final String CLASS_NAME = CLAZZ.getName();
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
 
-    // Size of the buffer for reading and resetting streams
-    private static final int MARK_READ_LIMIT = 10000;
+    // Number of bytes inspected to detect the format of a stream
+    private static final int SNIFF_LIMIT = 4096;
+    // Tags found only in XMLBIF 0.3
+    private static final Pattern XMLBIF_03_TAG =
+                                 Pattern.compile(
+                                         "<BIF\\s[^>]*VERSION\\s*=\\s*" +
+                                         "[\"']0\\.3[\"']|" +
+                                         "<VARIABLE\\s+TYPE\\s*=");
     InputStream istream;
+    Format format = Format.UNKNOWN;
     Parsers.XMLBIFv03.XMLBIFv03 xmlBif03;
     Parsers.XMLBIFv02.XMLBIFv02 xmlBif02;
     Parsers.BIFv015.BIFv015 bif015;
@@ -61,6 +74,7 @@ public class InterchangeFormat
      */
     public InterchangeFormat(InterchangeFormat rhs)
     {
+        format = rhs.format;
         xmlBif03 = rhs.xmlBif03;
         xmlBif02 = rhs.xmlBif02;
         bif015 = rhs.bif015;
@@ -87,104 +101,300 @@ public class InterchangeFormat
         istream = new BufferedInputStream(is);
     }
 
+    /**
+     * Get the format of the last parsed stream.
+     *
+     * @return the format, or UNKNOWN if nothing has been parsed successfully
+     */
+    public Format getFormat()
+    {
+        return format;
+    }
+
     /**
      * Starting point of a parse. Call this to parse the input stream into a
      * Bayes net in interchange format.
      *
+     * The format is detected from the head of the stream and the stream is
+     * parsed once by the matching parser. Only if the head is inconclusive,
+     * or the matching parser fails, is the stream read into memory and tried
+     * with each parser in turn.
+     *
      * @throws Exception if parse error occurs
      */
     public void CompilationUnit() throws Exception
     {
-        StringBuffer errorMessages = new StringBuffer("Error messages\n");
         xmlBif03 = null;
         xmlBif02 = null;
         bif015 = null;
         bif01 = null;
 
-        if (istream.markSupported())
+        Format detected = detectFormat(istream);
+        if (detected == Format.UNKNOWN)
         {
-            istream.mark(MARK_READ_LIMIT);
+            trialParse(null, "");
+            return;
         }
-        else
+        // Keep what the parser reads, so that the stream can be tried again
+        istream.mark(Integer.MAX_VALUE);
+        try
         {
-            errorMessages.append("\nNo support for reset operation.");
+            // The parsers close their stream when they are done
+            parse(detected, new FilterInputStream(istream)
+            {
+                @Override
+                public void close()
+                {
+                }
+            });
         }
+        catch (Throwable e)
+        { // Catch anything!
+            xmlBif03 = null;
+            xmlBif02 = null;
+            bif015 = null;
+            bif01 = null;
+            format = Format.UNKNOWN;
+            istream.reset();
+            trialParse(detected,
+                       "Detected format " + detected + ": " + e + "\n");
+        }
+    }
 
-        try
+    /**
+     * Detect the format from the head of a stream and reset the stream.
+     *
+     * @param istream a stream that supports mark and reset
+     * @return the format, or UNKNOWN if the head is inconclusive
+     * @throws IOException if the stream cannot be read
+     */
+    public static Format detectFormat(InputStream istream) throws IOException
+    {
+        byte head[] = new byte[SNIFF_LIMIT];
+        int length = 0;
+        istream.mark(SNIFF_LIMIT);
+        int n;
+        while (length < head.length &&
+               (n = istream.read(head, length, head.length - length)) > 0)
         {
-            xmlBif03 = new Parsers.XMLBIFv03.XMLBIFv03(istream);
-            xmlBif03.CompilationUnit();
-            xmlBif03.invertProbabilityTables();
-            return;
+            length += n;
         }
-        catch (Throwable e4)
-        { // Catch anything!
-            errorMessages.append(e4);
-            try
+        istream.reset();
+        return detectFormat(head, length);
+    }
+
+    /**
+     * Detect the format of a network description from its first bytes.
+     * XMLBIF is recognised by the XML declaration; it is version 0.3 if the
+     * BIF tag has a VERSION="0.3" attribute or a VARIABLE tag has a TYPE
+     * attribute, and version 0.2 otherwise. BIF is recognised by the network
+     * declaration,
+     * whose name is quoted in version 0.15 and a bare word in version 0.1;
+     * Netica DNET is recognised by the bnet declaration.
+     *
+     * @param head   the first bytes of the description
+     * @param length the number of valid bytes in head
+     * @return the format, or UNKNOWN if the bytes are inconclusive
+     */
+    public static Format detectFormat(byte head[], int length)
+    {
+        String text = new String(head, 0, length, StandardCharsets.ISO_8859_1);
+        int pos = 0;
+        // Skip a UTF-8 byte order mark and white space
+        if (text.startsWith("\u00ef\u00bb\u00bf"))
+        {
+            pos = 3;
+        }
+        pos = skipWhitespace(text, pos);
+        if (text.regionMatches(true, pos, "<?xml", 0, "<?xml".length()))
+        {
+            return XMLBIF_03_TAG.matcher(text).find() ?
+                   Format.XMLBIF_03 :
+                   Format.XMLBIF_02;
+        }
+        if (text.startsWith("<", pos))
+        {
+            return Format.UNKNOWN;
+        }
+        // BIF: find the network keyword outside of comments
+        while (pos < text.length())
+        {
+            pos = skipWhitespaceAndComments(text, pos);
+            if (pos < 0)
             {
-                istream.reset();
+                return Format.UNKNOWN;
             }
-            catch (Exception e)
+            if (text.startsWith("bnet", pos) &&
+                !isWordCharacter(text, pos + "bnet".length()))
             {
-                errorMessages.append("\n\nReset not allowed!");
+                return Format.DNET;
             }
-            errorMessages.append("Input stream reset!\n");
-            xmlBif03 = null;
+            if (text.startsWith("network", pos) &&
+                !isWordCharacter(text, pos + "network".length()))
+            {
+                pos = skipWhitespaceAndComments(text,
+                                                pos + "network".length());
+                if (pos < 0 || pos >= text.length())
+                {
+                    return Format.UNKNOWN;
+                }
+                if (text.charAt(pos) == '"')
+                {
+                    return Format.BIF_015;
+                }
+                return isWordCharacter(text, pos) ?
+                       Format.BIF_01 :
+                       Format.UNKNOWN;
+            }
+            // Skip the word or character in front of the network keyword
+            int end = pos;
+            while (isWordCharacter(text, end))
+            {
+                end++;
+            }
+            pos = end == pos ? pos + 1 : end;
         }
+        return Format.UNKNOWN;
+    }
 
-        try
+    private static boolean isWordCharacter(String text, int pos)
+    {
+        if (pos >= text.length())
         {
-            xmlBif02 = new Parsers.XMLBIFv02.XMLBIFv02(istream);
-            xmlBif02.CompilationUnit();
-            return;
+            return false;
         }
-        catch (Throwable e3)
-        { // Catch anything!
-            errorMessages.append(e3);
-            try
+        char c = text.charAt(pos);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+    }
+
+    private static int skipWhitespace(String text, int pos)
+    {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+        {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Skip white space and comments.
+     *
+     * @return the position after them, or -1 if a comment is not closed
+     *         within the text
+     */
+    private static int skipWhitespaceAndComments(String text, int pos)
+    {
+        while (true)
+        {
+            pos = skipWhitespace(text, pos);
+            if (text.startsWith("//", pos))
             {
-                istream.reset();
+                int end = text.indexOf('\n', pos);
+                if (end < 0)
+                {
+                    return -1;
+                }
+                pos = end + 1;
             }
-            catch (Exception e)
+            else if (text.startsWith("/*", pos))
             {
-                errorMessages.append("\n\nReset not allowed!");
+                int end = text.indexOf("*/", pos + 2);
+                if (end < 0)
+                {
+                    return -1;
+                }
+                pos = end + 2;
+            }
+            else
+            {
+                return pos;
             }
-            errorMessages.append("Input stream reset!\n");
-            xmlBif02 = null;
         }
+    }
 
-        try
+    /**
+     * Parse a stream with the parser of a given format.
+     *
+     * @param fmt the format
+     * @param is  the input stream
+     * @throws Exception if parse error occurs
+     */
+    private void parse(Format fmt, InputStream is) throws Exception
+    {
+        switch (fmt)
         {
-            bif015 = new Parsers.BIFv015.BIFv015(istream);
-            bif015.CompilationUnit();
-            return;
+            case XMLBIF_03:
+                xmlBif03 = new Parsers.XMLBIFv03.XMLBIFv03(is);
+                xmlBif03.CompilationUnit();
+                xmlBif03.invertProbabilityTables();
+                break;
+            case XMLBIF_02:
+                xmlBif02 = new Parsers.XMLBIFv02.XMLBIFv02(is);
+                xmlBif02.CompilationUnit();
+                break;
+            case BIF_015:
+                bif015 = new Parsers.BIFv015.BIFv015(is);
+                bif015.CompilationUnit();
+                break;
+            case BIF_01:
+                bif01 = new Parsers.BIFv01.BIFv01(is);
+                bif01.CompilationUnit();
+                break;
+            default:
+                throw new IFException("No parser for format " + fmt);
         }
-        catch (Throwable e2)
-        { // Catch anything!
-            errorMessages.append(e2);
-            try
+        format = fmt;
+    }
+
+    /**
+     * Read the whole stream into memory and try all parsers in turn, newest
+     * format first.
+     *
+     * @param failed        a format whose parser has already failed on the
+     *                      stream and is not tried again, or null
+     * @param errorMessages the errors found so far
+     * @throws Exception if no parser accepts the stream
+     */
+    private void trialParse(Format failed, String errorMessages)
+            throws Exception
+    {
+        StringBuilder errors = new StringBuilder("Error messages\n");
+        errors.append(errorMessages);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte buffer[] = new byte[8192];
+        int n;
+        while ((n = istream.read(buffer)) > 0)
+        {
+            content.write(buffer, 0, n);
+        }
+        byte bytes[] = content.toByteArray();
+
+        Format candidates[] =
+        {
+            Format.XMLBIF_03, Format.XMLBIF_02, Format.BIF_015, Format.BIF_01
+        };
+        for (Format candidate : candidates)
+        {
+            if (candidate == failed)
             {
-                istream.reset();
+                continue;
             }
-            catch (Exception e)
+            try
             {
-                errorMessages.append("\n\nReset not allowed!");
+                parse(candidate, new ByteArrayInputStream(bytes));
+                return;
+            }
+            catch (Throwable e)
+            { // Catch anything!
+                errors.append(e).append('\n');
+                xmlBif03 = null;
+                xmlBif02 = null;
+                bif015 = null;
+                bif01 = null;
             }
-            errorMessages.append("Input stream reset!\n");
-            bif015 = null;
-        }
-        // Note that the following lines are within an enclosing catch block.
-        try
-        {
-            bif01 = new Parsers.BIFv01.BIFv01(istream);
-            bif01.CompilationUnit();
-        }
-        catch (Throwable e1)
-        { // Catch anything!
-            errorMessages.append(e1);
-            bif01 = null;
-            throw new IFException(new String(errorMessages));
         }
+        format = Format.UNKNOWN;
+        throw new IFException(errors.toString());
     }
 
     /**
@@ -206,10 +416,42 @@ public class InterchangeFormat
         {
             return bif015.getBayesNetFromInterchangeFmt();
         }
-        if (bif01 != null && bif015.getBayesNetFromInterchangeFmt() != null)
+        if (bif01 != null && bif01.getBayesNetFromInterchangeFmt() != null)
         {
             return bif01.getBayesNetFromInterchangeFmt();
         }
         return null;
     }
+
+    /**
+     * Formats of network descriptions understood by the parsers.
+     */
+    public enum Format
+    {
+
+        /**
+         * XMLBIF version 0.3.
+         */
+        XMLBIF_03,
+        /**
+         * XMLBIF version 0.2.
+         */
+        XMLBIF_02,
+        /**
+         * BIF version 0.15, with quoted names.
+         */
+        BIF_015,
+        /**
+         * BIF version 0.1, with names as bare words.
+         */
+        BIF_01,
+        /**
+         * Netica DNET, read by the StreamingNetworkLoader only.
+         */
+        DNET,
+        /**
+         * Format not (yet) known.
+         */
+        UNKNOWN
+    }
 }
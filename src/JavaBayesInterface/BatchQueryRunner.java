@@ -0,0 +1,1034 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package JavaBayesInterface;
+
+import BayesianInferences.CompiledModel;
+import BayesianInferences.Explanation;
+import BayesianInferences.ExplanationType;
+import BayesianInferences.ExpectationResult;
+import BayesianInferences.ExplanationResult;
+import BayesianInferences.InferenceMetrics;
+import BayesianInferences.MarginalResult;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import QuasiBayesianInferences.QBExpectation;
+import QuasiBayesianInferences.QBInference;
+import QuasiBayesianNetworks.QuasiBayesNet;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Headless runner that answers a stream of query cases against one network.
+ *
+ * The network file is read once; each case borrows a copy of the network
+ * parsed from the cached description, because evidence is stored in the
+ * variables of a network and queries with different evidence must not share
+ * one. Copies are returned to a pool of the runner after the case, so there
+ * are never more copies than cases answered at the same time, and they are
+ * released together with the runner rather than held by the threads.
+ * Cases are read line by line from CSV or JSON lines, answered in parallel
+ * and the results are written as JSON lines in the order of the input.
+ *
+ * A JSON case looks like
+ * <pre>
+ * {"id": 7, "type": "marginal", "evidence": {"A": "true"}, "query": ["B"]}
+ * </pre>
+ * where type is one of marginal, expectation, explanation or
+ * full-explanation and all fields are optional. A CSV input starts with a
+ * header of variable names and optional id and type columns; a cell holds
+ * the observed value, "?" to query the variable, or is empty or "*" if the
+ * variable is neither observed nor queried. Without query variables,
+ * marginals and expectations are computed for all variables that are not
+ * observed, and explanations use the explanation variables of the network.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class BatchQueryRunner
+{
+
+    private static final Class CLAZZ = BatchQueryRunner.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final byte networkDescription[];
+    private final QuasiBayesNet network;
+    private final int originalObserved[];
+    private final int originalExplanation[];
+    private final ConcurrentLinkedQueue<QuasiBayesNet> idleNetworks =
+                                                 new ConcurrentLinkedQueue<>();
+    private int numberOfThreads;
+    private ExplanationType defaultType = ExplanationType.MARGINAL_POSTERIOR;
+    private InferenceMetrics metrics;
+    private CompiledModel compiledModel;
+
+    /**
+     * Constructor for a BatchQueryRunner that reads the network from a file.
+     *
+     * @param filename name of the file describing the network
+     * @throws Exception if the file cannot be read or parsed
+     */
+    public BatchQueryRunner(String filename) throws Exception
+    {
+        this(Files.readAllBytes(Paths.get(filename)));
+    }
+
+    /**
+     * Constructor for a BatchQueryRunner.
+     *
+     * @param networkDescription the network in any of the interchange formats
+     * @throws Exception if the description cannot be parsed
+     */
+    public BatchQueryRunner(byte networkDescription[]) throws Exception
+    {
+        this.networkDescription = networkDescription.clone();
+        this.network = parseNetwork();
+        int n = network.numberVariables();
+        originalObserved = new int[n];
+        originalExplanation = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            ProbabilityVariable probVar = network.getProbabilityVariable(i);
+            originalObserved[i] = probVar.getObservedIndex();
+            originalExplanation[i] = probVar.getExplanationIndex();
+        }
+        numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    private QuasiBayesNet parseNetwork() throws Exception
+    {
+        return new QuasiBayesNet(new ByteArrayInputStream(networkDescription));
+    }
+
+    /**
+     * Get the network the queries are run against. The network must not be
+     * modified.
+     *
+     * @return the network
+     */
+    public BayesNet getNetwork()
+    {
+        return network;
+    }
+
+    /**
+     * Get the number of worker threads.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of worker threads.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Set the query type of cases that do not specify one.
+     *
+     * @param defaultType MARGINAL_POSTERIOR, EXPECTATION,
+     *                    MARKED_VARIABLES_ONLY or ALL_NOT_OBSERVED_VARIABLES
+     */
+    public void setDefaultType(ExplanationType defaultType)
+    {
+        this.defaultType = defaultType;
+    }
+
+    /**
+     * Set the metrics registry that receives the profiles of all queries.
+     *
+     * @param metrics the metrics registry, or null for none
+     */
+    public void setMetrics(InferenceMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Get the compiled model used for the queries.
+     *
+     * @return the compiled model, or null for none
+     */
+    public CompiledModel getCompiledModel()
+    {
+        return compiledModel;
+    }
+
+    /**
+     * Set a compiled model of the network. Marginal queries without evidence
+     * are answered from it directly, all other marginal queries use its
+     * elimination orders where they are valid.
+     *
+     * @param compiledModel the compiled model, or null for none
+     * @throws IllegalArgumentException if the model was compiled from a
+     *                                  different network
+     */
+    public void setCompiledModel(CompiledModel compiledModel)
+    {
+        if (compiledModel != null && !compiledModel.matches(network))
+        {
+            throw new IllegalArgumentException(
+                    "Compiled model does not match network " +
+                    network.getName());
+        }
+        this.compiledModel = compiledModel;
+    }
+
+    /**
+     * Compile the network and use the result for the queries.
+     *
+     * @return the compiled model
+     */
+    public CompiledModel compile()
+    {
+        compiledModel = CompiledModel.compile(new QBInference(network, true));
+        return compiledModel;
+    }
+
+    /**
+     * Use the compiled model saved in a file, or compile the network and save
+     * the result in the file if it does not exist or belongs to a different
+     * version of the network.
+     *
+     * @param file the file of the compiled model
+     * @throws IOException if the compiled model cannot be saved
+     */
+    public void useCompiledModel(File file) throws IOException
+    {
+        if (file.exists())
+        {
+            try
+            {
+                compiledModel = CompiledModel.load(file, network);
+                return;
+            }
+            catch (IOException ex)
+            {
+                LOGGER.warning(file + ": " + ex.getMessage() +
+                               "; compiling again");
+            }
+        }
+        compile().save(file);
+    }
+
+    /**
+     * Convert the name of a query type as used in cases into the
+     * corresponding ExplanationType.
+     *
+     * @param name marginal, expectation, explanation or full-explanation
+     * @return the type
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static ExplanationType parseType(String name)
+    {
+        switch (name.toLowerCase())
+        {
+            case "marginal":
+                return ExplanationType.MARGINAL_POSTERIOR;
+            case "expectation":
+                return ExplanationType.EXPECTATION;
+            case "explanation":
+                return ExplanationType.MARKED_VARIABLES_ONLY;
+            case "full-explanation":
+                return ExplanationType.ALL_NOT_OBSERVED_VARIABLES;
+            default:
+                throw new IllegalArgumentException("Unknown query type " +
+                                                   name);
+        }
+    }
+
+    private static String typeName(ExplanationType type)
+    {
+        switch (type)
+        {
+            case EXPECTATION:
+                return "expectation";
+            case MARKED_VARIABLES_ONLY:
+                return "explanation";
+            case ALL_NOT_OBSERVED_VARIABLES:
+                return "full-explanation";
+            default:
+                return "marginal";
+        }
+    }
+
+    /**
+     * Answer all cases read from a stream and write one JSON line per case in
+     * input order. Malformed cases and failed queries produce a line with an
+     * "error" field instead of stopping the run.
+     *
+     * @param in    the cases
+     * @param isCsv true if the cases are CSV, false for JSON lines
+     * @param out   output print stream for the results
+     * @return the number of cases
+     * @throws IOException          if the cases cannot be read
+     * @throws InterruptedException if the run is interrupted
+     */
+    public long run(BufferedReader in, boolean isCsv, PrintStream out)
+            throws IOException, InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                        numberOfThreads);
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        // Bound the number of cases in flight so that input is streamed
+        int window = 4 * numberOfThreads;
+        long numberOfCases = 0L;
+        try
+        {
+            String header[] = null;
+            String line;
+            while ((line = in.readLine()) != null)
+            {
+                if (line.trim().isEmpty())
+                {
+                    continue;
+                }
+                if (isCsv && header == null)
+                {
+                    header = splitCsv(line);
+                    continue;
+                }
+                final QueryCase queryCase = isCsv ?
+                                            QueryCase.fromCsv(header,
+                                                              line,
+                                                              network) :
+                                            QueryCase.fromJson(line);
+                pending.add(executor.submit(new Callable<String>()
+                {
+                    @Override
+                    public String call()
+                    {
+                        return answer(queryCase);
+                    }
+                }));
+                numberOfCases++;
+                if (pending.size() >= window)
+                {
+                    writeResult(out, pending.poll());
+                }
+            }
+            while (!pending.isEmpty())
+            {
+                writeResult(out, pending.poll());
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            out.flush();
+        }
+        return numberOfCases;
+    }
+
+    private static void writeResult(PrintStream out, Future<String> result)
+            throws InterruptedException
+    {
+        try
+        {
+            out.println(result.get());
+        }
+        catch (ExecutionException ex)
+        {
+            // answer() reports failures itself
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Answer a single case on the calling thread, using a network copy
+     * borrowed from the pool of the runner.
+     *
+     * @param queryCase the case
+     * @return the result as JSON object text
+     */
+    public String answer(QueryCase queryCase)
+    {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (queryCase.id != null)
+        {
+            result.put("id", queryCase.id);
+        }
+        ExplanationType type = queryCase.type == null ?
+                               defaultType :
+                               queryCase.type;
+        result.put("type", typeName(type));
+        QuasiBayesNet bn = null;
+        try
+        {
+            if (queryCase.error != null)
+            {
+                throw new IllegalArgumentException(queryCase.error);
+            }
+            bn = idleNetworks.poll();
+            if (bn == null)
+            {
+                bn = parseNetwork();
+            }
+            List<String> queries = prepare(bn, queryCase, type);
+            switch (type)
+            {
+                case EXPECTATION:
+                    result.put("expectations", expectations(bn, queries));
+                    break;
+                case MARKED_VARIABLES_ONLY:
+                case ALL_NOT_OBSERVED_VARIABLES:
+                    explanation(bn, type, result);
+                    break;
+                default:
+                    result.put("marginals", marginals(bn, queries));
+            }
+        }
+        catch (Exception ex)
+        {
+            result.put("error", ex.getMessage() == null ?
+                                ex.toString() :
+                                ex.getMessage());
+        }
+        finally
+        {
+            if (bn != null)
+            {
+                idleNetworks.offer(bn);
+            }
+        }
+        return Json.toString(result);
+    }
+
+    /**
+     * Restore the evidence and explanation variables of the network file and
+     * apply the evidence of the case.
+     *
+     * @return the query variables
+     */
+    private List<String> prepare(QuasiBayesNet bn,
+                                 QueryCase queryCase,
+                                 ExplanationType type)
+    {
+        for (int i = 0; i < bn.numberVariables(); i++)
+        {
+            ProbabilityVariable probVar = bn.getProbabilityVariable(i);
+            if (originalObserved[i] == BayesNet.INVALID_INDEX)
+            {
+                probVar.setInvalidObservedIndex();
+            }
+            else
+            {
+                probVar.setObservedValue(probVar.getValue(
+                        originalObserved[i]));
+            }
+            probVar.setExplanationValue(originalExplanation[i]);
+        }
+        for (Map.Entry<String, String> entry :
+             queryCase.evidence.entrySet())
+        {
+            ProbabilityVariable probVar = variable(bn, entry.getKey());
+            if (probVar.indexOfValue(entry.getValue()) ==
+                BayesNet.INVALID_INDEX)
+            {
+                throw new IllegalArgumentException("Variable " +
+                                                   entry.getKey() +
+                                                   " has no value " +
+                                                   entry.getValue());
+            }
+            probVar.setObservedValue(entry.getValue());
+        }
+        List<String> queries = new ArrayList<>();
+        for (String name : queryCase.queries)
+        {
+            variable(bn, name);
+            queries.add(name);
+        }
+        if (type == ExplanationType.MARKED_VARIABLES_ONLY &&
+            !queries.isEmpty())
+        {
+            for (int i = 0; i < bn.numberVariables(); i++)
+            {
+                bn.getProbabilityVariable(i).setExplanationValue(
+                        BayesNet.INVALID_INDEX);
+            }
+            for (String name : queries)
+            {
+                variable(bn, name).setExplanationValue(0);
+            }
+        }
+        if (queries.isEmpty())
+        {
+            for (int i = 0; i < bn.numberVariables(); i++)
+            {
+                ProbabilityVariable probVar = bn.getProbabilityVariable(i);
+                if (!probVar.isObserved())
+                {
+                    queries.add(probVar.getName());
+                }
+            }
+        }
+        return queries;
+    }
+
+    private static ProbabilityVariable variable(BayesNet bn, String name)
+    {
+        int index = bn.indexOfVariable(name);
+        if (index == BayesNet.INVALID_INDEX)
+        {
+            throw new IllegalArgumentException("Unknown variable " + name);
+        }
+        return bn.getProbabilityVariable(index);
+    }
+
+    private Map<String, Object> marginals(QuasiBayesNet bn,
+                                          List<String> queries)
+    {
+        Map<String, Object> marginals = new LinkedHashMap<>();
+        boolean isEvidenceFree = true;
+        for (int i = 0; i < bn.numberVariables(); i++)
+        {
+            isEvidenceFree &= !bn.getProbabilityVariable(i).isObserved();
+        }
+        // Clusters pay off as soon as several variables share the evidence
+        QBInference qbi = new QBInference(bn, queries.size() > 1);
+        qbi.setMetrics(metrics);
+        qbi.setCompiledModel(compiledModel);
+        for (String name : queries)
+        {
+            MarginalResult marginal;
+            if (compiledModel != null && isEvidenceFree)
+            {
+                marginal = compiledModel.getMarginal(bn, name);
+            }
+            else
+            {
+                qbi.inference(name);
+                marginal = qbi.getMarginalResult();
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < marginal.numberValues(); i++)
+            {
+                if (marginal.isCredal())
+                {
+                    values.put(marginal.getValueName(i),
+                               new double[]
+                               {
+                                   marginal.getLowerProbabilities()[i],
+                                   marginal.getUpperProbabilities()[i]
+                    });
+                }
+                else
+                {
+                    values.put(marginal.getValueName(i),
+                               marginal.getProbability(i));
+                }
+            }
+            marginals.put(name, values);
+        }
+        return marginals;
+    }
+
+    private Map<String, Object> expectations(QuasiBayesNet bn,
+                                             List<String> queries)
+    {
+        Map<String, Object> expectations = new LinkedHashMap<>();
+        QBExpectation qbe = new QBExpectation(bn, queries.size() > 1);
+        qbe.setMetrics(metrics);
+        for (String name : queries)
+        {
+            qbe.expectation(name);
+            ExpectationResult expectation = qbe.getExpectationResult();
+            if (expectation.isPrecise())
+            {
+                expectations.put(name, expectation.getExpectation());
+            }
+            else
+            {
+                expectations.put(name, new double[]
+                         {
+                             expectation.getLowerExpectation(),
+                             expectation.getUpperExpectation()
+                });
+            }
+        }
+        return expectations;
+    }
+
+    private void explanation(QuasiBayesNet bn,
+                             ExplanationType type,
+                             Map<String, Object> result)
+    {
+        Explanation ex = new Explanation(bn);
+        ex.setMetrics(metrics);
+        ex.explanation(type);
+        ExplanationResult explanation = ex.getExplanationResult();
+        if (!explanation.hasAssignment())
+        {
+            throw new IllegalArgumentException("No explanation variables");
+        }
+        Map<String, Object> assignment = new LinkedHashMap<>();
+        for (int i = 0; i < bn.numberVariables(); i++)
+        {
+            if (explanation.getValueIndex(i) != BayesNet.INVALID_INDEX)
+            {
+                ProbabilityVariable probVar = bn.getProbabilityVariable(i);
+                assignment.put(probVar.getName(),
+                               probVar.getValue(explanation.getValueIndex(i)));
+            }
+        }
+        result.put("explanation", assignment);
+        result.put("score", explanation.getScore());
+    }
+
+    /**
+     * Split a CSV line into cells; cells may be enclosed in double quotes,
+     * with doubled quotes inside.
+     *
+     * @param line the line
+     * @return the trimmed cells
+     */
+    static String[] splitCsv(String line)
+    {
+        ArrayList<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (isQuoted)
+            {
+                if (c == '"' && i + 1 < line.length() &&
+                    line.charAt(i + 1) == '"')
+                {
+                    cell.append(c);
+                    i++;
+                }
+                else if (c == '"')
+                {
+                    isQuoted = false;
+                }
+                else
+                {
+                    cell.append(c);
+                }
+            }
+            else if (c == '"')
+            {
+                isQuoted = true;
+            }
+            else if (c == ',')
+            {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            }
+            else
+            {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().trim());
+        return cells.toArray(new String[cells.size()]);
+    }
+
+    /**
+     * Main method of the batch runner.
+     *
+     * @param argv command line arguments, see usage()
+     */
+    public static void main(String argv[])
+    {
+        String networkFile = null;
+        String inputFile = null;
+        String outputFile = null;
+        String format = null;
+        String type = null;
+        int threads = 0;
+        String compiledFile = null;
+        boolean isPrintingMetrics = false;
+        try
+        {
+            for (int i = 0; i < argv.length; i++)
+            {
+                switch (argv[i])
+                {
+                    case "--input":
+                        inputFile = argv[++i];
+                        break;
+                    case "--output":
+                        outputFile = argv[++i];
+                        break;
+                    case "--format":
+                        format = argv[++i];
+                        break;
+                    case "--type":
+                        type = argv[++i];
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(argv[++i]);
+                        break;
+                    case "--metrics":
+                        isPrintingMetrics = true;
+                        break;
+                    case "--compiled":
+                        compiledFile = argv[++i];
+                        break;
+                    default:
+                        if (argv[i].startsWith("--") || networkFile != null)
+                        {
+                            throw new IllegalArgumentException(
+                                    "Unknown argument " + argv[i]);
+                        }
+                        networkFile = argv[i];
+                }
+            }
+            if (networkFile == null)
+            {
+                throw new IllegalArgumentException("No network given");
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            System.err.println(ex.getMessage() == null ?
+                               "Missing argument" :
+                               ex.getMessage());
+            usage();
+            System.exit(1);
+            return;
+        }
+        boolean isCsv = format == null ?
+                        inputFile != null &&
+                        inputFile.toLowerCase().endsWith(".csv") :
+                        format.equalsIgnoreCase("csv");
+
+        InputStream in = null;
+        PrintStream out = null;
+        try
+        {
+            BatchQueryRunner runner = new BatchQueryRunner(networkFile);
+            if (threads > 0)
+            {
+                runner.setNumberOfThreads(threads);
+            }
+            if (type != null)
+            {
+                runner.setDefaultType(parseType(type));
+            }
+            if (compiledFile != null)
+            {
+                runner.useCompiledModel(new File(compiledFile));
+            }
+            InferenceMetrics metrics = isPrintingMetrics ?
+                                       new InferenceMetrics() :
+                                       null;
+            runner.setMetrics(metrics);
+            in = inputFile == null || inputFile.equals("-") ?
+                 System.in :
+                 new FileInputStream(inputFile);
+            out = outputFile == null ?
+                  new PrintStream(new BufferedOutputStream(System.out),
+                                  false,
+                                  "UTF-8") :
+                  new PrintStream(new BufferedOutputStream(
+                          new FileOutputStream(outputFile)),
+                                  false,
+                                  "UTF-8");
+            BufferedReader reader = new BufferedReader(
+                           new InputStreamReader(in, UTF8));
+            runner.run(reader, isCsv, out);
+            if (metrics != null)
+            {
+                metrics.writePrometheus(System.err);
+            }
+        }
+        catch (Exception ex)
+        {
+            System.err.println("Batch run failed: " + ex);
+            System.exit(1);
+        }
+        finally
+        {
+            if (out != null)
+            {
+                out.flush();
+            }
+            if (in != null && in != System.in)
+            {
+                try
+                {
+                    in.close();
+                }
+                catch (IOException ex)
+                {
+                    LOGGER.warning(ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Print the command line usage.
+     */
+    static void usage()
+    {
+        System.err.println(
+                "Usage: JavaBayes --batch <network> [options]\n" +
+                "  --input <file>    cases, CSV or JSON lines " +
+                "(default: standard input)\n" +
+                "  --output <file>   JSON lines results " +
+                "(default: standard output)\n" +
+                "  --format csv|jsonl\n" +
+                "                    format of the cases " +
+                "(default: from the file extension)\n" +
+                "  --type marginal|expectation|explanation|" +
+                "full-explanation\n" +
+                "                    query type of cases without one " +
+                "(default: marginal)\n" +
+                "  --threads <n>     worker threads " +
+                "(default: available processors)\n" +
+                "  --compiled <file> use the compiled model in the file, " +
+                "creating it if\n" +
+                "                    it is missing or out of date\n" +
+                "  --metrics         print inference metrics to standard " +
+                "error at the end");
+    }
+
+    /**
+     * A single query case: evidence, query variables and query type.
+     */
+    public static class QueryCase
+    {
+
+        private final Object id;
+        private final ExplanationType type;
+        private final Map<String, String> evidence;
+        private final List<String> queries;
+        private final String error;
+
+        /**
+         * Constructor for a QueryCase.
+         *
+         * @param id       identifier echoed in the result, or null
+         * @param type     the query type, or null for the default type
+         * @param evidence map from variable names to observed values
+         * @param queries  names of the query variables, empty for all
+         */
+        public QueryCase(Object id,
+                         ExplanationType type,
+                         Map<String, String> evidence,
+                         List<String> queries)
+        {
+            this(id, type, evidence, queries, null);
+        }
+
+        private QueryCase(Object id,
+                          ExplanationType type,
+                          Map<String, String> evidence,
+                          List<String> queries,
+                          String error)
+        {
+            this.id = id;
+            this.type = type;
+            this.evidence = evidence;
+            this.queries = queries;
+            this.error = error;
+        }
+
+        private static QueryCase invalid(Object id, String error)
+        {
+            return new QueryCase(id,
+                                 null,
+                                 new LinkedHashMap<String, String>(),
+                                 new ArrayList<String>(),
+                                 error);
+        }
+
+        /**
+         * Convert a JSON number or string into text; integral numbers lose
+         * their fraction.
+         */
+        private static String text(Object value)
+        {
+            if (value instanceof Double &&
+                ((Double) value) == Math.rint((Double) value) &&
+                !Double.isInfinite((Double) value))
+            {
+                return Long.toString(((Double) value).longValue());
+            }
+            return String.valueOf(value);
+        }
+
+        /**
+         * Read a case from a JSON line.
+         *
+         * @param line the JSON object text
+         * @return the case; malformed lines give a case that reports the
+         *         problem as error
+         */
+        public static QueryCase fromJson(String line)
+        {
+            Object id = null;
+            try
+            {
+                Map<String, Object> object = Json.parseObject(line);
+                id = object.get("id");
+                if (id instanceof Double)
+                {
+                    id = text(id);
+                    try
+                    {
+                        id = Long.valueOf((String) id);
+                    }
+                    catch (NumberFormatException ex)
+                    {
+                        id = object.get("id");
+                    }
+                }
+                ExplanationType type = object.get("type") == null ?
+                                       null :
+                                       parseType(text(object.get("type")));
+                Map<String, String> evidence = new LinkedHashMap<>();
+                Object evidenceObject = object.get("evidence");
+                if (evidenceObject instanceof Map)
+                {
+                    for (Map.Entry<?, ?> entry :
+                         ((Map<?, ?>) evidenceObject).entrySet())
+                    {
+                        evidence.put(entry.getKey().toString(),
+                                     text(entry.getValue()));
+                    }
+                }
+                else if (evidenceObject != null)
+                {
+                    throw new IllegalArgumentException(
+                            "Evidence must be an object");
+                }
+                List<String> queries = new ArrayList<>();
+                Object queryObject = object.get("query");
+                if (queryObject instanceof List)
+                {
+                    for (Object name : (List<?>) queryObject)
+                    {
+                        queries.add(text(name));
+                    }
+                }
+                else if (queryObject != null)
+                {
+                    queries.add(text(queryObject));
+                }
+                return new QueryCase(id, type, evidence, queries);
+            }
+            catch (IllegalArgumentException ex)
+            {
+                return invalid(id, ex.getMessage());
+            }
+        }
+
+        /**
+         * Read a case from a CSV line.
+         *
+         * @param header  the cells of the header line
+         * @param line    the CSV line
+         * @param network the network, used to tell variable columns from the
+         *                id and type columns
+         * @return the case; malformed lines give a case that reports the
+         *         problem as error
+         */
+        public static QueryCase fromCsv(String header[],
+                                        String line,
+                                        BayesNet network)
+        {
+            String cells[] = splitCsv(line);
+            Object id = null;
+            ExplanationType type = null;
+            Map<String, String> evidence = new LinkedHashMap<>();
+            List<String> queries = new ArrayList<>();
+            try
+            {
+                if (cells.length > header.length)
+                {
+                    throw new IllegalArgumentException(
+                            "More cells than header columns");
+                }
+                for (int i = 0; i < cells.length; i++)
+                {
+                    String column = header[i];
+                    String cell = cells[i];
+                    boolean isVariable = network.indexOfVariable(column) !=
+                                         BayesNet.INVALID_INDEX;
+                    if (!isVariable && column.equalsIgnoreCase("id"))
+                    {
+                        id = cell;
+                    }
+                    else if (!isVariable && column.equalsIgnoreCase("type"))
+                    {
+                        type = cell.isEmpty() ? null : parseType(cell);
+                    }
+                    else if (cell.equals("?"))
+                    {
+                        queries.add(column);
+                    }
+                    else if (!cell.isEmpty() && !cell.equals("*"))
+                    {
+                        evidence.put(column, cell);
+                    }
+                }
+                return new QueryCase(id, type, evidence, queries);
+            }
+            catch (IllegalArgumentException ex)
+            {
+                return invalid(id, ex.getMessage());
+            }
+        }
+    }
+}
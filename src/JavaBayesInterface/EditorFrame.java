@@ -27,6 +27,7 @@ package JavaBayesInterface;
 
 import BayesianInferences.ExplanationType;
 import BayesianInferences.InferenceGraph;
+import BayesianNetworks.NetworkWriter;
 import java.awt.BorderLayout;
 import java.awt.Button;
 import java.awt.Cursor;
@@ -37,11 +38,14 @@ import java.awt.Frame;
 import java.awt.GridLayout;
 import java.awt.Panel;
 import java.awt.Toolkit;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URL;
+import java.util.zip.GZIPOutputStream;
 import java.util.logging.Logger;
 
 /**
@@ -311,7 +315,11 @@ public class EditorFrame extends Frame
         }
 
         try (FileOutputStream fileout = new FileOutputStream(filename);
-             PrintStream out = new PrintStream(fileout))
+             OutputStream ostream =
+                          filename.endsWith(NetworkWriter.GZIP_SUFFIX) ?
+                          new GZIPOutputStream(fileout) :
+                          new BufferedOutputStream(fileout);
+             PrintStream out = new PrintStream(ostream))
         {
             switch (saveFormat)
             {
@@ -428,19 +436,19 @@ public class EditorFrame extends Frame
                                  InferenceGraph inferenceGraph,
                                  String queriedVariable)
     {
-        if (algorithmType == AlgorithmType.VARIABLE_ELIMINATION)
+        boolean isProducingClusters =
+                algorithmType == AlgorithmType.BUCKET_TREE;
+        if (whatToShowBucketTreeState)
         {
             inferenceGraph.printMarginal(out,
                                          queriedVariable,
-                                         false,
-                                         whatToShowBucketTreeState);
+                                         isProducingClusters,
+                                         true);
         }
-        else if (algorithmType == AlgorithmType.BUCKET_TREE)
+        else
         {
-            inferenceGraph.printMarginal(out,
-                                         queriedVariable,
-                                         true,
-                                         whatToShowBucketTreeState);
+            inferenceGraph.getMarginal(queriedVariable, isProducingClusters).
+                    print(out);
         }
     }
 
@@ -455,15 +463,20 @@ public class EditorFrame extends Frame
                                     InferenceGraph inferenceGraph,
                                     String queriedVariable)
     {
-        if (algorithmType == AlgorithmType.VARIABLE_ELIMINATION)
+        boolean isProducingClusters =
+                algorithmType == AlgorithmType.BUCKET_TREE;
+        if (whatToShowBucketTreeState)
         {
-            inferenceGraph.printExpectation(out, queriedVariable, false,
-                                            whatToShowBucketTreeState);
+            inferenceGraph.printExpectation(out,
+                                            queriedVariable,
+                                            isProducingClusters,
+                                            true);
         }
-        else if (algorithmType == AlgorithmType.BUCKET_TREE)
+        else
         {
-            inferenceGraph.printExpectation(out, queriedVariable, true,
-                                            whatToShowBucketTreeState);
+            inferenceGraph.getExpectation(queriedVariable,
+                                          isProducingClusters).
+                    print(out);
         }
     }
 
@@ -476,7 +489,14 @@ public class EditorFrame extends Frame
     protected void printExplanation(PrintStream out,
                                     InferenceGraph inferenceGraph)
     {
-        inferenceGraph.printExplanation(out, whatToShowBucketTreeState);
+        if (whatToShowBucketTreeState)
+        {
+            inferenceGraph.printExplanation(out, true);
+        }
+        else
+        {
+            inferenceGraph.getExplanation().print(out);
+        }
     }
 
     /**
@@ -488,7 +508,14 @@ public class EditorFrame extends Frame
     protected void printFullExplanation(PrintStream out,
                                         InferenceGraph inferenceGraph)
     {
-        inferenceGraph.printFullExplanation(out, whatToShowBucketTreeState);
+        if (whatToShowBucketTreeState)
+        {
+            inferenceGraph.printFullExplanation(out, true);
+        }
+        else
+        {
+            inferenceGraph.getFullExplanation().print(out);
+        }
     }
 
     /**
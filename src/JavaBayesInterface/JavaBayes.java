@@ -25,6 +25,9 @@
  */
 package JavaBayesInterface;
 
+import BayesianInferences.DataGenerator;
+import InferenceServer.InferenceServer;
+import Learning.StructureLearner;
 import java.applet.Applet;
 import java.util.logging.Logger;
 
@@ -39,12 +42,39 @@ public class JavaBayes extends Applet
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
 
     /**
-     * Main method for JavaBayes.
+     * Main method for JavaBayes. With "--batch", "--server", "--generate" or
+     * "--learn" as first argument the remaining arguments are passed to the
+     * headless BatchQueryRunner, InferenceServer, DataGenerator or
+     * StructureLearner.
      *
      * @param argv standard command line arguments
      */
     public static void main(String argv[])
     {
+        if (argv.length > 0 &&
+            (argv[0].equals("--batch") || argv[0].equals("--server") ||
+             argv[0].equals("--generate") || argv[0].equals("--learn")))
+        {
+            String headlessArgv[] = new String[argv.length - 1];
+            System.arraycopy(argv, 1, headlessArgv, 0, headlessArgv.length);
+            if (argv[0].equals("--batch"))
+            {
+                BatchQueryRunner.main(headlessArgv);
+            }
+            else if (argv[0].equals("--server"))
+            {
+                InferenceServer.main(headlessArgv);
+            }
+            else if (argv[0].equals("--generate"))
+            {
+                DataGenerator.main(headlessArgv);
+            }
+            else
+            {
+                StructureLearner.main(headlessArgv);
+            }
+            return;
+        }
         JavaBayes jb = new JavaBayes();
         jb.construct(false);
         if (argv.length > 0)
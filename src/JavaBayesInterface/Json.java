@@ -0,0 +1,459 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package JavaBayesInterface;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Minimal JSON reader and writer for the headless interfaces. Objects are
+ * read into LinkedHashMaps, arrays into ArrayLists, numbers into Doubles and
+ * literals into Booleans or null. Writing supports the same types plus
+ * arrays of doubles.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class Json
+{
+
+    private static final Class CLAZZ = Json.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Maximal nesting of objects and arrays, so that malicious input cannot
+     * exhaust the stack of the reader.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private Json(String text)
+    {
+        this.text = text;
+        this.position = 0;
+    }
+
+    /**
+     * Parse a JSON document.
+     *
+     * @param text the JSON text
+     * @return the parsed value
+     * @throws IllegalArgumentException if the text is not valid JSON or
+     *                                  nests deeper than MAX_DEPTH
+     */
+    public static Object parse(String text)
+    {
+        Json json = new Json(text);
+        Object value = json.readValue();
+        json.skipWhitespace();
+        if (json.position != text.length())
+        {
+            throw json.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    /**
+     * Parse a JSON document that must be an object.
+     *
+     * @param text the JSON text
+     * @return the parsed object
+     * @throws IllegalArgumentException if the text is not a JSON object or
+     *                                  nests deeper than MAX_DEPTH
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text)
+    {
+        Object value = parse(text);
+        if (!(value instanceof Map))
+        {
+            throw new IllegalArgumentException("JSON object expected");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Write a value as JSON into a StringBuilder.
+     *
+     * @param out   the StringBuilder to append to
+     * @param value a Map, Iterable, double array, String, Number, Boolean or
+     *              null
+     * @return the StringBuilder
+     */
+    public static StringBuilder write(StringBuilder out, Object value)
+    {
+        if (value == null)
+        {
+            out.append("null");
+        }
+        else if (value instanceof String)
+        {
+            quote(out, (String) value);
+        }
+        else if (value instanceof Double || value instanceof Float)
+        {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d))
+            {
+                out.append("null");
+            }
+            else
+            {
+                out.append(d);
+            }
+        }
+        else if (value instanceof Number || value instanceof Boolean)
+        {
+            out.append(value);
+        }
+        else if (value instanceof double[])
+        {
+            double values[] = (double[]) value;
+            out.append('[');
+            for (int i = 0; i < values.length; i++)
+            {
+                if (i > 0)
+                {
+                    out.append(',');
+                }
+                write(out, values[i]);
+            }
+            out.append(']');
+        }
+        else if (value instanceof Map)
+        {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                if (!first)
+                {
+                    out.append(',');
+                }
+                first = false;
+                quote(out, String.valueOf(entry.getKey()));
+                out.append(':');
+                write(out, entry.getValue());
+            }
+            out.append('}');
+        }
+        else if (value instanceof Iterable)
+        {
+            out.append('[');
+            boolean first = true;
+            for (Object element : (Iterable<?>) value)
+            {
+                if (!first)
+                {
+                    out.append(',');
+                }
+                first = false;
+                write(out, element);
+            }
+            out.append(']');
+        }
+        else
+        {
+            quote(out, value.toString());
+        }
+        return out;
+    }
+
+    /**
+     * Convert a value to a JSON string.
+     *
+     * @param value the value
+     * @return the JSON text
+     */
+    public static String toString(Object value)
+    {
+        return write(new StringBuilder(), value).toString();
+    }
+
+    /**
+     * Append a string as quoted and escaped JSON string.
+     *
+     * @param out the StringBuilder to append to
+     * @param str the string
+     * @return the StringBuilder
+     */
+    public static StringBuilder quote(StringBuilder out, String str)
+    {
+        out.append('"');
+        for (int i = 0; i < str.length(); i++)
+        {
+            char c = str.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        out.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    private IllegalArgumentException error(String message)
+    {
+        return new IllegalArgumentException(message + " at position " +
+                                            position + " of JSON input");
+    }
+
+    private void skipWhitespace()
+    {
+        while (position < text.length() &&
+               Character.isWhitespace(text.charAt(position)))
+        {
+            position++;
+        }
+    }
+
+    private char peek()
+    {
+        skipWhitespace();
+        if (position >= text.length())
+        {
+            throw error("Unexpected end");
+        }
+        return text.charAt(position);
+    }
+
+    private void expect(char c)
+    {
+        if (peek() != c)
+        {
+            throw error("'" + c + "' expected");
+        }
+        position++;
+    }
+
+    private Object readValue()
+    {
+        char c = peek();
+        switch (c)
+        {
+            case '{':
+                enter();
+                Map<String, Object> map = readObject();
+                depth--;
+                return map;
+            case '[':
+                enter();
+                List<Object> list = readArray();
+                depth--;
+                return list;
+            case '"':
+                return readString();
+            case 't':
+                return readLiteral("true", Boolean.TRUE);
+            case 'f':
+                return readLiteral("false", Boolean.FALSE);
+            case 'n':
+                return readLiteral("null", null);
+            default:
+                return readNumber();
+        }
+    }
+
+    private void enter()
+    {
+        if (++depth > MAX_DEPTH)
+        {
+            throw error("Nesting deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private Map<String, Object> readObject()
+    {
+        Map<String, Object> map = new LinkedHashMap<>();
+        expect('{');
+        if (peek() == '}')
+        {
+            position++;
+            return map;
+        }
+        while (true)
+        {
+            if (peek() != '"')
+            {
+                throw error("Object key expected");
+            }
+            String key = readString();
+            expect(':');
+            map.put(key, readValue());
+            char c = peek();
+            position++;
+            if (c == '}')
+            {
+                return map;
+            }
+            if (c != ',')
+            {
+                position--;
+                throw error("',' or '}' expected");
+            }
+        }
+    }
+
+    private List<Object> readArray()
+    {
+        List<Object> list = new ArrayList<>();
+        expect('[');
+        if (peek() == ']')
+        {
+            position++;
+            return list;
+        }
+        while (true)
+        {
+            list.add(readValue());
+            char c = peek();
+            position++;
+            if (c == ']')
+            {
+                return list;
+            }
+            if (c != ',')
+            {
+                position--;
+                throw error("',' or ']' expected");
+            }
+        }
+    }
+
+    private String readString()
+    {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (position < text.length())
+        {
+            char c = text.charAt(position++);
+            if (c == '"')
+            {
+                return sb.toString();
+            }
+            if (c != '\\')
+            {
+                sb.append(c);
+                continue;
+            }
+            if (position >= text.length())
+            {
+                break;
+            }
+            c = text.charAt(position++);
+            switch (c)
+            {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length())
+                    {
+                        throw error("Invalid unicode escape");
+                    }
+                    try
+                    {
+                        sb.append((char) Integer.parseInt(
+                                text.substring(position, position + 4), 16));
+                    }
+                    catch (NumberFormatException ex)
+                    {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private Object readLiteral(String literal, Object value)
+    {
+        if (!text.startsWith(literal, position))
+        {
+            throw error("Invalid literal");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private Double readNumber()
+    {
+        int start = position;
+        while (position < text.length() &&
+               "+-0123456789.eE".indexOf(text.charAt(position)) >= 0)
+        {
+            position++;
+        }
+        try
+        {
+            return Double.valueOf(text.substring(start, position));
+        }
+        catch (NumberFormatException ex)
+        {
+            position = start;
+            throw error("Invalid value");
+        }
+    }
+}
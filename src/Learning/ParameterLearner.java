@@ -0,0 +1,763 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package Learning;
+
+import BayesianInferences.MiniBucketElimination;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Estimation of the probability functions of a network from data.
+ *
+ * Complete records are counted per family (a variable and its parents).
+ * The estimates are the maximum likelihood frequencies or, with a positive
+ * pseudo count, the posterior means under a Dirichlet prior that adds the
+ * pseudo count to every cell; rows of a function without any count keep
+ * their values.
+ *
+ * Records with missing values are handled by expectation maximization,
+ * starting from the current values of the network: each iteration adds to
+ * the counts of the complete records the expected counts of the incomplete
+ * ones, given the current parameters, computed by exact elimination, and
+ * re-estimates the parameters, until the log-likelihood stops improving.
+ * The incomplete records are collected as distinct patterns with their
+ * multiplicities while the data is read once, so the iterations do not read
+ * the data again and each pattern needs inference once per iteration.
+ *
+ * The data is read in chunks by one thread and counted by several workers,
+ * each with its own primitive count tables; the tables are merged at the
+ * end.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ParameterLearner
+{
+
+    private static final Class CLAZZ = ParameterLearner.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int CHUNK_SIZE = 16384;
+
+    private final BayesNet bayesNet;
+    private final int numberOfVariables;
+    private final ProbabilityFunction functions[];
+    private final int familyVariables[][];
+    private final int familyStrides[][];
+
+    private double pseudoCount;
+    private boolean isUsingExpectationMaximization = true;
+    private int maxIterations = 100;
+    private double tolerance = 1e-6;
+    private int numberOfThreads;
+
+    private long numberOfRecords;
+    private long numberOfIncompleteRecords;
+    private int numberOfPatterns;
+    private int numberOfIterations;
+    private double logLikelihood;
+
+    /**
+     * Constructor for a ParameterLearner.
+     *
+     * @param bayesNet the network whose probability functions are estimated
+     */
+    public ParameterLearner(BayesNet bayesNet)
+    {
+        this.bayesNet = bayesNet;
+        numberOfVariables = bayesNet.numberVariables();
+        functions = bayesNet.getProbabilityFunctions();
+        familyVariables = new int[functions.length][];
+        familyStrides = new int[functions.length][];
+        for (int f = 0; f < functions.length; f++)
+        {
+            int k = functions[f].numberVariables();
+            familyVariables[f] = new int[k];
+            familyStrides[f] = new int[k];
+            int stride = 1;
+            for (int i = k - 1; i >= 0; i--)
+            {
+                familyVariables[f][i] = functions[f].getIndex(i);
+                familyStrides[f][i] = stride;
+                stride *= functions[f].getVariable(i).numberValues();
+            }
+        }
+        numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get the Dirichlet pseudo count added to every cell.
+     *
+     * @return the pseudo count, 0 for maximum likelihood
+     */
+    public double getPseudoCount()
+    {
+        return pseudoCount;
+    }
+
+    /**
+     * Set the Dirichlet pseudo count added to every cell.
+     *
+     * @param pseudoCount the pseudo count, 0 for maximum likelihood
+     */
+    public void setPseudoCount(double pseudoCount)
+    {
+        if (!(pseudoCount >= 0.0))
+        {
+            throw new IllegalArgumentException(
+                    "Pseudo count must not be negative: " + pseudoCount);
+        }
+        this.pseudoCount = pseudoCount;
+    }
+
+    /**
+     * Check whether records with missing values are used through expectation
+     * maximization.
+     *
+     * @return true if so, false if only their complete families are counted
+     */
+    public boolean isUsingExpectationMaximization()
+    {
+        return isUsingExpectationMaximization;
+    }
+
+    /**
+     * Set whether records with missing values are used through expectation
+     * maximization; otherwise only the families without missing values are
+     * counted.
+     *
+     * @param isUsingExpectationMaximization true for expectation
+     *                                       maximization
+     */
+    public void setUsingExpectationMaximization(
+            boolean isUsingExpectationMaximization)
+    {
+        this.isUsingExpectationMaximization = isUsingExpectationMaximization;
+    }
+
+    /**
+     * Get the maximal number of iterations of expectation maximization.
+     *
+     * @return the maximal number of iterations
+     */
+    public int getMaxIterations()
+    {
+        return maxIterations;
+    }
+
+    /**
+     * Set the maximal number of iterations of expectation maximization.
+     *
+     * @param maxIterations the maximal number of iterations, at least 1
+     */
+    public void setMaxIterations(int maxIterations)
+    {
+        if (maxIterations < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of iterations must be positive");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Get the relative improvement of the log-likelihood below which
+     * expectation maximization stops.
+     *
+     * @return the tolerance
+     */
+    public double getTolerance()
+    {
+        return tolerance;
+    }
+
+    /**
+     * Set the relative improvement of the log-likelihood below which
+     * expectation maximization stops.
+     *
+     * @param tolerance the tolerance
+     */
+    public void setTolerance(double tolerance)
+    {
+        if (!(tolerance > 0.0))
+        {
+            throw new IllegalArgumentException(
+                    "Tolerance must be positive: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Get the number of counting threads.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of counting threads.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Estimate the probability functions of the network from a data file.
+     *
+     * @param dataFile the data, CSV or binary, see RecordReader
+     * @throws IOException if the data cannot be read
+     */
+    public void learn(File dataFile) throws IOException
+    {
+        try (RecordReader reader = new RecordReader(dataFile, bayesNet))
+        {
+            learn(reader);
+        }
+    }
+
+    /**
+     * Estimate the probability functions of the network from the records
+     * of a reader. The values of the functions are replaced.
+     *
+     * @param reader the reader of the records
+     * @throws IOException if the data cannot be read
+     */
+    public void learn(RecordReader reader) throws IOException
+    {
+        Tally data = count(reader);
+        numberOfRecords = data.numberOfRecords;
+        numberOfIncompleteRecords = data.numberOfIncompleteRecords;
+        numberOfPatterns = data.patterns.size();
+        numberOfIterations = 0;
+        if (data.patterns.isEmpty())
+        {
+            maximize(data.counts);
+            logLikelihood = completeLogLikelihood(data.counts);
+            return;
+        }
+
+        ArrayList<Pattern> patterns = new ArrayList<>(data.patterns.keySet());
+        double previous = Double.NEGATIVE_INFINITY;
+        while (numberOfIterations < maxIterations)
+        {
+            Tally expected = expect(patterns);
+            logLikelihood = completeLogLikelihood(data.counts) +
+                            expected.logLikelihood;
+            add(expected.counts, data.counts);
+            maximize(expected.counts);
+            numberOfIterations++;
+            LOGGER.fine("Iteration " + numberOfIterations +
+                        ": log-likelihood " + logLikelihood);
+            if (numberOfIterations > 1 &&
+                logLikelihood - previous <= tolerance * Math.abs(previous))
+            {
+                break;
+            }
+            previous = logLikelihood;
+        }
+    }
+
+    /**
+     * Read all records and count them in parallel.
+     */
+    private Tally count(RecordReader reader) throws IOException
+    {
+        final BlockingQueue<Chunk> queue =
+                                   new ArrayBlockingQueue<>(
+                                           2 * numberOfThreads);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                        numberOfThreads);
+        ArrayList<Future<Tally>> workers = new ArrayList<>();
+        Tally total = new Tally(functions);
+        try
+        {
+            for (int t = 0; t < numberOfThreads; t++)
+            {
+                workers.add(executor.submit(new Callable<Tally>()
+                {
+                    @Override
+                    public Tally call() throws InterruptedException
+                    {
+                        Tally tally = new Tally(functions);
+                        for (Chunk chunk = queue.take();
+                             chunk.size >= 0;
+                             chunk = queue.take())
+                        {
+                            countChunk(chunk, tally);
+                        }
+                        return tally;
+                    }
+                }));
+            }
+            try
+            {
+                while (true)
+                {
+                    Chunk chunk = new Chunk(new int[CHUNK_SIZE *
+                                                    numberOfVariables]);
+                    chunk.size = reader.read(chunk.records, CHUNK_SIZE);
+                    if (chunk.size == 0)
+                    {
+                        break;
+                    }
+                    queue.put(chunk);
+                }
+            }
+            finally
+            {
+                // One end marker per worker
+                for (int t = 0; t < numberOfThreads; t++)
+                {
+                    queue.put(new Chunk(null));
+                }
+            }
+            for (Future<Tally> worker : workers)
+            {
+                total.merge(worker.get());
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IOException(ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return total;
+    }
+
+    /**
+     * Count the records of a chunk: complete families directly, records with
+     * missing values as patterns if expectation maximization is used.
+     */
+    private void countChunk(Chunk chunk, Tally tally)
+    {
+        for (int r = 0; r < chunk.size; r++)
+        {
+            int base = r * numberOfVariables;
+            boolean isComplete = true;
+            for (int v = 0; v < numberOfVariables && isComplete; v++)
+            {
+                isComplete = chunk.records[base + v] != BayesNet.INVALID_INDEX;
+            }
+            tally.numberOfRecords++;
+            if (!isComplete)
+            {
+                tally.numberOfIncompleteRecords++;
+                if (isUsingExpectationMaximization)
+                {
+                    tally.addPattern(new Pattern(Arrays.copyOfRange(
+                            chunk.records, base, base + numberOfVariables)), 1);
+                    continue;
+                }
+            }
+            for (int f = 0; f < functions.length; f++)
+            {
+                int index = 0;
+                for (int i = 0; i < familyVariables[f].length && index >= 0;
+                     i++)
+                {
+                    int x = chunk.records[base + familyVariables[f][i]];
+                    index = x == BayesNet.INVALID_INDEX ?
+                            -1 :
+                            index + x * familyStrides[f][i];
+                }
+                if (index >= 0)
+                {
+                    tally.counts[f][index]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Expectation step: the expected counts of the incomplete records under
+     * the current parameters, computed in parallel over the patterns.
+     */
+    private Tally expect(final ArrayList<Pattern> patterns) throws IOException
+    {
+        int threads = Math.max(1, Math.min(numberOfThreads, patterns.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Tally total = new Tally(functions);
+        try
+        {
+            ArrayList<Future<Tally>> parts = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                final int from = patterns.size() * t / threads;
+                final int to = patterns.size() * (t + 1) / threads;
+                parts.add(executor.submit(new Callable<Tally>()
+                {
+                    @Override
+                    public Tally call()
+                    {
+                        return expect(patterns, from, to);
+                    }
+                }));
+            }
+            for (Future<Tally> part : parts)
+            {
+                total.merge(part.get());
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IOException(ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return total;
+    }
+
+    private Tally expect(ArrayList<Pattern> patterns, int from, int to)
+    {
+        Tally tally = new Tally(functions);
+        MiniBucketElimination exact = new MiniBucketElimination(
+                              bayesNet,
+                              Integer.MAX_VALUE);
+        boolean noMaxVariables[] = new boolean[numberOfVariables];
+        int missing[] = new int[numberOfVariables];
+        for (int p = from; p < to; p++)
+        {
+            Pattern pattern = patterns.get(p);
+            int assignment[] = pattern.values.clone();
+            double evidence = exact.bound(assignment, noMaxVariables, true);
+            if (evidence <= 0.0)
+            {
+                LOGGER.warning("Record impossible under the current " +
+                               "parameters, skipped");
+                continue;
+            }
+            tally.logLikelihood += pattern.count * Math.log(evidence);
+            for (int f = 0; f < functions.length; f++)
+            {
+                int numberMissing = 0;
+                int index = 0;
+                for (int i = 0; i < familyVariables[f].length; i++)
+                {
+                    int v = familyVariables[f][i];
+                    if (assignment[v] == BayesNet.INVALID_INDEX)
+                    {
+                        missing[numberMissing++] = i;
+                    }
+                    else
+                    {
+                        index += assignment[v] * familyStrides[f][i];
+                    }
+                }
+                if (numberMissing == 0)
+                {
+                    tally.counts[f][index] += pattern.count;
+                    continue;
+                }
+                // Enumerate the values of the missing family variables
+                for (int m = 0; m < numberMissing; m++)
+                {
+                    assignment[familyVariables[f][missing[m]]] = 0;
+                }
+                while (true)
+                {
+                    int cell = index;
+                    for (int m = 0; m < numberMissing; m++)
+                    {
+                        int i = missing[m];
+                        cell += assignment[familyVariables[f][i]] *
+                                familyStrides[f][i];
+                    }
+                    tally.counts[f][cell] += pattern.count *
+                                             exact.bound(assignment,
+                                                         noMaxVariables,
+                                                         true) / evidence;
+                    int m = numberMissing - 1;
+                    while (m >= 0)
+                    {
+                        int v = familyVariables[f][missing[m]];
+                        if (++assignment[v] <
+                            bayesNet.getProbabilityVariable(v).numberValues())
+                        {
+                            break;
+                        }
+                        assignment[v] = 0;
+                        m--;
+                    }
+                    if (m < 0)
+                    {
+                        break;
+                    }
+                }
+                for (int m = 0; m < numberMissing; m++)
+                {
+                    assignment[familyVariables[f][missing[m]]] =
+                    BayesNet.INVALID_INDEX;
+                }
+            }
+        }
+        return tally;
+    }
+
+    /**
+     * Maximization step: estimate the parameters from the counts.
+     */
+    private void maximize(double counts[][])
+    {
+        for (int f = 0; f < functions.length; f++)
+        {
+            int numberOfValues = functions[f].getVariable(0).numberValues();
+            int numberOfRows = counts[f].length / numberOfValues;
+            double values[] = functions[f].getValues().clone();
+            for (int row = 0; row < numberOfRows; row++)
+            {
+                double total = 0.0;
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    total += counts[f][x * numberOfRows + row] + pseudoCount;
+                }
+                if (total <= 0.0)
+                {
+                    continue;
+                }
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    values[x * numberOfRows + row] =
+                    (counts[f][x * numberOfRows + row] + pseudoCount) / total;
+                }
+            }
+            functions[f].setValues(values);
+        }
+    }
+
+    /**
+     * Log-likelihood of counted complete families under the current
+     * parameters.
+     */
+    private double completeLogLikelihood(double counts[][])
+    {
+        double sum = 0.0;
+        for (int f = 0; f < functions.length; f++)
+        {
+            double values[] = functions[f].getValues();
+            for (int i = 0; i < counts[f].length; i++)
+            {
+                if (counts[f][i] > 0.0)
+                {
+                    sum += counts[f][i] * Math.log(values[i]);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static void add(double target[][], double source[][])
+    {
+        for (int f = 0; f < target.length; f++)
+        {
+            for (int i = 0; i < target[f].length; i++)
+            {
+                target[f][i] += source[f][i];
+            }
+        }
+    }
+
+    /**
+     * Get the number of records of the last estimation.
+     *
+     * @return the number of records
+     */
+    public long getNumberOfRecords()
+    {
+        return numberOfRecords;
+    }
+
+    /**
+     * Get the number of records with missing values of the last estimation.
+     *
+     * @return the number of incomplete records
+     */
+    public long getNumberOfIncompleteRecords()
+    {
+        return numberOfIncompleteRecords;
+    }
+
+    /**
+     * Get the number of distinct incomplete records of the last estimation.
+     *
+     * @return the number of patterns, 0 without expectation maximization
+     */
+    public int getNumberOfPatterns()
+    {
+        return numberOfPatterns;
+    }
+
+    /**
+     * Get the number of expectation maximization iterations of the last
+     * estimation.
+     *
+     * @return the number of iterations, 0 for complete data
+     */
+    public int getNumberOfIterations()
+    {
+        return numberOfIterations;
+    }
+
+    /**
+     * Get the log-likelihood of the data: for complete data under the
+     * estimated parameters, with expectation maximization under the
+     * parameters before the last iteration.
+     *
+     * @return the log-likelihood
+     */
+    public double getLogLikelihood()
+    {
+        return logLikelihood;
+    }
+
+    /**
+     * Records read together.
+     */
+    private static class Chunk
+    {
+
+        final int records[];
+        int size = -1;
+
+        Chunk(int records[])
+        {
+            this.records = records;
+        }
+    }
+
+    /**
+     * An incomplete record with its number of occurrences.
+     */
+    private static class Pattern
+    {
+
+        final int values[];
+        final int hash;
+        long count;
+
+        Pattern(int values[])
+        {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Pattern &&
+                   Arrays.equals(values, ((Pattern) other).values);
+        }
+    }
+
+    /**
+     * Counts of one worker: one primitive table per family, laid out as the
+     * probability function.
+     */
+    private static class Tally
+    {
+
+        final double counts[][];
+        final Map<Pattern, Pattern> patterns;
+        long numberOfRecords;
+        long numberOfIncompleteRecords;
+        double logLikelihood;
+
+        Tally(ProbabilityFunction functions[])
+        {
+            counts = new double[functions.length][];
+            for (int f = 0; f < functions.length; f++)
+            {
+                counts[f] = new double[functions[f].numberValues()];
+            }
+            patterns = new HashMap<>();
+        }
+
+        void addPattern(Pattern pattern, long count)
+        {
+            Pattern known = patterns.get(pattern);
+            if (known == null)
+            {
+                patterns.put(pattern, pattern);
+                known = pattern;
+            }
+            known.count += count;
+        }
+
+        void merge(Tally other)
+        {
+            add(counts, other.counts);
+            for (Pattern pattern : other.patterns.keySet())
+            {
+                Pattern copy = new Pattern(pattern.values);
+                addPattern(copy, pattern.count);
+            }
+            numberOfRecords += other.numberOfRecords;
+            numberOfIncompleteRecords += other.numberOfIncompleteRecords;
+            logLikelihood += other.logLikelihood;
+        }
+    }
+}
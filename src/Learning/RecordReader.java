@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package Learning;
+
+import BayesianInferences.DataGenerator;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Streaming reader of data records for the variables of a network, in the
+ * CSV or binary format written by DataGenerator; the format is recognised
+ * from the first bytes.
+ *
+ * Records are read in chunks into a flat array of value indexes, one row of
+ * network variables per record, so arbitrarily large files can be processed
+ * with bounded memory. Columns are matched to the variables by name;
+ * columns of unknown variables are skipped and variables without a column
+ * are missing in all records. A missing value is BayesNet.INVALID_INDEX; in
+ * CSV it is an empty or unquoted "?" cell.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class RecordReader implements Closeable
+{
+
+    private static final Class CLAZZ = RecordReader.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final BayesNet bayesNet;
+    private final int numberOfVariables;
+    private final BufferedReader csv;
+    private final DataInputStream binary;
+    // Network variable of each column, INVALID_INDEX if unknown
+    private int columnVariable[];
+    // Network value index of each value of each column
+    private int columnValues[][];
+    private boolean isShort;
+    private long lineNumber;
+
+    /**
+     * Constructor for a RecordReader of a file.
+     *
+     * @param file     the data file
+     * @param bayesNet the network whose variables are read
+     * @throws IOException if the file cannot be read or its header does not
+     *                     fit the network
+     */
+    public RecordReader(File file, BayesNet bayesNet) throws IOException
+    {
+        this(new FileInputStream(file), bayesNet);
+    }
+
+    /**
+     * Constructor for a RecordReader of a stream.
+     *
+     * @param in       the data stream; closed by close()
+     * @param bayesNet the network whose variables are read
+     * @throws IOException if the stream cannot be read or its header does
+     *                     not fit the network
+     */
+    public RecordReader(InputStream in, BayesNet bayesNet) throws IOException
+    {
+        this.bayesNet = bayesNet;
+        this.numberOfVariables = bayesNet.numberVariables();
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(4);
+        DataInputStream data = new DataInputStream(buffered);
+        boolean isBinary;
+        try
+        {
+            isBinary = data.readInt() == DataGenerator.MAGIC;
+        }
+        catch (EOFException ex)
+        {
+            isBinary = false;
+        }
+        buffered.reset();
+        if (isBinary)
+        {
+            binary = data;
+            csv = null;
+            readBinaryHeader();
+        }
+        else
+        {
+            binary = null;
+            csv = new BufferedReader(new InputStreamReader(buffered, UTF8),
+                                     1 << 16);
+            readCsvHeader();
+        }
+    }
+
+    /**
+     * Get the network whose variables are read.
+     *
+     * @return the network
+     */
+    public BayesNet getBayesNet()
+    {
+        return bayesNet;
+    }
+
+    private void readBinaryHeader() throws IOException
+    {
+        binary.readInt();
+        int numberOfColumns = binary.readInt();
+        columnVariable = new int[numberOfColumns];
+        columnValues = new int[numberOfColumns][];
+        int largest = 0;
+        for (int c = 0; c < numberOfColumns; c++)
+        {
+            columnVariable[c] = bayesNet.indexOfVariable(binary.readUTF());
+            int numberOfValues = binary.readInt();
+            largest = Math.max(largest, numberOfValues);
+            columnValues[c] = new int[numberOfValues];
+            for (int x = 0; x < numberOfValues; x++)
+            {
+                columnValues[c][x] = valueIndex(columnVariable[c],
+                                                binary.readUTF());
+            }
+        }
+        isShort = largest > Byte.MAX_VALUE;
+    }
+
+    private void readCsvHeader() throws IOException
+    {
+        String line = csv.readLine();
+        lineNumber++;
+        if (line == null)
+        {
+            throw new IOException("Empty data, no header");
+        }
+        ArrayList<String> cells = new ArrayList<>();
+        splitCsv(line, cells, null);
+        columnVariable = new int[cells.size()];
+        for (int c = 0; c < columnVariable.length; c++)
+        {
+            columnVariable[c] = bayesNet.indexOfVariable(cells.get(c));
+            if (columnVariable[c] == BayesNet.INVALID_INDEX)
+            {
+                LOGGER.warning("Column " + cells.get(c) +
+                               " is not a variable of the network");
+            }
+        }
+    }
+
+    /**
+     * Find the index of a value of a variable.
+     *
+     * @return the index, or INVALID_INDEX for a column that is skipped
+     * @throws IOException if the variable has no such value
+     */
+    private int valueIndex(int varIndex, String value) throws IOException
+    {
+        if (varIndex == BayesNet.INVALID_INDEX)
+        {
+            return BayesNet.INVALID_INDEX;
+        }
+        ProbabilityVariable probVar = bayesNet.getProbabilityVariable(varIndex);
+        int x = probVar.indexOfValue(value);
+        if (x == BayesNet.INVALID_INDEX)
+        {
+            throw new IOException("Variable " + probVar.getName() +
+                                  " has no value " + value +
+                                  (csv == null ? "" : " (line " +
+                                                      lineNumber + ")"));
+        }
+        return x;
+    }
+
+    /**
+     * Read the next records.
+     *
+     * @param records    buffer of at least maxRecords times the number of
+     *                   variables of the network; record r occupies the
+     *                   entries from r times the number of variables on
+     * @param maxRecords the largest number of records to read
+     * @return the number of records read, 0 at the end of the data
+     * @throws IOException if the data cannot be read or parsed
+     */
+    public int read(int records[], int maxRecords) throws IOException
+    {
+        int numberRead = 0;
+        ArrayList<String> cells = new ArrayList<>();
+        ArrayList<Boolean> isQuoted = new ArrayList<>();
+        while (numberRead < maxRecords)
+        {
+            int base = numberRead * numberOfVariables;
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                records[base + v] = BayesNet.INVALID_INDEX;
+            }
+            if (binary != null)
+            {
+                if (!readBinaryRecord(records, base))
+                {
+                    break;
+                }
+            }
+            else
+            {
+                String line = csv.readLine();
+                lineNumber++;
+                if (line == null)
+                {
+                    break;
+                }
+                if (line.trim().isEmpty())
+                {
+                    continue;
+                }
+                splitCsv(line, cells, isQuoted);
+                if (cells.size() != columnVariable.length)
+                {
+                    throw new IOException("Line " + lineNumber + " has " +
+                                          cells.size() + " cells instead of " +
+                                          columnVariable.length);
+                }
+                for (int c = 0; c < cells.size(); c++)
+                {
+                    String cell = cells.get(c);
+                    if (columnVariable[c] == BayesNet.INVALID_INDEX ||
+                        (!isQuoted.get(c) &&
+                         (cell.isEmpty() ||
+                          cell.equals(DataGenerator.MISSING))))
+                    {
+                        continue;
+                    }
+                    records[base + columnVariable[c]] =
+                    valueIndex(columnVariable[c], cell);
+                }
+            }
+            numberRead++;
+        }
+        return numberRead;
+    }
+
+    /**
+     * Read a binary record.
+     *
+     * @return false at the end of the data
+     */
+    private boolean readBinaryRecord(int records[], int base)
+            throws IOException
+    {
+        for (int c = 0; c < columnVariable.length; c++)
+        {
+            int x;
+            try
+            {
+                x = isShort ? binary.readShort() : binary.readByte();
+            }
+            catch (EOFException ex)
+            {
+                if (c == 0)
+                {
+                    return false;
+                }
+                throw new IOException("Truncated record", ex);
+            }
+            if (x >= columnValues[c].length)
+            {
+                throw new IOException("Value index " + x +
+                                      " out of range in column " + c);
+            }
+            if (x >= 0 && columnVariable[c] != BayesNet.INVALID_INDEX)
+            {
+                records[base + columnVariable[c]] = columnValues[c][x];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split a CSV line into trimmed cells; cells may be enclosed in double
+     * quotes, with doubled quotes inside.
+     */
+    private static void splitCsv(String line,
+                                 ArrayList<String> cells,
+                                 ArrayList<Boolean> isQuoted)
+    {
+        cells.clear();
+        if (isQuoted != null)
+        {
+            isQuoted.clear();
+        }
+        StringBuilder cell = new StringBuilder();
+        boolean isInQuotes = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (isInQuotes)
+            {
+                if (c == '"' && i + 1 < line.length() &&
+                    line.charAt(i + 1) == '"')
+                {
+                    cell.append(c);
+                    i++;
+                }
+                else if (c == '"')
+                {
+                    isInQuotes = false;
+                }
+                else
+                {
+                    cell.append(c);
+                }
+            }
+            else if (c == '"')
+            {
+                if (!wasQuoted)
+                {
+                    // Drop the blanks before the opening quote
+                    cell.setLength(0);
+                }
+                isInQuotes = true;
+                wasQuoted = true;
+            }
+            else if (c == ',')
+            {
+                cells.add(wasQuoted ? cell.toString() : cell.toString().trim());
+                if (isQuoted != null)
+                {
+                    isQuoted.add(wasQuoted);
+                }
+                cell.setLength(0);
+                wasQuoted = false;
+            }
+            else if (!wasQuoted)
+            {
+                cell.append(c);
+            }
+        }
+        cells.add(wasQuoted ? cell.toString() : cell.toString().trim());
+        if (isQuoted != null)
+        {
+            isQuoted.add(wasQuoted);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (binary != null)
+        {
+            binary.close();
+        }
+        else
+        {
+            csv.close();
+        }
+    }
+}
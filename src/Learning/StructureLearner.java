@@ -0,0 +1,1254 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package Learning;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Score based learning of the structure of a network from complete data.
+ *
+ * The variables are taken from a given network, whose structure is ignored.
+ * Starting from the network without arcs, the search repeatedly applies the
+ * best addition, removal or reversal of an arc that keeps the graph acyclic:
+ * <ol>
+ * <li> hill climbing stops when no move improves the score;</li>
+ * <li> tabu search also takes the best move that worsens the score, except
+ * moves on the arcs changed by the last moves unless they lead to a new best
+ * score, and stops after a number of moves without a new best score; the
+ * best structure found is returned.</li>
+ * </ol>
+ * The score is decomposable, BIC or BDeu, so a move changes the score of one
+ * or two families (a variable and its parents) only. Family scores are kept
+ * in a cache and every family is scored once. The counts of a family are
+ * computed from one bitmap per value of every variable, marking the records
+ * with that value: the records of a configuration of the parents are the
+ * intersection of their bitmaps, and intersections that are already empty
+ * are not refined further. The moves of an iteration are evaluated in
+ * parallel.
+ *
+ * The learned network has the variables of the given network and
+ * probability functions estimated from the counts, with a Dirichlet pseudo
+ * count if one is set; it can be written with saveBif or saveXml.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class StructureLearner
+{
+
+    private static final Class CLAZZ = StructureLearner.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int CHUNK_SIZE = 16384;
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * The score of a structure.
+     */
+    public enum Score
+    {
+
+        /**
+         * Bayesian information criterion: log-likelihood penalized by half
+         * the logarithm of the number of records per parameter.
+         */
+        BIC,
+        /**
+         * Bayesian Dirichlet equivalent uniform: marginal likelihood under a
+         * uniform Dirichlet prior of a given equivalent sample size.
+         */
+        BDEU
+    }
+
+    /**
+     * The search strategy.
+     */
+    public enum Search
+    {
+
+        /**
+         * Greedy hill climbing.
+         */
+        HILL_CLIMBING,
+        /**
+         * Tabu search.
+         */
+        TABU
+    }
+
+    private static final int ADD = 0;
+    private static final int DELETE = 1;
+    private static final int REVERSE = 2;
+
+    private final BayesNet bayesNet;
+    private final int numberOfVariables;
+    private final int cardinalities[];
+
+    private Score score = Score.BIC;
+    private Search search = Search.HILL_CLIMBING;
+    private double equivalentSampleSize = 1.0;
+    private double pseudoCount;
+    private int maxParents = 4;
+    private int tabuLength = 10;
+    private int maxTabuMoves = 20;
+    private int numberOfThreads;
+
+    // Bitmaps of the records per variable and value
+    private long bitmaps[][][];
+    private int numberOfWords;
+    private long numberOfRecords;
+    private long numberOfSkippedRecords;
+
+    private ConcurrentHashMap<Family, Double> familyScores;
+    private int parents[][];
+    private int numberOfMoves;
+    private double totalScore;
+
+    /**
+     * Constructor for a StructureLearner.
+     *
+     * @param bayesNet the network that defines the variables
+     */
+    public StructureLearner(BayesNet bayesNet)
+    {
+        this.bayesNet = bayesNet;
+        numberOfVariables = bayesNet.numberVariables();
+        cardinalities = new int[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            cardinalities[v] = bayesNet.getProbabilityVariable(v)
+                    .numberValues();
+        }
+        numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get the score.
+     *
+     * @return the score
+     */
+    public Score getScore()
+    {
+        return score;
+    }
+
+    /**
+     * Set the score.
+     *
+     * @param score the score
+     */
+    public void setScore(Score score)
+    {
+        this.score = score;
+    }
+
+    /**
+     * Get the search strategy.
+     *
+     * @return the search strategy
+     */
+    public Search getSearch()
+    {
+        return search;
+    }
+
+    /**
+     * Set the search strategy.
+     *
+     * @param search the search strategy
+     */
+    public void setSearch(Search search)
+    {
+        this.search = search;
+    }
+
+    /**
+     * Get the equivalent sample size of the BDeu score.
+     *
+     * @return the equivalent sample size
+     */
+    public double getEquivalentSampleSize()
+    {
+        return equivalentSampleSize;
+    }
+
+    /**
+     * Set the equivalent sample size of the BDeu score.
+     *
+     * @param equivalentSampleSize the equivalent sample size
+     */
+    public void setEquivalentSampleSize(double equivalentSampleSize)
+    {
+        if (!(equivalentSampleSize > 0.0))
+        {
+            throw new IllegalArgumentException(
+                    "Equivalent sample size must be positive: " +
+                    equivalentSampleSize);
+        }
+        this.equivalentSampleSize = equivalentSampleSize;
+    }
+
+    /**
+     * Get the Dirichlet pseudo count used to estimate the probability
+     * functions of the learned network.
+     *
+     * @return the pseudo count, 0 for maximum likelihood
+     */
+    public double getPseudoCount()
+    {
+        return pseudoCount;
+    }
+
+    /**
+     * Set the Dirichlet pseudo count used to estimate the probability
+     * functions of the learned network.
+     *
+     * @param pseudoCount the pseudo count, 0 for maximum likelihood
+     */
+    public void setPseudoCount(double pseudoCount)
+    {
+        if (!(pseudoCount >= 0.0))
+        {
+            throw new IllegalArgumentException(
+                    "Pseudo count must not be negative: " + pseudoCount);
+        }
+        this.pseudoCount = pseudoCount;
+    }
+
+    /**
+     * Get the maximal number of parents of a variable.
+     *
+     * @return the maximal number of parents
+     */
+    public int getMaxParents()
+    {
+        return maxParents;
+    }
+
+    /**
+     * Set the maximal number of parents of a variable.
+     *
+     * @param maxParents the maximal number of parents
+     */
+    public void setMaxParents(int maxParents)
+    {
+        if (maxParents < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Number of parents must not be negative");
+        }
+        this.maxParents = maxParents;
+    }
+
+    /**
+     * Get the number of last moves whose arcs are tabu.
+     *
+     * @return the length of the tabu list
+     */
+    public int getTabuLength()
+    {
+        return tabuLength;
+    }
+
+    /**
+     * Set the number of last moves whose arcs are tabu.
+     *
+     * @param tabuLength the length of the tabu list
+     */
+    public void setTabuLength(int tabuLength)
+    {
+        if (tabuLength < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Tabu length must not be negative");
+        }
+        this.tabuLength = tabuLength;
+    }
+
+    /**
+     * Get the number of moves without a new best score after which tabu
+     * search stops.
+     *
+     * @return the number of moves
+     */
+    public int getMaxTabuMoves()
+    {
+        return maxTabuMoves;
+    }
+
+    /**
+     * Set the number of moves without a new best score after which tabu
+     * search stops.
+     *
+     * @param maxTabuMoves the number of moves, at least 1
+     */
+    public void setMaxTabuMoves(int maxTabuMoves)
+    {
+        if (maxTabuMoves < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of tabu moves must be positive");
+        }
+        this.maxTabuMoves = maxTabuMoves;
+    }
+
+    /**
+     * Get the number of threads evaluating moves.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of threads evaluating moves.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Learn a network from a data file.
+     *
+     * @param dataFile the data, CSV or binary, see RecordReader
+     * @return the learned network
+     * @throws IOException if the data cannot be read
+     */
+    public BayesNet learn(File dataFile) throws IOException
+    {
+        try (RecordReader reader = new RecordReader(dataFile, bayesNet))
+        {
+            return learn(reader);
+        }
+    }
+
+    /**
+     * Learn a network from the records of a reader. Records with missing
+     * values are skipped.
+     *
+     * @param reader the reader of the records
+     * @return the learned network
+     * @throws IOException if the data cannot be read
+     */
+    public BayesNet learn(RecordReader reader) throws IOException
+    {
+        index(reader);
+        familyScores = new ConcurrentHashMap<>();
+        parents = new int[numberOfVariables][0];
+        numberOfMoves = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                        numberOfThreads);
+        try
+        {
+            totalScore = 0.0;
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                totalScore += familyScore(v, parents[v]);
+            }
+            if (search == Search.TABU)
+            {
+                tabuSearch(executor);
+            }
+            else
+            {
+                hillClimbing(executor);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return buildNetwork();
+    }
+
+    /**
+     * Read the records into the bitmaps.
+     */
+    private void index(RecordReader reader) throws IOException
+    {
+        bitmaps = new long[numberOfVariables][][];
+        int capacity = 1024;
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            bitmaps[v] = new long[cardinalities[v]][capacity];
+        }
+        numberOfRecords = 0;
+        numberOfSkippedRecords = 0;
+        int records[] = new int[CHUNK_SIZE * numberOfVariables];
+        for (int size = reader.read(records, CHUNK_SIZE);
+             size > 0;
+             size = reader.read(records, CHUNK_SIZE))
+        {
+            for (int r = 0; r < size; r++)
+            {
+                int base = r * numberOfVariables;
+                boolean isComplete = true;
+                for (int v = 0; v < numberOfVariables && isComplete; v++)
+                {
+                    isComplete = records[base + v] != BayesNet.INVALID_INDEX;
+                }
+                if (!isComplete)
+                {
+                    numberOfSkippedRecords++;
+                    continue;
+                }
+                int word = (int) (numberOfRecords >>> 6);
+                if (word == capacity)
+                {
+                    capacity *= 2;
+                    for (int v = 0; v < numberOfVariables; v++)
+                    {
+                        for (int x = 0; x < cardinalities[v]; x++)
+                        {
+                            bitmaps[v][x] = Arrays.copyOf(bitmaps[v][x],
+                                                          capacity);
+                        }
+                    }
+                }
+                long bit = 1L << (numberOfRecords & 63);
+                for (int v = 0; v < numberOfVariables; v++)
+                {
+                    bitmaps[v][records[base + v]][word] |= bit;
+                }
+                numberOfRecords++;
+            }
+        }
+        numberOfWords = (int) ((numberOfRecords + 63) >>> 6);
+        if (numberOfSkippedRecords > 0)
+        {
+            LOGGER.warning(numberOfSkippedRecords +
+                           " records with missing values skipped");
+        }
+    }
+
+    private void hillClimbing(ExecutorService executor) throws IOException
+    {
+        while (true)
+        {
+            Move best = bestMove(executor, null, Double.POSITIVE_INFINITY);
+            if (best == null || best.delta <= EPSILON)
+            {
+                return;
+            }
+            apply(best);
+        }
+    }
+
+    private void tabuSearch(ExecutorService executor) throws IOException
+    {
+        ArrayDeque<Integer> tabu = new ArrayDeque<>();
+        boolean isTabu[] = new boolean[numberOfVariables * numberOfVariables];
+        int bestParents[][] = copy(parents);
+        double bestScore = totalScore;
+        int bestMoves = numberOfMoves;
+        int movesWithoutImprovement = 0;
+        while (movesWithoutImprovement < maxTabuMoves)
+        {
+            Move move = bestMove(executor,
+                                 isTabu,
+                                 bestScore - totalScore + EPSILON);
+            if (move == null)
+            {
+                break;
+            }
+            apply(move);
+            if (tabuLength > 0)
+            {
+                int arc = arc(move.from, move.to);
+                tabu.addLast(arc);
+                isTabu[arc] = true;
+                if (tabu.size() > tabuLength)
+                {
+                    isTabu[tabu.removeFirst()] = false;
+                }
+            }
+            if (totalScore > bestScore + EPSILON)
+            {
+                bestParents = copy(parents);
+                bestScore = totalScore;
+                bestMoves = numberOfMoves;
+                movesWithoutImprovement = 0;
+            }
+            else
+            {
+                movesWithoutImprovement++;
+            }
+        }
+        parents = bestParents;
+        totalScore = bestScore;
+        numberOfMoves = bestMoves;
+    }
+
+    /**
+     * Evaluate all legal moves in parallel and return the best one.
+     *
+     * @param isTabu      the tabu arcs, null if there are none
+     * @param aspiration  the improvement that makes a tabu move allowed
+     * @return the best move, null if there is no legal move
+     */
+    private Move bestMove(ExecutorService executor,
+                          final boolean isTabu[],
+                          final double aspiration) throws IOException
+    {
+        final ArrayList<Move> moves = legalMoves();
+        if (moves.isEmpty())
+        {
+            return null;
+        }
+        int tasks = Math.min(numberOfThreads, moves.size());
+        ArrayList<Future<Move>> parts = new ArrayList<>();
+        for (int t = 0; t < tasks; t++)
+        {
+            final int from = moves.size() * t / tasks;
+            final int to = moves.size() * (t + 1) / tasks;
+            parts.add(executor.submit(new Callable<Move>()
+            {
+                @Override
+                public Move call()
+                {
+                    Counter counter = new Counter();
+                    Move best = null;
+                    for (int m = from; m < to; m++)
+                    {
+                        Move move = moves.get(m);
+                        move.delta = delta(move, counter);
+                        if (isTabu != null &&
+                            isTabu[arc(move.from, move.to)] &&
+                            move.delta <= aspiration)
+                        {
+                            continue;
+                        }
+                        if (best == null || move.delta > best.delta)
+                        {
+                            best = move;
+                        }
+                    }
+                    return best;
+                }
+            }));
+        }
+        Move best = null;
+        try
+        {
+            for (Future<Move> part : parts)
+            {
+                Move move = part.get();
+                if (move != null && (best == null || move.delta > best.delta))
+                {
+                    best = move;
+                }
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new IOException(ex.getCause());
+        }
+        return best;
+    }
+
+    /**
+     * All moves that keep the graph acyclic and respect the maximal number
+     * of parents.
+     */
+    private ArrayList<Move> legalMoves()
+    {
+        boolean isReachable[][] = new boolean[numberOfVariables][];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            isReachable[v] = descendants(v, -1, -1);
+        }
+        ArrayList<Move> moves = new ArrayList<>();
+        for (int to = 0; to < numberOfVariables; to++)
+        {
+            for (int from = 0; from < numberOfVariables; from++)
+            {
+                if (from == to)
+                {
+                    continue;
+                }
+                if (Arrays.binarySearch(parents[to], from) >= 0)
+                {
+                    moves.add(new Move(DELETE, from, to));
+                    // Reversing is legal if from is not reachable from to
+                    // otherwise than through the arc
+                    if (parents[from].length < maxParents &&
+                        !descendants(from, from, to)[to])
+                    {
+                        moves.add(new Move(REVERSE, from, to));
+                    }
+                }
+                else if (parents[to].length < maxParents &&
+                         !isReachable[to][from])
+                {
+                    moves.add(new Move(ADD, from, to));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * The variables reachable from a variable, ignoring one arc.
+     */
+    private boolean[] descendants(int v, int ignoredFrom, int ignoredTo)
+    {
+        boolean isReached[] = new boolean[numberOfVariables];
+        int stack[] = new int[numberOfVariables];
+        int size = 0;
+        stack[size++] = v;
+        while (size > 0)
+        {
+            int u = stack[--size];
+            for (int w = 0; w < numberOfVariables; w++)
+            {
+                if (!isReached[w] &&
+                    !(u == ignoredFrom && w == ignoredTo) &&
+                    Arrays.binarySearch(parents[w], u) >= 0)
+                {
+                    isReached[w] = true;
+                    stack[size++] = w;
+                }
+            }
+        }
+        return isReached;
+    }
+
+    private double delta(Move move, Counter counter)
+    {
+        int to[] = parents[move.to];
+        switch (move.type)
+        {
+            case ADD:
+                return familyScore(move.to, with(to, move.from), counter) -
+                       familyScore(move.to, to, counter);
+            case DELETE:
+                return familyScore(move.to, without(to, move.from), counter) -
+                       familyScore(move.to, to, counter);
+            default:
+                int from[] = parents[move.from];
+                return familyScore(move.to, without(to, move.from), counter) -
+                       familyScore(move.to, to, counter) +
+                       familyScore(move.from, with(from, move.to), counter) -
+                       familyScore(move.from, from, counter);
+        }
+    }
+
+    private void apply(Move move)
+    {
+        switch (move.type)
+        {
+            case ADD:
+                parents[move.to] = with(parents[move.to], move.from);
+                break;
+            case DELETE:
+                parents[move.to] = without(parents[move.to], move.from);
+                break;
+            default:
+                parents[move.to] = without(parents[move.to], move.from);
+                parents[move.from] = with(parents[move.from], move.to);
+        }
+        totalScore += move.delta;
+        numberOfMoves++;
+        LOGGER.fine("Move " + numberOfMoves + ": " + move.type + " " +
+                    move.from + " -> " + move.to + ", score " + totalScore);
+    }
+
+    private double familyScore(int v, int familyParents[])
+    {
+        return familyScore(v, familyParents, new Counter());
+    }
+
+    /**
+     * The score of a family, from the cache if it was scored before.
+     */
+    private double familyScore(int v, int familyParents[], Counter counter)
+    {
+        Family family = new Family(v, familyParents);
+        Double cached = familyScores.get(family);
+        if (cached != null)
+        {
+            return cached;
+        }
+        double counts[] = counter.count(v, familyParents);
+        int numberOfValues = cardinalities[v];
+        int numberOfRows = counts.length / numberOfValues;
+        double value = 0.0;
+        if (score == Score.BIC)
+        {
+            for (int row = 0; row < numberOfRows; row++)
+            {
+                double total = 0.0;
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    total += counts[x * numberOfRows + row];
+                }
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    double n = counts[x * numberOfRows + row];
+                    if (n > 0.0)
+                    {
+                        value += n * Math.log(n / total);
+                    }
+                }
+            }
+            value -= 0.5 * Math.log(Math.max(numberOfRecords, 1)) *
+                     numberOfRows * (numberOfValues - 1);
+        }
+        else
+        {
+            double alphaRow = equivalentSampleSize / numberOfRows;
+            double alphaCell = alphaRow / numberOfValues;
+            double logGammaRow = logGamma(alphaRow);
+            double logGammaCell = logGamma(alphaCell);
+            for (int row = 0; row < numberOfRows; row++)
+            {
+                double total = 0.0;
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    double n = counts[x * numberOfRows + row];
+                    if (n > 0.0)
+                    {
+                        value += logGamma(n + alphaCell) - logGammaCell;
+                        total += n;
+                    }
+                }
+                if (total > 0.0)
+                {
+                    value += logGammaRow - logGamma(total + alphaRow);
+                }
+            }
+        }
+        familyScores.putIfAbsent(family, value);
+        return value;
+    }
+
+    /**
+     * The learned network: the variables of the given network and the
+     * estimated probability functions.
+     */
+    private BayesNet buildNetwork()
+    {
+        BayesNet learned = new BayesNet(bayesNet.getName(),
+                                        numberOfVariables,
+                                        numberOfVariables);
+        learned.setProperties(new ArrayList<>(bayesNet.getProperties()));
+        ProbabilityVariable probVars[] =
+                            new ProbabilityVariable[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            ProbabilityVariable original = bayesNet.getProbabilityVariable(v);
+            probVars[v] = new ProbabilityVariable(
+            learned,
+            original.getName(),
+            v,
+            original.getValues(),
+            new ArrayList<>(original.getProperties()));
+            learned.setProbabilityVariable(v, probVars[v]);
+        }
+        Counter counter = new Counter();
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            ProbabilityVariable familyVars[] =
+                                new ProbabilityVariable[parents[v].length + 1];
+            familyVars[0] = probVars[v];
+            for (int i = 0; i < parents[v].length; i++)
+            {
+                familyVars[i + 1] = probVars[parents[v][i]];
+            }
+            double values[] = counter.count(v, parents[v]);
+            int numberOfValues = cardinalities[v];
+            int numberOfRows = values.length / numberOfValues;
+            for (int row = 0; row < numberOfRows; row++)
+            {
+                double total = 0.0;
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    total += values[x * numberOfRows + row] + pseudoCount;
+                }
+                for (int x = 0; x < numberOfValues; x++)
+                {
+                    values[x * numberOfRows + row] = total > 0.0 ?
+                    (values[x * numberOfRows + row] + pseudoCount) / total :
+                    1.0 / numberOfValues;
+                }
+            }
+            learned.setProbabilityFunction(v, new ProbabilityFunction(
+                                           learned,
+                                           familyVars,
+                                           values,
+                                           new ArrayList<String>()));
+        }
+        return learned;
+    }
+
+    /**
+     * Get the number of records used by the last learning.
+     *
+     * @return the number of complete records
+     */
+    public long getNumberOfRecords()
+    {
+        return numberOfRecords;
+    }
+
+    /**
+     * Get the number of records with missing values skipped by the last
+     * learning.
+     *
+     * @return the number of skipped records
+     */
+    public long getNumberOfSkippedRecords()
+    {
+        return numberOfSkippedRecords;
+    }
+
+    /**
+     * Get the number of moves leading to the learned structure.
+     *
+     * @return the number of moves
+     */
+    public int getNumberOfMoves()
+    {
+        return numberOfMoves;
+    }
+
+    /**
+     * Get the number of families scored by the last learning.
+     *
+     * @return the size of the score cache
+     */
+    public int getNumberOfScoredFamilies()
+    {
+        return familyScores == null ? 0 : familyScores.size();
+    }
+
+    /**
+     * Get the score of the learned structure.
+     *
+     * @return the score
+     */
+    public double getStructureScore()
+    {
+        return totalScore;
+    }
+
+    private int arc(int from, int to)
+    {
+        return Math.min(from, to) * numberOfVariables + Math.max(from, to);
+    }
+
+    private static int[] with(int set[], int element)
+    {
+        int result[] = Arrays.copyOf(set, set.length + 1);
+        result[set.length] = element;
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int[] without(int set[], int element)
+    {
+        int result[] = new int[set.length - 1];
+        int j = 0;
+        for (int e : set)
+        {
+            if (e != element)
+            {
+                result[j++] = e;
+            }
+        }
+        return result;
+    }
+
+    private static int[][] copy(int sets[][])
+    {
+        int result[][] = new int[sets.length][];
+        for (int i = 0; i < sets.length; i++)
+        {
+            result[i] = sets[i].clone();
+        }
+        return result;
+    }
+
+    /**
+     * Logarithm of the gamma function for positive arguments (Lanczos
+     * approximation).
+     */
+    static double logGamma(double x)
+    {
+        if (x < 0.5)
+        {
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) -
+                   logGamma(1.0 - x);
+        }
+        final double coefficients[] =
+        {
+            0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+            771.32342877765313, -176.61502916214059, 12.507343278686905,
+            -0.13857109526572012, 9.9843695780195716e-6,
+            1.5056327351493116e-7
+        };
+        x -= 1.0;
+        double sum = coefficients[0];
+        for (int i = 1; i < coefficients.length; i++)
+        {
+            sum += coefficients[i] / (x + i);
+        }
+        double t = x + coefficients.length - 1.5;
+        return 0.5 * Math.log(2.0 * Math.PI) + (x + 0.5) * Math.log(t) - t +
+               Math.log(sum);
+    }
+
+    /**
+     * Command line learning of a network:
+     * {@code StructureLearner <network> --data <file> [options]}; the
+     * variables are taken from the network, see usage().
+     *
+     * @param argv command line arguments
+     */
+    public static void main(String argv[])
+    {
+        String networkFile = null;
+        String dataFile = null;
+        String outputFile = null;
+        String format = null;
+        String scoreName = "bic";
+        String searchName = "hill";
+        int threads = 0;
+        int maxParents = 4;
+        double pseudoCount = 0.0;
+        try
+        {
+            for (int i = 0; i < argv.length; i++)
+            {
+                switch (argv[i])
+                {
+                    case "--data":
+                        dataFile = argv[++i];
+                        break;
+                    case "--output":
+                        outputFile = argv[++i];
+                        break;
+                    case "--format":
+                        format = argv[++i];
+                        break;
+                    case "--score":
+                        scoreName = argv[++i];
+                        break;
+                    case "--search":
+                        searchName = argv[++i];
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(argv[++i]);
+                        break;
+                    case "--max-parents":
+                        maxParents = Integer.parseInt(argv[++i]);
+                        break;
+                    case "--pseudo-count":
+                        pseudoCount = Double.parseDouble(argv[++i]);
+                        break;
+                    default:
+                        if (argv[i].startsWith("--") || networkFile != null)
+                        {
+                            throw new IllegalArgumentException(
+                                    "Unknown argument " + argv[i]);
+                        }
+                        networkFile = argv[i];
+                }
+            }
+            if (networkFile == null)
+            {
+                throw new IllegalArgumentException("No network given");
+            }
+            if (dataFile == null)
+            {
+                throw new IllegalArgumentException("No data given");
+            }
+            if (!scoreName.equalsIgnoreCase("bic") &&
+                !scoreName.equalsIgnoreCase("bdeu"))
+            {
+                throw new IllegalArgumentException(
+                        "Unknown score " + scoreName);
+            }
+            if (!searchName.equalsIgnoreCase("hill") &&
+                !searchName.equalsIgnoreCase("tabu"))
+            {
+                throw new IllegalArgumentException(
+                        "Unknown search " + searchName);
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex)
+        {
+            System.err.println(ex.getMessage() == null ?
+                               "Missing argument" :
+                               ex.getMessage());
+            usage();
+            System.exit(1);
+            return;
+        }
+        boolean isXml = format == null ?
+                        outputFile != null &&
+                        outputFile.toLowerCase().endsWith(".xml") :
+                        format.equalsIgnoreCase("xml");
+        try
+        {
+            StructureLearner learner = new StructureLearner(
+                             new BayesNet(new File(networkFile)));
+            if (threads > 0)
+            {
+                learner.setNumberOfThreads(threads);
+            }
+            learner.setMaxParents(maxParents);
+            learner.setPseudoCount(pseudoCount);
+            learner.setScore(scoreName.equalsIgnoreCase("bdeu") ?
+                             Score.BDEU :
+                             Score.BIC);
+            learner.setSearch(searchName.equalsIgnoreCase("tabu") ?
+                              Search.TABU :
+                              Search.HILL_CLIMBING);
+            BayesNet learned = learner.learn(new File(dataFile));
+            PrintStream out = outputFile == null ?
+                              System.out :
+                              new PrintStream(new FileOutputStream(
+                                      outputFile));
+            try
+            {
+                if (isXml)
+                {
+                    learned.saveXml(out);
+                }
+                else
+                {
+                    learned.saveBif(out);
+                }
+            }
+            finally
+            {
+                if (out != System.out)
+                {
+                    out.close();
+                }
+            }
+        }
+        catch (Exception ex)
+        {
+            System.err.println("Structure learning failed: " + ex);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Print the command line usage.
+     */
+    static void usage()
+    {
+        System.err.println(
+                "Usage: JavaBayes --learn <network> --data <file> " +
+                "[options]\n" +
+                "  --output <file>        output file " +
+                "(default: standard output)\n" +
+                "  --format bif|xml       output format (default: xml for " +
+                ".xml files,\n" +
+                "                         bif otherwise)\n" +
+                "  --score bic|bdeu       score (default: bic)\n" +
+                "  --search hill|tabu     search (default: hill)\n" +
+                "  --max-parents <n>      maximal number of parents " +
+                "(default: 4)\n" +
+                "  --pseudo-count <a>     Dirichlet pseudo count of the " +
+                "estimates (default: 0)\n" +
+                "  --threads <n>          evaluating threads " +
+                "(default: available processors)");
+    }
+
+    /**
+     * A candidate change of the structure.
+     */
+    private static class Move
+    {
+
+        final int type;
+        final int from;
+        final int to;
+        double delta;
+
+        Move(int type, int from, int to)
+        {
+            this.type = type;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * A variable and its sorted parents, the key of the score cache.
+     */
+    private static class Family
+    {
+
+        final int members[];
+        final int hash;
+
+        Family(int v, int familyParents[])
+        {
+            members = new int[familyParents.length + 1];
+            members[0] = v;
+            System.arraycopy(familyParents, 0, members, 1,
+                             familyParents.length);
+            hash = Arrays.hashCode(members);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            return other instanceof Family &&
+                   Arrays.equals(members, ((Family) other).members);
+        }
+    }
+
+    /**
+     * Counting of families from the bitmaps, with the intersections of
+     * every depth kept in buffers owned by one thread.
+     */
+    private class Counter
+    {
+
+        private long buffers[][] = new long[0][];
+
+        /**
+         * The counts of a family laid out as its probability function: the
+         * variable slowest and the last parent fastest.
+         */
+        double[] count(int v, int familyParents[])
+        {
+            if (buffers.length < familyParents.length)
+            {
+                buffers = new long[familyParents.length][numberOfWords];
+            }
+            int numberOfRows = 1;
+            for (int p : familyParents)
+            {
+                numberOfRows *= cardinalities[p];
+            }
+            double counts[] = new double[numberOfRows * cardinalities[v]];
+            count(v, familyParents, 0, null, 0, numberOfRows, counts);
+            return counts;
+        }
+
+        private void count(int v,
+                           int familyParents[],
+                           int depth,
+                           long records[],
+                           int row,
+                           int numberOfRows,
+                           double counts[])
+        {
+            if (depth == familyParents.length)
+            {
+                for (int x = 0; x < cardinalities[v]; x++)
+                {
+                    counts[x * numberOfRows + row] =
+                    records == null ?
+                    cardinality(bitmaps[v][x]) :
+                    cardinality(records, bitmaps[v][x]);
+                }
+                return;
+            }
+            int p = familyParents[depth];
+            long buffer[] = buffers[depth];
+            for (int x = 0; x < cardinalities[p]; x++)
+            {
+                long values[] = bitmaps[p][x];
+                boolean isEmpty = true;
+                for (int w = 0; w < numberOfWords; w++)
+                {
+                    buffer[w] = records == null ?
+                                values[w] :
+                                records[w] & values[w];
+                    isEmpty &= buffer[w] == 0L;
+                }
+                // The counts of an empty configuration stay zero
+                if (!isEmpty)
+                {
+                    count(v, familyParents, depth + 1, buffer,
+                          row * cardinalities[p] + x, numberOfRows, counts);
+                }
+            }
+        }
+
+        private long cardinality(long bits[])
+        {
+            long n = 0;
+            for (int w = 0; w < numberOfWords; w++)
+            {
+                n += Long.bitCount(bits[w]);
+            }
+            return n;
+        }
+
+        private long cardinality(long bits[], long other[])
+        {
+            long n = 0;
+            for (int w = 0; w < numberOfWords; w++)
+            {
+                n += Long.bitCount(bits[w] & other[w]);
+            }
+            return n;
+        }
+    }
+}
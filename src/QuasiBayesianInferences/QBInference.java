@@ -196,18 +196,38 @@ public class QBInference extends Inference
         getBayesNet().setProbabilityVariables(newProbabilityVariables);
     }
 
+    /**
+     * Calculate the marginal posterior distribution of a variable. In the
+     * mini-bucket mode the bounds found by the mini-buckets are the result
+     * and there is no bucket tree to process.
+     *
+     * @param queriedVariableName name of the variable to query
+     */
     @Override
     public void inference(String queriedVariableName)
     {
         super.inference(queriedVariableName);
-        doQuasiBayesianInference();
+        if (getMiniBucketBound() == 0)
+        {
+            doQuasiBayesianInference();
+        }
     }
 
+    /**
+     * Calculate the marginal posterior distribution of the last variable of
+     * an elimination order. In the mini-bucket mode the bounds found by the
+     * mini-buckets are the result and there is no bucket tree to process.
+     *
+     * @param order the elimination order
+     */
     @Override
     public void inference(String order[])
     {
         super.inference(order);
-        doQuasiBayesianInference();
+        if (getMiniBucketBound() == 0)
+        {
+            doQuasiBayesianInference();
+        }
     }
 
     /**
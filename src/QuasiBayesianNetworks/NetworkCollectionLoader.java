@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package QuasiBayesianNetworks;
+
+import BayesianNetworks.SymbolTable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Loader for collections of networks. The files are parsed and converted
+ * concurrently by a pool of threads, and the names of all networks,
+ * variables and values are shared through one symbol table. The time taken
+ * by each file is reported with its result.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class NetworkCollectionLoader
+{
+
+    private static final Class CLAZZ = NetworkCollectionLoader.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final SymbolTable symbols;
+    private int numberOfThreads;
+
+    /**
+     * Default constructor for a NetworkCollectionLoader: one thread per
+     * available processor and a new symbol table for every collection, so
+     * the names are released with the networks.
+     */
+    public NetworkCollectionLoader()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructor for a NetworkCollectionLoader that shares the names of the
+     * networks it loads with other networks.
+     *
+     * @param symbols the symbol table for the names, or null for a new
+     *                table per collection
+     */
+    public NetworkCollectionLoader(SymbolTable symbols)
+    {
+        this.symbols = symbols;
+        numberOfThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get the symbol table holding the names of the loaded networks.
+     *
+     * @return the symbol table given to the constructor, or null if every
+     *         collection gets a table of its own
+     */
+    public SymbolTable getSymbolTable()
+    {
+        return symbols;
+    }
+
+    /**
+     * Get the number of loading threads.
+     *
+     * @return the number of threads
+     */
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    /**
+     * Set the number of loading threads.
+     *
+     * @param numberOfThreads the number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads)
+    {
+        if (numberOfThreads < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Load networks from files. A file that cannot be loaded does not stop
+     * the others; its result holds the error instead of a network.
+     *
+     * @param files the files describing the networks
+     * @return one result per file, in the order of the files
+     * @throws InterruptedException if the loading is interrupted
+     */
+    public List<Result> load(List<File> files) throws InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                        Math.max(1, Math.min(numberOfThreads, files.size())));
+        List<Future<Result>> pending = new ArrayList<>(files.size());
+        List<Result> results = new ArrayList<>(files.size());
+        final SymbolTable table = symbols != null ? symbols : new SymbolTable();
+        try
+        {
+            for (final File file : files)
+            {
+                pending.add(executor.submit(new Callable<Result>()
+                {
+                    @Override
+                    public Result call()
+                    {
+                        return loadFile(file, table);
+                    }
+                }));
+            }
+            for (Future<Result> result : pending)
+            {
+                results.add(result.get());
+            }
+        }
+        catch (ExecutionException ex)
+        {
+            // loadFile() reports failures in its result
+            throw new IllegalStateException(ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Create the network described by a file (works by overriding method in
+     * NetworkCollectionLoader).
+     *
+     * @param file the file
+     * @return the network
+     * @throws Exception if the file cannot be read or parsed
+     */
+    protected QuasiBayesNet createNetwork(File file) throws Exception
+    {
+        return new QuasiBayesNet(file);
+    }
+
+    private Result loadFile(File file, SymbolTable table)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            QuasiBayesNet network = createNetwork(file);
+            long nanos = System.nanoTime() - start;
+            network.internSymbols(table);
+            LOGGER.fine(file + " loaded in " + nanos / 1000000L + " ms");
+            return new Result(file, network, null, nanos);
+        }
+        catch (Exception ex)
+        {
+            LOGGER.warning(file + " not loaded: " + ex);
+            return new Result(file, null, ex, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Outcome of loading one file.
+     */
+    public static class Result
+    {
+
+        private final File file;
+        private final QuasiBayesNet network;
+        private final Exception error;
+        private final long parseNanos;
+
+        Result(File file,
+               QuasiBayesNet network,
+               Exception error,
+               long parseNanos)
+        {
+            this.file = file;
+            this.network = network;
+            this.error = error;
+            this.parseNanos = parseNanos;
+        }
+
+        /**
+         * Get the file.
+         *
+         * @return the file
+         */
+        public File getFile()
+        {
+            return file;
+        }
+
+        /**
+         * Get the network.
+         *
+         * @return the network, or null if the file could not be loaded
+         */
+        public QuasiBayesNet getNetwork()
+        {
+            return network;
+        }
+
+        /**
+         * Get the reason why the file could not be loaded.
+         *
+         * @return the error, or null if the network has been loaded
+         */
+        public Exception getError()
+        {
+            return error;
+        }
+
+        /**
+         * Indicate whether the network has been loaded.
+         *
+         * @return true if so, false otherwise
+         */
+        public boolean isLoaded()
+        {
+            return network != null;
+        }
+
+        /**
+         * Get the time taken to parse and convert the file, without the time
+         * spent waiting for a thread.
+         *
+         * @return the time in nanoseconds
+         */
+        public long getParseNanos()
+        {
+            return parseNanos;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package QuasiBayesianNetworks;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import CredalSets.VertexSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Generator for synthetic Bayesian networks and Quasi-Bayesian networks that
+ * are used to drive load and regression benchmarks at sizes the example
+ * networks do not reach.
+ *
+ * Variables are created in a topological order X0, X1, ... and every variable
+ * draws its parents from the <b>window</b> of variables immediately preceding
+ * it. Because co-parents of a variable then also lie within the window, the
+ * moral graph has bandwidth (and therefore treewidth) of at most the window
+ * size. A window equal to the number of variables leaves the structure
+ * unconstrained.
+ *
+ * The same seed and parameters always produce the same network, so generated
+ * networks can be recreated instead of being stored.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class NetworkGenerator
+{
+
+    private static final Class CLAZZ = NetworkGenerator.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Horizontal distance between generated node positions.
+     */
+    private static final int POSITION_STEP = 80;
+
+    private int numberOfVariables = 20;
+    private int maxParents = 3;
+    private int minValues = 2;
+    private int maxValues = 2;
+    private int treeWidthBound = Integer.MAX_VALUE;
+    private double credalDensity = 0.0;
+    private int numberOfExtremePoints = 2;
+    private long seed = 0L;
+
+    /**
+     * Default constructor for a NetworkGenerator.
+     */
+    public NetworkGenerator()
+    {
+    }
+
+    /**
+     * Constructor for a NetworkGenerator.
+     *
+     * @param numberOfVariables number of variables to generate
+     * @param maxParents        maximal number of parents (in-degree) of a
+     *                          variable
+     * @param maxValues         maximal number of values (cardinality) of a
+     *                          variable
+     * @param seed              seed for the random number generator
+     */
+    public NetworkGenerator(int numberOfVariables,
+                            int maxParents,
+                            int maxValues,
+                            long seed)
+    {
+        setNumberOfVariables(numberOfVariables);
+        setMaxParents(maxParents);
+        setValueRange(2, maxValues);
+        setSeed(seed);
+    }
+
+    /**
+     * Generate a Bayesian network with the current parameters. The credal
+     * density is ignored as a plain BayesNet cannot hold credal sets.
+     *
+     * @return the generated network
+     */
+    public BayesNet generateBayesNet()
+    {
+        BayesNet bayesNet = new BayesNet(networkName(),
+                                         numberOfVariables,
+                                         numberOfVariables);
+        populate(bayesNet, false);
+        return bayesNet;
+    }
+
+    /**
+     * Generate a Quasi-Bayesian network with the current parameters. A
+     * fraction of credalDensity of the probability functions are created as
+     * vertex sets with numberOfExtremePoints extreme points.
+     *
+     * @return the generated network
+     */
+    public QuasiBayesNet generateQuasiBayesNet()
+    {
+        QuasiBayesNet quasiBayesNet = new QuasiBayesNet(networkName(),
+                                                        numberOfVariables,
+                                                        numberOfVariables);
+        populate(quasiBayesNet, true);
+        return quasiBayesNet;
+    }
+
+    /**
+     * Fill the variables and functions of a network.
+     *
+     * @param bayesNet the network to fill
+     * @param isCredal whether credal sets may be generated
+     */
+    private void populate(BayesNet bayesNet, boolean isCredal)
+    {
+        Random random = new Random(seed);
+        int columns = (int) Math.ceil(Math.sqrt(numberOfVariables));
+
+        for (int i = 0; i < numberOfVariables; i++)
+        {
+            int numberOfValues = minValues +
+                                 random.nextInt(maxValues - minValues + 1);
+            String values[] = new String[numberOfValues];
+            for (int v = 0; v < numberOfValues; v++)
+            {
+                values[v] = "v" + v;
+            }
+            ArrayList<String> properties = new ArrayList<>();
+            properties.add("position = (" +
+                           (POSITION_STEP * (1 + i % columns)) + ", " +
+                           (POSITION_STEP * (1 + i / columns)) + ")");
+            bayesNet.setProbabilityVariable(
+                    i,
+                    new ProbabilityVariable(bayesNet,
+                                            "X" + i,
+                                            i,
+                                            values,
+                                            properties));
+        }
+
+        for (int i = 0; i < numberOfVariables; i++)
+        {
+            int parents[] = chooseParents(i, random);
+            ProbabilityVariable variables[] =
+                                new ProbabilityVariable[parents.length + 1];
+            variables[0] = bayesNet.getProbabilityVariable(i);
+            for (int p = 0; p < parents.length; p++)
+            {
+                variables[p + 1] = bayesNet.getProbabilityVariable(parents[p]);
+            }
+
+            ProbabilityFunction probFunc;
+            if (isCredal && random.nextDouble() < credalDensity)
+            {
+                double extremePoints[][] =
+                         new double[numberOfExtremePoints][];
+                for (int e = 0; e < numberOfExtremePoints; e++)
+                {
+                    extremePoints[e] = randomTable(variables, random);
+                }
+                probFunc = new VertexSet(bayesNet,
+                                         variables,
+                                         extremePoints,
+                                         new ArrayList<String>());
+            }
+            else
+            {
+                probFunc = new ProbabilityFunction(bayesNet,
+                                                   variables,
+                                                   randomTable(variables,
+                                                               random),
+                                                   new ArrayList<String>());
+            }
+            bayesNet.setProbabilityFunction(i, probFunc);
+        }
+    }
+
+    /**
+     * Choose the parents of a variable among the variables in its window. The
+     * number of parents is drawn uniformly between zero and maxParents.
+     *
+     * @param varIndex index of the variable
+     * @param random   random number generator
+     * @return sorted indexes of the parents
+     */
+    private int[] chooseParents(int varIndex, Random random)
+    {
+        int windowStart = treeWidthBound >= varIndex ?
+                          0 :
+                          varIndex - treeWidthBound;
+        int candidates = varIndex - windowStart;
+        int numberOfParents = Math.min(candidates,
+                                       random.nextInt(maxParents + 1));
+
+        // Partial Fisher-Yates shuffle of the candidate window
+        int window[] = new int[candidates];
+        for (int c = 0; c < candidates; c++)
+        {
+            window[c] = windowStart + c;
+        }
+        for (int c = 0; c < numberOfParents; c++)
+        {
+            int swap = c + random.nextInt(candidates - c);
+            int aux = window[c];
+            window[c] = window[swap];
+            window[swap] = aux;
+        }
+        int parents[] = new int[numberOfParents];
+        System.arraycopy(window, 0, parents, 0, numberOfParents);
+        Arrays.sort(parents);
+        return parents;
+    }
+
+    /**
+     * Create a random conditional probability table for the given variables,
+     * where the first variable is the one the distribution is defined on.
+     *
+     * @param variables the variables of the function
+     * @param random    random number generator
+     * @return the table, normalized for every configuration of the parents
+     */
+    private double[] randomTable(ProbabilityVariable variables[],
+                                 Random random)
+    {
+        int numberOfValues = 1;
+        for (ProbabilityVariable variable : variables)
+        {
+            numberOfValues *= variable.numberValues();
+        }
+        double table[] = new double[numberOfValues];
+        int numberOfRows = numberOfValues / variables[0].numberValues();
+
+        // The first variable is the most significant one, so the entries
+        // of one parent configuration are numberOfRows positions apart.
+        for (int row = 0; row < numberOfRows; row++)
+        {
+            double sum = 0.0;
+            for (int v = 0; v < variables[0].numberValues(); v++)
+            {
+                // Bounded away from zero so no configuration is impossible
+                double value = 0.01 + random.nextDouble();
+                table[v * numberOfRows + row] = value;
+                sum += value;
+            }
+            for (int v = 0; v < variables[0].numberValues(); v++)
+            {
+                table[v * numberOfRows + row] /= sum;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Compose a network name that records the generation parameters.
+     *
+     * @return the network name
+     */
+    private String networkName()
+    {
+        return "Generated_n" + numberOfVariables +
+               "_p" + maxParents +
+               "_v" + minValues + "_" + maxValues +
+               "_s" + seed;
+    }
+
+    /**
+     * Get the number of variables to generate.
+     *
+     * @return the number of variables
+     */
+    public int getNumberOfVariables()
+    {
+        return numberOfVariables;
+    }
+
+    /**
+     * Set the number of variables to generate.
+     *
+     * @param numberOfVariables the number of variables, at least 1
+     */
+    public final void setNumberOfVariables(int numberOfVariables)
+    {
+        if (numberOfVariables < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Number of variables must be positive: " +
+                    numberOfVariables);
+        }
+        this.numberOfVariables = numberOfVariables;
+    }
+
+    /**
+     * Get the maximal number of parents of a variable.
+     *
+     * @return the maximal in-degree
+     */
+    public int getMaxParents()
+    {
+        return maxParents;
+    }
+
+    /**
+     * Set the maximal number of parents of a variable.
+     *
+     * @param maxParents the maximal in-degree, at least 0
+     */
+    public final void setMaxParents(int maxParents)
+    {
+        if (maxParents < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximal number of parents must not be negative: " +
+                    maxParents);
+        }
+        this.maxParents = maxParents;
+    }
+
+    /**
+     * Get the minimal number of values of a variable.
+     *
+     * @return the minimal cardinality
+     */
+    public int getMinValues()
+    {
+        return minValues;
+    }
+
+    /**
+     * Get the maximal number of values of a variable.
+     *
+     * @return the maximal cardinality
+     */
+    public int getMaxValues()
+    {
+        return maxValues;
+    }
+
+    /**
+     * Set the range of the number of values of the variables. The cardinality
+     * of each variable is drawn uniformly from the range.
+     *
+     * @param minValues the minimal cardinality, at least 2
+     * @param maxValues the maximal cardinality, at least minValues
+     */
+    public final void setValueRange(int minValues, int maxValues)
+    {
+        if (minValues < 2 || maxValues < minValues)
+        {
+            throw new IllegalArgumentException(
+                    "Illegal range of values: [" + minValues + ".." +
+                    maxValues + "]");
+        }
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Get the bound on the treewidth of the generated networks.
+     *
+     * @return the size of the window that parents are chosen from
+     */
+    public int getTreeWidthBound()
+    {
+        return treeWidthBound;
+    }
+
+    /**
+     * Set the bound on the treewidth of the generated networks. Parents of a
+     * variable are only chosen among the treeWidthBound variables preceding
+     * it.
+     *
+     * @param treeWidthBound the size of the window, at least 1
+     */
+    public void setTreeWidthBound(int treeWidthBound)
+    {
+        if (treeWidthBound < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Treewidth bound must be positive: " + treeWidthBound);
+        }
+        this.treeWidthBound = treeWidthBound;
+    }
+
+    /**
+     * Get the fraction of probability functions generated as credal sets.
+     *
+     * @return the credal density
+     */
+    public double getCredalDensity()
+    {
+        return credalDensity;
+    }
+
+    /**
+     * Set the fraction of probability functions generated as credal sets in
+     * Quasi-Bayesian networks.
+     *
+     * @param credalDensity the credal density in [0, 1]
+     */
+    public void setCredalDensity(double credalDensity)
+    {
+        if (credalDensity < 0.0 || credalDensity > 1.0)
+        {
+            throw new IllegalArgumentException(
+                    "Credal density must be in [0, 1]: " + credalDensity);
+        }
+        this.credalDensity = credalDensity;
+    }
+
+    /**
+     * Get the number of extreme points of generated credal sets.
+     *
+     * @return the number of extreme points
+     */
+    public int getNumberOfExtremePoints()
+    {
+        return numberOfExtremePoints;
+    }
+
+    /**
+     * Set the number of extreme points of generated credal sets.
+     *
+     * @param numberOfExtremePoints the number of extreme points, at least 2
+     */
+    public void setNumberOfExtremePoints(int numberOfExtremePoints)
+    {
+        if (numberOfExtremePoints < 2)
+        {
+            throw new IllegalArgumentException(
+                    "A credal set needs at least two extreme points: " +
+                    numberOfExtremePoints);
+        }
+        this.numberOfExtremePoints = numberOfExtremePoints;
+    }
+
+    /**
+     * Get the seed of the random number generator.
+     *
+     * @return the seed
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the random number generator.
+     *
+     * @param seed the seed
+     */
+    public final void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package QuasiBayesianNetworks;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import BayesianNetworks.StreamingNetworkLoader;
+import CredalSets.VertexSet;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Streaming loader for Quasi-Bayesian networks: a probability declaration
+ * with several tables becomes a VertexSet with one extreme point per table,
+ * as in QBConvertInterchangeFormat.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class QBStreamingNetworkLoader extends StreamingNetworkLoader
+{
+
+    private static final Class CLAZZ = QBStreamingNetworkLoader.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    @Override
+    protected ProbabilityFunction createFunction(
+            BayesNet bayesNet,
+            ProbabilityVariable probVars[],
+            double values[],
+            double extremePoints[][],
+            ArrayList<String> properties)
+    {
+        if (extremePoints == null)
+        {
+            return super.createFunction(bayesNet,
+                                        probVars,
+                                        values,
+                                        extremePoints,
+                                        properties);
+        }
+        return new VertexSet(bayesNet, probVars, extremePoints, properties);
+    }
+}
@@ -27,8 +27,10 @@ package QuasiBayesianNetworks;
 
 import BayesianNetworks.BayesNet;
 import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.StreamingNetworkLoader;
 import CredalSets.QBProbabilityFunction;
 import InterchangeFormat.InterchangeFormat;
+import java.io.File;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.net.URL;
@@ -131,6 +133,17 @@ public class QuasiBayesNet extends BayesNet
         super(istream);
     }
 
+    /**
+     * Constructor for a Quasi-Bayesian network from a file.
+     *
+     * @param file the file describing the network
+     * @throws Exception if the file cannot be read or parsed
+     */
+    public QuasiBayesNet(File file) throws Exception
+    {
+        super(file);
+    }
+
     /**
      * Constructor for a Bayesian network from a URL.
      *
@@ -164,8 +177,6 @@ public class QuasiBayesNet extends BayesNet
         setProbabilityVariables(qbcbn.getProbabilityVariables(this));
         setProbabilityFunctions(qbcbn.getProbabilityFunctions(this));
 
-        qbcbn.getFunctionsAsTables(this);
-
         // Process QuasiBayesNet properties
         processProperties();
 
@@ -182,6 +193,12 @@ public class QuasiBayesNet extends BayesNet
         }
     }
 
+    @Override
+    protected StreamingNetworkLoader createStreamingLoader()
+    {
+        return new QBStreamingNetworkLoader();
+    }
+
     @Override
     protected void processProperties()
     {
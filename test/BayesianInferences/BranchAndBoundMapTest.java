@@ -0,0 +1,199 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class BranchAndBoundMapTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(BranchAndBoundMapTest.class.
+                                        getName());
+
+    private static final String ALARM_CAUSES[] =
+    {
+        "Hypovolemia", "LVFailure", "Anaphylaxis", "InsuffAnesth",
+        "PulmEmbolus", "Intubation", "KinkedTube", "Disconnect"
+    };
+
+    private static final String ALARM_EVIDENCE[][] =
+    {
+        {"BP", "Low"},
+        {"HRBP", "High"},
+        {"ExpCO2", "Low"},
+        {"SaO2", "Low"},
+        {"PAP", "Normal"}
+    };
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public BranchAndBoundMapTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static BayesNet asia() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File("Examples/Asia/ASIA.BIF"));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("Tuberculosis").
+                setExplanationValue(0);
+        bayesNet.getProbabilityVariable("Cancer").setExplanationValue(0);
+        return bayesNet;
+    }
+
+    private static BayesNet alarm() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File("Examples/Alarm/ALARM.BIF"));
+        for (String evidence[] : ALARM_EVIDENCE)
+        {
+            bayesNet.getProbabilityVariable(evidence[0]).
+                    setObservedValue(evidence[1]);
+        }
+        for (String cause : ALARM_CAUSES)
+        {
+            bayesNet.getProbabilityVariable(cause).setExplanationValue(0);
+        }
+        return bayesNet;
+    }
+
+    private static void assertSolves(BayesNet bayesNet,
+                                     int iBound,
+                                     double tolerance)
+    {
+        Explanation explanation = new Explanation(bayesNet);
+        explanation.explanation(ExplanationType.MARKED_VARIABLES_ONLY);
+        ExplanationResult expected = explanation.getExplanationResult();
+
+        BranchAndBoundMap instance = new BranchAndBoundMap(bayesNet, iBound);
+        ExplanationResult result = instance.solve(0);
+        assertTrue(instance.isOptimal());
+        assertEquals(expected.getScore(),
+                     result.getScore(),
+                     tolerance * expected.getScore());
+        assertArrayEquals(expected.getValueIndexes(),
+                          result.getValueIndexes());
+
+        ArrayList<ExplanationResult> improvements =
+                                     instance.getImprovements();
+        assertSame(result, improvements.get(improvements.size() - 1));
+        for (int i = 1; i < improvements.size(); i++)
+        {
+            assertTrue(improvements.get(i).getScore() >
+                       improvements.get(i - 1).getScore());
+        }
+        assertTrue(instance.getNumberOfNodes() > 0);
+    }
+
+    /**
+     * Test of solve method, of class BranchAndBoundMap, against the exact
+     * explanation on ASIA.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testSolve() throws Exception
+    {
+        System.out.println("solve");
+        BayesNet bayesNet = asia();
+        for (int iBound = 1; iBound <= 4; iBound++)
+        {
+            assertSolves(bayesNet, iBound, 1e-12);
+        }
+        ExplanationResult result = new BranchAndBoundMap(bayesNet, 2).
+                solve(0);
+        assertEquals(0.38342, result.getScore(), 1e-5);
+        assertEquals("Absent", result.getValueName("Tuberculosis"));
+        assertEquals("Absent", result.getValueName("Cancer"));
+    }
+
+    /**
+     * Test of solve method, of class BranchAndBoundMap, against the exact
+     * explanation of the root causes of ALARM. The rows of HREKG and HRSat
+     * sum to 0.999999; the search leaves these barren variables out while
+     * the elimination sums over them, so the scores differ by about 1e-6.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testSolveAlarm() throws Exception
+    {
+        System.out.println("solveAlarm");
+        BayesNet bayesNet = alarm();
+        for (int iBound = 2; iBound <= 4; iBound++)
+        {
+            assertSolves(bayesNet, iBound, 1e-5);
+        }
+    }
+
+    /**
+     * Test of branchAndBoundExplanation method, of class Explanation: the
+     * score is on the scale of the k best explanations.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testBranchAndBoundExplanation() throws Exception
+    {
+        System.out.println("branchAndBoundExplanation");
+        BayesNet bayesNet = asia();
+        ExplanationResult result = new Explanation(bayesNet).
+                branchAndBoundExplanation(2, 0);
+        ExplanationResult best = new Explanation(bayesNet).explanations(1).
+                get(0);
+        assertEquals(best.getScore(), result.getScore(), 1e-12);
+        assertArrayEquals(best.getValueIndexes(), result.getValueIndexes());
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class CompiledModelTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(CompiledModelTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+    private static final String ALARM = "Examples/Alarm/ALARM.BIF";
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public CompiledModelTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File(ASIA));
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static byte[] save(CompiledModel model) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.save(out);
+        return out.toByteArray();
+    }
+
+    private static void assertLoadFails(byte bytes[], BayesNet network)
+    {
+        try
+        {
+            CompiledModel.load(new ByteArrayInputStream(bytes), network);
+            fail("Compiled model loaded");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Test of compile method, of class CompiledModel: the marginals are
+     * those without evidence and the evidence is restored.
+     *
+     * @throws Exception if the evidence cannot be set
+     */
+    @Test
+    public void testCompile() throws Exception
+    {
+        System.out.println("compile");
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+        CompiledModel instance =
+                      CompiledModel.compile(new Inference(bayesNet, true));
+        assertEquals(0,
+                     bayesNet.getProbabilityVariable("XRay").
+                     getObservedIndex());
+        assertTrue(instance.matches(bayesNet));
+
+        BayesNet prior = new BayesNet(new File(ASIA));
+        for (int v = 0; v < prior.numberVariables(); v++)
+        {
+            String name = prior.getProbabilityVariable(v).getName();
+            Inference inference = new Inference(prior, false);
+            inference.inference(name);
+            ProbabilityFunction expected = inference.getResult();
+            MarginalResult result = instance.getMarginal(bayesNet, name);
+            assertArrayEquals(name,
+                              expected.getValues(),
+                              result.getProbabilities(),
+                              1e-12);
+        }
+        assertNull(instance.getMarginal(bayesNet, "Fever"));
+    }
+
+    /**
+     * Test of save and load methods, of class CompiledModel.
+     *
+     * @throws Exception if the model cannot be saved or loaded
+     */
+    @Test
+    public void testSaveLoad() throws Exception
+    {
+        System.out.println("saveLoad");
+        CompiledModel expected =
+                      CompiledModel.compile(new Inference(bayesNet, true));
+        BayesNet network = new BayesNet(new File(ASIA));
+        CompiledModel result = CompiledModel.load(
+                      new ByteArrayInputStream(save(expected)), network);
+        assertEquals(expected.getFingerprint(), result.getFingerprint());
+        for (int v = 0; v < network.numberVariables(); v++)
+        {
+            String name = network.getProbabilityVariable(v).getName();
+            assertArrayEquals(expected.getOrder(bayesNet, name),
+                              result.getOrder(network, name));
+            assertArrayEquals(expected.getMarginal(bayesNet, name).
+                    getProbabilities(),
+                              result.getMarginal(network, name).
+                              getProbabilities(),
+                              0.0);
+        }
+
+        File file = File.createTempFile("asia", ".jbc");
+        try
+        {
+            expected.save(file);
+            result = CompiledModel.load(file, network);
+            assertEquals(expected.getFingerprint(), result.getFingerprint());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test of load method, of class CompiledModel, with a model of another
+     * network or a damaged model.
+     *
+     * @throws Exception if a network cannot be read or the model saved
+     */
+    @Test
+    public void testLoadMismatch() throws Exception
+    {
+        System.out.println("loadMismatch");
+        byte bytes[] = save(CompiledModel.compile(
+                            new Inference(bayesNet, true)));
+
+        assertLoadFails(bytes, new BayesNet(new File(ALARM)));
+
+        // A changed value makes an older model stale
+        BayesNet changed = new BayesNet(new File(ASIA));
+        ProbabilityFunction function = changed.getFunction("Smoking");
+        function.setValue(0, 0.4);
+        function.setValue(1, 0.6);
+        CompiledModel model = CompiledModel.load(
+                      new ByteArrayInputStream(bytes), bayesNet);
+        assertFalse(model.matches(changed));
+        assertLoadFails(bytes, changed);
+
+        byte damaged[] = bytes.clone();
+        damaged[0] ^= 1;
+        assertLoadFails(damaged, bayesNet);
+        damaged = bytes.clone();
+        damaged[7] = (byte) (CompiledModel.VERSION + 1);
+        assertLoadFails(damaged, bayesNet);
+        for (int length = 0; length < bytes.length; length += 13)
+        {
+            byte truncated[] = new byte[length];
+            System.arraycopy(bytes, 0, truncated, 0, length);
+            assertLoadFails(truncated, bayesNet);
+        }
+    }
+
+    /**
+     * Test of getOrder method, of class CompiledModel, with evidence.
+     *
+     * @throws Exception if the evidence cannot be set
+     */
+    @Test
+    public void testGetOrder() throws Exception
+    {
+        System.out.println("getOrder");
+        CompiledModel instance =
+                      CompiledModel.compile(new Inference(bayesNet, true));
+        assertTrue(instance.getOrder(bayesNet, "Cancer").length > 0);
+        assertNull(instance.getOrder(bayesNet, "Fever"));
+        bayesNet.getProbabilityVariable("Cancer").setObservedValue("Present");
+        assertNull(instance.getOrder(bayesNet, "Cancer"));
+    }
+
+    /**
+     * Test of setCompiledModel method, of class Inference: the compiled
+     * orders give the same posteriors as the orders computed per query.
+     *
+     * @throws Exception if the evidence cannot be set
+     */
+    @Test
+    public void testSetCompiledModel() throws Exception
+    {
+        System.out.println("setCompiledModel");
+        CompiledModel model =
+                      CompiledModel.compile(new Inference(bayesNet, true));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("Smoking").setObservedValue("Smoker");
+        Inference instance = new Inference(bayesNet, false);
+        instance.setCompiledModel(model);
+        assertEquals(model, instance.getCompiledModel());
+        for (int v = 0; v < bayesNet.numberVariables(); v++)
+        {
+            String name = bayesNet.getProbabilityVariable(v).getName();
+            Inference inference = new Inference(bayesNet, false);
+            inference.inference(name);
+            instance.inference(name);
+            assertArrayEquals(name,
+                              inference.getResult().getValues(),
+                              instance.getResult().getValues(),
+                              1e-12);
+        }
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class DataGeneratorTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(DataGeneratorTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+    private static final long SEED = 47L;
+    private static final int SAMPLE_SIZE = 200000;
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public DataGeneratorTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File(ASIA));
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private String[][] generateCsv(DataGenerator instance, int count)
+            throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.generate(count, out, DataGenerator.Format.CSV);
+        String lines[] = new String(out.toByteArray(),
+                                    StandardCharsets.UTF_8).split("\n");
+        assertEquals(count + 1, lines.length);
+        String cells[][] = new String[lines.length][];
+        for (int i = 0; i < lines.length; i++)
+        {
+            cells[i] = lines[i].split(",", -1);
+            assertEquals(bayesNet.numberVariables(), cells[i].length);
+        }
+        return cells;
+    }
+
+    /**
+     * Test of drawRecord method, of class DataGenerator, against the exact
+     * marginals of the network.
+     */
+    @Test
+    public void testDrawRecord()
+    {
+        System.out.println("drawRecord");
+        DataGenerator instance = new DataGenerator(bayesNet, SEED);
+        SplitMix64 stream = new SplitMix64(SEED);
+        int numberOfVariables = bayesNet.numberVariables();
+        int tbOrCa = bayesNet.indexOfVariable("TbOrCa");
+        int tuberculosis = bayesNet.indexOfVariable("Tuberculosis");
+        int cancer = bayesNet.indexOfVariable("Cancer");
+        int counts[][] = new int[numberOfVariables][];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            counts[v] =
+            new int[bayesNet.getProbabilityVariable(v).numberValues()];
+        }
+        int values[] = new int[numberOfVariables];
+        for (int r = 0; r < SAMPLE_SIZE; r++)
+        {
+            instance.drawRecord(stream, values);
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                counts[v][values[v]]++;
+            }
+            // TbOrCa is the deterministic or of its parents (0 is true)
+            boolean isEither = values[tuberculosis] == 0 ||
+                               values[cancer] == 0;
+            assertEquals(isEither ? 0 : 1, values[tbOrCa]);
+        }
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            String name = bayesNet.getProbabilityVariable(v).getName();
+            Inference inference = new Inference(bayesNet, false);
+            inference.inference(name);
+            ProbabilityFunction expected = inference.getResult();
+            for (int x = 0; x < counts[v].length; x++)
+            {
+                assertEquals(name,
+                             expected.getValue(x),
+                             (double) counts[v][x] / SAMPLE_SIZE,
+                             0.01);
+            }
+        }
+    }
+
+    /**
+     * Test of generate method, of class DataGenerator, with CSV output.
+     *
+     * @throws Exception if the records cannot be generated
+     */
+    @Test
+    public void testGenerateCsv() throws Exception
+    {
+        System.out.println("generateCsv");
+        DataGenerator instance = new DataGenerator(bayesNet, SEED);
+        String cells[][] = generateCsv(instance, 1000);
+        for (int v = 0; v < bayesNet.numberVariables(); v++)
+        {
+            assertEquals(bayesNet.getProbabilityVariable(v).getName(),
+                         cells[0][v]);
+            for (int r = 1; r < cells.length; r++)
+            {
+                assertTrue(bayesNet.getProbabilityVariable(v).
+                        indexOfValue(cells[r][v]) != BayesNet.INVALID_INDEX);
+            }
+        }
+    }
+
+    /**
+     * Test of generate method, of class DataGenerator, which must not
+     * depend on the number of threads.
+     *
+     * @throws Exception if the records cannot be generated
+     */
+    @Test
+    public void testGenerateThreads() throws Exception
+    {
+        System.out.println("generateThreads");
+        // Several batches, the last one incomplete
+        int count = 5 * 8192 + 17;
+        byte expected[] = null;
+        for (DataGenerator.Format format : DataGenerator.Format.values())
+        {
+            for (int threads = 1; threads <= 4; threads *= 2)
+            {
+                DataGenerator instance = new DataGenerator(bayesNet, SEED);
+                instance.setMissingRate(0.1);
+                instance.setNumberOfThreads(threads);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                instance.generate(count, out, format);
+                if (threads == 1)
+                {
+                    expected = out.toByteArray();
+                }
+                else
+                {
+                    assertArrayEquals(format.toString(),
+                                      expected,
+                                      out.toByteArray());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of generate method, of class DataGenerator, with binary output.
+     *
+     * @throws Exception if the records cannot be generated
+     */
+    @Test
+    public void testGenerateBinary() throws Exception
+    {
+        System.out.println("generateBinary");
+        int count = 1000;
+        DataGenerator instance = new DataGenerator(bayesNet, SEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.generate(count, out, DataGenerator.Format.BINARY);
+        DataInputStream in = new DataInputStream(
+                        new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(DataGenerator.MAGIC, in.readInt());
+        int numberOfVariables = in.readInt();
+        assertEquals(bayesNet.numberVariables(), numberOfVariables);
+        int cardinality[] = new int[numberOfVariables];
+        for (int v = 0; v < numberOfVariables; v++)
+        {
+            assertEquals(bayesNet.getProbabilityVariable(v).getName(),
+                         in.readUTF());
+            cardinality[v] = in.readInt();
+            for (int x = 0; x < cardinality[v]; x++)
+            {
+                assertEquals(bayesNet.getProbabilityVariable(v).getValue(x),
+                             in.readUTF());
+            }
+        }
+        assertEquals(count * numberOfVariables, in.available());
+        for (int r = 0; r < count; r++)
+        {
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+                int x = in.readByte();
+                assertTrue(x >= 0 && x < cardinality[v]);
+            }
+        }
+    }
+
+    /**
+     * Test of setMissingRate and setHiddenVariables methods, of class
+     * DataGenerator.
+     *
+     * @throws Exception if the records cannot be generated
+     */
+    @Test
+    public void testMissingValues() throws Exception
+    {
+        System.out.println("missingValues");
+        int count = 20000;
+        DataGenerator instance = new DataGenerator(bayesNet, SEED);
+        instance.setMissingRate(0.2);
+        instance.setHiddenVariables("Tuberculosis", "Cancer");
+        String cells[][] = generateCsv(instance, count);
+        int tuberculosis = bayesNet.indexOfVariable("Tuberculosis");
+        int cancer = bayesNet.indexOfVariable("Cancer");
+        int missing = 0;
+        int observable = 0;
+        for (int r = 1; r < cells.length; r++)
+        {
+            for (int v = 0; v < cells[r].length; v++)
+            {
+                if (v == tuberculosis || v == cancer)
+                {
+                    assertEquals(DataGenerator.MISSING, cells[r][v]);
+                }
+                else
+                {
+                    observable++;
+                    if (cells[r][v].equals(DataGenerator.MISSING))
+                    {
+                        missing++;
+                    }
+                }
+            }
+        }
+        assertEquals(0.2, (double) missing / observable, 0.01);
+    }
+
+    /**
+     * Test of setHiddenVariables method, of class DataGenerator, with an
+     * unknown variable.
+     */
+    @Test
+    public void testSetHiddenVariablesUnknown()
+    {
+        System.out.println("setHiddenVariablesUnknown");
+        DataGenerator instance = new DataGenerator(bayesNet, SEED);
+        try
+        {
+            instance.setHiddenVariables("Tuberculosis", "Fever");
+            fail("Unknown variable accepted");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertEquals("Unknown variable Fever", ex.getMessage());
+        }
+    }
+
+    /**
+     * Test of setMissingRate method, of class DataGenerator, with a rate
+     * outside [0, 1].
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMissingRateInvalid()
+    {
+        System.out.println("setMissingRateInvalid");
+        new DataGenerator(bayesNet, SEED).setMissingRate(1.5);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.DiscreteFunction;
+import BayesianNetworks.DiscreteVariable;
+import java.io.File;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class ExpectationTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(ExpectationTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+    private static final double DELTA = 1e-12;
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public ExpectationTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File(ASIA));
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of getExpectationResult method, of class Expectation, before any
+     * expectation is computed.
+     */
+    @Test
+    public void testGetExpectationResultNone()
+    {
+        System.out.println("getExpectationResultNone");
+        Expectation instance = new Expectation(bayesNet, false);
+        assertNull(instance.getExpectationResult());
+    }
+
+    /**
+     * Test of getExpectationResult method, of class Expectation: the result
+     * has the moment that was asked for, and none for an explicitly given
+     * function.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testGetExpectationResult() throws Exception
+    {
+        System.out.println("getExpectationResult");
+        Expectation instance = new Expectation(bayesNet, false);
+        instance.expectation(Expectation.MomentType.SECOND_MOMENT, "Cancer");
+        ExpectationResult result = instance.getExpectationResult();
+        assertEquals("Cancer", result.getVariableName());
+        assertEquals(Expectation.MomentType.SECOND_MOMENT, result.getMoment());
+
+        instance.expectation("Cancer");
+        result = instance.getExpectationResult();
+        assertEquals(Expectation.MomentType.EXPECTED_VALUE, result.getMoment());
+        double expected = result.getExpectation();
+
+        DiscreteVariable cancer = bayesNet.getProbabilityVariable("Cancer");
+        DiscreteFunction function = new DiscreteFunction(new DiscreteVariable[]
+        {
+            cancer
+        }, new double[]
+        {
+            0.0, 1.0
+        });
+        instance.expectation(function, "Cancer");
+        result = instance.getExpectationResult();
+        assertEquals("Cancer", result.getVariableName());
+        assertNull(result.getMoment());
+        assertEquals(expected, result.getExpectation(), DELTA);
+
+        // An unknown variable falls back to the first one, with the moment
+        instance.expectation(Expectation.MomentType.THIRD_MOMENT, "Unknown");
+        result = instance.getExpectationResult();
+        assertEquals(bayesNet.getProbabilityVariable(0).getName(),
+                     result.getVariableName());
+        assertEquals(Expectation.MomentType.THIRD_MOMENT, result.getMoment());
+    }
+
+}
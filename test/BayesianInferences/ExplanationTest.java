@@ -0,0 +1,281 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class ExplanationTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(ExplanationTest.class.
+                                        getName());
+
+    private static final double DELTA = 1e-12;
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public ExplanationTest()
+    {
+    }
+
+    /**
+     * Set up a test: ASIA with dyspnea observed and Tuberculosis and Cancer
+     * marked for explanation.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File("Examples/Asia/ASIA.BIF"));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("Tuberculosis").
+                setExplanationValue(0);
+        bayesNet.getProbabilityVariable("Cancer").setExplanationValue(0);
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Enumerate the joint probabilities of the assignments of some
+     * variables with the evidence, by summing the product of all functions
+     * over the other variables.
+     *
+     * @param explained whether each variable is part of the assignments
+     * @return the assignments, value indexes per variable of the network
+     *         with BayesNet.INVALID_INDEX for the others, followed by
+     *         the joint probability, in order of decreasing probability
+     */
+    private ArrayList<double[]> enumerate(boolean explained[])
+    {
+        ProbabilityVariable probVars[] = bayesNet.getProbabilityVariables();
+        int n = probVars.length;
+        int valueIndexes[] = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            if (probVars[i].isObserved())
+            {
+                valueIndexes[i] = probVars[i].getObservedIndex();
+            }
+        }
+        ArrayList<double[]> assignments = new ArrayList<>();
+        while (true)
+        {
+            double probability = 1.0;
+            for (ProbabilityFunction probFunc :
+                 bayesNet.getProbabilityFunctions())
+            {
+                probability *= probFunc.evaluate(probVars, valueIndexes);
+            }
+            double assignment[] = new double[n + 1];
+            for (int i = 0; i < n; i++)
+            {
+                assignment[i] = explained[i] ?
+                                valueIndexes[i] :
+                                BayesNet.INVALID_INDEX;
+            }
+            boolean isFound = false;
+            for (double other[] : assignments)
+            {
+                if (Arrays.equals(Arrays.copyOf(other, n),
+                                  Arrays.copyOf(assignment, n)))
+                {
+                    other[n] += probability;
+                    isFound = true;
+                }
+            }
+            if (!isFound)
+            {
+                assignment[n] = probability;
+                assignments.add(assignment);
+            }
+
+            int i = 0;
+            while (i < n &&
+                   (probVars[i].isObserved() ||
+                    ++valueIndexes[i] == probVars[i].numberValues()))
+            {
+                if (!probVars[i].isObserved())
+                {
+                    valueIndexes[i] = 0;
+                }
+                i++;
+            }
+            if (i == n)
+            {
+                break;
+            }
+        }
+        Collections.sort(assignments, new Comparator<double[]>()
+        {
+            @Override
+            public int compare(double first[], double second[])
+            {
+                return Double.compare(second[second.length - 1],
+                                      first[first.length - 1]);
+            }
+        });
+        return assignments;
+    }
+
+    private static void assertExplanations(ArrayList<double[]> expected,
+                                           ArrayList<ExplanationResult> actual,
+                                           int k)
+    {
+        assertEquals(Math.min(k, expected.size()), actual.size());
+        for (int j = 0; j < actual.size(); j++)
+        {
+            double assignment[] = expected.get(j);
+            int n = assignment.length - 1;
+            ExplanationResult result = actual.get(j);
+            assertEquals(assignment[n], result.getScore(), DELTA);
+            boolean isTied =
+                    (j > 0 &&
+                     expected.get(j - 1)[n] - assignment[n] < DELTA) ||
+                    (j + 1 < expected.size() &&
+                     assignment[n] - expected.get(j + 1)[n] < DELTA);
+            if (!isTied)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    assertEquals((int) assignment[i],
+                                 result.getValueIndex(i));
+                }
+            }
+        }
+    }
+
+    private boolean[] explanationVariables()
+    {
+        boolean explained[] = new boolean[bayesNet.numberVariables()];
+        for (int i = 0; i < explained.length; i++)
+        {
+            explained[i] = bayesNet.getProbabilityVariable(i).isExplanation();
+        }
+        return explained;
+    }
+
+    /**
+     * Test of explanations method, of class Explanation, against
+     * enumeration.
+     */
+    @Test
+    public void testExplanations()
+    {
+        System.out.println("explanations");
+        ArrayList<double[]> expected = enumerate(explanationVariables());
+        assertEquals(4, expected.size());
+        for (int k = 1; k <= 5; k++)
+        {
+            assertExplanations(expected,
+                               new Explanation(bayesNet).explanations(k),
+                               k);
+        }
+
+        ExplanationResult best = new Explanation(bayesNet).explanations(1).
+                get(0);
+        assertEquals(0.38342, best.getScore(), 1e-5);
+        assertEquals("Absent", best.getValueName("Tuberculosis"));
+        assertEquals("Absent", best.getValueName("Cancer"));
+        assertEquals(null, best.getValueName("Smoking"));
+    }
+
+    /**
+     * Test of getExplanationResult method, of class Explanation: the
+     * explanation has the score of the best of the k explanations.
+     */
+    @Test
+    public void testGetExplanationResult()
+    {
+        System.out.println("getExplanationResult");
+        Explanation instance = new Explanation(bayesNet);
+        instance.explanation(ExplanationType.MARKED_VARIABLES_ONLY);
+        ExplanationResult result = instance.getExplanationResult();
+        ExplanationResult best = new Explanation(bayesNet).explanations(1).
+                get(0);
+        assertEquals(best.getScore(), result.getScore(), DELTA);
+        assertArrayEquals(best.getValueIndexes(), result.getValueIndexes());
+    }
+
+    /**
+     * Test of fullExplanations method, of class Explanation, against
+     * enumeration.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testFullExplanations() throws Exception
+    {
+        System.out.println("fullExplanations");
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+        boolean explained[] = new boolean[bayesNet.numberVariables()];
+        for (int i = 0; i < explained.length; i++)
+        {
+            explained[i] = !bayesNet.getProbabilityVariable(i).isObserved();
+        }
+        ArrayList<double[]> expected = enumerate(explained);
+        assertExplanations(expected,
+                           new Explanation(bayesNet).fullExplanations(10),
+                           10);
+    }
+
+    /**
+     * Test of explanations method, of class Explanation, with a number of
+     * explanations that is not positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testExplanationsNotPositive()
+    {
+        System.out.println("explanationsNotPositive");
+        new Explanation(bayesNet).explanations(0);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.File;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class GibbsSamplingTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(GibbsSamplingTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public GibbsSamplingTest()
+    {
+    }
+
+    /**
+     * Set up a test: ASIA with dyspnea and an abnormal x-ray observed, which
+     * makes the deterministic TbOrCa pin its parents.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File(ASIA));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private ProbabilityFunction exact(String name)
+    {
+        Inference inference = new Inference(bayesNet, false);
+        inference.inference(name);
+        return inference.getResult();
+    }
+
+    /**
+     * Test of inference method, of class GibbsSampling, against exact
+     * inference.
+     */
+    @Test
+    public void testInference()
+    {
+        System.out.println("inference");
+        GibbsSampling instance = new GibbsSampling(bayesNet, 11L);
+        for (int v = 0; v < bayesNet.numberVariables(); v++)
+        {
+            String name = bayesNet.getProbabilityVariable(v).getName();
+            ProbabilityFunction expected = exact(name);
+            instance.inference(name);
+            ProbabilityFunction result = instance.getResult();
+            for (int x = 0; x < expected.numberValues(); x++)
+            {
+                assertEquals(name,
+                             expected.getValue(x),
+                             result.getValue(x),
+                             0.03);
+            }
+        }
+    }
+
+    /**
+     * Test of inference method, of class GibbsSampling, with the chains
+     * spread over several threads.
+     */
+    @Test
+    public void testInferenceThreads()
+    {
+        System.out.println("inferenceThreads");
+        GibbsSampling instance = new GibbsSampling(bayesNet, 5L);
+        instance.setNumberOfThreads(4);
+        instance.inference("Tuberculosis");
+        assertEquals(exact("Tuberculosis").getValue(0),
+                     instance.getResult().getValue(0),
+                     0.03);
+        instance.inference("Cancer");
+        assertEquals(exact("Cancer").getValue(0),
+                     instance.getResult().getValue(0),
+                     0.03);
+    }
+
+    /**
+     * Test of getRHat method, of class GibbsSampling.
+     */
+    @Test
+    public void testGetRHat()
+    {
+        System.out.println("getRHat");
+        GibbsSampling instance = new GibbsSampling(bayesNet, 3L);
+        assertTrue(Double.isNaN(instance.getRHat()));
+        instance.inference("TbOrCa");
+        assertEquals(4 * 5000L,
+                     instance.getNumberOfChains() *
+                     instance.getNumberOfCountedSweeps());
+        assertTrue(instance.getRHat() < 1.1);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class InferenceGraphTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(InferenceGraphTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+    private static final double DELTA = 1e-12;
+
+    private static final Pattern PROBABILITY =
+                                 Pattern.compile("([-+0-9.Ee]+);?\\s*" +
+                                                 "// p\\((\\S+) \\|");
+    private static final Pattern EXPECTATION =
+                                 Pattern.compile("Posterior expectation: " +
+                                                 "\\[([^ \\]]+)");
+    private static final Pattern ASSIGNMENT =
+                                 Pattern.compile("^Variable (\\S+): (\\S+)$",
+                                                 Pattern.MULTILINE);
+
+    private InferenceGraph instance;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public InferenceGraphTest()
+    {
+    }
+
+    /**
+     * Set up a test: ASIA with an abnormal X-ray.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        instance = new InferenceGraph(ASIA);
+        instance.getBayesNet().getProbabilityVariable("XRay").
+                setObservedValue("Abnormal");
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static String text(ByteArrayOutputStream bytes)
+    {
+        return bytes.toString().replace("\r\n", "\n");
+    }
+
+    /**
+     * The probabilities of a printed posterior distribution, by value.
+     */
+    private static Map<String, Double> probabilities(String printed)
+    {
+        Map<String, Double> probabilities = new LinkedHashMap<>();
+        Matcher matcher = PROBABILITY.matcher(printed);
+        while (matcher.find())
+        {
+            probabilities.put(matcher.group(2),
+                              Double.valueOf(matcher.group(1)));
+        }
+        assertFalse(printed, probabilities.isEmpty());
+        return probabilities;
+    }
+
+    /**
+     * The values of a printed explanation, by variable.
+     */
+    private static Map<String, String> assignment(String printed)
+    {
+        Map<String, String> assignment = new LinkedHashMap<>();
+        Matcher matcher = ASSIGNMENT.matcher(printed);
+        while (matcher.find())
+        {
+            assignment.put(matcher.group(1), matcher.group(2));
+        }
+        return assignment;
+    }
+
+    private static void assertMarginal(String printed, MarginalResult result)
+    {
+        Map<String, Double> expected = probabilities(printed);
+        assertFalse(result.isCredal());
+        assertEquals(expected.size(), result.numberValues());
+        for (int i = 0; i < result.numberValues(); i++)
+        {
+            assertEquals(printed,
+                         expected.get(result.getValueName(i)),
+                         result.getProbability(i),
+                         DELTA);
+        }
+    }
+
+    private static void assertExplanation(String printed,
+                                          ExplanationResult result)
+    {
+        Map<String, String> expected = assignment(printed);
+        assertTrue(result.hasAssignment());
+        assertFalse(printed, expected.isEmpty());
+        int assigned = 0;
+        for (int valueIndex : result.getValueIndexes())
+        {
+            if (valueIndex != BayesNet.INVALID_INDEX)
+            {
+                assigned++;
+            }
+        }
+        assertEquals(expected.size(), assigned);
+        for (Map.Entry<String, String> entry : expected.entrySet())
+        {
+            assertEquals(entry.getKey(),
+                         entry.getValue(),
+                         result.getValueName(entry.getKey()));
+        }
+    }
+
+    /**
+     * Test of getMarginal method, of class InferenceGraph, against
+     * printMarginal.
+     */
+    @Test
+    public void testGetMarginal()
+    {
+        System.out.println("getMarginal");
+        String names[] =
+        {
+            "Cancer", "Smoking", "Dyspnea"
+        };
+        boolean clusters[] =
+        {
+            false, true
+        };
+        for (boolean isProducingComputeClusters : clusters)
+        {
+            for (String name : names)
+            {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                instance.printMarginal(new PrintStream(out),
+                                       name,
+                                       isProducingComputeClusters,
+                                       false);
+                MarginalResult result = instance.getMarginal(
+                               name,
+                               isProducingComputeClusters);
+                assertEquals(name, result.getVariableName());
+                assertMarginal(text(out), result);
+            }
+        }
+    }
+
+    /**
+     * Test of getExpectation method, of class InferenceGraph, against
+     * printExpectation.
+     */
+    @Test
+    public void testGetExpectation()
+    {
+        System.out.println("getExpectation");
+        String names[] =
+        {
+            "Cancer", "Bronchitis"
+        };
+        for (String name : names)
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            instance.printExpectation(new PrintStream(out), name, false, false);
+            Matcher matcher = EXPECTATION.matcher(text(out));
+            assertTrue(text(out), matcher.find());
+
+            ExpectationResult result = instance.getExpectation(name, false);
+            assertEquals(name, result.getVariableName());
+            assertEquals(Expectation.MomentType.EXPECTED_VALUE,
+                         result.getMoment());
+            assertTrue(result.isPrecise());
+            assertEquals(Double.parseDouble(matcher.group(1)),
+                         result.getExpectation(),
+                         DELTA);
+        }
+    }
+
+    /**
+     * Test of getExplanation method, of class InferenceGraph, against
+     * printExplanation.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testGetExplanation() throws Exception
+    {
+        System.out.println("getExplanation");
+        // No explanation variable: the posterior of the first variable
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.printExplanation(new PrintStream(out), false);
+        assertTrue(text(out).contains("No explanatory variable"));
+        ExplanationResult result = instance.getExplanation();
+        assertFalse(result.hasAssignment());
+        assertMarginal(text(out), result.getPosterior());
+
+        instance.getBayesNet().getProbabilityVariable("Tuberculosis").
+                setExplanationValue(0);
+        instance.getBayesNet().getProbabilityVariable("Cancer").
+                setExplanationValue(0);
+        out = new ByteArrayOutputStream();
+        instance.printExplanation(new PrintStream(out), false);
+        result = instance.getExplanation();
+        assertExplanation(text(out), result);
+        assertEquals(2, assignment(text(out)).size());
+    }
+
+    /**
+     * Test of getFullExplanation method, of class InferenceGraph, against
+     * printFullExplanation.
+     */
+    @Test
+    public void testGetFullExplanation()
+    {
+        System.out.println("getFullExplanation");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        instance.printFullExplanation(new PrintStream(out), false);
+        ExplanationResult result = instance.getFullExplanation();
+        assertExplanation(text(out), result);
+        // The observed variable is not explained
+        assertNull(result.getValueName("XRay"));
+        assertEquals(7, assignment(text(out)).size());
+        assertTrue(result.getScore() > 0.0);
+    }
+
+}
@@ -0,0 +1,293 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class InferenceMetricsTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(InferenceMetricsTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public InferenceMetricsTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static String[] prometheus(InferenceMetrics metrics)
+            throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        metrics.writePrometheus(new PrintStream(out, true, "UTF-8"));
+        return out.toString("UTF-8").split("\r?\n");
+    }
+
+    /**
+     * Test of record method, of class InferenceMetrics, with the profiles
+     * of queries.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testRecord() throws Exception
+    {
+        System.out.println("record");
+        BayesNet bayesNet = new BayesNet(new File(ASIA));
+        InferenceMetrics instance = new InferenceMetrics();
+        Inference inference = new Inference(bayesNet, false);
+        inference.setMetrics(instance);
+        assertSame(instance, inference.getMetrics());
+        assertTrue(inference.isProfiling());
+        long flops = 0L;
+        long bytes = 0L;
+        long maxTableSizes[] = new long[2];
+        String names[] =
+        {
+            "Cancer", "Dyspnea"
+        };
+        for (int i = 0; i < names.length; i++)
+        {
+            inference.inference(names[i]);
+            flops += inference.getProfile().getTotalFlops();
+            bytes += inference.getProfile().getTotalTableBytes();
+            maxTableSizes[i] = inference.getProfile().getMaxTableSize();
+        }
+        Explanation explanation = new Explanation(bayesNet);
+        explanation.setMetrics(instance);
+        explanation.fullExplanation();
+        flops += explanation.getProfile().getTotalFlops();
+
+        assertEquals(2L,
+                     instance.counter("queries_total{kind=\"marginal\"}").
+                     get());
+        assertEquals(1L,
+                     instance.counter("queries_total{kind=\"explanation\"}").
+                     get());
+        assertEquals(flops, instance.counter("flops_total").get());
+        assertTrue(instance.counter("table_bytes_total").get() > bytes);
+
+        Map<String, Object> map = instance.toMap();
+        assertEquals(2L, map.get("query_latency_micros{kind=\"marginal\"}" +
+                                 ".count"));
+        assertEquals(3L,
+                     map.get("phase_latency_micros{phase=\"reduction\"}" +
+                             ".count"));
+        assertEquals(3L, map.get("max_table_size.count"));
+        assertTrue((Long) map.get("max_table_size.sum") >=
+                   maxTableSizes[0] + maxTableSizes[1]);
+
+        instance.clear();
+        assertTrue(instance.toMap().isEmpty());
+    }
+
+    /**
+     * Test of writePrometheus method, of class InferenceMetrics.
+     *
+     * @throws Exception if the output cannot be encoded
+     */
+    @Test
+    public void testWritePrometheus() throws Exception
+    {
+        System.out.println("writePrometheus");
+        InferenceMetrics instance = new InferenceMetrics("test");
+        instance.counter("requests_total{network=\"" +
+                         InferenceMetrics.escapeLabelValue("a\"b\\c\nd") +
+                         "\"}").addAndGet(3L);
+        instance.counter("reloads_total").incrementAndGet();
+        InferenceMetrics.Histogram latency = instance.histogram(
+                                   "latency_micros{network=\"asia\"}",
+                                   new long[]
+                                   {
+                                       10L, 100L
+                                   });
+        latency.record(5L);
+        latency.record(10L);
+        latency.record(50L);
+        latency.record(500L);
+        InferenceMetrics.Histogram size = instance.histogram("size",
+                                                             new long[]
+                                                             {
+                                                                 1L
+                                                             });
+        size.record(0L);
+        size.record(2L);
+
+        String expected[] =
+        {
+            "test_reloads_total 1",
+            "test_requests_total{network=\"a\\\"b\\\\c\\nd\"} 3",
+            "test_latency_micros_bucket{network=\"asia\",le=\"10\"} 2",
+            "test_latency_micros_bucket{network=\"asia\",le=\"100\"} 3",
+            "test_latency_micros_bucket{network=\"asia\",le=\"+Inf\"} 4",
+            "test_latency_micros_sum{network=\"asia\"} 565",
+            "test_latency_micros_count{network=\"asia\"} 4",
+            "test_size_bucket{le=\"1\"} 1",
+            "test_size_bucket{le=\"+Inf\"} 2",
+            "test_size_sum 2",
+            "test_size_count 2"
+        };
+        assertArrayEquals(expected, prometheus(instance));
+    }
+
+    /**
+     * Test of escapeLabelValue method, of class InferenceMetrics.
+     */
+    @Test
+    public void testEscapeLabelValue()
+    {
+        System.out.println("escapeLabelValue");
+        assertEquals("asia", InferenceMetrics.escapeLabelValue("asia"));
+        assertEquals("\\\\", InferenceMetrics.escapeLabelValue("\\"));
+        assertEquals("\\\"x\\\"", InferenceMetrics.escapeLabelValue("\"x\""));
+        assertEquals("a\\nb", InferenceMetrics.escapeLabelValue("a\nb"));
+        assertEquals("", InferenceMetrics.escapeLabelValue(""));
+    }
+
+    /**
+     * Test of quantile method, of class InferenceMetrics.Histogram.
+     */
+    @Test
+    public void testQuantile()
+    {
+        System.out.println("quantile");
+        InferenceMetrics.Histogram instance =
+                                   new InferenceMetrics.Histogram(new long[]
+                                   {
+                                       10L, 100L, 1000L
+                                   });
+        assertEquals(0L, instance.quantile(0.5));
+        for (int i = 0; i < 90; i++)
+        {
+            instance.record(i % 10);
+        }
+        for (int i = 0; i < 9; i++)
+        {
+            instance.record(500L);
+        }
+        instance.record(5000L);
+        assertEquals(100L, instance.getCount());
+        assertEquals(10L, instance.quantile(0.5));
+        assertEquals(10L, instance.quantile(0.9));
+        assertEquals(1000L, instance.quantile(0.99));
+        assertEquals(Long.MAX_VALUE, instance.quantile(1.0));
+    }
+
+    /**
+     * Test of counter and histogram methods, of class InferenceMetrics, from
+     * several threads.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testConcurrent() throws Exception
+    {
+        System.out.println("concurrent");
+        final InferenceMetrics instance = new InferenceMetrics();
+        final int numberOfRecords = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Void>> results = new ArrayList<>();
+        try
+        {
+            for (int t = 0; t < 8; t++)
+            {
+                results.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        for (int i = 0; i < numberOfRecords; i++)
+                        {
+                            instance.counter("records_total").
+                                    incrementAndGet();
+                            instance.histogram(
+                                    "values",
+                                    InferenceMetrics.SIZE_BOUNDS).record(i);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results)
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        assertEquals(8L * numberOfRecords,
+                     instance.counter("records_total").get());
+        InferenceMetrics.Histogram histogram =
+                                   instance.histogram("values", null);
+        assertEquals(8L * numberOfRecords, histogram.getCount());
+        assertEquals(8L * numberOfRecords * (numberOfRecords - 1) / 2,
+                     histogram.getSum());
+    }
+
+}
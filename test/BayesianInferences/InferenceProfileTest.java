@@ -0,0 +1,322 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import JavaBayesInterface.Json;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class InferenceProfileTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(InferenceProfileTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public InferenceProfileTest()
+    {
+    }
+
+    /**
+     * Set up a test: ASIA with an abnormal X-ray.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File(ASIA));
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * The names of the bucket variables of a bucket tree, in order of
+     * reduction. Buckets without functions, such as those of observed
+     * variables, are not reduced.
+     */
+    private static List<String> bucketNames(BucketTree bucketTree)
+    {
+        List<String> names = new ArrayList<>();
+        for (Bucket bucket : bucketTree.bucketTree)
+        {
+            if (!bucket.discreteFunctions.isEmpty())
+            {
+                names.add(bucket.probVar.getName());
+            }
+        }
+        assertTrue(names.size() > 1);
+        return names;
+    }
+
+    /**
+     * The names of the bucket variables recorded by a profile.
+     */
+    private static List<String> bucketNames(InferenceProfile profile)
+    {
+        List<String> names = new ArrayList<>();
+        for (InferenceProfile.BucketStatistics bucket : profile.getBuckets())
+        {
+            names.add(bucket.getVariableName());
+        }
+        return names;
+    }
+
+    /**
+     * Assert that the totals of a profile are those of its buckets.
+     */
+    private static void assertTotals(InferenceProfile profile)
+    {
+        long flops = 0L;
+        long bytes = 0L;
+        long maxTableSize = 0L;
+        for (InferenceProfile.BucketStatistics bucket : profile.getBuckets())
+        {
+            assertTrue(bucket.toString(), bucket.getNumberOfFunctions() > 0);
+            assertTrue(bucket.toString(), bucket.getTableSize() > 0L);
+            assertTrue(bucket.toString(), bucket.getFlops() > 0L);
+            assertTrue(bucket.toString(), bucket.getBytes() > 0L);
+            flops += bucket.getFlops();
+            bytes += bucket.getBytes();
+            maxTableSize = Math.max(maxTableSize, bucket.getTableSize());
+        }
+        assertEquals(flops, profile.getTotalFlops());
+        assertEquals(bytes, profile.getTotalTableBytes());
+        assertEquals(maxTableSize, profile.getMaxTableSize());
+        // The clock stops when the query finishes
+        assertTrue(profile.getTotalNanos() > 0L);
+        assertEquals(profile.getTotalNanos(), profile.getTotalNanos());
+    }
+
+    /**
+     * Test of the profile of class Inference: all phases of a marginal and
+     * every reduced bucket are recorded.
+     */
+    @Test
+    public void testInferenceProfile()
+    {
+        System.out.println("inferenceProfile");
+        Inference instance = new Inference(bayesNet, true);
+        instance.setProfiling(true);
+        assertTrue(instance.isProfiling());
+        instance.inference("Cancer");
+
+        InferenceProfile profile = instance.getProfile();
+        assertTrue(profile.isEnabled());
+        assertEquals(InferenceProfile.Kind.MARGINAL, profile.getKind());
+        assertEquals("Cancer", profile.getQuery());
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.ORDERING) >
+                   0L);
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.EVIDENCE) >
+                   0L);
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.REDUCTION) >
+                   0L);
+        assertTrue(profile.getPhaseNanos(
+                InferenceProfile.Phase.NORMALIZATION) > 0L);
+        assertEquals(0L,
+                     profile.getPhaseNanos(
+                             InferenceProfile.Phase.DISTRIBUTION));
+        assertEquals(bucketNames(instance.getBucketTree()),
+                     bucketNames(profile));
+        for (InferenceProfile.BucketStatistics bucket : profile.getBuckets())
+        {
+            assertFalse(bucket.isMaximization());
+        }
+        assertTotals(profile);
+
+        // Another variable is answered from the clusters
+        instance.inference("Smoking");
+        InferenceProfile second = instance.getProfile();
+        assertTrue(second != profile);
+        assertEquals("Smoking", second.getQuery());
+        assertEquals(0L,
+                     second.getPhaseNanos(InferenceProfile.Phase.ORDERING));
+        assertTrue(second.getPhaseNanos(InferenceProfile.Phase.DISTRIBUTION) >
+                   0L);
+    }
+
+    /**
+     * Test of the profile of class Explanation: the buckets of an
+     * explanation maximize.
+     */
+    @Test
+    public void testExplanationProfile()
+    {
+        System.out.println("explanationProfile");
+        Explanation instance = new Explanation(bayesNet);
+        instance.setProfiling(true);
+        assertTrue(instance.isProfiling());
+        instance.fullExplanation();
+
+        InferenceProfile profile = instance.getProfile();
+        assertEquals(InferenceProfile.Kind.EXPLANATION, profile.getKind());
+        assertNull(profile.getQuery());
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.ORDERING) >
+                   0L);
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.EVIDENCE) >
+                   0L);
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.REDUCTION) >
+                   0L);
+        assertEquals(bucketNames(instance.bucketTree), bucketNames(profile));
+        for (InferenceProfile.BucketStatistics bucket : profile.getBuckets())
+        {
+            assertTrue(bucket.toString(), bucket.isMaximization());
+            assertTrue(bucket.toString().startsWith("max "));
+        }
+        assertTotals(profile);
+    }
+
+    /**
+     * Test of the profile of class Expectation: the buckets are those of
+     * the marginal of the queried variable.
+     */
+    @Test
+    public void testExpectationProfile()
+    {
+        System.out.println("expectationProfile");
+        Inference inference = new Inference(bayesNet, false);
+        inference.setProfiling(true);
+        inference.inference("Cancer");
+
+        Expectation instance = new Expectation(bayesNet, false);
+        instance.setProfiling(true);
+        instance.expectation("Cancer");
+        InferenceProfile profile = instance.getProfile();
+        assertEquals(InferenceProfile.Kind.EXPECTATION, profile.getKind());
+        assertEquals("Cancer", profile.getQuery());
+        assertTrue(profile.getPhaseNanos(InferenceProfile.Phase.REDUCTION) >
+                   0L);
+        assertEquals(bucketNames(inference.getProfile()),
+                     bucketNames(profile));
+        assertEquals(inference.getProfile().getTotalFlops(),
+                     profile.getTotalFlops());
+        assertTotals(profile);
+    }
+
+    /**
+     * Test of the DISABLED profile, which records nothing.
+     */
+    @Test
+    public void testDisabled()
+    {
+        System.out.println("disabled");
+        Inference inference = new Inference(bayesNet, true);
+        assertFalse(inference.isProfiling());
+        inference.inference("Cancer");
+        assertSame(InferenceProfile.DISABLED, inference.getProfile());
+        Explanation explanation = new Explanation(bayesNet);
+        explanation.fullExplanation();
+        assertSame(InferenceProfile.DISABLED, explanation.getProfile());
+
+        InferenceProfile instance = InferenceProfile.DISABLED;
+        assertFalse(instance.isEnabled());
+        instance.start(InferenceProfile.Phase.REDUCTION);
+        instance.stop(InferenceProfile.Phase.REDUCTION);
+        instance.recordBucket("Cancer", 2, 4L, 12L, 32L, false);
+        instance.finish();
+        for (InferenceProfile.Phase phase : InferenceProfile.Phase.values())
+        {
+            assertEquals(0L, instance.getPhaseNanos(phase));
+        }
+        assertTrue(instance.getBuckets().isEmpty());
+        assertEquals(0L, instance.getTotalNanos());
+        assertEquals(0L, instance.getTotalFlops());
+        assertEquals(-1L, instance.getAllocatedBytes());
+
+        InferenceMetrics metrics = new InferenceMetrics();
+        metrics.record(instance);
+        assertTrue(metrics.toMap().isEmpty());
+    }
+
+    /**
+     * Test of toJson method, of class InferenceProfile.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testToJson()
+    {
+        System.out.println("toJson");
+        InferenceProfile instance =
+                         new InferenceProfile(InferenceProfile.Kind.MARGINAL,
+                                              "Can\"cer\\");
+        instance.start(InferenceProfile.Phase.REDUCTION);
+        instance.recordBucket("Smoking", 2, 4L, 12L, 32L, false);
+        instance.recordBucket("Can\"cer\\", 3, 8L, 32L, 64L, true);
+        instance.stop(InferenceProfile.Phase.REDUCTION);
+        instance.finish();
+
+        Map<String, Object> result = Json.parseObject(instance.toJson());
+        assertEquals("MARGINAL", result.get("kind"));
+        assertEquals("Can\"cer\\", result.get("query"));
+        assertEquals((double) instance.getTotalNanos(),
+                     result.get("totalNanos"));
+        assertEquals(44.0, result.get("totalFlops"));
+        assertEquals(96.0, result.get("totalTableBytes"));
+        assertEquals(8.0, result.get("maxTableSize"));
+        Map<String, Object> phases =
+                            (Map<String, Object>) result.get("phaseNanos");
+        assertEquals(InferenceProfile.Phase.values().length, phases.size());
+        assertEquals((double) instance.getPhaseNanos(
+                InferenceProfile.Phase.REDUCTION),
+                     phases.get("REDUCTION"));
+        List<Object> buckets = (List<Object>) result.get("buckets");
+        assertEquals(2, buckets.size());
+        Map<String, Object> bucket = (Map<String, Object>) buckets.get(1);
+        assertEquals("Can\"cer\\", bucket.get("variable"));
+        assertEquals(3.0, bucket.get("functions"));
+        assertEquals(Boolean.TRUE, bucket.get("maximization"));
+        assertEquals(instance.toJson(), instance.toString());
+    }
+
+}
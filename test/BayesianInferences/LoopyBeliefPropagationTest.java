@@ -0,0 +1,233 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianInferences.LoopyBeliefPropagation.Schedule;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.File;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class LoopyBeliefPropagationTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(
+                                        LoopyBeliefPropagationTest.class.
+                                        getName());
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public LoopyBeliefPropagationTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * The dog problem, a network without loops, with the light on and the
+     * dog heard barking.
+     */
+    private static BayesNet dogProblem() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(
+                 new File("Examples/DogProblem/dog-problem.bif"));
+        bayesNet.getProbabilityVariable("light_on").setObservedValue("true");
+        bayesNet.getProbabilityVariable("hear_bark").setObservedValue("true");
+        return bayesNet;
+    }
+
+    private static BayesNet asia() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File("Examples/Asia/ASIA.BIF"));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+        return bayesNet;
+    }
+
+    /**
+     * Assert that the marginals of two propagations, or of a propagation and
+     * exact inference if the second is null, agree.
+     */
+    private static void assertMarginals(BayesNet bayesNet,
+                                        LoopyBeliefPropagation instance,
+                                        LoopyBeliefPropagation other,
+                                        double delta)
+    {
+        Inference exact = new Inference(bayesNet, false);
+        for (ProbabilityVariable probVar : bayesNet.getProbabilityVariables())
+        {
+            if (probVar.isObserved())
+            {
+                continue;
+            }
+            String name = probVar.getName();
+            double expected[];
+            if (other == null)
+            {
+                exact.inference(name);
+                expected = exact.getResult().getValues();
+            }
+            else
+            {
+                other.inference(name);
+                expected = other.getResult().getValues();
+            }
+            instance.inference(name);
+            assertArrayEquals(name,
+                              expected,
+                              instance.getResult().getValues(),
+                              delta);
+        }
+    }
+
+    /**
+     * Test of propagate method, of class LoopyBeliefPropagation: without
+     * loops the propagation is exact, with either schedule.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testPropagateWithoutLoops() throws Exception
+    {
+        System.out.println("propagateWithoutLoops");
+        BayesNet bayesNet = dogProblem();
+        for (Schedule schedule : Schedule.values())
+        {
+            LoopyBeliefPropagation instance =
+                                   new LoopyBeliefPropagation(bayesNet);
+            instance.setSchedule(schedule);
+            assertTrue(instance.propagate());
+            assertTrue(instance.isConverged());
+            assertMarginals(bayesNet, instance, null, 1e-9);
+        }
+    }
+
+    /**
+     * Test of propagate method, of class LoopyBeliefPropagation, on ASIA:
+     * both schedules converge to the same fixed point, which is close to
+     * the exact marginals.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testPropagateWithLoops() throws Exception
+    {
+        System.out.println("propagateWithLoops");
+        BayesNet bayesNet = asia();
+        LoopyBeliefPropagation synchronous =
+                               new LoopyBeliefPropagation(bayesNet);
+        synchronous.setSchedule(Schedule.SYNCHRONOUS);
+        assertTrue(synchronous.propagate());
+        LoopyBeliefPropagation residual =
+                               new LoopyBeliefPropagation(bayesNet);
+        residual.setSchedule(Schedule.RESIDUAL);
+        assertTrue(residual.propagate());
+        assertTrue(residual.getNumberOfUpdates() <
+                   synchronous.getNumberOfUpdates());
+
+        assertMarginals(bayesNet, residual, synchronous, 1e-6);
+        assertMarginals(bayesNet, synchronous, null, 0.02);
+    }
+
+    /**
+     * Test of setDamping method, of class LoopyBeliefPropagation: damping
+     * changes the path to the fixed point, not the fixed point.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testSetDamping() throws Exception
+    {
+        System.out.println("setDamping");
+        BayesNet bayesNet = asia();
+        LoopyBeliefPropagation plain = new LoopyBeliefPropagation(bayesNet);
+        assertTrue(plain.propagate());
+        LoopyBeliefPropagation instance = new LoopyBeliefPropagation(bayesNet);
+        instance.setDamping(0.5);
+        assertTrue(instance.propagate());
+        assertMarginals(bayesNet, instance, plain, 1e-6);
+    }
+
+    /**
+     * Test of setDamping method, of class LoopyBeliefPropagation, with a
+     * weight of 1.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetDampingOne() throws Exception
+    {
+        System.out.println("setDampingOne");
+        new LoopyBeliefPropagation(asia()).setDamping(1.0);
+    }
+
+    /**
+     * Test of setNumberOfThreads method, of class LoopyBeliefPropagation:
+     * synchronous sweeps give the same messages on any number of threads.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testSetNumberOfThreads() throws Exception
+    {
+        System.out.println("setNumberOfThreads");
+        BayesNet bayesNet = new BayesNet(
+                 new File("Examples/Alarm/ALARM.BIF"));
+        bayesNet.getProbabilityVariable("BP").setObservedValue("Low");
+        bayesNet.getProbabilityVariable("SaO2").setObservedValue("Low");
+        LoopyBeliefPropagation single = new LoopyBeliefPropagation(bayesNet);
+        single.setSchedule(Schedule.SYNCHRONOUS);
+        assertTrue(single.propagate());
+        LoopyBeliefPropagation instance = new LoopyBeliefPropagation(bayesNet);
+        instance.setSchedule(Schedule.SYNCHRONOUS);
+        instance.setNumberOfThreads(4);
+        assertTrue(instance.propagate());
+        assertMarginals(bayesNet, instance, single, 0.0);
+    }
+}
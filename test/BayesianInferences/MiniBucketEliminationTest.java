@@ -0,0 +1,331 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import QuasiBayesianInferences.QBInference;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class MiniBucketEliminationTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(
+                                        MiniBucketEliminationTest.class.
+                                        getName());
+
+    /**
+     * Slack for the bounds: the rows of HREKG and HRSat in ALARM sum to
+     * 0.999999, and mini-bucket elimination leaves these barren variables
+     * out while exact inference sums over them.
+     */
+    private static final double SLACK = 1e-6;
+
+    private static final String ALARM_EVIDENCE[][] =
+    {
+        {"BP", "Low"},
+        {"HRBP", "High"},
+        {"ExpCO2", "Low"},
+        {"SaO2", "Low"},
+        {"PAP", "Normal"}
+    };
+
+    private static final String ALARM_CAUSES[] =
+    {
+        "Hypovolemia", "LVFailure", "Anaphylaxis", "InsuffAnesth",
+        "PulmEmbolus", "Intubation", "KinkedTube", "Disconnect"
+    };
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public MiniBucketEliminationTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static BayesNet asia() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File("Examples/Asia/ASIA.BIF"));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+        bayesNet.getProbabilityVariable("Tuberculosis").
+                setExplanationValue(0);
+        bayesNet.getProbabilityVariable("Cancer").setExplanationValue(0);
+        return bayesNet;
+    }
+
+    private static BayesNet alarm() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File("Examples/Alarm/ALARM.BIF"));
+        for (String evidence[] : ALARM_EVIDENCE)
+        {
+            bayesNet.getProbabilityVariable(evidence[0]).
+                    setObservedValue(evidence[1]);
+        }
+        for (String cause : ALARM_CAUSES)
+        {
+            bayesNet.getProbabilityVariable(cause).setExplanationValue(0);
+        }
+        return bayesNet;
+    }
+
+    private static void assertMarginalBounds(BayesNet bayesNet, int iBound)
+    {
+        Inference exact = new Inference(bayesNet, false);
+        Inference instance = new Inference(bayesNet, false);
+        instance.setMiniBucketBound(iBound);
+        for (ProbabilityVariable probVar : bayesNet.getProbabilityVariables())
+        {
+            if (probVar.isObserved())
+            {
+                continue;
+            }
+            exact.inference(probVar.getName());
+            double expected[] = exact.getMarginalResult().getProbabilities();
+            instance.inference(probVar.getName());
+            MarginalResult result = instance.getMarginalResult();
+            assertTrue(result.isCredal());
+            double lower[] = result.getLowerProbabilities();
+            double upper[] = result.getUpperProbabilities();
+            for (int x = 0; x < expected.length; x++)
+            {
+                String message = probVar.getName() + " = " +
+                                 probVar.getValue(x) + ", i-bound " + iBound;
+                assertTrue(message, lower[x] <= expected[x] + SLACK);
+                assertTrue(message, expected[x] <= upper[x] + SLACK);
+            }
+        }
+    }
+
+    private static void assertExplanationBounds(BayesNet bayesNet,
+                                                int iBound)
+    {
+        double best = new Explanation(bayesNet).
+                branchAndBoundExplanation(iBound, 0).getScore();
+        ExplanationResult result = new Explanation(bayesNet).
+                miniBucketExplanation(iBound);
+        assertTrue(result.hasAssignment());
+        assertTrue(result.getScore() <= best * (1.0 + 1e-12));
+        assertTrue(best <= result.getScoreBound() * (1.0 + 1e-12));
+    }
+
+    /**
+     * Test of inference method, of class Inference, in mini-bucket mode:
+     * the bounds contain the exact marginals.
+     *
+     * @throws Exception if a network cannot be read
+     */
+    @Test
+    public void testMarginalBounds() throws Exception
+    {
+        System.out.println("marginalBounds");
+        BayesNet asia = asia();
+        BayesNet alarm = alarm();
+        for (int iBound = 1; iBound <= 3; iBound++)
+        {
+            assertMarginalBounds(asia, iBound);
+            assertMarginalBounds(alarm, iBound);
+        }
+    }
+
+    /**
+     * Test of inference method, of class Inference, in mini-bucket mode:
+     * without splitting the buckets, both bounds are the exact marginals.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testMarginalBoundsExact() throws Exception
+    {
+        System.out.println("marginalBoundsExact");
+        BayesNet bayesNet = asia();
+        Inference exact = new Inference(bayesNet, false);
+        Inference instance = new Inference(bayesNet, false);
+        instance.setMiniBucketBound(Integer.MAX_VALUE);
+        for (String name : new String[]
+        {
+            "Tuberculosis", "Cancer", "TbOrCa", "Bronchitis"
+        })
+        {
+            exact.inference(name);
+            double expected[] = exact.getMarginalResult().getProbabilities();
+            instance.inference(name);
+            MarginalResult result = instance.getMarginalResult();
+            assertArrayEquals(name,
+                              expected,
+                              result.getLowerProbabilities(),
+                              1e-12);
+            assertArrayEquals(name,
+                              expected,
+                              result.getUpperProbabilities(),
+                              1e-12);
+        }
+    }
+
+    /**
+     * Test of bound method, of class MiniBucketElimination: without
+     * splitting the buckets, the bounds are the probability of the evidence.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testBound() throws Exception
+    {
+        System.out.println("bound");
+        BayesNet bayesNet = asia();
+        ArrayList<ProbabilityVariable> evidence = new ArrayList<>();
+        evidence.add(bayesNet.getProbabilityVariable("Dyspnea"));
+        evidence.add(bayesNet.getProbabilityVariable("XRay"));
+        double expected = bayesNet.P(evidence,
+                                     new ArrayList<ProbabilityVariable>());
+
+        int assignment[] = MiniBucketElimination.evidence(bayesNet);
+        boolean isMaxVariable[] = new boolean[assignment.length];
+        MiniBucketElimination exact =
+                              new MiniBucketElimination(bayesNet,
+                                                        Integer.MAX_VALUE);
+        assertEquals(expected,
+                     exact.bound(assignment, isMaxVariable, true),
+                     1e-15);
+        assertEquals(expected,
+                     exact.bound(assignment, isMaxVariable, false),
+                     1e-15);
+        for (int iBound = 1; iBound <= 3; iBound++)
+        {
+            MiniBucketElimination instance =
+                                  new MiniBucketElimination(bayesNet, iBound);
+            assertTrue(instance.bound(assignment, isMaxVariable, false) <=
+                       expected + 1e-15);
+            assertTrue(expected <=
+                       instance.bound(assignment, isMaxVariable, true) +
+                       1e-15);
+        }
+    }
+
+    /**
+     * Test of miniBucketExplanation method, of class Explanation: the score
+     * and its bound contain the MAP value.
+     *
+     * @throws Exception if a network cannot be read
+     */
+    @Test
+    public void testMiniBucketExplanation() throws Exception
+    {
+        System.out.println("miniBucketExplanation");
+        BayesNet asia = asia();
+        BayesNet alarm = alarm();
+        for (int iBound = 1; iBound <= 3; iBound++)
+        {
+            assertExplanationBounds(asia, iBound);
+            assertExplanationBounds(alarm, iBound);
+        }
+    }
+
+    /**
+     * Test of inference method, of class QBInference, in mini-bucket mode:
+     * the bounds are those of Inference, with or without a bucket tree left
+     * behind by an exact query.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testQBInferenceMiniBuckets() throws Exception
+    {
+        System.out.println("QBInferenceMiniBuckets");
+        BayesNet bayesNet = asia();
+        Inference expected = new Inference(bayesNet, false);
+        expected.setMiniBucketBound(2);
+        QBInference instance = new QBInference(bayesNet, false);
+        instance.inference("Bronchitis");
+        instance.setMiniBucketBound(2);
+        for (String name : new String[]
+        {
+            "Tuberculosis", "Cancer", "TbOrCa", "Bronchitis"
+        })
+        {
+            expected.inference(name);
+            MarginalResult expectedResult = expected.getMarginalResult();
+            instance.inference(name);
+            MarginalResult result = instance.getMarginalResult();
+            assertTrue(result.isCredal());
+            assertEquals(name, result.getVariableName());
+            assertArrayEquals(name,
+                              expectedResult.getLowerProbabilities(),
+                              result.getLowerProbabilities(),
+                              0.0);
+            assertArrayEquals(name,
+                              expectedResult.getUpperProbabilities(),
+                              result.getUpperProbabilities(),
+                              0.0);
+        }
+
+        // Without any bucket tree
+        instance = new QBInference(bayesNet, false);
+        instance.setMiniBucketBound(2);
+        instance.inference("Cancer");
+        assertTrue(instance.getMarginalResult().isCredal());
+    }
+
+    /**
+     * Test of MiniBucketElimination constructor with an i-bound that is not
+     * positive.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testIBoundNotPositive() throws Exception
+    {
+        System.out.println("iBoundNotPositive");
+        new MiniBucketElimination(asia(), 0);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianInferences;
+
+import BayesianInferences.SamplingInference.Method;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class SamplingInferenceTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(SamplingInferenceTest.class.
+                                        getName());
+
+    private static final long SEED = 45L;
+    private static final long SAMPLE_SIZE = 200000L;
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public SamplingInferenceTest()
+    {
+    }
+
+    /**
+     * Set up a test: ASIA with dyspnea and an abnormal x-ray observed.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File("Examples/Asia/ASIA.BIF"));
+        bayesNet.getProbabilityVariable("Dyspnea").setObservedValue("Present");
+        bayesNet.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private void assertMarginals(SamplingInference instance, double delta)
+    {
+        Inference exact = new Inference(bayesNet, false);
+        for (ProbabilityVariable probVar : bayesNet.getProbabilityVariables())
+        {
+            String name = probVar.getName();
+            exact.inference(name);
+            instance.inference(name);
+            assertArrayEquals(name,
+                              exact.getResult().getValues(),
+                              instance.getResult().getValues(),
+                              delta);
+        }
+    }
+
+    /**
+     * Test of inference method, of class SamplingInference, for every
+     * method against exact inference.
+     */
+    @Test
+    public void testInference()
+    {
+        System.out.println("inference");
+        for (Method method : Method.values())
+        {
+            SamplingInference instance = new SamplingInference(bayesNet,
+                                                               method,
+                                                               SEED);
+            instance.setSampleSize(SAMPLE_SIZE);
+            assertMarginals(instance, 0.02);
+            assertTrue(instance.getNumberOfSamples() >= SAMPLE_SIZE);
+        }
+    }
+
+    /**
+     * Test of getEvidenceProbability method, of class SamplingInference.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testGetEvidenceProbability() throws Exception
+    {
+        System.out.println("getEvidenceProbability");
+        ArrayList<ProbabilityVariable> evidence = new ArrayList<>();
+        evidence.add(bayesNet.getProbabilityVariable("Dyspnea"));
+        evidence.add(bayesNet.getProbabilityVariable("XRay"));
+        double expected = bayesNet.P(evidence,
+                                     new ArrayList<ProbabilityVariable>());
+        for (Method method : Method.values())
+        {
+            SamplingInference instance = new SamplingInference(bayesNet,
+                                                               method,
+                                                               SEED);
+            instance.setSampleSize(SAMPLE_SIZE);
+            instance.inference("Cancer");
+            assertEquals(method.toString(),
+                         expected,
+                         instance.getEvidenceProbability(),
+                         0.05 * expected);
+            assertTrue(instance.getEffectiveSampleSize() > 0.0);
+        }
+    }
+
+    /**
+     * Test of setNumberOfThreads method, of class SamplingInference: the
+     * estimates do not depend on the number of threads.
+     */
+    @Test
+    public void testSetNumberOfThreads()
+    {
+        System.out.println("setNumberOfThreads");
+        SamplingInference single = new SamplingInference(
+                          bayesNet,
+                          Method.LIKELIHOOD_WEIGHTING,
+                          SEED);
+        single.setSampleSize(SAMPLE_SIZE);
+        single.inference("Tuberculosis");
+        SamplingInference instance = new SamplingInference(
+                          bayesNet,
+                          Method.LIKELIHOOD_WEIGHTING,
+                          SEED);
+        instance.setSampleSize(SAMPLE_SIZE);
+        instance.setNumberOfThreads(4);
+        instance.inference("Tuberculosis");
+        assertArrayEquals(single.getResult().getValues(),
+                          instance.getResult().getValues(),
+                          0.0);
+        assertEquals(single.getNumberOfSamples(),
+                     instance.getNumberOfSamples());
+    }
+
+    /**
+     * Test of inference method, of class SamplingInference: new evidence
+     * discards the samples drawn for the old one.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testInferenceNewEvidence() throws Exception
+    {
+        System.out.println("inferenceNewEvidence");
+        SamplingInference instance = new SamplingInference(
+                          bayesNet,
+                          Method.LIKELIHOOD_WEIGHTING,
+                          SEED);
+        instance.setSampleSize(SAMPLE_SIZE);
+        instance.inference("Cancer");
+        bayesNet.getProbabilityVariable("Smoking").
+                setObservedValue("NonSmoker");
+        assertMarginals(instance, 0.02);
+        assertEquals(SAMPLE_SIZE, instance.getNumberOfSamples(), 4096);
+    }
+
+    /**
+     * Test of topologicalOrder method, of class SamplingInference, with a
+     * cycle.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopologicalOrderCycle()
+    {
+        System.out.println("topologicalOrderCycle");
+        int parents[][] =
+        {
+            {2}, {0}, {1}
+        };
+        SamplingInference.topologicalOrder(parents);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class BayesNetTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(BayesNetTest.class.getName());
+
+    private static final String SPRINKLER =
+                                "network \"Sprinkler\" {\n}\n" +
+                                "variable \"Rain\" {\n" +
+                                "  type discrete[2] { \"False\" \"True\" };\n" +
+                                "}\n" +
+                                "variable \"Sprinkler\" {\n" +
+                                "  type discrete[2] { \"False\" \"True\" };\n" +
+                                "}\n" +
+                                "variable \"WetGrass\" {\n" +
+                                "  type discrete[2] { \"False\" \"True\" };\n" +
+                                "}\n" +
+                                "probability ( \"Rain\" ) {\n" +
+                                "  table 0.8 0.2 ;\n" +
+                                "}\n" +
+                                "probability ( \"Sprinkler\" ) {\n" +
+                                "  table 0.9 0.1 ;\n" +
+                                "}\n" +
+                                "probability ( \"WetGrass\" \"Rain\" " +
+                                "\"Sprinkler\" ) {\n" +
+                                "  table 1.0 0.2 0.1 0.01 " +
+                                "0.0 0.8 0.9 0.99 ;\n" +
+                                "}\n";
+
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public BayesNetTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     *
+     * @throws Exception if the network cannot be parsed
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(SPRINKLER);
+        for (String name : new String[]
+        {
+            "Rain", "Sprinkler", "WetGrass"
+        })
+        {
+            bayesNet.getProbabilityVariable(name).setObservedValue("True");
+        }
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private ArrayList<ProbabilityVariable> variables(String... names)
+            throws Exception
+    {
+        ArrayList<ProbabilityVariable> reval = new ArrayList<>();
+        for (String name : names)
+        {
+            reval.add(bayesNet.getProbabilityVariable(name));
+        }
+        return reval;
+    }
+
+    /**
+     * Test of P method, of class BayesNet.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testP() throws Exception
+    {
+        System.out.println("P");
+        // P(WetGrass=True) = 0.064 + 0.162 + 0.0198
+        double wet = 0.2458;
+        assertEquals(0.1818 / wet,
+                     bayesNet.P(variables("Rain"), variables("WetGrass")),
+                     1e-12);
+        assertEquals(0.0198 / wet,
+                     bayesNet.P(variables("Rain", "Sprinkler"),
+                                variables("WetGrass")),
+                     1e-12);
+        // Explaining away: the sprinkler makes rain less likely
+        assertEquals(0.0198 / 0.0838,
+                     bayesNet.P(variables("Rain"),
+                                variables("WetGrass", "Sprinkler")),
+                     1e-12);
+        // Rain and Sprinkler are independent without WetGrass
+        assertEquals(0.2,
+                     bayesNet.P(variables("Rain"), variables("Sprinkler")),
+                     1e-12);
+        assertEquals(wet,
+                     bayesNet.P(variables("WetGrass"),
+                                new ArrayList<ProbabilityVariable>()),
+                     1e-12);
+        assertEquals(1.0,
+                     bayesNet.P(variables("Rain"), variables("Rain")),
+                     0.0);
+    }
+
+    /**
+     * Test of getParents and getChildren methods, of class
+     * ProbabilityVariable.
+     *
+     * @throws Exception if a variable cannot be found
+     */
+    @Test
+    public void testParentsAndChildren() throws Exception
+    {
+        System.out.println("parentsAndChildren");
+        TreeSet<ProbabilityVariable> parents =
+                                     bayesNet.getProbabilityVariable(
+                                             "WetGrass").getParents();
+        assertEquals(new ArrayList<>(variables("Rain", "Sprinkler")),
+                     new ArrayList<>(parents));
+        assertEquals(Arrays.asList(bayesNet.getProbabilityVariable(
+                "WetGrass")),
+                     new ArrayList<>(bayesNet.getProbabilityVariable("Rain")
+                             .getChildren()));
+        assertEquals(0,
+                     bayesNet.getProbabilityVariable("Rain").getParents()
+                     .size());
+    }
+}
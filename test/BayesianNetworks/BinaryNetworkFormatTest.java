@@ -0,0 +1,257 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import static BayesianNetworks.NetworkAssert.assertSameNetwork;
+import InterchangeFormat.IFException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class BinaryNetworkFormatTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(
+                                        BinaryNetworkFormatTest.class.
+                                        getName());
+
+    private static final String EXAMPLES[] =
+    {
+        "Examples/Asia/ASIA.BIF",
+        "Examples/Alarm/ALARM.BIF",
+        "Examples/Hailfinder25/hailfinder25.bif"
+    };
+
+    private static final String COIN =
+                                "network \"Coin\" {\n}\n" +
+                                "variable \"Head\" {\n" +
+                                "  type discrete[2] { \"Yes\" \"No\" };\n" +
+                                "}\n" +
+                                "probability ( \"Head\" ) {\n" +
+                                "  table 0.5 0.5 ;\n" +
+                                "}\n";
+
+    /**
+     * Offset of the number of doubles in the table block, in the header.
+     */
+    private static final int NUMBER_OF_DOUBLES_OFFSET = 16;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public BinaryNetworkFormatTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static byte[] toBinary(BayesNet bayesNet) throws Exception
+    {
+        ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+        BinaryNetworkFormat.save(bayesNet, ostream);
+        return ostream.toByteArray();
+    }
+
+    private static void assertCorrupt(byte content[], String message)
+    {
+        try
+        {
+            BinaryNetworkFormat.load(new BayesNet(), ByteBuffer.wrap(content));
+            fail("Corrupt binary network was accepted");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e instanceof IFException);
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+
+    /**
+     * Test of save and load methods, of class BinaryNetworkFormat: a
+     * network written as BIF after a trip through the binary format reads
+     * back as the original.
+     *
+     * @throws Exception if an example cannot be read
+     */
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        System.out.println("roundTrip");
+        for (String example : EXAMPLES)
+        {
+            BayesNet original = new BayesNet(new File(example));
+            BayesNet binary = new BayesNet(
+                     new ByteArrayInputStream(toBinary(original)));
+            assertSameNetwork(original, binary);
+
+            ByteArrayOutputStream bif = new ByteArrayOutputStream();
+            binary.saveBif(new PrintStream(bif, true));
+            assertSameNetwork(original, new BayesNet(bif.toString()));
+        }
+    }
+
+    /**
+     * Test of load method, of class BinaryNetworkFormat, from a memory
+     * mapped file, with evidence.
+     *
+     * @throws Exception if the file cannot be written or read
+     */
+    @Test
+    public void testLoadFile() throws Exception
+    {
+        System.out.println("loadFile");
+        BayesNet original = new BayesNet(new File(EXAMPLES[0]));
+        original.getProbabilityVariable("XRay").setObservedValue("Abnormal");
+        File file = File.createTempFile("asia", ".jbn");
+        try
+        {
+            try (OutputStream ostream = new FileOutputStream(file))
+            {
+                original.saveBinary(ostream);
+            }
+            assertTrue(BinaryNetworkFormat.isBinary(file));
+            BayesNet binary = new BayesNet(file);
+            assertSameNetwork(original, binary);
+            ProbabilityVariable xRay = binary.getProbabilityVariable("XRay");
+            assertTrue(xRay.isObserved());
+            assertEquals("Abnormal", xRay.getValue(xRay.getObservedIndex()));
+        }
+        finally
+        {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * Test of load method, of class BinaryNetworkFormat, with a corrupt
+     * header.
+     *
+     * @throws Exception if the network cannot be written
+     */
+    @Test
+    public void testLoadCorruptHeader() throws Exception
+    {
+        System.out.println("loadCorruptHeader");
+        byte content[] = toBinary(new BayesNet(COIN));
+
+        byte notBinary[] = content.clone();
+        notBinary[0] = 0;
+        assertCorrupt(notBinary, "Not a binary network");
+
+        byte negative[] = content.clone();
+        ByteBuffer.wrap(negative).putInt(NUMBER_OF_DOUBLES_OFFSET, -1);
+        assertCorrupt(negative, "Truncated binary network");
+
+        byte tooMany[] = content.clone();
+        ByteBuffer.wrap(tooMany).putInt(NUMBER_OF_DOUBLES_OFFSET, 3);
+        assertCorrupt(tooMany, "Truncated binary network");
+    }
+
+    /**
+     * Test of load method, of class BinaryNetworkFormat, with a table
+     * position outside the table block.
+     *
+     * @throws Exception if the network cannot be written
+     */
+    @Test
+    public void testLoadCorruptTablePosition() throws Exception
+    {
+        System.out.println("loadCorruptTablePosition");
+        byte content[] = toBinary(new BayesNet(COIN));
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        int tableOffset = (int) buffer.getLong(8);
+
+        // The only function has one table at position 0, written just
+        // before the padding that aligns the table block
+        int position = tableOffset - 8;
+        while (buffer.getInt(position - 4) != 1 ||
+               buffer.getLong(position) != 0)
+        {
+            position--;
+        }
+
+        buffer.putLong(position, -1);
+        assertCorrupt(content, "Truncated binary network");
+        buffer.putLong(position, 1);
+        assertCorrupt(content, "Truncated binary network");
+    }
+
+    /**
+     * Test of load method, of class BinaryNetworkFormat, with the content
+     * cut short.
+     *
+     * @throws Exception if the network cannot be written
+     */
+    @Test
+    public void testLoadTruncated() throws Exception
+    {
+        System.out.println("loadTruncated");
+        byte content[] = toBinary(new BayesNet(new File(EXAMPLES[0])));
+        for (int length = 0; length < content.length; length += 7)
+        {
+            byte truncated[] = new byte[length];
+            System.arraycopy(content, 0, truncated, 0, length);
+            try
+            {
+                BinaryNetworkFormat.load(new BayesNet(),
+                                         ByteBuffer.wrap(truncated));
+                fail("Truncated binary network of " + length +
+                     " bytes was accepted");
+            }
+            catch (IFException e)
+            {
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import static BayesianNetworks.NetworkAssert.assertSameNetwork;
+import static BayesianNetworks.NetworkAssert.parse;
+import InterchangeFormat.IFException;
+import InterchangeFormat.InterchangeFormat;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class ConvertInterchangeFormatTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(
+                                        ConvertInterchangeFormatTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+
+    private static final String HEADER =
+                                "network \"N\" {\n}\n" +
+                                "variable \"A\" {\n" +
+                                "  type discrete[2] { \"yes\" \"no\" };\n" +
+                                "}\n" +
+                                "variable \"B\" {\n" +
+                                "  type discrete[2] { \"yes\" \"no\" };\n" +
+                                "}\n" +
+                                "probability ( \"A\" ) {\n" +
+                                "  table 0.3 0.7 ;\n" +
+                                "}\n";
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public ConvertInterchangeFormatTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static BayesNet translate(String description) throws Exception
+    {
+        InterchangeFormat interchangeFmt = new InterchangeFormat(
+                          new ByteArrayInputStream(description.getBytes()));
+        interchangeFmt.CompilationUnit();
+        BayesNet bayesNet = new BayesNet();
+        bayesNet.translate(interchangeFmt);
+        return bayesNet;
+    }
+
+    private static void assertRejected(String function, String message)
+            throws Exception
+    {
+        try
+        {
+            translate(HEADER + function);
+            fail("Function was accepted: " + function);
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals(message, e.getMessage());
+        }
+        try
+        {
+            new BayesNet(HEADER + function);
+            fail("Function was accepted by the streaming loader: " +
+                 function);
+        }
+        catch (IFException e)
+        {
+        }
+    }
+
+    /**
+     * Test of getProbabilityFunction method, of class
+     * ConvertInterchangeFormat: tables are only computed when a function is
+     * first accessed.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testLazyTables() throws Exception
+    {
+        System.out.println("lazyTables");
+        BayesNet bayesNet = parse(new File(ASIA));
+        for (ProbabilityFunction probFunc : bayesNet.getProbabilityFunctions())
+        {
+            assertFalse(probFunc.isMaterialized());
+        }
+        ProbabilityFunction tbOrCa = bayesNet.getFunction("TbOrCa");
+        assertEquals(8, tbOrCa.numberValues());
+        assertFalse(tbOrCa.isMaterialized());
+        assertArrayEquals(new double[]
+        {
+            1.0, 1.0, 1.0, 0.0, 0.0, 0.0, 0.0, 1.0
+        }, tbOrCa.getValues(), 0.0);
+        assertTrue(tbOrCa.isMaterialized());
+        assertFalse(bayesNet.getFunction("XRay").isMaterialized());
+
+        assertSameNetwork(new BayesNet(new File(ASIA)), bayesNet);
+    }
+
+    /**
+     * Test of getProbabilityFunction method, of class
+     * ConvertInterchangeFormat, with defaults and entries.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testEntries() throws Exception
+    {
+        System.out.println("entries");
+        String function = "probability ( \"B\" \"A\" ) {\n" +
+                          "  default 0.5 0.5 ;\n" +
+                          "  ( \"no\" ) 0.2 0.8 ;\n" +
+                          "}\n";
+        BayesNet bayesNet = translate(HEADER + function);
+        double expected[] =
+        {
+            0.5, 0.2, 0.5, 0.8
+        };
+        assertArrayEquals(expected,
+                          bayesNet.getFunction("B").getValues(),
+                          0.0);
+        assertArrayEquals(expected,
+                          new BayesNet(HEADER + function).getFunction("B").
+                          getValues(),
+                          0.0);
+    }
+
+    /**
+     * Test of getProbabilityFunction method, of class
+     * ConvertInterchangeFormat: definitions that do not fit the variables
+     * fail the load instead of the first inference.
+     *
+     * @throws Exception if the network cannot be parsed
+     */
+    @Test
+    public void testBadDefinitions() throws Exception
+    {
+        System.out.println("badDefinitions");
+        assertRejected("probability ( \"B\" \"A\" ) {\n" +
+                       "  ( \"maybe\" ) 0.2 0.8 ;\n" +
+                       "}\n",
+                       "Entry of probability function for B has unknown " +
+                       "value maybe of variable A");
+        assertRejected("probability ( \"B\" \"A\" ) {\n" +
+                       "  ( \"yes\" ) 0.2 0.3 0.5 ;\n" +
+                       "}\n",
+                       "Entry of probability function for B has 3 values " +
+                       "instead of 2");
+        assertRejected("probability ( \"B\" \"A\" ) {\n" +
+                       "  default 0.2 0.3 0.5 ;\n" +
+                       "}\n",
+                       "Default of probability function for B has 3 " +
+                       "values instead of 2");
+    }
+
+    /**
+     * Test of getProbabilityFunction method, of class
+     * ConvertInterchangeFormat: a table of the wrong size is ignored, as by
+     * the streaming loader.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testWrongTableSize() throws Exception
+    {
+        System.out.println("wrongTableSize");
+        String function = "probability ( \"B\" \"A\" ) {\n" +
+                          "  table 0.1 0.2 0.3 0.4 0.5 ;\n" +
+                          "  default 0.5 0.5 ;\n" +
+                          "}\n";
+        double expected[] =
+        {
+            0.5, 0.5, 0.5, 0.5
+        };
+        assertArrayEquals(expected,
+                          translate(HEADER + function).getFunction("B").
+                          getValues(),
+                          0.0);
+        assertArrayEquals(expected,
+                          new BayesNet(HEADER + function).getFunction("B").
+                          getValues(),
+                          0.0);
+    }
+}
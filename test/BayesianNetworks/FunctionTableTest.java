@@ -0,0 +1,175 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import java.io.File;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class FunctionTableTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(FunctionTableTest.class.
+                                        getName());
+
+    private ProbabilityFunction dyspnea;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public FunctionTableTest()
+    {
+    }
+
+    /**
+     * Set up a test: P(Dyspnea | TbOrCa, Bronchitis) of ASIA.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File("Examples/Asia/ASIA.BIF"));
+        dyspnea = bayesNet.getFunction("Dyspnea");
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of getRowCount, getColumnCount and getColumnName methods, of
+     * class FunctionTable.
+     */
+    @Test
+    public void testColumns()
+    {
+        System.out.println("columns");
+        FunctionTable instance = new FunctionTable(dyspnea, false);
+        assertEquals(8, instance.getRowCount());
+        assertEquals(4, instance.getColumnCount());
+        assertEquals(3, instance.getProbabilityColumn());
+        assertEquals("Dyspnea", instance.getColumnName(0));
+        assertEquals("TbOrCa", instance.getColumnName(1));
+        assertEquals("Bronchitis", instance.getColumnName(2));
+        assertEquals(FunctionTable.PROBABILITY_COLUMN,
+                     instance.getColumnName(3));
+    }
+
+    /**
+     * Test of getLabel and getProbability methods, of class FunctionTable:
+     * the first variable runs fastest, then the last one.
+     */
+    @Test
+    public void testGetLabel()
+    {
+        System.out.println("getLabel");
+        FunctionTable instance = new FunctionTable(dyspnea, false);
+        String expected[][] =
+        {
+            {"Present", "True", "Present"},
+            {"Absent", "True", "Present"},
+            {"Present", "True", "Absent"},
+            {"Absent", "True", "Absent"},
+            {"Present", "False", "Present"},
+            {"Absent", "False", "Present"},
+            {"Present", "False", "Absent"},
+            {"Absent", "False", "Absent"}
+        };
+        double probabilities[] =
+        {
+            0.9, 0.1, 0.7, 0.3, 0.8, 0.2, 0.1, 0.9
+        };
+        for (int row = 0; row < expected.length; row++)
+        {
+            for (int column = 0; column < 3; column++)
+            {
+                assertEquals(expected[row][column],
+                             instance.getLabel(row, column));
+            }
+            assertEquals(probabilities[row],
+                         instance.getProbability(row),
+                         0.0);
+        }
+    }
+
+    /**
+     * Test of getLabel and getPosition methods, of class FunctionTable,
+     * with the values listed in the order of their names.
+     */
+    @Test
+    public void testSortingValues()
+    {
+        System.out.println("sortingValues");
+        FunctionTable instance = new FunctionTable(dyspnea, true);
+        assertEquals("Absent", instance.getLabel(0, 0));
+        assertEquals("False", instance.getLabel(0, 1));
+        assertEquals("Absent", instance.getLabel(0, 2));
+        assertEquals("Present", instance.getLabel(1, 0));
+        assertEquals("Present", instance.getLabel(2, 2));
+
+        boolean isSeen[] = new boolean[instance.getRowCount()];
+        for (int row = 0; row < instance.getRowCount(); row++)
+        {
+            int position = instance.getPosition(row);
+            assertFalse(isSeen[position]);
+            isSeen[position] = true;
+            assertEquals(4 * instance.getValueIndex(row, 0) +
+                         2 * instance.getValueIndex(row, 1) +
+                         instance.getValueIndex(row, 2),
+                         position);
+            assertEquals(dyspnea.getValue(position),
+                         instance.getProbability(row),
+                         0.0);
+        }
+    }
+
+    /**
+     * Test of setProbability method, of class FunctionTable.
+     */
+    @Test
+    public void testSetProbability()
+    {
+        System.out.println("setProbability");
+        FunctionTable instance = new FunctionTable(dyspnea, false);
+        instance.setProbability(2, 0.6);
+        instance.setProbability(3, 0.4);
+        assertEquals(0.6, dyspnea.getValue(1), 0.0);
+        assertEquals(0.4, dyspnea.getValue(5), 0.0);
+        assertEquals(0.6, instance.getProbability(2), 0.0);
+    }
+}
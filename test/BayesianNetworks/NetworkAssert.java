@@ -0,0 +1,134 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import InterchangeFormat.InterchangeFormat;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Assertions shared by the tests that read and write networks.
+ *
+ * @author kybelksd
+ */
+final class NetworkAssert
+{
+
+    /**
+     * Tolerance for probability values that went through a text format.
+     */
+    static final double DELTA = 1e-12;
+
+    private NetworkAssert()
+    {
+    }
+
+    /**
+     * Read a network through the JavaCC parsers of the interchange format,
+     * bypassing the streaming loader and the binary format.
+     *
+     * @param file the file describing the network
+     * @return the network
+     * @throws Exception if the file cannot be read or parsed
+     */
+    static BayesNet parse(File file) throws Exception
+    {
+        BayesNet bayesNet = new BayesNet();
+        try (InputStream istream = new FileInputStream(file))
+        {
+            InterchangeFormat interchangeFmt = new InterchangeFormat(istream);
+            interchangeFmt.CompilationUnit();
+            bayesNet.translate(interchangeFmt);
+        }
+        return bayesNet;
+    }
+
+    /**
+     * Assert that two networks have the same variables, values and
+     * probability tables.
+     *
+     * @param expected the expected network
+     * @param actual   the network to check
+     */
+    static void assertSameNetwork(BayesNet expected, BayesNet actual)
+    {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.numberVariables(), actual.numberVariables());
+        for (int i = 0; i < expected.numberVariables(); i++)
+        {
+            ProbabilityVariable expectedVar =
+                                expected.getProbabilityVariable(i);
+            ProbabilityVariable actualVar = actual.getProbabilityVariable(i);
+            assertEquals(expectedVar.getName(), actualVar.getName());
+            assertArrayEquals(expectedVar.getValues(), actualVar.getValues());
+        }
+        assertEquals(expected.numberProbabilityFunctions(),
+                     actual.numberProbabilityFunctions());
+        for (int i = 0; i < expected.numberProbabilityFunctions(); i++)
+        {
+            ProbabilityFunction expectedFunc =
+                                expected.getProbabilityFunction(i);
+            ProbabilityFunction actualFunc = actual.getProbabilityFunction(i);
+            String name = expectedFunc.getVariable(0).getName();
+            assertArrayEquals(name,
+                              expectedFunc.getIndexes(),
+                              actualFunc.getIndexes());
+            assertArrayEquals(name,
+                              expectedFunc.getValues(),
+                              actualFunc.getValues(),
+                              DELTA);
+        }
+    }
+
+    /**
+     * Assert that two networks have the same probability tables for
+     * variables of the same names, whatever the order of the variables and
+     * the names of their values.
+     *
+     * @param expected the expected network
+     * @param actual   the network to check
+     * @param delta    tolerance for the probability values
+     * @throws Exception if a variable of the expected network is missing
+     */
+    static void assertSameTables(BayesNet expected,
+                                 BayesNet actual,
+                                 double delta) throws Exception
+    {
+        assertEquals(expected.numberVariables(), actual.numberVariables());
+        for (int i = 0; i < expected.numberVariables(); i++)
+        {
+            ProbabilityVariable expectedVar =
+                                expected.getProbabilityVariable(i);
+            String name = expectedVar.getName();
+            ProbabilityVariable actualVar =
+                                actual.getProbabilityVariable(name);
+            assertNotNull(name, actualVar);
+            assertEquals(name,
+                         expectedVar.numberValues(),
+                         actualVar.numberValues());
+
+            ProbabilityFunction expectedFunc = expected.getFunction(name);
+            ProbabilityFunction actualFunc = actual.getFunction(name);
+            assertEquals(name,
+                         expectedFunc.numberVariables(),
+                         actualFunc.numberVariables());
+            for (int j = 0; j < expectedFunc.numberVariables(); j++)
+            {
+                assertEquals(name,
+                             expectedFunc.getVariable(j).getName(),
+                             actualFunc.getVariable(j).getName());
+            }
+            assertArrayEquals(name,
+                              expectedFunc.getValues(),
+                              actualFunc.getValues(),
+                              delta);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import static BayesianNetworks.NetworkAssert.assertSameNetwork;
+import InterchangeFormat.InterchangeFormat.Format;
+import java.io.File;
+import java.util.Random;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class NetworkWriterTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(NetworkWriterTest.class.
+                                        getName());
+
+    private static final String EXAMPLES[] =
+    {
+        "Examples/Asia/ASIA.BIF",
+        "Examples/Alarm/ALARM.BIF",
+        "Examples/DogProblem/dog-problem.bif"
+    };
+
+    private static final Format FORMATS[] =
+    {
+        Format.BIF_015, Format.XMLBIF_03, Format.XMLBIF_02
+    };
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public NetworkWriterTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static String format(double value)
+    {
+        StringBuilder text = new StringBuilder();
+        NetworkWriter writer = new NetworkWriter(text);
+        writer.append(value);
+        writer.flush();
+        return text.toString();
+    }
+
+    /**
+     * Test of append method, of class NetworkWriter, against
+     * Double.toString.
+     */
+    @Test
+    public void testAppendDouble()
+    {
+        System.out.println("appendDouble");
+        double values[] =
+        {
+            0.0, -0.0, 1.0, 0.1, 0.2, 0.3, 0.05, 0.001, 9.99e-4, 1.0e-3,
+            0.999, 1.0 / 3.0, 2.0 / 3.0, 9999999.0, 1.0e7, 123456.789,
+            0.123456789012345, 0.1234567890123456, 1.0e-300, 4.9e-324,
+            Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY
+        };
+        for (double value : values)
+        {
+            assertEquals(Double.toString(value), format(value));
+            assertEquals(Double.toString(-value), format(-value));
+        }
+        Random random = new Random(35L);
+        for (int i = 0; i < 100000; i++)
+        {
+            double value = random.nextDouble() *
+                           Math.pow(10.0, random.nextInt(12) - 4);
+            assertEquals(Double.toString(value), format(value));
+            double rounded = Math.round(value * 1.0e4) / 1.0e4;
+            assertEquals(Double.toString(rounded), format(rounded));
+        }
+    }
+
+    /**
+     * Test of write method, of class NetworkWriter: every format reads back
+     * as the network written.
+     *
+     * @throws Exception if an example cannot be read
+     */
+    @Test
+    public void testWrite() throws Exception
+    {
+        System.out.println("write");
+        for (String example : EXAMPLES)
+        {
+            BayesNet bayesNet = new BayesNet(new File(example));
+            for (Format format : FORMATS)
+            {
+                StringBuilder text = new StringBuilder();
+                NetworkWriter writer = new NetworkWriter(text);
+                writer.write(bayesNet, format);
+                writer.flush();
+                assertSameNetwork(bayesNet, new BayesNet(text.toString()));
+            }
+        }
+    }
+
+    /**
+     * Test of save method, of class NetworkWriter, with gzip compression.
+     *
+     * @throws Exception if the file cannot be written or read
+     */
+    @Test
+    public void testSaveGzip() throws Exception
+    {
+        System.out.println("saveGzip");
+        BayesNet bayesNet = new BayesNet(new File(EXAMPLES[1]));
+        File file = File.createTempFile("alarm", ".bif" +
+                                                 NetworkWriter.GZIP_SUFFIX);
+        try
+        {
+            NetworkWriter.save(bayesNet, file, Format.BIF_015, true);
+            assertSameNetwork(bayesNet, new BayesNet(file));
+        }
+        finally
+        {
+            assertTrue(file.delete());
+        }
+    }
+}
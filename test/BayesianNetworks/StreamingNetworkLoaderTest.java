@@ -0,0 +1,227 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import static BayesianNetworks.NetworkAssert.assertSameNetwork;
+import static BayesianNetworks.NetworkAssert.assertSameTables;
+import static BayesianNetworks.NetworkAssert.parse;
+import InterchangeFormat.IFException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class StreamingNetworkLoaderTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(
+                                        StreamingNetworkLoaderTest.class.
+                                        getName());
+
+    private static final String EXAMPLES[][] =
+    {
+        {"Examples/Asia/ASIA.BIF", "Examples/Asia/asia.xml03"},
+        {"Examples/Alarm/ALARM.BIF", "Examples/Alarm/alarm.xml03"},
+        {"Examples/Cancer/CANCER.BIF", "Examples/Cancer/cancer.xml03"},
+        {
+            "Examples/DogProblem/dog-problem.bif",
+            "Examples/DogProblem/dog-problem.xml03"
+        },
+        {
+            "Examples/Hailfinder25/hailfinder25.bif",
+            "Examples/Hailfinder25/hailfinder25.xml03"
+        }
+    };
+
+    private static final String DNET_EXAMPLES[][] =
+    {
+        {"Examples/Asia/ASIA.BIF", "Examples/Asia/asia.dnet"},
+        {"Examples/Alarm/ALARM.BIF", "Examples/Alarm/alarm.dnet"},
+        {
+            "Examples/Hailfinder25/hailfinder25.bif",
+            "Examples/Hailfinder25/hailfinder25.dnet"
+        }
+    };
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public StreamingNetworkLoaderTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of load method, of class StreamingNetworkLoader, against the
+     * BIF parser.
+     *
+     * @throws Exception if an example cannot be read
+     */
+    @Test
+    public void testLoadBif() throws Exception
+    {
+        System.out.println("loadBif");
+        for (String example[] : EXAMPLES)
+        {
+            File file = new File(example[0]);
+            assertSameNetwork(parse(file), new BayesNet(file));
+        }
+    }
+
+    /**
+     * Test of load method, of class StreamingNetworkLoader, against the
+     * XMLBIF 0.3 parser.
+     *
+     * @throws Exception if an example cannot be read
+     */
+    @Test
+    public void testLoadXml() throws Exception
+    {
+        System.out.println("loadXml");
+        for (String example[] : EXAMPLES)
+        {
+            File file = new File(example[1]);
+            assertSameNetwork(parse(file), new BayesNet(file));
+        }
+    }
+
+    /**
+     * Test of load method, of class BayesNet, with an XMLBIF 0.2
+     * description that starts with a lower case XML declaration: it is not
+     * taken for XMLBIF 0.3.
+     *
+     * @throws Exception if the description cannot be read
+     */
+    @Test
+    public void testLoadXmlBif02LowerCaseDeclaration() throws Exception
+    {
+        System.out.println("loadXmlBif02LowerCaseDeclaration");
+        File file = new File("Examples/Asia/ASIA.XML");
+        String text = new String(Files.readAllBytes(file.toPath()),
+                                 StandardCharsets.ISO_8859_1);
+        text = text.replace("<?XML VERSION=\"1.0\"?>",
+                            "<?xml version=\"1.0\"?>");
+        assertTrue(text.startsWith("<?xml"));
+        BayesNet result = new BayesNet(new ByteArrayInputStream(
+                 text.getBytes(StandardCharsets.ISO_8859_1)));
+        assertSameNetwork(parse(file), result);
+    }
+
+    /**
+     * Test of load method, of class StreamingNetworkLoader: the Netica DNET
+     * examples hold the same tables as the BIF ones, although some values
+     * are named differently and some numbers are rounded differently.
+     *
+     * @throws Exception if an example cannot be read
+     */
+    @Test
+    public void testLoadDnet() throws Exception
+    {
+        System.out.println("loadDnet");
+        for (String example[] : DNET_EXAMPLES)
+        {
+            assertSameTables(new BayesNet(new File(example[0])),
+                             new BayesNet(new File(example[1])),
+                             1e-6);
+        }
+    }
+
+    /**
+     * Test of load method, of class StreamingNetworkLoader, with a
+     * description that ends in the middle of a function.
+     */
+    @Test
+    public void testLoadTruncated()
+    {
+        System.out.println("loadTruncated");
+        String description = "network \"N\" {\n}\n" +
+                             "variable \"A\" {\n" +
+                             "  type discrete[2] { \"a\" \"b\" };\n" +
+                             "}\n" +
+                             "probability ( \"A\" ) {\n" +
+                             "  table 0.5 ";
+        try
+        {
+            new BayesNet(description);
+            fail("Truncated description was accepted");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e instanceof IFException);
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 7"));
+        }
+    }
+
+    /**
+     * Test of load method, of class StreamingNetworkLoader, with numbers
+     * written in the forms the parser accepts.
+     *
+     * @throws Exception if the description cannot be read
+     */
+    @Test
+    public void testLoadNumbers() throws Exception
+    {
+        System.out.println("loadNumbers");
+        BayesNet bayesNet = new BayesNet(
+                 "network \"N\" {\n}\n" +
+                 "variable \"A\" {\n" +
+                 "  type discrete[3] { \"a\" \"b\" \"c\" };\n" +
+                 "}\n" +
+                 "probability ( \"A\" ) {\n" +
+                 "  table 2.5e-1, .25 // the rest\n" +
+                 "  /* is */ 5E-1 ;\n" +
+                 "}\n");
+        double values[] = bayesNet.getProbabilityFunction(0).getValues();
+        assertEquals(0.25, values[0], 0.0);
+        assertEquals(0.25, values[1], 0.0);
+        assertEquals(0.5, values[2], 0.0);
+    }
+}
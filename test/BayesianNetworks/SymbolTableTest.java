@@ -0,0 +1,233 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package BayesianNetworks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class SymbolTableTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(SymbolTableTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public SymbolTableTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of intern method, of class SymbolTable.
+     */
+    @Test
+    public void testIntern()
+    {
+        System.out.println("intern");
+        SymbolTable instance = new SymbolTable();
+        String first = new String("Present");
+        String second = new String("Present");
+        assertSame(first, instance.intern(first));
+        assertSame(first, instance.intern(second));
+        assertSame(first, instance.intern("Present"));
+        assertEquals("Absent", instance.intern(new String("Absent")));
+        assertNull(instance.intern((String) null));
+        assertEquals(2, instance.size());
+    }
+
+    /**
+     * Test of intern method, of class SymbolTable, on an array.
+     */
+    @Test
+    public void testInternArray()
+    {
+        System.out.println("internArray");
+        SymbolTable instance = new SymbolTable();
+        String canonical = instance.intern("true");
+        String symbols[] =
+        {
+            new String("true"), new String("false"), new String("true")
+        };
+        assertSame(symbols, instance.intern(symbols));
+        assertSame(canonical, symbols[0]);
+        assertSame(canonical, symbols[2]);
+        assertSame(symbols[1], instance.intern("false"));
+        assertNull(instance.intern((String[]) null));
+    }
+
+    /**
+     * Test of internValues method, of class SymbolTable.
+     */
+    @Test
+    public void testInternValues()
+    {
+        System.out.println("internValues");
+        SymbolTable instance = new SymbolTable();
+        String values[] =
+        {
+            new String("Present"), new String("Absent")
+        };
+        String canonical[] = instance.internValues(values);
+        assertNotSame(values, canonical);
+        assertArrayEquals(values, canonical);
+        assertSame(canonical, instance.internValues(new String[]
+        {
+            "Present", "Absent"
+        }));
+        assertSame(instance.intern("Absent"), canonical[1]);
+        assertNotSame(canonical, instance.internValues(new String[]
+        {
+            "Absent", "Present"
+        }));
+
+        // The array of the caller stays its own
+        values[0] = "Absent";
+        assertEquals("Present", canonical[0]);
+        assertSame(canonical, instance.internValues(new String[]
+        {
+            "Present", "Absent"
+        }));
+        assertNull(instance.internValues(null));
+    }
+
+    /**
+     * Test of intern method, of class SymbolTable, from several threads.
+     *
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testInternConcurrent() throws Exception
+    {
+        System.out.println("internConcurrent");
+        final SymbolTable instance = new SymbolTable();
+        final int numberOfSymbols = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String[]>> results = new ArrayList<>();
+        try
+        {
+            for (int t = 0; t < 8; t++)
+            {
+                results.add(executor.submit(new Callable<String[]>()
+                {
+                    @Override
+                    public String[] call()
+                    {
+                        String symbols[] = new String[numberOfSymbols];
+                        for (int i = 0; i < numberOfSymbols; i++)
+                        {
+                            symbols[i] = instance.intern(
+                            new StringBuilder("v").append(i).toString());
+                        }
+                        return symbols;
+                    }
+                }));
+            }
+            String expected[] = results.get(0).get();
+            for (Future<String[]> result : results)
+            {
+                String symbols[] = result.get();
+                for (int i = 0; i < numberOfSymbols; i++)
+                {
+                    assertSame(expected[i], symbols[i]);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        assertEquals(numberOfSymbols, instance.size());
+    }
+
+    /**
+     * Test of internSymbols method, of class BayesNet: equal value lists of
+     * a network share one array, but the tables of separate loads are not
+     * shared.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Test
+    public void testInternSymbols() throws Exception
+    {
+        System.out.println("internSymbols");
+        BayesNet bayesNet = new BayesNet(new File(ASIA));
+        String tuberculosis[] =
+               bayesNet.getProbabilityVariable("Tuberculosis").getValues();
+        String cancer[] = bayesNet.getProbabilityVariable("Cancer").getValues();
+        assertSame(tuberculosis, cancer);
+
+        BayesNet other = new BayesNet(new File(ASIA));
+        assertNotSame(tuberculosis,
+                      other.getProbabilityVariable("Tuberculosis").
+                      getValues());
+
+        SymbolTable symbols = new SymbolTable();
+        bayesNet.internSymbols(symbols);
+        other.internSymbols(symbols);
+        assertSame(bayesNet.getProbabilityVariable("Cancer").getValues(),
+                   other.getProbabilityVariable("Cancer").getValues());
+        assertSame(bayesNet.getName(), other.getName());
+        assertSame(bayesNet.getProbabilityVariable("XRay").getName(),
+                   other.getProbabilityVariable("XRay").getName());
+    }
+
+}
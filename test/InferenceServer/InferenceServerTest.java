@@ -0,0 +1,366 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package InferenceServer;
+
+import JavaBayesInterface.Json;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class InferenceServerTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(InferenceServerTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+    private static final String QUERY =
+                                "{\"id\": 1, \"query\": [\"Smoking\"]}\n";
+
+    private File file;
+    private InferenceServer instance;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public InferenceServerTest()
+    {
+    }
+
+    /**
+     * Set up a test: a server hosting a copy of ASIA, which the tests may
+     * modify.
+     *
+     * @throws Exception if the network cannot be copied or loaded
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        file = File.createTempFile("asia", ".bif");
+        Files.copy(Paths.get(ASIA),
+                   file.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING);
+        instance = new InferenceServer(0);
+        instance.setNumberOfThreads(2);
+        instance.setReloadMillis(0L);
+        instance.addNetwork("asia", file);
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+        instance.stop(0);
+        file.delete();
+    }
+
+    /**
+     * Replace the prior of Smoking in the hosted file and mark the file as
+     * modified.
+     */
+    private void writeNetwork(String smokingTable) throws Exception
+    {
+        String text = new String(Files.readAllBytes(Paths.get(ASIA)),
+                                 StandardCharsets.ISO_8859_1);
+        text = text.replace("table 0.5 0.5 ;", smokingTable);
+        long modified = file.lastModified();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.ISO_8859_1));
+        file.setLastModified(modified + 2000L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double smoker(String response)
+    {
+        Map<String, Object> result = Json.parseObject(response.trim());
+        Map<String, Object> marginals =
+                            (Map<String, Object>) result.get("marginals");
+        return (Double) ((Map<String, Object>) marginals.get("Smoking")).
+                get("Smoker");
+    }
+
+    private int request(String method, String path, String body,
+                        StringBuilder response) throws Exception
+    {
+        URL url = new URL("http",
+                          instance.getBindAddress().getHostAddress(),
+                          instance.getPort(),
+                          path);
+        HttpURLConnection connection = (HttpURLConnection) url.
+                          openConnection();
+        connection.setRequestMethod(method);
+        if (body != null)
+        {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream())
+            {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ?
+                              connection.getInputStream() :
+                              connection.getErrorStream())
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int c;
+            while ((c = in.read()) >= 0)
+            {
+                bytes.write(c);
+            }
+            response.append(new String(bytes.toByteArray(),
+                                       StandardCharsets.UTF_8));
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+        return status;
+    }
+
+    /**
+     * The count of a request series. The handler counts a request after the
+     * response is sent, so wait a little for it.
+     */
+    private long requests(String labels, long expected) throws Exception
+    {
+        String name = "http_requests_total{" + labels + "}";
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (instance.getMetrics().counter(name).get() < expected &&
+               System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10L);
+        }
+        return instance.getMetrics().counter(name).get();
+    }
+
+    /**
+     * Test of reloadModified method, of class InferenceServer: a modified
+     * file replaces the snapshot, a broken one keeps it.
+     *
+     * @throws Exception if the file cannot be written
+     */
+    @Test
+    public void testReloadModified() throws Exception
+    {
+        System.out.println("reloadModified");
+        HostedNetwork first = instance.getNetwork("asia");
+        assertEquals(1, first.getVersion());
+        assertFalse(first.isStale());
+        assertEquals(0, instance.reloadModified());
+        assertEquals(0.5, smoker(instance.answer(first, QUERY)), 1e-12);
+
+        writeNetwork("table 0.3 0.7 ;");
+        assertTrue(first.isStale());
+        assertEquals(1, instance.reloadModified());
+        HostedNetwork second = instance.getNetwork("asia");
+        assertNotSame(first, second);
+        assertEquals(2, second.getVersion());
+        assertEquals(0.3, smoker(instance.answer(second, QUERY)), 1e-12);
+        // Requests running on the old snapshot are not affected
+        assertEquals(0.5, smoker(instance.answer(first, QUERY)), 1e-12);
+        assertEquals(1, instance.getMetrics().
+                counter("network_reloads_total").get());
+
+        writeNetwork("table 0.3 0.7");
+        assertEquals(0, instance.reloadModified());
+        assertSame(second, instance.getNetwork("asia"));
+        assertEquals(1, instance.getMetrics().
+                counter("network_reload_failures_total").get());
+        // The same broken modification is not parsed again
+        assertEquals(0, instance.reloadModified());
+        assertEquals(1, instance.getMetrics().
+                counter("network_reload_failures_total").get());
+
+        assertTrue(instance.removeNetwork("asia"));
+        assertNull(instance.getNetwork("asia"));
+        assertFalse(instance.removeNetwork("asia"));
+    }
+
+    /**
+     * Test of setBindAddress method, of class InferenceServer: the server
+     * listens on the loopback interface by default.
+     *
+     * @throws Exception if the server cannot be started
+     */
+    @Test
+    public void testSetBindAddress() throws Exception
+    {
+        System.out.println("setBindAddress");
+        assertTrue(instance.getBindAddress().isLoopbackAddress());
+        instance.start();
+        StringBuilder response = new StringBuilder();
+        assertEquals(200, request("GET", "/health", null, response));
+        instance.stop(0);
+
+        InetAddress address = InetAddress.getByName("127.0.0.1");
+        instance.setBindAddress(address);
+        assertSame(address, instance.getBindAddress());
+        try
+        {
+            instance.setBindAddress(null);
+            fail("No bind address accepted");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertSame(address, instance.getBindAddress());
+        }
+    }
+
+    /**
+     * Test of setMaxBodyBytes method, of class InferenceServer: larger
+     * bodies are refused with status 413.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    public void testSetMaxBodyBytes() throws Exception
+    {
+        System.out.println("setMaxBodyBytes");
+        instance.setMaxBodyBytes(QUERY.length());
+        instance.start();
+        StringBuilder response = new StringBuilder();
+        assertEquals(200,
+                     request("POST", "/networks/asia/query", QUERY,
+                             response));
+        response.setLength(0);
+        assertEquals(413,
+                     request("POST", "/networks/asia/query", QUERY + QUERY,
+                             response));
+        assertTrue(response.toString(),
+                   response.toString().contains("larger than " +
+                                                QUERY.length() + " bytes"));
+        assertEquals(1, requests("network=\"asia\",status=\"413\"", 1));
+    }
+
+    /**
+     * Test of answer method, of class InferenceServer, with a case nested
+     * too deeply: it gives an error line and does not stop the others.
+     */
+    @Test
+    public void testAnswerNested()
+    {
+        System.out.println("answerNested");
+        StringBuilder nested = new StringBuilder("{\"id\": 2, \"query\": ");
+        for (int i = 0; i < 100000; i++)
+        {
+            nested.append('[');
+        }
+        String lines[] = instance.answer(instance.getNetwork("asia"),
+                                         QUERY + nested + "\n" + QUERY).
+                split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(0.5, smoker(lines[0]), 1e-12);
+        assertTrue(lines[1],
+                   lines[1].contains("Nesting deeper than " + Json.MAX_DEPTH));
+        assertEquals(lines[0], lines[2]);
+    }
+
+    /**
+     * Test of start method, of class InferenceServer, with requests to all
+     * endpoints.
+     *
+     * @throws Exception if a request fails
+     */
+    @Test
+    public void testStart() throws Exception
+    {
+        System.out.println("start");
+        instance.start();
+        assertTrue(instance.getPort() > 0);
+
+        StringBuilder response = new StringBuilder();
+        assertEquals(200, request("GET", "/health", null, response));
+        assertEquals("ok\n", response.toString());
+
+        response.setLength(0);
+        assertEquals(200,
+                     request("POST",
+                             "/networks/asia/query",
+                             QUERY + "\n" + QUERY,
+                             response));
+        String lines[] = response.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(0.5, smoker(lines[0]), 1e-12);
+        assertEquals(lines[0], lines[1]);
+
+        response.setLength(0);
+        assertEquals(200, request("GET", "/networks", null, response));
+        List<?> networks = (List<?>) Json.parse(response.toString().trim());
+        assertEquals(1, networks.size());
+        Map<?, ?> network = (Map<?, ?>) networks.get(0);
+        assertEquals("asia", network.get("name"));
+        assertEquals(8.0, network.get("variables"));
+
+        response.setLength(0);
+        assertEquals(405,
+                     request("GET", "/networks/asia/query", null, response));
+        response.setLength(0);
+        assertEquals(404,
+                     request("POST", "/networks/cancer/query", QUERY,
+                             response));
+        assertTrue(response.toString(),
+                   response.toString().contains("Unknown network cancer"));
+        response.setLength(0);
+        assertEquals(404,
+                     request("POST", "/networks/asia/answer", QUERY,
+                             response));
+
+        // Names that are not hosted do not get series of their own
+        assertEquals(1, requests("network=\"asia\",status=\"200\"", 1));
+        assertEquals(1, requests("network=\"unknown\",status=\"404\"", 1));
+        response.setLength(0);
+        assertEquals(200, request("GET", "/metrics", null, response));
+        assertTrue(response.toString().contains("http_requests_total"));
+        assertFalse(response.toString().contains("cancer"));
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package InterchangeFormat;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class InterchangeFormatTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(InterchangeFormatTest.class.
+                                        getName());
+
+    private static final Object EXAMPLES[][] =
+    {
+        {"Examples/Asia/ASIA.BIF", InterchangeFormat.Format.BIF_015},
+        {"Examples/Asia/ASIA.XML", InterchangeFormat.Format.XMLBIF_02},
+        {"Examples/Asia/asia.xml03", InterchangeFormat.Format.XMLBIF_03},
+        {"Examples/Asia/asia.dnet", InterchangeFormat.Format.DNET},
+        {"Examples/Alarm/ALARM.BIF", InterchangeFormat.Format.BIF_015},
+        {"Examples/Alarm/alarm.xml03", InterchangeFormat.Format.XMLBIF_03},
+        {"Examples/DogProblem/dog-problem.bif",
+         InterchangeFormat.Format.BIF_015},
+        {"Examples/DogProblem/dog-problem.xml",
+         InterchangeFormat.Format.XMLBIF_02},
+        {"Examples/Hailfinder25/hailfinder25.dnet",
+         InterchangeFormat.Format.DNET}
+    };
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public InterchangeFormatTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static InterchangeFormat.Format detect(String text)
+    {
+        byte head[] = text.getBytes(StandardCharsets.ISO_8859_1);
+        return InterchangeFormat.detectFormat(head, head.length);
+    }
+
+    /**
+     * The content of an XMLBIF 0.2 file with its XML declaration in lower
+     * case.
+     */
+    private static byte[] lowerCaseDeclaration(String fileName) throws Exception
+    {
+        String text = new String(Files.readAllBytes(Paths.get(fileName)),
+                                 StandardCharsets.ISO_8859_1);
+        assertTrue(text.startsWith("<?XML VERSION=\"1.0\"?>"));
+        text = "<?xml version=\"1.0\"?>" +
+               text.substring("<?XML VERSION=\"1.0\"?>".length());
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Test of detectFormat method, of class InterchangeFormat, on the
+     * examples; the stream is reset for the parser.
+     *
+     * @throws Exception if an example cannot be read
+     */
+    @Test
+    public void testDetectFormatExamples() throws Exception
+    {
+        System.out.println("detectFormatExamples");
+        for (Object example[] : EXAMPLES)
+        {
+            String fileName = (String) example[0];
+            try (InputStream istream = new BufferedInputStream(
+                             new FileInputStream(fileName)))
+            {
+                assertEquals(fileName,
+                             example[1],
+                             InterchangeFormat.detectFormat(istream));
+                byte expected[] = Files.readAllBytes(Paths.get(fileName));
+                byte head[] = new byte[16];
+                assertEquals(head.length, istream.read(head));
+                for (int i = 0; i < head.length; i++)
+                {
+                    assertEquals(fileName, expected[i], head[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of detectFormat method, of class InterchangeFormat, on heads of
+     * descriptions.
+     */
+    @Test
+    public void testDetectFormat()
+    {
+        System.out.println("detectFormat");
+        assertEquals(InterchangeFormat.Format.BIF_015,
+                     detect("// comment\nnetwork \"Asia\" {"));
+        assertEquals(InterchangeFormat.Format.BIF_01,
+                     detect("network Asia {"));
+        assertEquals(InterchangeFormat.Format.BIF_01,
+                     detect("/* network \"Asia\" */ network Asia {"));
+        assertEquals(InterchangeFormat.Format.BIF_015,
+                     detect("network /* name */ \"Asia\" {"));
+        assertEquals(InterchangeFormat.Format.XMLBIF_03,
+                     detect("\u00ef\u00bb\u00bf  <?xml version=\"1.0\"?>\n" +
+                            "<BIF VERSION=\"0.3\">"));
+        assertEquals(InterchangeFormat.Format.XMLBIF_02,
+                     detect("\n<?XML VERSION=\"1.0\"?>"));
+        // The case of the XML declaration does not tell the version
+        assertEquals(InterchangeFormat.Format.XMLBIF_02,
+                     detect("<?xml version=\"1.0\"?>\n<BIF>\n<NETWORK>"));
+        assertEquals(InterchangeFormat.Format.XMLBIF_03,
+                     detect("<?XML VERSION=\"1.0\"?>\n<BIF VERSION='0.3'>"));
+        assertEquals(InterchangeFormat.Format.XMLBIF_03,
+                     detect("<?xml version=\"1.0\"?>\n<BIF>\n<NETWORK>\n" +
+                            "<VARIABLE TYPE=\"nature\">"));
+        assertEquals(InterchangeFormat.Format.DNET,
+                     detect("// ~->[DNET-1]->~\n\nbnet Asia {"));
+        // Words merely starting with a keyword
+        assertEquals(InterchangeFormat.Format.BIF_015,
+                     detect("networks bnets network \"Asia\""));
+        // Inconclusive heads
+        assertEquals(InterchangeFormat.Format.UNKNOWN, detect("<BIF>"));
+        assertEquals(InterchangeFormat.Format.UNKNOWN, detect(""));
+        assertEquals(InterchangeFormat.Format.UNKNOWN,
+                     detect("/* a comment cut off by the head"));
+        assertEquals(InterchangeFormat.Format.UNKNOWN, detect("network"));
+    }
+
+    /**
+     * Test of CompilationUnit method, of class InterchangeFormat, with a
+     * detected format.
+     *
+     * @throws Exception if an example cannot be parsed
+     */
+    @Test
+    public void testCompilationUnit() throws Exception
+    {
+        System.out.println("CompilationUnit");
+        for (Object example[] : EXAMPLES)
+        {
+            String fileName = (String) example[0];
+            if (example[1] == InterchangeFormat.Format.DNET)
+            {
+                continue;
+            }
+            InterchangeFormat instance = new InterchangeFormat(
+                              new FileInputStream(fileName));
+            instance.CompilationUnit();
+            assertEquals(fileName, example[1], instance.getFormat());
+            assertTrue(fileName,
+                       instance.getBayesNetFromInterchangeFmt().
+                       getProbabilityVariables().size() > 0);
+        }
+    }
+
+    /**
+     * Test of CompilationUnit method, of class InterchangeFormat, with an
+     * XMLBIF 0.2 description that starts with a lower case XML declaration.
+     *
+     * @throws Exception if the description cannot be parsed
+     */
+    @Test
+    public void testCompilationUnitLowerCaseDeclaration() throws Exception
+    {
+        System.out.println("CompilationUnitLowerCaseDeclaration");
+        byte bytes[] = lowerCaseDeclaration("Examples/Asia/ASIA.XML");
+        assertEquals(InterchangeFormat.Format.XMLBIF_02,
+                     InterchangeFormat.detectFormat(bytes, bytes.length));
+        InterchangeFormat instance = new InterchangeFormat(
+                          new ByteArrayInputStream(bytes));
+        instance.CompilationUnit();
+        assertEquals(InterchangeFormat.Format.XMLBIF_02, instance.getFormat());
+        assertEquals(8,
+                     instance.getBayesNetFromInterchangeFmt().
+                     getProbabilityVariables().size());
+    }
+
+    /**
+     * Test of CompilationUnit method, of class InterchangeFormat, with a
+     * detected format that is wrong: the other parsers are tried.
+     *
+     * @throws Exception if the description cannot be parsed
+     */
+    @Test
+    public void testCompilationUnitFallback() throws Exception
+    {
+        System.out.println("CompilationUnitFallback");
+        String text = new String(
+               Files.readAllBytes(Paths.get("Examples/Asia/ASIA.XML")),
+               StandardCharsets.ISO_8859_1);
+        text = text.replace("Produced by JavaBayes",
+                            "Not <BIF VERSION=\"0.3\">, produced by JavaBayes");
+        byte bytes[] = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(InterchangeFormat.Format.XMLBIF_03,
+                     InterchangeFormat.detectFormat(bytes, bytes.length));
+        InterchangeFormat instance = new InterchangeFormat(
+                          new ByteArrayInputStream(bytes));
+        instance.CompilationUnit();
+        assertEquals(InterchangeFormat.Format.XMLBIF_02, instance.getFormat());
+        assertEquals(8,
+                     instance.getBayesNetFromInterchangeFmt().
+                     getProbabilityVariables().size());
+    }
+
+    /**
+     * Test of CompilationUnit method, of class InterchangeFormat, with a
+     * head too long to detect the format, which is then found by trying
+     * each parser.
+     *
+     * @throws Exception if the description cannot be parsed
+     */
+    @Test
+    public void testCompilationUnitTrial() throws Exception
+    {
+        System.out.println("CompilationUnitTrial");
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write("/*".getBytes(StandardCharsets.ISO_8859_1));
+        for (int i = 0; i < 10000; i++)
+        {
+            content.write(' ');
+        }
+        content.write("*/\n".getBytes(StandardCharsets.ISO_8859_1));
+        content.write(Files.readAllBytes(Paths.get("Examples/Asia/ASIA.BIF")));
+        byte bytes[] = content.toByteArray();
+        assertEquals(InterchangeFormat.Format.UNKNOWN,
+                     InterchangeFormat.detectFormat(bytes, 4096));
+
+        InterchangeFormat instance = new InterchangeFormat(
+                          new ByteArrayInputStream(bytes));
+        instance.CompilationUnit();
+        assertEquals(InterchangeFormat.Format.BIF_015, instance.getFormat());
+        assertEquals("Asia",
+                     instance.getBayesNetFromInterchangeFmt().getName());
+        assertEquals(8,
+                     instance.getBayesNetFromInterchangeFmt().
+                     getProbabilityVariables().size());
+    }
+
+    /**
+     * Test of CompilationUnit method, of class InterchangeFormat, with a
+     * detected format that does not parse.
+     */
+    @Test
+    public void testCompilationUnitError()
+    {
+        System.out.println("CompilationUnitError");
+        InterchangeFormat instance = new InterchangeFormat(
+                          new ByteArrayInputStream(
+                                  "network \"Asia\" { variable"
+                                  .getBytes(StandardCharsets.ISO_8859_1)));
+        try
+        {
+            instance.CompilationUnit();
+            fail("Broken description parsed");
+        }
+        catch (Exception ex)
+        {
+            assertTrue(ex instanceof IFException);
+            assertTrue(ex.getMessage(),
+                       ex.getMessage().contains("Detected format BIF_015"));
+        }
+        assertEquals(InterchangeFormat.Format.UNKNOWN, instance.getFormat());
+    }
+
+}
@@ -0,0 +1,398 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package JavaBayesInterface;
+
+import BayesianInferences.ExplanationType;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityVariable;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class BatchQueryRunnerTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(BatchQueryRunnerTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+
+    private BatchQueryRunner instance;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public BatchQueryRunnerTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        instance = new BatchQueryRunner(ASIA);
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private String[] run(String cases, boolean isCsv) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream print = new PrintStream(out, true, "UTF-8");
+        long numberOfCases = instance.run(
+             new BufferedReader(new StringReader(cases)), isCsv, print);
+        String lines[] = out.toString("UTF-8").split("\n");
+        assertEquals(numberOfCases, lines.length);
+        return lines;
+    }
+
+    /**
+     * The exact posterior of a value of a variable of ASIA given evidence.
+     */
+    private static double posterior(String name,
+                                    String value,
+                                    String... evidence) throws Exception
+    {
+        BayesNet bayesNet = new BayesNet(new File(ASIA));
+        ArrayList<ProbabilityVariable> condition = new ArrayList<>();
+        for (int i = 0; i < evidence.length; i += 2)
+        {
+            ProbabilityVariable probVar =
+                                bayesNet.getProbabilityVariable(evidence[i]);
+            probVar.setObservedValue(evidence[i + 1]);
+            condition.add(probVar);
+        }
+        ProbabilityVariable queried = bayesNet.getProbabilityVariable(name);
+        queried.setObservedValue(value);
+        ArrayList<ProbabilityVariable> event = new ArrayList<>();
+        event.add(queried);
+        return bayesNet.P(event, condition);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double marginal(Map<String, Object> result,
+                                   String name,
+                                   String value)
+    {
+        Map<String, Object> marginals =
+                            (Map<String, Object>) result.get("marginals");
+        return (Double) ((Map<String, Object>) marginals.get(name)).get(value);
+    }
+
+    /**
+     * Test of run method, of class BatchQueryRunner, with JSON lines.
+     *
+     * @throws Exception if the cases cannot be answered
+     */
+    @Test
+    public void testRunJson() throws Exception
+    {
+        System.out.println("runJson");
+        String lines[] = run(
+               "{\"id\": 1, \"evidence\": {\"XRay\": \"Abnormal\"}, " +
+               "\"query\": [\"Cancer\", \"Tuberculosis\"]}\n" +
+               "\n" +
+               "{\"id\": \"b\", \"type\": \"marginal\", " +
+               "\"query\": \"Cancer\"}\n" +
+               "{\"id\": 3, \"evidence\": {\"Smoking\": \"Smoker\", " +
+               "\"Dyspnea\": \"Present\"}, \"query\": [\"Bronchitis\"]}\n",
+               false);
+        assertEquals(3, lines.length);
+
+        Map<String, Object> result = Json.parseObject(lines[0]);
+        assertEquals(1.0, result.get("id"));
+        assertEquals("marginal", result.get("type"));
+        assertEquals(posterior("Cancer", "Present", "XRay", "Abnormal"),
+                     marginal(result, "Cancer", "Present"),
+                     1e-12);
+        assertEquals(posterior("Tuberculosis", "Absent", "XRay", "Abnormal"),
+                     marginal(result, "Tuberculosis", "Absent"),
+                     1e-12);
+
+        // The evidence of one case does not leak into the next
+        result = Json.parseObject(lines[1]);
+        assertEquals("b", result.get("id"));
+        assertEquals(posterior("Cancer", "Present"),
+                     marginal(result, "Cancer", "Present"),
+                     1e-12);
+
+        result = Json.parseObject(lines[2]);
+        assertEquals(posterior("Bronchitis",
+                               "Present",
+                               "Smoking",
+                               "Smoker",
+                               "Dyspnea",
+                               "Present"),
+                     marginal(result, "Bronchitis", "Present"),
+                     1e-12);
+    }
+
+    /**
+     * Test of run method, of class BatchQueryRunner, with CSV.
+     *
+     * @throws Exception if the cases cannot be answered
+     */
+    @Test
+    public void testRunCsv() throws Exception
+    {
+        System.out.println("runCsv");
+        String lines[] = run("id,XRay,Cancer,Smoking\n" +
+                             "1,Abnormal,?,*\n" +
+                             "2,,?,NonSmoker\n",
+                             true);
+        assertEquals(2, lines.length);
+        Map<String, Object> result = Json.parseObject(lines[0]);
+        assertEquals("1", result.get("id"));
+        assertEquals(posterior("Cancer", "Present", "XRay", "Abnormal"),
+                     marginal(result, "Cancer", "Present"),
+                     1e-12);
+        result = Json.parseObject(lines[1]);
+        assertEquals(posterior("Cancer", "Present", "Smoking", "NonSmoker"),
+                     marginal(result, "Cancer", "Present"),
+                     1e-12);
+    }
+
+    /**
+     * Test of run method, of class BatchQueryRunner, with cases that cannot
+     * be answered: they give error lines and do not stop the run.
+     *
+     * @throws Exception if the cases cannot be read
+     */
+    @Test
+    public void testRunErrors() throws Exception
+    {
+        System.out.println("runErrors");
+        String lines[] = run("{\"id\": 1, \"query\": [\"Cancer\"\n" +
+                             "{\"id\": 2, " +
+                             "\"evidence\": {\"Fever\": \"High\"}}\n" +
+                             "{\"id\": 3, \"type\": \"guess\"}\n" +
+                             "{\"id\": 4, \"query\": [\"Cancer\"]}\n",
+                             false);
+        assertEquals(4, lines.length);
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(lines[i],
+                       Json.parseObject(lines[i]).containsKey("error"));
+        }
+        Map<String, Object> result = Json.parseObject(lines[3]);
+        assertFalse(result.containsKey("error"));
+        assertEquals(4.0, result.get("id"));
+    }
+
+    /**
+     * Test of run method, of class BatchQueryRunner: the output does not
+     * depend on the number of threads.
+     *
+     * @throws Exception if the cases cannot be answered
+     */
+    @Test
+    public void testRunThreads() throws Exception
+    {
+        System.out.println("runThreads");
+        String values[][] =
+        {
+            {"XRay", "Abnormal"}, {"XRay", "Normal"},
+            {"Dyspnea", "Present"}, {"Smoking", "NonSmoker"},
+            {"VisitAsia", "Visit"}
+        };
+        StringBuilder cases = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            String evidence[] = values[i % values.length];
+            cases.append("{\"id\": ").append(i).
+                    append(", \"type\": \"").
+                    append(i % 3 == 0 ? "full-explanation" : "marginal").
+                    append("\", \"evidence\": {\"").append(evidence[0]).
+                    append("\": \"").append(evidence[1]).append("\"}}\n");
+        }
+        instance.setNumberOfThreads(1);
+        String expected[] = run(cases.toString(), false);
+        instance.setNumberOfThreads(4);
+        String result[] = run(cases.toString(), false);
+        assertEquals(100, result.length);
+        for (int i = 0; i < result.length; i++)
+        {
+            assertEquals(expected[i], result[i]);
+            assertFalse(result[i], result[i].contains("\"error\""));
+        }
+    }
+
+    /**
+     * Test of parseType method, of class BatchQueryRunner.
+     */
+    @Test
+    public void testParseType()
+    {
+        System.out.println("parseType");
+        assertEquals(ExplanationType.MARGINAL_POSTERIOR,
+                     BatchQueryRunner.parseType("marginal"));
+        assertEquals(ExplanationType.EXPECTATION,
+                     BatchQueryRunner.parseType("Expectation"));
+        assertEquals(ExplanationType.MARKED_VARIABLES_ONLY,
+                     BatchQueryRunner.parseType("explanation"));
+        assertEquals(ExplanationType.ALL_NOT_OBSERVED_VARIABLES,
+                     BatchQueryRunner.parseType("full-explanation"));
+        try
+        {
+            BatchQueryRunner.parseType("guess");
+            assertTrue("Unknown type accepted", false);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertEquals("Unknown query type guess", ex.getMessage());
+        }
+    }
+
+    /**
+     * Test of parse and toString methods, of class Json.
+     */
+    @Test
+    public void testJson()
+    {
+        System.out.println("json");
+        String text = "{\"a\": [1, 2.5, -3e2, true, false, null], " +
+                      "\"b\": {\"c\": \"x\\\"y\\n\\u0041\"}}";
+        Map<String, Object> object = Json.parseObject(text);
+        List<?> a = (List<?>) object.get("a");
+        assertEquals(6, a.size());
+        assertEquals(1.0, a.get(0));
+        assertEquals(2.5, a.get(1));
+        assertEquals(-300.0, a.get(2));
+        assertEquals(Boolean.TRUE, a.get(3));
+        assertEquals(Boolean.FALSE, a.get(4));
+        assertEquals(null, a.get(5));
+        assertEquals("x\"y\nA", ((Map<?, ?>) object.get("b")).get("c"));
+        assertEquals(object, Json.parseObject(Json.toString(object)));
+    }
+
+    /**
+     * Test of parse method, of class Json, with nesting deeper than the
+     * limit.
+     */
+    @Test
+    public void testJsonDepth()
+    {
+        System.out.println("jsonDepth");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Json.MAX_DEPTH; i++)
+        {
+            text.append(i % 2 == 0 ? "[" : "{\"a\": ");
+        }
+        StringBuilder close = new StringBuilder();
+        for (int i = Json.MAX_DEPTH - 1; i >= 0; i--)
+        {
+            close.append(i % 2 == 0 ? "]" : "}");
+        }
+        assertTrue(Json.parse(text + "1" + close) instanceof List);
+
+        for (String deeper : new String[]
+        {
+            text + "[]" + close, text + "{}" + close
+        })
+        {
+            try
+            {
+                Json.parse(deeper);
+                assertTrue("Deep nesting accepted", false);
+            }
+            catch (IllegalArgumentException ex)
+            {
+                assertTrue(ex.getMessage(),
+                           ex.getMessage().startsWith("Nesting deeper than"));
+            }
+        }
+
+        // Far too deep for the stack of a recursive reader
+        StringBuilder line = new StringBuilder("{\"id\": 1, \"query\": ");
+        for (int i = 0; i < 100000; i++)
+        {
+            line.append('[');
+        }
+        try
+        {
+            Json.parse(line.toString());
+            assertTrue("Deep nesting accepted", false);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertTrue(ex.getMessage(),
+                       ex.getMessage().startsWith("Nesting deeper than"));
+        }
+    }
+
+    /**
+     * Test of run method, of class BatchQueryRunner, with a case nested too
+     * deeply: it gives an error line and does not stop the run.
+     *
+     * @throws Exception if the cases cannot be read
+     */
+    @Test
+    public void testRunNested() throws Exception
+    {
+        System.out.println("runNested");
+        StringBuilder cases = new StringBuilder("{\"id\": 1, \"query\": ");
+        for (int i = 0; i < 100000; i++)
+        {
+            cases.append('[');
+        }
+        cases.append("\n{\"id\": 2, \"query\": [\"Cancer\"]}\n");
+        String lines[] = run(cases.toString(), false);
+        assertEquals(2, lines.length);
+        Map<String, Object> result = Json.parseObject(lines[0]);
+        assertTrue(lines[0],
+                   String.valueOf(result.get("error")).
+                   startsWith("Nesting deeper than"));
+        result = Json.parseObject(lines[1]);
+        assertFalse(result.containsKey("error"));
+        assertEquals(2.0, result.get("id"));
+    }
+
+}
@@ -0,0 +1,343 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package Learning;
+
+import BayesianInferences.DataGenerator;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class ParameterLearnerTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(ParameterLearnerTest.class.
+                                        getName());
+
+    private static final String ASIA = "Examples/Asia/ASIA.BIF";
+    private static final long SEED = 48L;
+    private static final int SAMPLE_SIZE = 100000;
+    private static final double DELTA = 0.03;
+
+    private BayesNet original;
+    private BayesNet bayesNet;
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public ParameterLearnerTest()
+    {
+    }
+
+    /**
+     * Set up a test: the network that generates the data and a copy with
+     * uniform tables whose parameters are learned.
+     *
+     * @throws Exception if the network cannot be read
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        original = new BayesNet(new File(ASIA));
+        bayesNet = new BayesNet(new File(ASIA));
+        for (ProbabilityFunction function : bayesNet.getProbabilityFunctions())
+        {
+            double values[] = new double[function.numberValues()];
+            Arrays.fill(values, 1.0 / function.getVariable(0).numberValues());
+            function.setValues(values);
+        }
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private byte[] generate(int count, double missingRate) throws Exception
+    {
+        DataGenerator generator = new DataGenerator(original, SEED);
+        generator.setMissingRate(missingRate);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.generate(count, out, DataGenerator.Format.BINARY);
+        return out.toByteArray();
+    }
+
+    private void learn(ParameterLearner instance, byte data[])
+            throws Exception
+    {
+        try (RecordReader reader = new RecordReader(
+                          new ByteArrayInputStream(data), bayesNet))
+        {
+            instance.learn(reader);
+        }
+    }
+
+    private void assertRecovered(double delta)
+    {
+        for (int f = 0; f < original.numberProbabilityFunctions(); f++)
+        {
+            ProbabilityFunction expected = original.getProbabilityFunction(f);
+            ProbabilityFunction result = bayesNet.getProbabilityFunction(f);
+            String name = expected.getVariable(0).getName();
+            for (int i = 0; i < expected.numberValues(); i++)
+            {
+                assertEquals(name,
+                             expected.getValue(i),
+                             result.getValue(i),
+                             delta);
+            }
+        }
+    }
+
+    /**
+     * Test of learn method, of class ParameterLearner, with complete data.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testLearn() throws Exception
+    {
+        System.out.println("learn");
+        byte data[] = generate(SAMPLE_SIZE, 0.0);
+        ParameterLearner instance = new ParameterLearner(bayesNet);
+        learn(instance, data);
+        assertEquals(SAMPLE_SIZE, instance.getNumberOfRecords());
+        assertEquals(0, instance.getNumberOfIncompleteRecords());
+        assertEquals(0, instance.getNumberOfIterations());
+        assertRecovered(DELTA);
+
+        // The log-likelihood is that of the records under the estimates
+        double logLikelihood = 0.0;
+        int numberOfVariables = bayesNet.numberVariables();
+        int records[] = new int[1000 * numberOfVariables];
+        try (RecordReader reader = new RecordReader(
+                          new ByteArrayInputStream(data), bayesNet))
+        {
+            int n;
+            while ((n = reader.read(records, 1000)) > 0)
+            {
+                for (int r = 0; r < n; r++)
+                {
+                    int record[] = Arrays.copyOfRange(
+                        records,
+                        r * numberOfVariables,
+                        (r + 1) * numberOfVariables);
+                    for (ProbabilityFunction function :
+                         bayesNet.getProbabilityFunctions())
+                    {
+                        logLikelihood += Math.log(function.evaluate(record));
+                    }
+                }
+            }
+        }
+        assertEquals(logLikelihood,
+                     instance.getLogLikelihood(),
+                     1e-9 * Math.abs(logLikelihood));
+    }
+
+    /**
+     * Test of learn method, of class ParameterLearner, with a data file.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testLearnFile() throws Exception
+    {
+        System.out.println("learnFile");
+        File file = File.createTempFile("asia", ".csv");
+        try
+        {
+            DataGenerator generator = new DataGenerator(original, SEED);
+            generator.generate(SAMPLE_SIZE, file, DataGenerator.Format.CSV);
+            ParameterLearner instance = new ParameterLearner(bayesNet);
+            instance.learn(file);
+            assertEquals(SAMPLE_SIZE, instance.getNumberOfRecords());
+            assertRecovered(DELTA);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test of setNumberOfThreads method, of class ParameterLearner: the
+     * estimates do not depend on the number of threads.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testLearnThreads() throws Exception
+    {
+        System.out.println("learnThreads");
+        byte data[] = generate(SAMPLE_SIZE, 0.1);
+        double expected[][] = null;
+        for (int threads = 1; threads <= 4; threads *= 2)
+        {
+            setUp();
+            ParameterLearner instance = new ParameterLearner(bayesNet);
+            instance.setNumberOfThreads(threads);
+            learn(instance, data);
+            ProbabilityFunction functions[] =
+                                bayesNet.getProbabilityFunctions();
+            if (expected == null)
+            {
+                expected = new double[functions.length][];
+                for (int f = 0; f < functions.length; f++)
+                {
+                    expected[f] = functions[f].getValues().clone();
+                }
+                continue;
+            }
+            for (int f = 0; f < functions.length; f++)
+            {
+                assertArrayEquals(expected[f],
+                                  functions[f].getValues(),
+                                  1e-12);
+            }
+        }
+    }
+
+    /**
+     * Test of setPseudoCount method, of class ParameterLearner.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testSetPseudoCount() throws Exception
+    {
+        System.out.println("setPseudoCount");
+        int count = 50;
+        byte data[] = generate(count, 0.0);
+        int visitAsia = bayesNet.indexOfVariable("VisitAsia");
+        int numberOfVariables = bayesNet.numberVariables();
+        int records[] = new int[count * numberOfVariables];
+        try (RecordReader reader = new RecordReader(
+                          new ByteArrayInputStream(data), bayesNet))
+        {
+            assertEquals(count, reader.read(records, count));
+        }
+        int visits = 0;
+        for (int r = 0; r < count; r++)
+        {
+            if (records[r * numberOfVariables + visitAsia] == 0)
+            {
+                visits++;
+            }
+        }
+
+        ParameterLearner instance = new ParameterLearner(bayesNet);
+        instance.setPseudoCount(1.0);
+        learn(instance, data);
+        ProbabilityFunction result = bayesNet.getFunction("VisitAsia");
+        assertEquals((visits + 1.0) / (count + 2.0), result.getValue(0), 1e-12);
+        assertEquals((count - visits + 1.0) / (count + 2.0),
+                     result.getValue(1),
+                     1e-12);
+    }
+
+    /**
+     * Test of setPseudoCount method, of class ParameterLearner, with a
+     * negative count.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetPseudoCountNegative()
+    {
+        System.out.println("setPseudoCountNegative");
+        new ParameterLearner(bayesNet).setPseudoCount(-1.0);
+    }
+
+    /**
+     * Test of learn method, of class ParameterLearner, with missing values
+     * handled by expectation maximization.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testLearnExpectationMaximization() throws Exception
+    {
+        System.out.println("learnExpectationMaximization");
+        byte data[] = generate(SAMPLE_SIZE, 0.2);
+        ParameterLearner instance = new ParameterLearner(bayesNet);
+        instance.setMaxIterations(1);
+        learn(instance, data);
+        double firstLogLikelihood = instance.getLogLikelihood();
+
+        setUp();
+        instance = new ParameterLearner(bayesNet);
+        assertTrue(instance.isUsingExpectationMaximization());
+        learn(instance, data);
+        assertEquals(SAMPLE_SIZE, instance.getNumberOfRecords());
+        // Each of the 8 values is missing with probability 0.2
+        double incomplete = 1.0 - Math.pow(0.8, 8);
+        assertEquals(incomplete,
+                     (double) instance.getNumberOfIncompleteRecords() /
+                     SAMPLE_SIZE,
+                     0.01);
+        assertTrue(instance.getNumberOfPatterns() > 0);
+        assertTrue(instance.getNumberOfIterations() > 1);
+        assertTrue(instance.getLogLikelihood() > firstLogLikelihood);
+        assertRecovered(DELTA);
+    }
+
+    /**
+     * Test of setUsingExpectationMaximization method, of class
+     * ParameterLearner: without it only the complete families are counted.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testSetUsingExpectationMaximization() throws Exception
+    {
+        System.out.println("setUsingExpectationMaximization");
+        byte data[] = generate(SAMPLE_SIZE, 0.2);
+        ParameterLearner instance = new ParameterLearner(bayesNet);
+        instance.setUsingExpectationMaximization(false);
+        learn(instance, data);
+        assertEquals(SAMPLE_SIZE, instance.getNumberOfRecords());
+        assertTrue(instance.getNumberOfIncompleteRecords() > 0);
+        assertEquals(0, instance.getNumberOfPatterns());
+        assertEquals(0, instance.getNumberOfIterations());
+        // Values are missing at random, so the estimates are unbiased
+        assertRecovered(DELTA);
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package Learning;
+
+import BayesianInferences.DataGenerator;
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class StructureLearnerTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(StructureLearnerTest.class.
+                                        getName());
+
+    private static final String DOG = "Examples/DogProblem/dog-problem.bif";
+    private static final long SEED = 49L;
+    private static final int SAMPLE_SIZE = 100000;
+
+    private BayesNet bayesNet;
+    private byte data[];
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public StructureLearnerTest()
+    {
+    }
+
+    /**
+     * Set up a test: complete data generated from the dog problem.
+     *
+     * @throws Exception if the network cannot be read or the data generated
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        bayesNet = new BayesNet(new File(DOG));
+        data = generate(0.0);
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private byte[] generate(double missingRate) throws Exception
+    {
+        DataGenerator generator = new DataGenerator(bayesNet, SEED);
+        generator.setMissingRate(missingRate);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.generate(SAMPLE_SIZE, out, DataGenerator.Format.BINARY);
+        return out.toByteArray();
+    }
+
+    private BayesNet learn(StructureLearner instance) throws Exception
+    {
+        try (RecordReader reader = new RecordReader(
+                          new ByteArrayInputStream(data), bayesNet))
+        {
+            return instance.learn(reader);
+        }
+    }
+
+    /**
+     * The undirected arcs of a network.
+     */
+    private static Set<String> skeleton(BayesNet network)
+    {
+        Set<String> arcs = new TreeSet<>();
+        for (ProbabilityFunction function : network.getProbabilityFunctions())
+        {
+            String child = function.getVariable(0).getName();
+            for (int i = 1; i < function.numberVariables(); i++)
+            {
+                String parent = function.getVariable(i).getName();
+                arcs.add(child.compareTo(parent) < 0 ?
+                         child + "-" + parent :
+                         parent + "-" + child);
+            }
+        }
+        return arcs;
+    }
+
+    /**
+     * BIC of the structure of a network, from the maximum likelihood
+     * estimates of its parameters.
+     */
+    private double bic(BayesNet network) throws Exception
+    {
+        ParameterLearner learner = new ParameterLearner(network);
+        try (RecordReader reader = new RecordReader(
+                          new ByteArrayInputStream(data), network))
+        {
+            learner.learn(reader);
+        }
+        double numberOfParameters = 0.0;
+        for (ProbabilityFunction function : network.getProbabilityFunctions())
+        {
+            int numberOfValues = function.getVariable(0).numberValues();
+            numberOfParameters += function.numberValues() / numberOfValues *
+                                  (numberOfValues - 1);
+        }
+        return learner.getLogLikelihood() -
+               0.5 * Math.log(SAMPLE_SIZE) * numberOfParameters;
+    }
+
+    /**
+     * Test of learn method, of class StructureLearner: the arcs of the
+     * generating network are found and the score is the BIC of the learned
+     * structure.
+     *
+     * @throws Exception if the data cannot be read
+     */
+    @Test
+    public void testLearn() throws Exception
+    {
+        System.out.println("learn");
+        StructureLearner instance = new StructureLearner(bayesNet);
+        BayesNet result = learn(instance);
+        assertEquals(SAMPLE_SIZE, instance.getNumberOfRecords());
+        assertEquals(0, instance.getNumberOfSkippedRecords());
+        assertTrue(instance.getNumberOfMoves() > 0);
+        assertTrue(instance.getNumberOfScoredFamilies() > 0);
+        assertEquals(bayesNet.numberVariables(), result.numberVariables());
+        assertTrue(skeleton(result).containsAll(skeleton(bayesNet)));
+
+        double expected = bic(result);
+        assertEquals(expected,
+                     instance.getStructureScore(),
+                     1e-9 * Math.abs(expected));
+        // Every move improves on the network without arcs
+        StructureLearner empty = new StructureLearner(bayesNet);
+        empty.setMaxParents(0);
+        assertTrue(skeleton(learn(empty)).isEmpty());
+        assertEquals(0, empty.getNumberOfMoves());
+        assertTrue(instance.getStructureScore() >
+                   empty.getStructureScore());
+    }
+
+    /**
+     * Test of setScore method, of class StructureLearner, with BDeu.
+     *
+     * @throws Exception if the data cannot be read
+     */
+    @Test
+    public void testSetScore() throws Exception
+    {
+        System.out.println("setScore");
+        StructureLearner instance = new StructureLearner(bayesNet);
+        instance.setScore(StructureLearner.Score.BDEU);
+        instance.setEquivalentSampleSize(10.0);
+        BayesNet result = learn(instance);
+        assertTrue(skeleton(result).containsAll(skeleton(bayesNet)));
+        assertTrue(instance.getStructureScore() < 0.0);
+    }
+
+    /**
+     * Test of setSearch method, of class StructureLearner: tabu search
+     * returns the best structure it visits, which is at least as good as
+     * the one hill climbing stops at.
+     *
+     * @throws Exception if the data cannot be read
+     */
+    @Test
+    public void testSetSearch() throws Exception
+    {
+        System.out.println("setSearch");
+        for (StructureLearner.Score score : StructureLearner.Score.values())
+        {
+            StructureLearner hillClimbing = new StructureLearner(bayesNet);
+            hillClimbing.setScore(score);
+            learn(hillClimbing);
+            StructureLearner tabu = new StructureLearner(bayesNet);
+            tabu.setScore(score);
+            tabu.setSearch(StructureLearner.Search.TABU);
+            BayesNet result = learn(tabu);
+            assertTrue(score.toString(),
+                       tabu.getStructureScore() >=
+                       hillClimbing.getStructureScore());
+            if (score == StructureLearner.Score.BIC)
+            {
+                double expected = bic(result);
+                assertEquals(expected,
+                             tabu.getStructureScore(),
+                             1e-9 * Math.abs(expected));
+            }
+        }
+    }
+
+    /**
+     * Test of setMaxParents method, of class StructureLearner.
+     *
+     * @throws Exception if the data cannot be read
+     */
+    @Test
+    public void testSetMaxParents() throws Exception
+    {
+        System.out.println("setMaxParents");
+        StructureLearner instance = new StructureLearner(bayesNet);
+        instance.setMaxParents(1);
+        BayesNet result = learn(instance);
+        for (ProbabilityFunction function : result.getProbabilityFunctions())
+        {
+            assertTrue(function.numberVariables() <= 2);
+        }
+    }
+
+    /**
+     * Test of setNumberOfThreads method, of class StructureLearner: the
+     * result does not depend on the number of threads.
+     *
+     * @throws Exception if the data cannot be read
+     */
+    @Test
+    public void testSetNumberOfThreads() throws Exception
+    {
+        System.out.println("setNumberOfThreads");
+        StructureLearner single = new StructureLearner(bayesNet);
+        single.setNumberOfThreads(1);
+        BayesNet expected = learn(single);
+        StructureLearner instance = new StructureLearner(bayesNet);
+        instance.setNumberOfThreads(4);
+        BayesNet result = learn(instance);
+        assertEquals(single.getStructureScore(),
+                     instance.getStructureScore(),
+                     0.0);
+        for (int v = 0; v < expected.numberVariables(); v++)
+        {
+            assertArrayEquals(expected.getFunction(v).getIndexes(),
+                              result.getFunction(v).getIndexes());
+        }
+    }
+
+    /**
+     * Test of learn method, of class StructureLearner, with records that
+     * have missing values, which are skipped.
+     *
+     * @throws Exception if the data cannot be generated or read
+     */
+    @Test
+    public void testLearnMissing() throws Exception
+    {
+        System.out.println("learnMissing");
+        data = generate(0.05);
+        StructureLearner instance = new StructureLearner(bayesNet);
+        learn(instance);
+        assertEquals(SAMPLE_SIZE,
+                     instance.getNumberOfRecords() +
+                     instance.getNumberOfSkippedRecords());
+        // Each of the 5 values is missing with probability 0.05
+        assertEquals(1.0 - Math.pow(0.95, 5),
+                     (double) instance.getNumberOfSkippedRecords() /
+                     SAMPLE_SIZE,
+                     0.01);
+    }
+
+    /**
+     * Test of logGamma method, of class StructureLearner.
+     */
+    @Test
+    public void testLogGamma()
+    {
+        System.out.println("logGamma");
+        assertEquals(0.0, StructureLearner.logGamma(1.0), 1e-12);
+        assertEquals(0.0, StructureLearner.logGamma(2.0), 1e-12);
+        assertEquals(0.5 * Math.log(Math.PI),
+                     StructureLearner.logGamma(0.5),
+                     1e-12);
+        assertEquals(Math.log(362880.0),
+                     StructureLearner.logGamma(10.0),
+                     1e-10);
+        assertEquals(Math.log(4.0 * Math.sqrt(Math.PI) / 3.0),
+                     StructureLearner.logGamma(-1.5),
+                     1e-10);
+        // Recurrence for large arguments
+        double x = 12345.678;
+        assertEquals(StructureLearner.logGamma(x) + Math.log(x),
+                     StructureLearner.logGamma(x + 1.0),
+                     1e-9 * StructureLearner.logGamma(x));
+    }
+
+}
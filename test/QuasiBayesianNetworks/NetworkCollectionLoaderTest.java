@@ -0,0 +1,227 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package QuasiBayesianNetworks;
+
+import BayesianNetworks.ProbabilityFunction;
+import BayesianNetworks.SymbolTable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class NetworkCollectionLoaderTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(
+                                        NetworkCollectionLoaderTest.class.
+                                        getName());
+
+    private static final String FILES[] =
+    {
+        "Examples/Asia/ASIA.BIF",
+        "Examples/Alarm/ALARM.BIF",
+        "Examples/Cancer/CANCER.BIF",
+        "Examples/DogProblem/dog-problem.xml",
+        "Examples/Hailfinder25/hailfinder25.xml03",
+        "Examples/JohnMaryCall/john-mary-call.bif",
+        "Examples/CarStarts/car-starts.bif",
+        "Examples/Elimbel2/ELIMBEL2.BIF"
+    };
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public NetworkCollectionLoaderTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static List<File> files(String... fileNames)
+    {
+        List<File> files = new ArrayList<>();
+        for (String fileName : fileNames)
+        {
+            files.add(new File(fileName));
+        }
+        return files;
+    }
+
+    /**
+     * Test of load method, of class NetworkCollectionLoader: the networks
+     * are those loaded one by one, in the order of the files.
+     *
+     * @throws Exception if a network cannot be loaded
+     */
+    @Test
+    public void testLoad() throws Exception
+    {
+        System.out.println("load");
+        NetworkCollectionLoader instance = new NetworkCollectionLoader();
+        instance.setNumberOfThreads(4);
+        assertNull(instance.getSymbolTable());
+        List<File> files = files(FILES);
+        List<NetworkCollectionLoader.Result> results = instance.load(files);
+        assertEquals(files.size(), results.size());
+        for (int i = 0; i < files.size(); i++)
+        {
+            NetworkCollectionLoader.Result result = results.get(i);
+            assertSame(files.get(i), result.getFile());
+            assertTrue(FILES[i], result.isLoaded());
+            assertNull(result.getError());
+            assertTrue(result.getParseNanos() >= 0);
+
+            QuasiBayesNet expected = new QuasiBayesNet(files.get(i));
+            QuasiBayesNet network = result.getNetwork();
+            assertEquals(expected.getName(), network.getName());
+            assertEquals(expected.numberVariables(),
+                         network.numberVariables());
+            for (int v = 0; v < expected.numberVariables(); v++)
+            {
+                assertEquals(expected.getProbabilityVariable(v).getName(),
+                             network.getProbabilityVariable(v).getName());
+                assertArrayEquals(expected.getProbabilityVariable(v).
+                        getValues(),
+                                  network.getProbabilityVariable(v).
+                                  getValues());
+            }
+            ProbabilityFunction expectedFunctions[] =
+                                expected.getProbabilityFunctions();
+            ProbabilityFunction functions[] =
+                                network.getProbabilityFunctions();
+            assertEquals(expectedFunctions.length, functions.length);
+            for (int f = 0; f < functions.length; f++)
+            {
+                assertArrayEquals(expectedFunctions[f].getIndexes(),
+                                  functions[f].getIndexes());
+                assertArrayEquals(expectedFunctions[f].getValues(),
+                                  functions[f].getValues(),
+                                  0.0);
+            }
+        }
+    }
+
+    /**
+     * Test of load method, of class NetworkCollectionLoader, with files that
+     * cannot be loaded: they do not stop the others.
+     *
+     * @throws Exception if the loading is interrupted
+     */
+    @Test
+    public void testLoadErrors() throws Exception
+    {
+        System.out.println("loadErrors");
+        NetworkCollectionLoader instance = new NetworkCollectionLoader();
+        instance.setNumberOfThreads(2);
+        List<NetworkCollectionLoader.Result> results = instance.load(
+                                             files(FILES[0],
+                                                   "Examples/Missing.bif",
+                                                   "Examples/Asia/ASIA.GIF",
+                                                   FILES[2]));
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isLoaded());
+        assertFalse(results.get(1).isLoaded());
+        assertNull(results.get(1).getNetwork());
+        assertTrue(results.get(1).getError() instanceof FileNotFoundException);
+        assertFalse(results.get(2).isLoaded());
+        assertTrue(results.get(2).getError() != null);
+        assertTrue(results.get(3).isLoaded());
+        assertTrue(instance.load(new ArrayList<File>()).isEmpty());
+    }
+
+    /**
+     * Test of getSymbolTable method, of class NetworkCollectionLoader: the
+     * names of a collection are shared, with the given table or with a
+     * table of the collection.
+     *
+     * @throws Exception if the loading is interrupted
+     */
+    @Test
+    public void testGetSymbolTable() throws Exception
+    {
+        System.out.println("getSymbolTable");
+        SymbolTable symbols = new SymbolTable();
+        NetworkCollectionLoader shared = new NetworkCollectionLoader(symbols);
+        assertSame(symbols, shared.getSymbolTable());
+        List<File> files = files(FILES[0], FILES[2]);
+        for (NetworkCollectionLoader instance :
+             Arrays.asList(shared, new NetworkCollectionLoader()))
+        {
+            List<NetworkCollectionLoader.Result> results =
+                                                 instance.load(files);
+            // Present/Absent in ASIA and CANCER
+            assertSame(results.get(0).getNetwork().
+                    getProbabilityVariable("Cancer").getValues(),
+                       results.get(1).getNetwork().
+                       getProbabilityVariable("MetastaticCancer").
+                       getValues());
+        }
+        assertSame(symbols.intern("Present"),
+                   shared.load(files).get(0).getNetwork().
+                   getProbabilityVariable("Cancer").getValue(0));
+        assertTrue(symbols.size() > 0);
+    }
+
+    /**
+     * Test of setNumberOfThreads method, of class NetworkCollectionLoader,
+     * with no thread.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNumberOfThreadsInvalid()
+    {
+        System.out.println("setNumberOfThreadsInvalid");
+        new NetworkCollectionLoader().setNumberOfThreads(0);
+    }
+
+}
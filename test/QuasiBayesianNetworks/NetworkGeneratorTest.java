@@ -0,0 +1,162 @@
+/*
+ * @author  Dieter J Kybelksties
+ * @date Oct 19, 2026
+ *
+ */
+package QuasiBayesianNetworks;
+
+import BayesianNetworks.BayesNet;
+import BayesianNetworks.ProbabilityFunction;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author kybelksd
+ */
+public class NetworkGeneratorTest
+{
+
+    private static final Logger LOG =
+                                Logger.getLogger(NetworkGeneratorTest.class.
+                                        getName());
+
+    /**
+     * Set up the class for testing.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tear down the class after testing.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default constructor.
+     */
+    public NetworkGeneratorTest()
+    {
+    }
+
+    /**
+     * Set up a test.
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Tear down a test.
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test of generateBayesNet method, of class NetworkGenerator.
+     */
+    @Test
+    public void testGenerateBayesNet()
+    {
+        System.out.println("generateBayesNet");
+        NetworkGenerator instance = new NetworkGenerator(200, 4, 3, 17L);
+        instance.setTreeWidthBound(5);
+        BayesNet result = instance.generateBayesNet();
+        assertEquals(200, result.numberVariables());
+        assertEquals(200, result.numberProbabilityFunctions());
+
+        for (int i = 0; i < result.numberProbabilityFunctions(); i++)
+        {
+            ProbabilityFunction probFunc = result.getFunction(i);
+            assertEquals(i, probFunc.getVariable(0).getIndex());
+            assertTrue(probFunc.numberVariables() <= 5);
+            for (int p = 1; p < probFunc.numberVariables(); p++)
+            {
+                int parent = probFunc.getVariable(p).getIndex();
+                assertTrue(parent < i && parent >= i - 5);
+            }
+            double sum = 0.0;
+            for (int j = 0; j < probFunc.numberValues(); j++)
+            {
+                sum += probFunc.getValue(j);
+            }
+            assertEquals(probFunc.numberValues() /
+                         probFunc.getVariable(0).numberValues(),
+                         sum,
+                         1e-9);
+        }
+
+        // Same parameters and seed give the same network
+        BayesNet again = instance.generateBayesNet();
+        assertEquals(bifOf(result), bifOf(again));
+    }
+
+    /**
+     * Test that generated networks survive a round trip through saveBif and
+     * saveXml.
+     *
+     * @throws Exception if the saved network cannot be parsed
+     */
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        System.out.println("roundTrip");
+        NetworkGenerator instance = new NetworkGenerator(30, 3, 4, 5L);
+        BayesNet generated = instance.generateBayesNet();
+
+        BayesNet fromBif = new BayesNet(bifOf(generated));
+        assertEquals(bifOf(generated), bifOf(fromBif));
+
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        generated.saveXml(new PrintStream(xml));
+        BayesNet fromXml = new BayesNet(xml.toString());
+        assertEquals(generated.numberVariables(), fromXml.numberVariables());
+        assertEquals(generated.getFunction(29).getValue(0),
+                     fromXml.getFunction(29).getValue(0),
+                     1e-12);
+    }
+
+    /**
+     * Test of generateQuasiBayesNet method, of class NetworkGenerator.
+     *
+     * @throws Exception if the saved network cannot be parsed
+     */
+    @Test
+    public void testGenerateQuasiBayesNet() throws Exception
+    {
+        System.out.println("generateQuasiBayesNet");
+        NetworkGenerator instance = new NetworkGenerator(25, 2, 2, 3L);
+        instance.setCredalDensity(1.0);
+        QuasiBayesNet result = instance.generateQuasiBayesNet();
+        assertTrue(result.areLocalCredalSetsPresent());
+
+        ByteArrayOutputStream bif = new ByteArrayOutputStream();
+        result.saveBif(new PrintStream(bif));
+        QuasiBayesNet reloaded = new QuasiBayesNet(bif.toString());
+        assertTrue(reloaded.areLocalCredalSetsPresent());
+        assertEquals(25, reloaded.numberVariables());
+    }
+
+    private static String bifOf(BayesNet bayesNet)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bayesNet.saveBif(new PrintStream(out));
+        return out.toString();
+    }
+}